@@ -0,0 +1,43 @@
+package com.caesb.AiClassificator.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Corpus de tickets reais (anonimizados) usado pelos benchmarks: emails HTML, respostas
+ * encaminhadas, assinaturas, avisos de confidencialidade e PII (CPF, telefone, cartao).
+ */
+public final class TicketCorpus {
+
+    /**
+     * Ticket como chega do GLPI/Znuny.
+     */
+    public record Ticket(String ticketId, String subject, String body, String sender) {
+    }
+
+    private static final List<Ticket> TICKETS = load();
+
+    private TicketCorpus() {
+    }
+
+    public static List<Ticket> tickets() {
+        return TICKETS;
+    }
+
+    private static List<Ticket> load() {
+        try (InputStream in = TicketCorpus.class.getResourceAsStream("/ticket-corpus.json")) {
+            if (in == null) {
+                throw new IllegalStateException("ticket-corpus.json nao encontrado no classpath");
+            }
+            return List.copyOf(new ObjectMapper().readValue(in, new TypeReference<List<Ticket>>() {
+            }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
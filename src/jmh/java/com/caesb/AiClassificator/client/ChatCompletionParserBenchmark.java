@@ -0,0 +1,75 @@
+package com.caesb.AiClassificator.client;
+
+import com.caesb.AiClassificator.model.AIResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse do envelope de chat completion do Azure: streaming (atual) contra readTree (anterior).
+ * Rodar com -prof gc para comparar alocacao por chamada (gc.alloc.rate.norm).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatCompletionParserBenchmark {
+
+    // Resposta tipica do Azure OpenAI, com filtros de conteudo e detalhes de uso
+    private static final String RESPONSE = """
+            {"id":"chatcmpl-B9MBs8CjcvOU2jLn4n570S5qMJKcT","object":"chat.completion","created":1741569952,
+             "model":"gpt-4o-mini-2024-07-18","system_fingerprint":"fp_b705f0c291",
+             "prompt_filter_results":[{"prompt_index":0,"content_filter_results":{
+               "hate":{"filtered":false,"severity":"safe"},"jailbreak":{"filtered":false,"detected":false},
+               "self_harm":{"filtered":false,"severity":"safe"},"sexual":{"filtered":false,"severity":"safe"},
+               "violence":{"filtered":false,"severity":"safe"}}}],
+             "choices":[{"index":0,"finish_reason":"stop","logprobs":null,
+               "content_filter_results":{"hate":{"filtered":false,"severity":"safe"},
+                 "protected_material_code":{"filtered":false,"detected":false},
+                 "protected_material_text":{"filtered":false,"detected":false},
+                 "self_harm":{"filtered":false,"severity":"safe"},"sexual":{"filtered":false,"severity":"safe"},
+                 "violence":{"filtered":false,"severity":"safe"}},
+               "message":{"role":"assistant","refusal":null,"content":"{\\"t\\":\\"INC\\",\\"s\\":\\"INC-202\\",\\"c\\":0.92}"}}],
+             "usage":{"prompt_tokens":1843,"completion_tokens":18,"total_tokens":1861,
+               "prompt_tokens_details":{"cached_tokens":1664,"audio_tokens":0},
+               "completion_tokens_details":{"reasoning_tokens":0,"audio_tokens":0}}}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final byte[] responseBytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public AIResponse streamingFromString() {
+        return ChatCompletionParser.parse(objectMapper, RESPONSE, "gpt-4o-mini", 0L, "Azure OpenAI");
+    }
+
+    @Benchmark
+    public AIResponse streamingFromBytes() {
+        return ChatCompletionParser.parse(objectMapper, new ByteArrayInputStream(responseBytes),
+                "gpt-4o-mini", "Azure OpenAI");
+    }
+
+    /**
+     * Caminho anterior: bytes copiados para String e lidos com readTree.
+     */
+    @Benchmark
+    public AIResponse treeBaseline() throws IOException {
+        JsonNode root = objectMapper.readTree(new String(responseBytes, StandardCharsets.UTF_8));
+        JsonNode usage = root.path("usage");
+        return AIResponse.builder()
+                .success(true)
+                .content(root.path("choices").get(0).path("message").path("content").asText())
+                .model("gpt-4o-mini")
+                .promptTokens(usage.path("prompt_tokens").asInt(0))
+                .completionTokens(usage.path("completion_tokens").asInt(0))
+                .totalTokens(usage.path("total_tokens").asInt(0))
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.benchmark.TicketCorpus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geracao da chave de idempotencia (SHA-256 de ticketId|subject|body).
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassificationCacheBenchmark {
+
+    private final List<TicketCorpus.Ticket> tickets = TicketCorpus.tickets();
+    private final ClassificationCache cache = new ClassificationCache();
+    private int next;
+
+    @Benchmark
+    public String generateKey() {
+        TicketCorpus.Ticket ticket = tickets.get(next);
+        next = (next + 1) % tickets.size();
+        return cache.generateKey(ticket.ticketId(), ticket.subject(), ticket.body());
+    }
+}
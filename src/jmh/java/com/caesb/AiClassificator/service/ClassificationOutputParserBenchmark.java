@@ -0,0 +1,49 @@
+package com.caesb.AiClassificator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse da saida de classificacao (content da IA): streaming em record contra readTree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassificationOutputParserBenchmark {
+
+    private static final String CONTENT = "{\"t\":\"INC\",\"s\":\"INC-202\",\"c\":0.92}";
+
+    private static final String PACKED_CONTENT = """
+            {"r":[{"i":1,"t":"INC","s":"INC-202","c":0.92},{"i":2,"t":"REQ","s":"REQ-101","c":0.88},
+             {"i":3,"t":"REQ","s":"REQ-120","c":0.75},{"i":4,"t":"OS","s":"OS-301","c":0.81}]}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Benchmark
+    public ClassificationOutputParser.Output streaming() throws IOException {
+        return ClassificationOutputParser.parse(objectMapper, CONTENT);
+    }
+
+    @Benchmark
+    public Object streamingPacked() throws IOException {
+        return ClassificationOutputParser.parsePacked(objectMapper, PACKED_CONTENT);
+    }
+
+    /**
+     * Caminho anterior: arvore JsonNode e leitura campo a campo.
+     */
+    @Benchmark
+    public ClassificationOutputParser.Output treeBaseline() throws IOException {
+        JsonNode node = objectMapper.readTree(CONTENT);
+        return new ClassificationOutputParser.Output(-1, node.path("t").asText(null),
+                node.path("s").asText(null), node.path("c").isNumber() ? node.path("c").asDouble() : null);
+    }
+}
@@ -0,0 +1,55 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.benchmark.TicketCorpus;
+import com.caesb.AiClassificator.model.PromptResult;
+import com.caesb.AiClassificator.model.SanitizedData;
+import com.caesb.AiClassificator.model.SentimentResult;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem do prompt de classificacao a partir de tickets ja sanitizados.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBuilderBenchmark {
+
+    private final PromptBuilder promptBuilder = new PromptBuilder();
+    private SanitizedData[] sanitized;
+    private SentimentResult[] sentiments;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Sanitizer sanitizer = new Sanitizer();
+        ReflectionTestUtils.setField(sanitizer, "bodyMaxLength", 300);
+        ReflectionTestUtils.setField(sanitizer, "bodyMinLength", 200);
+        ReflectionTestUtils.setField(sanitizer, "sanitizePii", true);
+        SentimentAnalyzer analyzer = new SentimentAnalyzer();
+
+        List<TicketCorpus.Ticket> tickets = TicketCorpus.tickets();
+        sanitized = new SanitizedData[tickets.size()];
+        sentiments = new SentimentResult[tickets.size()];
+        for (int i = 0; i < tickets.size(); i++) {
+            TicketCorpus.Ticket ticket = tickets.get(i);
+            sanitized[i] = sanitizer.sanitizeAll(ticket.subject(), ticket.body(), ticket.sender());
+            sentiments[i] = analyzer.analyzeSentiment(ticket.body());
+        }
+    }
+
+    @Benchmark
+    public PromptResult buildClassificationPrompt() {
+        SanitizedData data = sanitized[next];
+        SentimentResult sentiment = sentiments[next];
+        next = (next + 1) % sanitized.length;
+        return promptBuilder.buildClassificationPrompt(data.getSubject(), data.getBody(),
+                sentiment.getSentimentLabel(), sentiment.isUrgencyDetected(), null);
+    }
+}
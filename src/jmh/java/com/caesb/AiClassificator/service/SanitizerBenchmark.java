@@ -0,0 +1,55 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.benchmark.TicketCorpus;
+import com.caesb.AiClassificator.model.SanitizedData;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sanitizacao (HTML, assinaturas, PII) sobre o corpus de tickets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SanitizerBenchmark {
+
+    private final List<TicketCorpus.Ticket> tickets = TicketCorpus.tickets();
+    private Sanitizer sanitizer;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        sanitizer = new Sanitizer();
+        ReflectionTestUtils.setField(sanitizer, "bodyMaxLength", 300);
+        ReflectionTestUtils.setField(sanitizer, "bodyMinLength", 200);
+        ReflectionTestUtils.setField(sanitizer, "sanitizePii", true);
+    }
+
+    private TicketCorpus.Ticket nextTicket() {
+        TicketCorpus.Ticket ticket = tickets.get(next);
+        next = (next + 1) % tickets.size();
+        return ticket;
+    }
+
+    @Benchmark
+    public SanitizedData sanitizeAll() {
+        TicketCorpus.Ticket ticket = nextTicket();
+        return sanitizer.sanitizeAll(ticket.subject(), ticket.body(), ticket.sender());
+    }
+
+    @Benchmark
+    public String removePii() {
+        return sanitizer.removePii(nextTicket().body());
+    }
+
+    @Benchmark
+    public String normalizeForComparison() {
+        return Sanitizer.normalizeForComparison(nextTicket().body());
+    }
+}
@@ -0,0 +1,31 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.benchmark.TicketCorpus;
+import com.caesb.AiClassificator.model.SentimentResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analise de sentimento/urgencia por lexico sobre o corpus de tickets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SentimentAnalyzerBenchmark {
+
+    private final List<TicketCorpus.Ticket> tickets = TicketCorpus.tickets();
+    private final SentimentAnalyzer analyzer = new SentimentAnalyzer();
+    private int next;
+
+    @Benchmark
+    public SentimentResult analyzeSentiment() {
+        TicketCorpus.Ticket ticket = tickets.get(next);
+        next = (next + 1) % tickets.size();
+        return analyzer.analyzeSentiment(ticket.body());
+    }
+}
@@ -0,0 +1,98 @@
+package com.caesb.AiClassificator.client;
+
+import com.caesb.AiClassificator.model.AIResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metricas das chamadas aos providers de IA (contadores e histogramas do Micrometer).
+ * Provider e modelo so viram tag quando registrados no AIProviderRegistry; o resto vira "unknown".
+ */
+@Component
+@RequiredArgsConstructor
+public class AICallMetrics {
+
+    private static final String NONE = "none";
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final AIProviderRegistry providerRegistry;
+
+    /**
+     * Registra uma chamada ao provider: resultado, codigo de erro, latencia e tokens consumidos.
+     *
+     * @param provider Provider chamado
+     * @param model    Modelo solicitado (usado quando a resposta nao informa o modelo)
+     * @param response Resposta do provider
+     */
+    public void recordCall(String provider, String model, AIResponse response) {
+        String providerTag = provider == null ? NONE
+                : providerRegistry.isProviderAvailable(provider) ? provider : UNKNOWN;
+        String modelTag = modelTag(provider, response.getModel() != null ? response.getModel() : model);
+        String outcome = response.isSuccess() ? "success" : "error";
+
+        Counter.builder("ai.calls")
+                .description("Chamadas aos providers de IA por resultado")
+                .tag("provider", providerTag)
+                .tag("model", modelTag)
+                .tag("outcome", outcome)
+                .tag("error_code", response.getErrorCode() != null ? response.getErrorCode() : NONE)
+                .register(meterRegistry)
+                .increment();
+
+        if (response.getLatencyMs() != null) {
+            Timer.builder("ai.call.latency")
+                    .description("Latencia das chamadas aos providers de IA")
+                    .tag("provider", providerTag)
+                    .tag("model", modelTag)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(response.getLatencyMs(), TimeUnit.MILLISECONDS);
+        }
+
+        recordTokens(providerTag, modelTag, "prompt", response.getPromptTokens());
+        recordTokens(providerTag, modelTag, "completion", response.getCompletionTokens());
+    }
+
+    /**
+     * Registra uma ativacao de fallback.
+     *
+     * @param type    "model" (modelo secundario) ou "manual" (fila de classificacao manual)
+     * @param trigger Codigo de erro que motivou o fallback
+     */
+    public void recordFallback(String type, String trigger) {
+        Counter.builder("ai.fallback")
+                .description("Ativacoes de fallback no AIProviderFactory")
+                .tag("type", type)
+                .tag("trigger", trigger != null ? trigger : NONE)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private String modelTag(String provider, String model) {
+        if (model == null) {
+            return NONE;
+        }
+        return provider != null && providerRegistry.isModelAvailable(provider, model) ? model : UNKNOWN;
+    }
+
+    private void recordTokens(String provider, String model, String type, Integer tokens) {
+        if (tokens == null || tokens <= 0) {
+            return;
+        }
+        Counter.builder("ai.tokens")
+                .description("Tokens consumidos por modelo")
+                .baseUnit("tokens")
+                .tag("provider", provider)
+                .tag("model", model)
+                .tag("type", type)
+                .register(meterRegistry)
+                .increment(tokens);
+    }
+}
@@ -0,0 +1,276 @@
+package com.caesb.AiClassificator.client;
+
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agendador de chamadas a IA por prioridade (earliest-deadline-first).
+ * Cada chamada consome uma permissao do rate limiter azureopenai. Quando a cota acaba,
+ * as chamadas aguardam em fila e sao liberadas pelo menor prazo: o prazo e a chegada
+ * mais o orcamento da faixa de criticidade, de modo que incidentes criticos passam na frente,
+ * mas chamadas rotineiras antigas nao ficam esperando indefinidamente.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AICallScheduler {
+
+    /**
+     * Faixas de prioridade indexadas pelo criticalityScore (0-3) do SentimentAnalyzer.
+     */
+    static final String[] LANES = {"low", "normal", "high", "critical"};
+
+    private static final String RATE_LIMITER_NAME = "azureopenai";
+    private static final long PERMIT_POLL_MS = 10;
+
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ai.scheduler.enabled:true}")
+    private boolean enabled;
+
+    // Maior que o maior deadline-ms: um ticket low precisa chegar a frente da fila antes de desistir
+    @Value("${ai.scheduler.max-wait-ms:45000}")
+    private long maxWaitMs;
+
+    @Value("${ai.scheduler.deadline-ms.low:30000}")
+    private long lowDeadlineMs;
+
+    @Value("${ai.scheduler.deadline-ms.normal:10000}")
+    private long normalDeadlineMs;
+
+    @Value("${ai.scheduler.deadline-ms.high:2000}")
+    private long highDeadlineMs;
+
+    @Value("${ai.scheduler.deadline-ms.critical:500}")
+    private long criticalDeadlineMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparingLong(Waiter::deadlineNanos).thenComparingLong(Waiter::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger[] queuedPerLane = new AtomicInteger[LANES.length];
+    // Permissao obtida pelo dispatcher sem ninguem para usa-la (fila esvaziou); acessada com o lock
+    private boolean sparePermit;
+
+    private RateLimiter rateLimiter;
+    private long[] deadlineNanos;
+    private Timer[] waitTimers;
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void init() {
+        rateLimiter = rateLimiterRegistry.rateLimiter(RATE_LIMITER_NAME);
+        deadlineNanos = new long[]{
+                TimeUnit.MILLISECONDS.toNanos(lowDeadlineMs),
+                TimeUnit.MILLISECONDS.toNanos(normalDeadlineMs),
+                TimeUnit.MILLISECONDS.toNanos(highDeadlineMs),
+                TimeUnit.MILLISECONDS.toNanos(criticalDeadlineMs)
+        };
+        long largestDeadlineMs = Math.max(Math.max(lowDeadlineMs, normalDeadlineMs),
+                Math.max(highDeadlineMs, criticalDeadlineMs));
+        if (enabled && maxWaitMs <= largestDeadlineMs) {
+            throw new IllegalStateException("ai.scheduler.max-wait-ms (" + maxWaitMs
+                    + ") deve ser maior que o maior ai.scheduler.deadline-ms (" + largestDeadlineMs + ")");
+        }
+
+        waitTimers = new Timer[LANES.length];
+        for (int i = 0; i < LANES.length; i++) {
+            AtomicInteger queued = new AtomicInteger();
+            queuedPerLane[i] = queued;
+            waitTimers[i] = Timer.builder("ai.scheduler.wait")
+                    .description("Tempo de espera por cota de chamadas a IA")
+                    .tag("lane", LANES[i])
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            Gauge.builder("ai.scheduler.queued", queued, AtomicInteger::get)
+                    .description("Chamadas a IA aguardando cota")
+                    .tag("lane", LANES[i])
+                    .register(meterRegistry);
+        }
+
+        if (!enabled) {
+            log.info("Agendador de prioridade desabilitado - chamadas a IA nao consomem o rate limiter");
+            return;
+        }
+
+        dispatcher = new Thread(this::dispatchLoop, "ai-call-scheduler");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        log.info("Agendador de prioridade inicializado - limite: {}/periodo, prazos (ms): low={}, normal={}, high={}, critical={}",
+                rateLimiter.getRateLimiterConfig().getLimitForPeriod(),
+                lowDeadlineMs, normalDeadlineMs, highDeadlineMs, criticalDeadlineMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Aguarda uma permissao de chamada a IA de acordo com a criticidade do ticket.
+     *
+     * @param criticality criticalityScore (0-3); null e tratado como 1 (normal)
+     * @return true se liberado, false se a espera excedeu max-wait-ms
+     */
+    public boolean acquire(Integer criticality) {
+        if (!enabled) {
+            return true;
+        }
+
+        int lane = laneOf(criticality);
+        long start = System.nanoTime();
+        Waiter waiter = null;
+
+        lock.lock();
+        try {
+            // Sem fila, tenta passar direto
+            if (waiters.isEmpty() && (takeSparePermit() || rateLimiter.acquirePermission())) {
+                waitTimers[lane].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return true;
+            }
+            waiter = new Waiter(lane, start, start + deadlineNanos[lane], sequence.incrementAndGet(),
+                    new CompletableFuture<>());
+            waiters.add(waiter);
+            queuedPerLane[lane].incrementAndGet();
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            waiter.granted().get(maxWaitMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return abandon(waiter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return abandon(waiter);
+        } catch (Exception e) {
+            return abandon(waiter);
+        } finally {
+            waitTimers[lane].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Tira a chamada da fila.
+     *
+     * @return true se o dispatcher ja a tinha liberado (a permissao e usada pela chamada)
+     */
+    private boolean abandon(Waiter waiter) {
+        lock.lock();
+        try {
+            if (waiters.remove(waiter)) {
+                queuedPerLane[waiter.lane()].decrementAndGet();
+            }
+            // cancel so falha se o dispatcher completou antes
+            return !waiter.granted().cancel(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean takeSparePermit() {
+        boolean spare = sparePermit;
+        sparePermit = false;
+        return spare;
+    }
+
+    /**
+     * Quantidade de chamadas aguardando cota por faixa.
+     */
+    public int queued(String lane) {
+        for (int i = 0; i < LANES.length; i++) {
+            if (LANES[i].equals(lane)) {
+                return queuedPerLane[i].get();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Libera as chamadas em fila, uma por permissao do rate limiter, pelo menor prazo.
+     */
+    private void dispatchLoop() {
+        long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                boolean spare;
+                lock.lock();
+                try {
+                    while (waiters.isEmpty()) {
+                        notEmpty.await();
+                    }
+                    spare = takeSparePermit();
+                } finally {
+                    lock.unlock();
+                }
+
+                while (!spare && !rateLimiter.acquirePermission()) {
+                    TimeUnit.MILLISECONDS.sleep(PERMIT_POLL_MS);
+                }
+
+                lock.lock();
+                try {
+                    // A permissao vai para o primeiro que ainda espera; quem ja passou de max-wait-ms
+                    // (ou desistiu) nao a consome
+                    boolean granted = false;
+                    Waiter next;
+                    while (!granted && (next = waiters.poll()) != null) {
+                        queuedPerLane[next.lane()].decrementAndGet();
+                        if (System.nanoTime() - next.arrivalNanos() > maxWaitNanos) {
+                            next.granted().cancel(false);
+                            continue;
+                        }
+                        granted = next.granted().complete(null);
+                    }
+                    if (!granted) {
+                        sparePermit = true;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    static int laneOf(Integer criticality) {
+        if (criticality == null) {
+            return 1;
+        }
+        return Math.max(0, Math.min(LANES.length - 1, criticality));
+    }
+
+    /**
+     * Chamada aguardando cota.
+     */
+    private record Waiter(int lane, long arrivalNanos, long deadlineNanos, long sequence,
+                          CompletableFuture<Void> granted) {
+    }
+}
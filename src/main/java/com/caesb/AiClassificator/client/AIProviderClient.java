@@ -1,10 +1,15 @@
 package com.caesb.AiClassificator.client;
 
+import com.caesb.AiClassificator.model.AIDeployment;
 import com.caesb.AiClassificator.model.AIRequest;
 import com.caesb.AiClassificator.model.AIResponse;
 
+import java.util.List;
+
 /**
  * Interface para clientes de provedores de IA (OpenAI, Claude, Gemini, etc).
+ * Cada implementacao e um bean Spring que se registra no AIProviderRegistry com os
+ * deployments que oferece; o roteamento por provider e uma consulta direta no registry.
  */
 public interface AIProviderClient {
 
@@ -26,4 +31,36 @@ public interface AIProviderClient {
      */
     boolean isAvailable();
 
+    /**
+     * Deployments habilitados deste provider (vazio se o provider esta desabilitado).
+     */
+    List<AIDeployment> getDeployments();
+
+    /**
+     * Nome de exibicao do provider.
+     */
+    default String getDisplayName() {
+        return getProviderName();
+    }
+
+    /**
+     * Indica se as chamadas consomem a cota compartilhada do AICallScheduler
+     * (rate limiter do provider em nuvem). Providers locais nao consomem.
+     */
+    default boolean usesSharedQuota() {
+        return true;
+    }
+
+    /**
+     * Testa conectividade com um modelo especifico.
+     */
+    default AIResponse testConnection(String modelId) {
+        return sendChatCompletion(AIRequest.builder()
+                .systemPrompt("Responda apenas com JSON: {\"status\": \"ok\"}")
+                .userPrompt("Teste de conexao")
+                .model(modelId)
+                .maxTokens(20)
+                .temperature(0.0)
+                .build());
+    }
 }
@@ -1,15 +1,27 @@
 package com.caesb.AiClassificator.client;
 
+import com.caesb.AiClassificator.exception.ClassificationException;
+import com.caesb.AiClassificator.model.AIDeployment;
 import com.caesb.AiClassificator.model.AIRequest;
 import com.caesb.AiClassificator.model.AIResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Factory para selecionar o cliente de IA apropriado com base no provider/model.
  * Centraliza a logica de roteamento para diferentes providers.
+ * Sem modelo fixado pelo chamador, o DeploymentRouter escolhe o deployment por latencia e custo.
  * Implementa fallback automatico para modelo secundario em caso de falha.
+ * Cada chamada passa pelo circuit breaker do provider e e registrada nas metricas
+ * e na saude passiva do deployment.
+ * Requisicoes com temperatura deterministica sao respondidas pelo LLMResponseCache quando possivel.
  */
 @Slf4j
 @Component
@@ -18,8 +30,16 @@ public class AIProviderFactory {
 
     private static final String FALLBACK_MODEL = "gpt-4o-mini";
 
+    // Erros que indicam falha do provider (contam para o circuit breaker, exceto HTTP 4xx sem ser 429)
+    private static final Set<String> PROVIDER_FAILURES = Set.of("REST_ERROR", "UNKNOWN_ERROR", "HTTP_429");
+
     private final AIProviderRegistry registry;
-    private final AzureOpenAIClient azureOpenAIClient;
+    private final AICallScheduler callScheduler;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final AICallMetrics callMetrics;
+    private final DeploymentHealthTracker healthTracker;
+    private final DeploymentRouter router;
+    private final LLMResponseCache responseCache;
 
     /**
      * Envia requisicao para o provider/model especificado.
@@ -38,17 +58,18 @@ public class AIProviderFactory {
         // Valida se provider esta disponivel
         if (!registry.isProviderAvailable(provider)) {
             log.error("Provider {} nao disponivel, encaminhando para classificacao manual", provider);
-            return buildManualFallbackResponse("Provider '" + provider + "' nao disponivel");
+            return buildManualFallbackResponse("PROVIDER_UNAVAILABLE", "Provider '" + provider + "' nao disponivel");
         }
 
         // Valida se model esta disponivel
         if (!registry.isModelAvailable(provider, model)) {
-            log.warn("Modelo {} nao disponivel, tentando fallback para {}", model, FALLBACK_MODEL);
             // Tenta usar o fallback diretamente
-            if (registry.isModelAvailable(provider, FALLBACK_MODEL)) {
-                model = FALLBACK_MODEL;
+            String fallbackModel = resolveFallbackModel(provider, model);
+            log.warn("Modelo {} nao disponivel, tentando fallback para {}", model, fallbackModel);
+            if (fallbackModel != null) {
+                model = fallbackModel;
             } else {
-                return buildManualFallbackResponse("Modelo '" + model + "' nao disponivel");
+                return buildManualFallbackResponse("MODEL_UNAVAILABLE", "Modelo '" + model + "' nao disponivel");
             }
         }
 
@@ -60,63 +81,177 @@ public class AIProviderFactory {
                 .temperature(request.getTemperature())
                 .maxTokens(request.getMaxTokens())
                 .provider(provider)
+                .criticality(request.getCriticality())
+                .retries(request.getRetries())
+                .promptVersion(request.getPromptVersion())
+                .responseFormat(request.getResponseFormat())
                 .build();
 
+        // Temperatura deterministica: mesma entrada produz a mesma saida, pode vir do cache
+        Double temperature = resolvedRequest.getTemperature() != null
+                ? resolvedRequest.getTemperature()
+                : registry.getDeployment(provider, model).map(AIDeployment::getDefaultTemperature).orElse(null);
+        boolean cacheable = responseCache.isCacheable(resolvedRequest, temperature);
+        if (cacheable) {
+            Optional<AIResponse> cached = responseCache.get(resolvedRequest, temperature);
+            if (cached.isPresent()) {
+                log.debug("Resposta da IA obtida do cache - model: {}", model);
+                return cached.get();
+            }
+        }
+
         // Tenta modelo principal
         AIResponse response = routeToClient(provider, resolvedRequest);
 
         if (response.isSuccess()) {
+            if (cacheable) {
+                responseCache.put(resolvedRequest, temperature, response);
+            }
             return response;
         }
 
+        // Cota esgotada ou circuito aberto valem para todos os modelos - nao adianta tentar o fallback
+        if ("RATE_LIMITED".equals(response.getErrorCode())) {
+            log.warn("Cota de chamadas a IA esgotada - encaminhando para classificacao manual");
+            return buildManualFallbackResponse(response.getErrorCode(), "Cota de chamadas a IA esgotada");
+        }
+        if ("CIRCUIT_BREAKER".equals(response.getErrorCode())) {
+            log.warn("Circuit breaker aberto para {} - encaminhando para classificacao manual", provider);
+            return buildManualFallbackResponse(response.getErrorCode(), "Provider temporariamente indisponivel");
+        }
+
         // Fallback: tenta modelo secundario se nao for o mesmo
-        if (!FALLBACK_MODEL.equals(model) && registry.isModelAvailable(provider, FALLBACK_MODEL)) {
+        String fallbackModel = resolveFallbackModel(provider, model);
+        if (fallbackModel != null) {
             log.warn("Modelo {} falhou ({}), tentando fallback para {}",
-                    model, response.getErrorCode(), FALLBACK_MODEL);
+                    model, response.getErrorCode(), fallbackModel);
 
+            callMetrics.recordFallback("model", response.getErrorCode());
+            long fallbackStart = System.nanoTime();
             AIRequest fallbackRequest = AIRequest.builder()
                     .systemPrompt(request.getSystemPrompt())
                     .userPrompt(request.getUserPrompt())
-                    .model(FALLBACK_MODEL)
+                    .model(fallbackModel)
                     .temperature(request.getTemperature())
                     .maxTokens(request.getMaxTokens())
                     .provider(provider)
+                    .criticality(request.getCriticality())
+                    .retries(request.getRetries() + 1)
+                    .promptVersion(request.getPromptVersion())
+                    .responseFormat(request.getResponseFormat())
                     .build();
 
             AIResponse fallbackResponse = routeToClient(provider, fallbackRequest);
+            long fallbackNanos = System.nanoTime() - fallbackStart;
 
             if (fallbackResponse.isSuccess()) {
-                log.info("Fallback para {} bem sucedido", FALLBACK_MODEL);
+                log.info("Fallback para {} bem sucedido", fallbackModel);
+                fallbackResponse.setFallbackNanos(fallbackNanos);
                 return fallbackResponse;
             }
 
-            log.error("Fallback {} tambem falhou: {}", FALLBACK_MODEL, fallbackResponse.getErrorCode());
+            log.error("Fallback {} tambem falhou: {}", fallbackModel, fallbackResponse.getErrorCode());
+
+            AIResponse manualResponse = buildManualFallbackResponse(
+                    fallbackResponse.getErrorCode(), "IA temporariamente indisponivel");
+            manualResponse.setFallbackNanos(fallbackNanos);
+            return manualResponse;
         }
 
         // Todos os modelos falharam - encaminha para classificacao manual
         log.error("Todos os modelos falharam - encaminhando para classificacao manual");
-        return buildManualFallbackResponse("IA temporariamente indisponivel");
+        return buildManualFallbackResponse(response.getErrorCode(), "IA temporariamente indisponivel");
     }
 
     /**
      * Roteia requisicao para o client apropriado.
+     * Cada chamada passa pelo circuit breaker do provider e, se permitida, aguarda cota no
+     * agendador de prioridade.
      */
     private AIResponse routeToClient(String provider, AIRequest request) {
-        return switch (provider) {
-            case "azure-openai" -> azureOpenAIClient.sendChatCompletion(request);
-            default -> AIResponse.builder()
+        AIProviderClient client = registry.getClient(provider);
+        if (client == null) {
+            return recordCall(provider, request, AIResponse.builder()
                     .success(false)
                     .errorCode("UNKNOWN_PROVIDER")
                     .errorMessage("Provider desconhecido: " + provider)
-                    .build();
-        };
+                    .model(request.getModel())
+                    .build());
+        }
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(circuitBreakerName(provider));
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return recordCall(provider, request, AIResponse.builder()
+                    .success(false)
+                    .errorCode("CIRCUIT_BREAKER")
+                    .errorMessage("Circuit breaker aberto para o provider " + provider)
+                    .model(request.getModel())
+                    .build());
+        }
+
+        // Com o circuito aberto a chamada nem entra na fila: nao consome cota do agendador
+        if (client.usesSharedQuota() && !callScheduler.acquire(request.getCriticality())) {
+            circuitBreaker.releasePermission();
+            return recordCall(provider, request, AIResponse.builder()
+                    .success(false)
+                    .errorCode("RATE_LIMITED")
+                    .errorMessage("Tempo de espera por cota de chamadas excedido")
+                    .model(request.getModel())
+                    .build());
+        }
+
+        long start = System.nanoTime();
+        AIResponse response = client.sendChatCompletion(request);
+        long duration = System.nanoTime() - start;
+
+        if (response.isSuccess()) {
+            circuitBreaker.onSuccess(duration, TimeUnit.NANOSECONDS);
+            healthTracker.record(request.getModel(), true, response.getLatencyMs(), false);
+            router.record(request.getModel(), response, false);
+        } else if (isProviderFailure(response)) {
+            circuitBreaker.onError(duration, TimeUnit.NANOSECONDS,
+                    new ClassificationException(response.getErrorMessage(), response.getErrorCode()));
+            healthTracker.record(request.getModel(), false, response.getLatencyMs(), false);
+            router.record(request.getModel(), response, true);
+        } else {
+            // Erro de configuracao/requisicao nao diz nada sobre a saude do provider
+            circuitBreaker.releasePermission();
+        }
+
+        return recordCall(provider, request, response);
+    }
+
+    private AIResponse recordCall(String provider, AIRequest request, AIResponse response) {
+        callMetrics.recordCall(provider, request.getModel(), response);
+        return response;
+    }
+
+    /**
+     * Rede, 5xx e 429 indicam falha do provider; um 4xx (requisicao invalida, chave errada)
+     * e erro do chamador e nao abre o circuito, mesmo vindo como REST_ERROR.
+     */
+    private static boolean isProviderFailure(AIResponse response) {
+        Integer status = response.getHttpStatus();
+        if (status != null && status >= 400 && status < 500 && status != 429) {
+            return false;
+        }
+        String errorCode = response.getErrorCode();
+        return errorCode != null && (PROVIDER_FAILURES.contains(errorCode) || errorCode.startsWith("HTTP_5"));
+    }
+
+    /**
+     * Nome da instancia do circuit breaker do provider (ex: azure-openai -> azureopenai).
+     */
+    private static String circuitBreakerName(String provider) {
+        return provider.replace("-", "");
     }
 
     /**
      * Constroi resposta indicando que classificacao manual e necessaria.
      * O ClassificationService interpreta isso e envia para fallback_queue.
      */
-    private AIResponse buildManualFallbackResponse(String reason) {
+    private AIResponse buildManualFallbackResponse(String trigger, String reason) {
+        callMetrics.recordFallback("manual", trigger);
         return AIResponse.builder()
                 .success(false)
                 .errorCode("AI_UNAVAILABLE")
@@ -133,7 +268,8 @@ public class AIProviderFactory {
 
         log.info("Testando conexao com {}/{}", resolvedProvider, resolvedModel);
 
-        if (!registry.isProviderAvailable(resolvedProvider)) {
+        AIProviderClient client = registry.getClient(resolvedProvider);
+        if (client == null || !registry.isProviderAvailable(resolvedProvider)) {
             return AIResponse.builder()
                     .success(false)
                     .errorCode("PROVIDER_UNAVAILABLE")
@@ -141,25 +277,38 @@ public class AIProviderFactory {
                     .build();
         }
 
-        return switch (resolvedProvider) {
-            case "azure-openai" -> azureOpenAIClient.testConnection(resolvedModel);
-
-            default -> AIResponse.builder()
-                    .success(false)
-                    .errorCode("UNKNOWN_PROVIDER")
-                    .errorMessage("Provider desconhecido: " + resolvedProvider)
-                    .build();
-        };
+        return client.testConnection(resolvedModel);
     }
 
     /**
      * Retorna o client para um provider especifico.
      */
     public AIProviderClient getClient(String provider) {
-        return switch (provider) {
-            case "azure-openai" -> azureOpenAIClient;
-            default -> null;
-        };
+        return registry.getClient(provider);
+    }
+
+    /**
+     * Escolhe o modelo para uma chamada sem modelo fixado (roteamento por latencia/custo).
+     *
+     * @param provider Provider (opcional, usa default)
+     * @return Modelo escolhido
+     */
+    public String selectModel(String provider) {
+        return resolveModel(resolveProvider(provider), null);
+    }
+
+    /**
+     * Modelo secundario apos falha: o melhor deployment restante segundo o roteador,
+     * ou FALLBACK_MODEL com o roteamento desligado. Null se nao ha alternativa.
+     */
+    private String resolveFallbackModel(String provider, String failedModel) {
+        if (router.isEnabled()) {
+            return router.selectFallback(provider, failedModel).orElse(null);
+        }
+        if (!FALLBACK_MODEL.equals(failedModel) && registry.isModelAvailable(provider, FALLBACK_MODEL)) {
+            return FALLBACK_MODEL;
+        }
+        return null;
     }
 
     /**
@@ -173,13 +322,20 @@ public class AIProviderFactory {
     }
 
     /**
-     * Resolve model - usa default do provider se nao especificado.
+     * Resolve model - usa o roteador (ou o default do provider) se nao especificado.
      */
     private String resolveModel(String provider, String model) {
         if (model != null && !model.isBlank()) {
             return model.trim();
         }
 
+        if (router.isEnabled()) {
+            Optional<String> routed = router.select(provider);
+            if (routed.isPresent()) {
+                return routed.get();
+            }
+        }
+
         // Se provider e o default, usa o model default
         if (provider.equals(registry.getDefaultProvider())) {
             return registry.getDefaultModel();
@@ -1,7 +1,6 @@
 package com.caesb.AiClassificator.client;
 
 import com.caesb.AiClassificator.config.AIProviderConfig;
-import com.caesb.AiClassificator.config.AzureOpenAIConfig;
 import com.caesb.AiClassificator.model.AIDeployment;
 import jakarta.annotation.PostConstruct;
 import lombok.Getter;
@@ -14,16 +13,18 @@ import java.util.*;
 /**
  * Registry de providers e modelos de IA disponiveis.
  * Mantem lista de todos os providers/modelos configurados e habilitados.
- * Atualmente suporta apenas Azure OpenAI.
+ * Os providers sao os beans AIProviderClient (Azure OpenAI, servidor local compativel com OpenAI).
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class AIProviderRegistry {
 
-    private final AzureOpenAIConfig azureConfig;
+    private final List<AIProviderClient> clients;
     private final AIProviderConfig providerConfig;
 
+    private final Map<String, AIProviderClient> providerClients = new HashMap<>();
+
     @Getter
     private final Map<String, List<AIDeployment>> providerDeployments = new LinkedHashMap<>();
 
@@ -36,7 +37,7 @@ public class AIProviderRegistry {
     @PostConstruct
     public void init() {
         loadDefaultSettings();
-        loadAzureDeployments();
+        registerClients();
 
         log.info("AIProviderRegistry inicializado - providers: {}, default: {}/{}",
                 providerDeployments.keySet(), defaultProvider, defaultModel);
@@ -56,39 +57,30 @@ public class AIProviderRegistry {
         }
     }
 
-    private void loadAzureDeployments() {
-        if (!azureConfig.isEnabled()) {
-            log.warn("Azure OpenAI desabilitado - nenhum provider disponivel");
-            return;
-        }
-
-        List<AIDeployment> deployments = new ArrayList<>();
-
-        azureConfig.getDeployments().forEach((modelId, config) -> {
-            if (config.isEnabled()) {
-                AIDeployment deployment = AIDeployment.builder()
-                        .modelId(modelId)
-                        .deploymentName(config.getDeploymentName())
-                        .displayName(config.getDisplayName() != null ? config.getDisplayName() : modelId)
-                        .description(config.getDescription())
-                        .enabled(true)
-                        .defaultTemperature(config.getTemperature() != null
-                                ? config.getTemperature() : azureConfig.getDefaultTemperature())
-                        .defaultMaxTokens(config.getMaxTokens() != null
-                                ? config.getMaxTokens() : azureConfig.getDefaultMaxTokens())
-                        .build();
-                deployments.add(deployment);
-                log.debug("Registrado Azure deployment: {} -> {}", modelId, config.getDeploymentName());
+    /**
+     * Registra cada AIProviderClient com os deployments que ele oferece.
+     */
+    private void registerClients() {
+        for (AIProviderClient client : clients) {
+            List<AIDeployment> deployments = client.getDeployments();
+            if (deployments.isEmpty()) {
+                log.info("Provider {} sem deployments habilitados - nao registrado", client.getProviderName());
+                continue;
             }
-        });
-
-        if (!deployments.isEmpty()) {
-            providerDeployments.put("azure-openai", deployments);
-            log.info("Azure OpenAI registrado com {} modelos: {}", deployments.size(),
+            providerClients.put(client.getProviderName(), client);
+            providerDeployments.put(client.getProviderName(), deployments);
+            log.info("{} registrado com {} modelos: {}", client.getDisplayName(), deployments.size(),
                     deployments.stream().map(AIDeployment::getModelId).toList());
         }
     }
 
+    /**
+     * Retorna o client registrado para o provider (ou null).
+     */
+    public AIProviderClient getClient(String provider) {
+        return provider != null ? providerClients.get(provider) : null;
+    }
+
     /**
      * Retorna lista de todos os providers disponiveis.
      */
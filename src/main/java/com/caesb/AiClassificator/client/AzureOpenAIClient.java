@@ -1,21 +1,27 @@
 package com.caesb.AiClassificator.client;
 
 import com.caesb.AiClassificator.config.AzureOpenAIConfig;
+import com.caesb.AiClassificator.jfr.AICallEvent;
+import com.caesb.AiClassificator.model.AIDeployment;
 import com.caesb.AiClassificator.model.AIRequest;
 import com.caesb.AiClassificator.model.AIResponse;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Cliente para Azure OpenAI API com suporte a multiplos deployments.
@@ -23,7 +29,6 @@ import java.util.Map;
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class AzureOpenAIClient implements AIProviderClient {
 
     private static final String PROVIDER_NAME = "azure-openai";
@@ -31,11 +36,46 @@ public class AzureOpenAIClient implements AIProviderClient {
     private final AzureOpenAIConfig config;
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final ChatRequestWriter requestWriter;
+
+    // URI e headers pre-calculados por modelId (headers refeitos quando a API key e rotacionada)
+    private final Map<String, DeploymentTarget> targets = new ConcurrentHashMap<>();
+
+    public AzureOpenAIClient(AzureOpenAIConfig config, RestTemplate restTemplate, ObjectMapper objectMapper) {
+        this.config = config;
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.requestWriter = new ChatRequestWriter(objectMapper, config.getRequestBufferPoolSize());
+    }
 
     @Override
     @CircuitBreaker(name = "azureopenai", fallbackMethod = "fallbackResponse")
     @Retry(name = "azureopenai")
     public AIResponse sendChatCompletion(AIRequest request) {
+        AICallEvent event = new AICallEvent();
+        event.begin();
+
+        AIResponse response = doSendChatCompletion(request);
+
+        event.end();
+        if (event.shouldCommit()) {
+            AzureOpenAIConfig.DeploymentConfig deployment = request.getModel() != null
+                    ? config.getDeployments().get(request.getModel()) : null;
+            event.provider = PROVIDER_NAME;
+            event.deployment = deployment != null ? deployment.getDeploymentName() : null;
+            event.model = request.getModel();
+            event.success = response.isSuccess();
+            event.httpStatus = response.getHttpStatus() != null ? response.getHttpStatus() : 0;
+            event.errorCode = response.getErrorCode();
+            event.promptTokens = response.getPromptTokens() != null ? response.getPromptTokens() : 0;
+            event.completionTokens = response.getCompletionTokens() != null ? response.getCompletionTokens() : 0;
+            event.retries = request.getRetries();
+            event.commit();
+        }
+        return response;
+    }
+
+    private AIResponse doSendChatCompletion(AIRequest request) {
         long startTime = System.currentTimeMillis();
 
         if (!isAvailable()) {
@@ -66,60 +106,50 @@ public class AzureOpenAIClient implements AIProviderClient {
         }
 
         try {
-            // Constroi URL do endpoint
-            String endpoint = config.buildEndpointUrl(deployment.getDeploymentName());
-
-            // Prepara headers (Azure usa api-key ao inves de Bearer token)
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("api-key", config.getApiKey());
+            DeploymentTarget target = target(modelId, deployment);
 
             // Determina parametros (request > deployment > config default)
-            Double temperature = request.getTemperature() != null
+            double temperature = request.getTemperature() != null
                     ? request.getTemperature()
                     : (deployment.getTemperature() != null ? deployment.getTemperature() : config.getDefaultTemperature());
-            Integer maxTokens = request.getMaxTokens() != null
+            int maxTokens = request.getMaxTokens() != null
                     ? request.getMaxTokens()
                     : (deployment.getMaxTokens() != null ? deployment.getMaxTokens() : config.getDefaultMaxTokens());
 
-            // Prepara body da requisicao
-            Map<String, Object> body = Map.of(
-                    "messages", List.of(
-                            Map.of("role", "system", "content", request.getSystemPrompt()),
-                            Map.of("role", "user", "content", request.getUserPrompt())
-                    ),
-                    "temperature", temperature,
-                    "max_tokens", maxTokens,
-                    "response_format", Map.of("type", "json_object")
-            );
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
-
             log.debug("Enviando requisicao para Azure OpenAI - deployment: {}, model: {}",
                     deployment.getDeploymentName(), modelId);
 
-            // Faz a requisicao
-            ResponseEntity<String> response = restTemplate.exchange(
-                    endpoint,
-                    HttpMethod.POST,
-                    entity,
-                    String.class
-            );
-
-            long latencyMs = System.currentTimeMillis() - startTime;
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return parseResponse(response.getBody(), modelId, latencyMs);
-            } else {
-                return AIResponse.builder()
-                        .success(false)
-                        .errorCode("HTTP_" + response.getStatusCode().value())
-                        .errorMessage("Resposta invalida do Azure OpenAI")
-                        .latencyMs(latencyMs)
-                        .model(modelId)
-                        .build();
+            // Corpo escrito em streaming em um buffer do pool e enviado sem copia
+            ChatRequestWriter.PooledBuffer body = requestWriter.write(null, request, temperature, maxTokens,
+                    config.isStructuredOutput(), true);
+            AIResponse response;
+            try {
+                // Resposta lida direto do stream HTTP (erros 4xx/5xx viram HttpStatusCodeException)
+                response = restTemplate.execute(target.uri(), HttpMethod.POST,
+                        httpRequest -> {
+                            httpRequest.getHeaders().putAll(target.headers());
+                            httpRequest.getHeaders().setContentLength(body.size());
+                            body.writeTo(httpRequest.getBody());
+                        },
+                        httpResponse -> readResponse(httpResponse, modelId));
+            } finally {
+                requestWriter.release(body);
             }
 
+            response.setLatencyMs(System.currentTimeMillis() - startTime);
+            return response;
+
+        } catch (HttpStatusCodeException e) {
+            long latencyMs = System.currentTimeMillis() - startTime;
+            log.error("Erro ao chamar Azure OpenAI API: {}", e.getMessage());
+            return AIResponse.builder()
+                    .success(false)
+                    .errorCode("REST_ERROR")
+                    .errorMessage(e.getMessage())
+                    .latencyMs(latencyMs)
+                    .model(modelId)
+                    .httpStatus(e.getStatusCode().value())
+                    .build();
         } catch (RestClientException e) {
             long latencyMs = System.currentTimeMillis() - startTime;
             log.error("Erro ao chamar Azure OpenAI API: {}", e.getMessage());
@@ -177,60 +207,74 @@ public class AzureOpenAIClient implements AIProviderClient {
         return deployment != null && deployment.isEnabled();
     }
 
-    /**
-     * Testa conectividade com um modelo especifico.
-     */
-    public AIResponse testConnection(String modelId) {
-        AIRequest testRequest = AIRequest.builder()
-                .systemPrompt("Responda apenas com JSON: {\"status\": \"ok\"}")
-                .userPrompt("Teste de conexao")
-                .model(modelId)
-                .maxTokens(20)
-                .temperature(0.0)
-                .build();
+    @Override
+    public List<AIDeployment> getDeployments() {
+        if (!config.isEnabled()) {
+            log.warn("Azure OpenAI desabilitado - nenhum deployment registrado");
+            return List.of();
+        }
+
+        List<AIDeployment> deployments = new ArrayList<>();
+        config.getDeployments().forEach((modelId, deployment) -> {
+            if (deployment.isEnabled()) {
+                deployments.add(AIDeployment.builder()
+                        .modelId(modelId)
+                        .deploymentName(deployment.getDeploymentName())
+                        .displayName(deployment.getDisplayName() != null ? deployment.getDisplayName() : modelId)
+                        .description(deployment.getDescription())
+                        .enabled(true)
+                        .defaultTemperature(deployment.getTemperature() != null
+                                ? deployment.getTemperature() : config.getDefaultTemperature())
+                        .defaultMaxTokens(deployment.getMaxTokens() != null
+                                ? deployment.getMaxTokens() : config.getDefaultMaxTokens())
+                        .costPerMillionTokens(deployment.getCostPerMillionTokens())
+                        .build());
+            }
+        });
+        return deployments;
+    }
 
-        return sendChatCompletion(testRequest);
+    @Override
+    public String getDisplayName() {
+        return "Azure OpenAI";
     }
 
     /**
-     * Faz parse da resposta do Azure OpenAI.
+     * URI e headers do deployment, calculados uma vez (String.format/parse de URI fora do caminho quente).
      */
-    private AIResponse parseResponse(String responseBody, String model, long latencyMs) {
-        try {
-            JsonNode root = objectMapper.readTree(responseBody);
-
-            // Extrai conteudo da resposta
-            String content = root.path("choices").get(0)
-                    .path("message").path("content").asText();
-
-            // Extrai tokens de uso
-            JsonNode usage = root.path("usage");
-            Integer promptTokens = usage.path("prompt_tokens").asInt(0);
-            Integer completionTokens = usage.path("completion_tokens").asInt(0);
-            Integer totalTokens = usage.path("total_tokens").asInt(0);
-
-            log.debug("Resposta Azure OpenAI - model: {}, tokens: prompt={}, completion={}, total={}, latency={}ms",
-                    model, promptTokens, completionTokens, totalTokens, latencyMs);
+    private DeploymentTarget target(String modelId, AzureOpenAIConfig.DeploymentConfig deployment) {
+        String apiKey = config.getApiKey();
+        DeploymentTarget target = targets.get(modelId);
+        if (target == null || target.apiKey() != apiKey || target.deployment() != deployment) {
+            // Azure usa api-key ao inves de Bearer token
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("api-key", apiKey);
+            target = new DeploymentTarget(URI.create(config.buildEndpointUrl(deployment.getDeploymentName())),
+                    HttpHeaders.readOnlyHttpHeaders(headers), apiKey, deployment);
+            targets.put(modelId, target);
+        }
+        return target;
+    }
 
-            return AIResponse.builder()
-                    .success(true)
-                    .content(content)
-                    .model(model)
-                    .promptTokens(promptTokens)
-                    .completionTokens(completionTokens)
-                    .totalTokens(totalTokens)
-                    .latencyMs(latencyMs)
-                    .build();
+    private record DeploymentTarget(URI uri, HttpHeaders headers, String apiKey,
+                                    AzureOpenAIConfig.DeploymentConfig deployment) {
+    }
 
-        } catch (Exception e) {
-            log.error("Erro ao fazer parse da resposta Azure OpenAI: {}", e.getMessage());
-            return AIResponse.builder()
-                    .success(false)
-                    .errorCode("PARSE_ERROR")
-                    .errorMessage("Erro ao processar resposta do Azure OpenAI: " + e.getMessage())
-                    .latencyMs(latencyMs)
-                    .model(model)
-                    .build();
-        }
+    /**
+     * Faz parse da resposta do Azure OpenAI em streaming, sem copiar o corpo para String.
+     */
+    private AIResponse readResponse(ClientHttpResponse httpResponse, String model) throws IOException {
+        HttpStatusCode status = httpResponse.getStatusCode();
+        AIResponse response = status.is2xxSuccessful()
+                ? ChatCompletionParser.parse(objectMapper, httpResponse.getBody(), model, "Azure OpenAI")
+                : AIResponse.builder()
+                        .success(false)
+                        .errorCode("HTTP_" + status.value())
+                        .errorMessage("Resposta invalida do Azure OpenAI")
+                        .model(model)
+                        .build();
+        response.setHttpStatus(status.value());
+        return response;
     }
 }
@@ -0,0 +1,150 @@
+package com.caesb.AiClassificator.client;
+
+import com.caesb.AiClassificator.model.AIResponse;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parse da resposta de chat completion no formato OpenAI (choices[0].message.content + usage),
+ * compartilhado pelo Azure OpenAI e pelos servidores compativeis (llama.cpp, vLLM).
+ * Le os campos em streaming com JsonParser, sem montar arvore de JsonNode; o restante do
+ * corpo (logprobs, content_filter_results, etc.) e pulado.
+ */
+@Slf4j
+final class ChatCompletionParser {
+
+    private ChatCompletionParser() {
+    }
+
+    /**
+     * Converte o corpo da resposta em AIResponse.
+     *
+     * @param objectMapper  ObjectMapper da aplicacao
+     * @param responseBody  Corpo JSON retornado pelo provider
+     * @param model         Modelo solicitado
+     * @param latencyMs     Latencia da chamada
+     * @param providerLabel Nome do provider para logs e mensagens de erro
+     */
+    static AIResponse parse(ObjectMapper objectMapper, String responseBody, String model, long latencyMs,
+                            String providerLabel) {
+        AIResponse response;
+        try (JsonParser parser = objectMapper.getFactory().createParser(responseBody)) {
+            response = read(parser, model, providerLabel);
+        } catch (Exception e) {
+            response = parseError(e, model, providerLabel);
+        }
+        response.setLatencyMs(latencyMs);
+        return response;
+    }
+
+    /**
+     * Converte o corpo da resposta direto do stream HTTP, sem copiar para String.
+     * A latencia fica a cargo do chamador.
+     */
+    static AIResponse parse(ObjectMapper objectMapper, InputStream responseBody, String model,
+                            String providerLabel) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(responseBody)) {
+            return read(parser, model, providerLabel);
+        } catch (Exception e) {
+            return parseError(e, model, providerLabel);
+        }
+    }
+
+    private static AIResponse read(JsonParser parser, String model, String providerLabel) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Resposta nao e um objeto JSON");
+        }
+
+        String content = null;
+        boolean hasChoice = false;
+        int promptTokens = 0;
+        int completionTokens = 0;
+        int totalTokens = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                // So a primeira escolha interessa; as demais sao puladas
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    if (!hasChoice) {
+                        hasChoice = true;
+                        content = readChoice(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String usageField = parser.currentName();
+                    JsonToken usageValue = parser.nextToken();
+                    int tokens = usageValue == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : 0;
+                    switch (usageField) {
+                        case "prompt_tokens" -> promptTokens = tokens;
+                        case "completion_tokens" -> completionTokens = tokens;
+                        case "total_tokens" -> totalTokens = tokens;
+                        default -> {
+                        }
+                    }
+                    parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (!hasChoice) {
+            throw new JsonParseException(parser, "Resposta sem choices");
+        }
+
+        log.debug("Resposta {} - model: {}, tokens: prompt={}, completion={}, total={}",
+                providerLabel, model, promptTokens, completionTokens, totalTokens);
+
+        return AIResponse.builder()
+                .success(true)
+                .content(content != null ? content : "")
+                .model(model)
+                .promptTokens(promptTokens)
+                .completionTokens(completionTokens)
+                .totalTokens(totalTokens)
+                .build();
+    }
+
+    // Posicionado no START_OBJECT da escolha; retorna message.content
+    private static String readChoice(JsonParser parser) throws IOException {
+        String content = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("message".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String messageField = parser.currentName();
+                    JsonToken messageValue = parser.nextToken();
+                    if ("content".equals(messageField) && messageValue == JsonToken.VALUE_STRING) {
+                        content = parser.getText();
+                    }
+                    parser.skipChildren();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return content;
+    }
+
+    private static AIResponse parseError(Exception e, String model, String providerLabel) {
+        log.error("Erro ao fazer parse da resposta {}: {}", providerLabel, e.getMessage());
+        return AIResponse.builder()
+                .success(false)
+                .errorCode("PARSE_ERROR")
+                .errorMessage("Erro ao processar resposta do " + providerLabel + ": " + e.getMessage())
+                .model(model)
+                .build();
+    }
+}
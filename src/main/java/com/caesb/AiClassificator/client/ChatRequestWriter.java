@@ -0,0 +1,164 @@
+package com.caesb.AiClassificator.client;
+
+import com.caesb.AiClassificator.model.AIRequest;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializa o corpo de chat completion (formato OpenAI) com JsonGenerator em streaming,
+ * direto em um buffer de bytes reutilizado de um pool, sem montar Map intermediario.
+ * O system prompt (~6KB com o catalogo) e o response_format sao escapados uma unica vez:
+ * o PromptBuilder usa as mesmas instancias por versao de prompt, entao o cache e por identidade.
+ */
+final class ChatRequestWriter {
+
+    private static final SerializableString JSON_OBJECT_FORMAT = new SerializedString("{\"type\":\"json_object\"}");
+
+    // Fragmentos cacheados por identidade (constantes do PromptBuilder); limite evita crescer com prompts avulsos
+    private static final int MAX_FRAGMENTS = 32;
+
+    // Buffers maiores que isso nao voltam para o pool
+    private static final int MAX_POOLED_BUFFER_BYTES = 256 * 1024;
+
+    private static final int INITIAL_BUFFER_BYTES = 16 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<PooledBuffer> pool;
+    private final Map<Object, SerializableString> fragments = new IdentityHashMap<>();
+    private final ReentrantLock fragmentsLock = new ReentrantLock();
+
+    ChatRequestWriter(ObjectMapper objectMapper, int poolSize) {
+        this.objectMapper = objectMapper;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Escreve o corpo da requisicao em um buffer do pool.
+     * O chamador deve devolver o buffer com {@link #release} apos enviar.
+     *
+     * @param model          Campo "model" (null para Azure, onde o deployment vai na URL)
+     * @param request        Requisicao com prompts e response_format
+     * @param temperature    Temperatura resolvida
+     * @param maxTokens      Max tokens resolvido
+     * @param responseFormat Se envia o response_format da requisicao (json_schema); senao json_object
+     * @param jsonMode       Se envia response_format quando o da requisicao nao e usado
+     */
+    PooledBuffer write(String model, AIRequest request, double temperature, int maxTokens,
+                       boolean responseFormat, boolean jsonMode) throws IOException {
+        PooledBuffer buffer = acquire();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            if (model != null) {
+                generator.writeStringField("model", model);
+            }
+
+            generator.writeArrayFieldStart("messages");
+            writeMessage(generator, "system", request.getSystemPrompt(), request.getPromptVersion() != null);
+            writeMessage(generator, "user", request.getUserPrompt(), false);
+            generator.writeEndArray();
+
+            generator.writeNumberField("temperature", temperature);
+            generator.writeNumberField("max_tokens", maxTokens);
+
+            if (responseFormat && request.getResponseFormat() != null) {
+                generator.writeFieldName("response_format");
+                generator.writeRawValue(fragment(request.getResponseFormat(), true));
+            } else if (jsonMode) {
+                generator.writeFieldName("response_format");
+                generator.writeRawValue(JSON_OBJECT_FORMAT);
+            }
+            generator.writeEndObject();
+        } catch (IOException | RuntimeException e) {
+            release(buffer);
+            throw e;
+        }
+        return buffer;
+    }
+
+    /**
+     * Devolve o buffer ao pool.
+     */
+    void release(PooledBuffer buffer) {
+        buffer.reset();
+        // Buffer que cresceu demais (prompt atipico) e descartado para nao reter memoria
+        if (buffer.capacity() <= MAX_POOLED_BUFFER_BYTES) {
+            pool.offer(buffer);
+        }
+    }
+
+    private void writeMessage(JsonGenerator generator, String role, String content, boolean cacheable)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("role", role);
+        generator.writeFieldName("content");
+        if (content == null) {
+            generator.writeNull();
+        } else if (cacheable) {
+            generator.writeString(fragment(content, false));
+        } else {
+            generator.writeString(content);
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Fragmento pre-serializado: texto escapado (string) ou JSON bruto (response_format).
+     * SerializedString guarda os bytes UTF-8 apos o primeiro uso.
+     */
+    private SerializableString fragment(Object source, boolean json) throws IOException {
+        fragmentsLock.lock();
+        try {
+            SerializableString cached = fragments.get(source);
+            if (cached != null) {
+                return cached;
+            }
+        } finally {
+            fragmentsLock.unlock();
+        }
+
+        SerializableString created = new SerializedString(json
+                ? objectMapper.writeValueAsString(source)
+                : (String) source);
+
+        fragmentsLock.lock();
+        try {
+            if (fragments.size() >= MAX_FRAGMENTS) {
+                fragments.clear();
+            }
+            fragments.put(source, created);
+        } finally {
+            fragmentsLock.unlock();
+        }
+        return created;
+    }
+
+    private PooledBuffer acquire() {
+        PooledBuffer buffer = pool.poll();
+        return buffer != null ? buffer : new PooledBuffer(INITIAL_BUFFER_BYTES);
+    }
+
+    /**
+     * Buffer reutilizavel; {@link #writeTo} envia o conteudo sem copiar o array.
+     */
+    static final class PooledBuffer extends ByteArrayOutputStream {
+
+        private PooledBuffer(int size) {
+            super(size);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.caesb.AiClassificator.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saude passiva dos deployments de IA, derivada do trafego real.
+ * Cada deployment mantem uma janela circular com as ultimas chamadas (resultado e latencia);
+ * as estatisticas consideram apenas as amostras dentro de ai.health.window-seconds.
+ * Chamadas de sonda (probe) entram na janela mas nao contam como trafego.
+ */
+@Component
+public class DeploymentHealthTracker {
+
+    @Value("${ai.health.window-seconds:300}")
+    private long windowSeconds = 300;
+
+    @Value("${ai.health.max-samples:200}")
+    private int maxSamples = 200;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private volatile long lastTrafficAt;
+
+    /**
+     * Registra o resultado de uma chamada ao deployment.
+     *
+     * @param model     Modelo/deployment chamado
+     * @param success   Se o provider respondeu com sucesso
+     * @param latencyMs Latencia da chamada (pode ser nula)
+     * @param probe     Se a chamada foi feita pela sonda de health (e nao por trafego real)
+     */
+    public void record(String model, boolean success, Long latencyMs, boolean probe) {
+        if (model == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        windows.computeIfAbsent(model, k -> new Window(maxSamples))
+                .add(now, success, latencyMs != null ? latencyMs : 0L);
+        if (!probe) {
+            lastTrafficAt = now;
+        }
+    }
+
+    /**
+     * Estatisticas de um deployment na janela atual.
+     */
+    public DeploymentStats stats(String model) {
+        Window window = model != null ? windows.get(model) : null;
+        if (window == null) {
+            return new DeploymentStats(model, 0, 0, 1.0, 0, 0, true, 0L);
+        }
+        return window.stats(model, System.currentTimeMillis() - windowSeconds * 1000);
+    }
+
+    /**
+     * Estatisticas de todos os deployments com chamadas registradas.
+     */
+    public Map<String, DeploymentStats> snapshot() {
+        Map<String, DeploymentStats> result = new TreeMap<>();
+        windows.keySet().forEach(model -> result.put(model, stats(model)));
+        return result;
+    }
+
+    /**
+     * Instante (epoch millis) da ultima chamada de trafego real, ou 0 se nunca houve.
+     */
+    public long getLastTrafficAt() {
+        return lastTrafficAt;
+    }
+
+    /**
+     * Estatisticas de um deployment.
+     *
+     * @param calls        Chamadas na janela
+     * @param failures     Falhas na janela
+     * @param successRate  Taxa de sucesso (1.0 sem chamadas)
+     * @param avgLatencyMs Latencia media
+     * @param p95LatencyMs Percentil 95 da latencia
+     * @param lastSuccess  Resultado da chamada mais recente
+     * @param lastCallAt   Instante da chamada mais recente (epoch millis)
+     */
+    public record DeploymentStats(String model, int calls, int failures, double successRate,
+                                  long avgLatencyMs, long p95LatencyMs, boolean lastSuccess, long lastCallAt) {
+    }
+
+    /**
+     * Janela circular de amostras de um deployment.
+     */
+    private static final class Window {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[] timestamps;
+        private final long[] latencies;
+        private final boolean[] successes;
+        private int next;
+        private int size;
+
+        Window(int capacity) {
+            timestamps = new long[capacity];
+            latencies = new long[capacity];
+            successes = new boolean[capacity];
+        }
+
+        void add(long timestamp, boolean success, long latencyMs) {
+            lock.lock();
+            try {
+                timestamps[next] = timestamp;
+                latencies[next] = latencyMs;
+                successes[next] = success;
+                next = (next + 1) % timestamps.length;
+                size = Math.min(size + 1, timestamps.length);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        DeploymentStats stats(String model, long since) {
+            lock.lock();
+            try {
+                long[] inWindow = new long[size];
+                int calls = 0;
+                int failures = 0;
+                long latencySum = 0;
+                long lastCallAt = 0;
+                boolean lastSuccess = true;
+
+                for (int i = 0; i < size; i++) {
+                    if (timestamps[i] < since) {
+                        continue;
+                    }
+                    inWindow[calls++] = latencies[i];
+                    latencySum += latencies[i];
+                    if (!successes[i]) {
+                        failures++;
+                    }
+                    if (timestamps[i] >= lastCallAt) {
+                        lastCallAt = timestamps[i];
+                        lastSuccess = successes[i];
+                    }
+                }
+
+                if (calls == 0) {
+                    return new DeploymentStats(model, 0, 0, 1.0, 0, 0, true, 0L);
+                }
+
+                Arrays.sort(inWindow, 0, calls);
+                long p95 = inWindow[Math.min(calls - 1, (int) Math.ceil(calls * 0.95) - 1)];
+                double successRate = (calls - failures) / (double) calls;
+                return new DeploymentStats(model, calls, failures, successRate,
+                        latencySum / calls, p95, lastSuccess, lastCallAt);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
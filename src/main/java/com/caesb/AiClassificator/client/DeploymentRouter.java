@@ -0,0 +1,211 @@
+package com.caesb.AiClassificator.client;
+
+import com.caesb.AiClassificator.model.AIDeployment;
+import com.caesb.AiClassificator.model.AIResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Politica de roteamento por latencia e custo entre os deployments de um provider.
+ * Mantem, por deployment, medias moveis exponenciais (EWMA) da latencia, da taxa de erro
+ * e da taxa de 429. Sem modelo fixado pelo chamador, escolhe o deployment mais barato que
+ * atende o SLO de latencia. Um deployment com erro ou 429 acima do limite de drenagem sai
+ * da selecao antes que o circuit breaker precise abrir, recebendo apenas uma fracao
+ * pequena do trafego para medir a recuperacao.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeploymentRouter {
+
+    private final AIProviderRegistry registry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ai.routing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.routing.latency-slo-ms:3000}")
+    private long latencySloMs;
+
+    @Value("${ai.routing.ewma-alpha:0.2}")
+    private double alpha;
+
+    @Value("${ai.routing.min-samples:5}")
+    private int minSamples;
+
+    @Value("${ai.routing.drain-error-rate:0.25}")
+    private double drainErrorRate;
+
+    @Value("${ai.routing.drain-throttle-rate:0.10}")
+    private double drainThrottleRate;
+
+    @Value("${ai.routing.recovery-fraction:0.05}")
+    private double recoveryFraction;
+
+    private final Map<String, DeploymentStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Indica se o roteamento esta ativo.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Escolhe o deployment para uma chamada sem modelo fixado.
+     *
+     * @param provider Provider da chamada
+     * @return Modelo escolhido, ou vazio se o provider nao tem deployments
+     */
+    public Optional<String> select(String provider) {
+        return select(provider, null);
+    }
+
+    /**
+     * Escolhe o melhor deployment diferente do informado (usado no fallback de modelo).
+     *
+     * @param provider Provider da chamada
+     * @param exclude  Modelo que acabou de falhar
+     */
+    public Optional<String> selectFallback(String provider, String exclude) {
+        return select(provider, exclude);
+    }
+
+    /**
+     * Atualiza as medias do deployment com o resultado de uma chamada ao provider.
+     *
+     * @param model    Modelo chamado
+     * @param response Resposta do provider
+     * @param failure  Se o erro indica falha do provider (erros de requisicao nao contam)
+     */
+    public void record(String model, AIResponse response, boolean failure) {
+        if (model == null || (!response.isSuccess() && !failure)) {
+            return;
+        }
+        boolean throttled = Integer.valueOf(429).equals(response.getHttpStatus())
+                || "HTTP_429".equals(response.getErrorCode());
+        statsFor(model).update(response.isSuccess(), throttled, response.getLatencyMs(), alpha);
+    }
+
+    /**
+     * Indica se o deployment esta sendo drenado por erro ou 429 acima do limite.
+     */
+    public boolean isDraining(String model) {
+        DeploymentStats s = stats.get(model);
+        return s != null && s.samples >= minSamples
+                && (s.errorRate > drainErrorRate || s.throttleRate > drainThrottleRate);
+    }
+
+    /**
+     * Latencia EWMA do deployment em ms (0 sem amostras).
+     */
+    public double latencyEwmaMs(String model) {
+        DeploymentStats s = stats.get(model);
+        return s != null ? s.latencyMs : 0.0;
+    }
+
+    private Optional<String> select(String provider, String exclude) {
+        List<AIDeployment> candidates = registry.getModelsForProvider(provider).stream()
+                .filter(AIDeployment::isEnabled)
+                .filter(d -> !d.getModelId().equals(exclude))
+                .toList();
+        if (candidates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Fracao pequena do trafego vai para um deployment drenado para medir a recuperacao
+        List<AIDeployment> draining = candidates.stream().filter(d -> isDraining(d.getModelId())).toList();
+        if (!draining.isEmpty() && draining.size() < candidates.size()
+                && ThreadLocalRandom.current().nextDouble() < recoveryFraction) {
+            return Optional.of(draining.get(ThreadLocalRandom.current().nextInt(draining.size())).getModelId());
+        }
+
+        List<AIDeployment> healthy = candidates.stream().filter(d -> !isDraining(d.getModelId())).toList();
+        if (healthy.isEmpty()) {
+            // Todos drenando: o de menor taxa de erro
+            return candidates.stream()
+                    .min(Comparator.comparingDouble(d -> statsFor(d.getModelId()).errorRate
+                            + statsFor(d.getModelId()).throttleRate))
+                    .map(AIDeployment::getModelId);
+        }
+
+        // Mais barato dentro do SLO; se nenhum atende, o mais rapido
+        Optional<AIDeployment> withinSlo = healthy.stream()
+                .filter(d -> latencyEwmaMs(d.getModelId()) <= latencySloMs)
+                .min(Comparator.comparingDouble(DeploymentRouter::cost)
+                        .thenComparingDouble(d -> latencyEwmaMs(d.getModelId())));
+        return withinSlo.or(() -> healthy.stream()
+                        .min(Comparator.comparingDouble(d -> latencyEwmaMs(d.getModelId()))))
+                .map(AIDeployment::getModelId);
+    }
+
+    private static double cost(AIDeployment deployment) {
+        return deployment.getCostPerMillionTokens() != null ? deployment.getCostPerMillionTokens() : Double.MAX_VALUE;
+    }
+
+    private DeploymentStats statsFor(String model) {
+        return stats.computeIfAbsent(model, m -> {
+            DeploymentStats s = new DeploymentStats();
+            Gauge.builder("ai.routing.latency.ewma", s, x -> x.latencyMs)
+                    .description("Latencia EWMA do deployment (ms)")
+                    .tag("model", m)
+                    .register(meterRegistry);
+            Gauge.builder("ai.routing.error.rate", s, x -> x.errorRate)
+                    .description("Taxa de erro EWMA do deployment")
+                    .tag("model", m)
+                    .register(meterRegistry);
+            Gauge.builder("ai.routing.throttle.rate", s, x -> x.throttleRate)
+                    .description("Taxa EWMA de respostas 429 do deployment")
+                    .tag("model", m)
+                    .register(meterRegistry);
+            Gauge.builder("ai.routing.draining", this, r -> r.isDraining(m) ? 1 : 0)
+                    .description("Deployment fora da selecao por erro ou 429")
+                    .tag("model", m)
+                    .register(meterRegistry);
+            return s;
+        });
+    }
+
+    /**
+     * Medias moveis de um deployment.
+     */
+    private static final class DeploymentStats {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile double latencyMs;
+        private volatile double errorRate;
+        private volatile double throttleRate;
+        private volatile int samples;
+
+        void update(boolean success, boolean throttled, Long latency, double alpha) {
+            lock.lock();
+            try {
+                errorRate = ewma(errorRate, success || throttled ? 0.0 : 1.0, alpha);
+                throttleRate = ewma(throttleRate, throttled ? 1.0 : 0.0, alpha);
+                // Latencia so de respostas completas - erros rapidos nao podem parecer deployment rapido
+                if (success && latency != null) {
+                    latencyMs = latencyMs == 0.0 ? latency : ewma(latencyMs, latency, alpha);
+                }
+                samples++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static double ewma(double current, double sample, double alpha) {
+            return alpha * sample + (1 - alpha) * current;
+        }
+    }
+}
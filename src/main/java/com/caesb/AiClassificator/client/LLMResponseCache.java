@@ -0,0 +1,237 @@
+package com.caesb.AiClassificator.client;
+
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache de respostas da IA na camada de provider.
+ * A chave e o hash de (versao do prompt, system prompt, user prompt, modelo, temperatura, max_tokens),
+ * entao tickets diferentes com o mesmo texto sanitizado reaproveitam a mesma resposta.
+ * So e usado com temperatura deterministica (<= ai.response-cache.max-temperature).
+ * Limitado em bytes (LRU) e com TTL; quando chega uma requisicao com outra versao de
+ * prompt/catalogo, todas as entradas da versao anterior sao descartadas.
+ */
+@Slf4j
+@Component
+public class LLMResponseCache {
+
+    // Overhead aproximado por entrada (chave, objetos, no do mapa)
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    @Value("${ai.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.response-cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Value("${ai.response-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @Value("${ai.response-cache.max-temperature:0.0}")
+    private double maxTemperature;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long currentBytes;
+    private String currentVersion;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public LLMResponseCache(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("ai.response.cache.requests", hits, LongAdder::sum)
+                .description("Buscas no cache de respostas da IA")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.response.cache.requests", misses, LongAdder::sum)
+                .description("Buscas no cache de respostas da IA")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("ai.response.cache.evictions", evictions, LongAdder::sum)
+                .description("Entradas removidas por TTL ou limite de bytes")
+                .register(meterRegistry);
+        Gauge.builder("ai.response.cache.bytes", this, LLMResponseCache::getCurrentBytes)
+                .description("Tamanho estimado do cache de respostas da IA")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indica se a requisicao pode usar o cache (cache ativo e temperatura deterministica).
+     *
+     * @param request            Requisicao resolvida
+     * @param defaultTemperature Temperatura padrao do deployment (usada quando a requisicao nao informa)
+     */
+    public boolean isCacheable(AIRequest request, Double defaultTemperature) {
+        Double temperature = request.getTemperature() != null ? request.getTemperature() : defaultTemperature;
+        return enabled && temperature != null && temperature <= maxTemperature;
+    }
+
+    /**
+     * Busca resposta em cache.
+     *
+     * @return Copia da resposta com latencia e tokens zerados (nenhuma chamada foi feita)
+     */
+    public Optional<AIResponse> get(AIRequest request, double temperature) {
+        String key = key(request, temperature);
+        lock.lock();
+        try {
+            checkVersion(request.getPromptVersion());
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            if (System.currentTimeMillis() - entry.createdAt > ttlMinutes * 60_000) {
+                remove(key, entry);
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(AIResponse.builder()
+                    .success(true)
+                    .content(entry.content)
+                    .model(entry.model)
+                    .promptTokens(0)
+                    .completionTokens(0)
+                    .totalTokens(0)
+                    .latencyMs(0L)
+                    .build());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Armazena uma resposta bem sucedida.
+     */
+    public void put(AIRequest request, double temperature, AIResponse response) {
+        if (!response.isSuccess() || response.getContent() == null) {
+            return;
+        }
+        String key = key(request, temperature);
+        Entry entry = new Entry(response.getContent(), response.getModel(), System.currentTimeMillis(),
+                ENTRY_OVERHEAD_BYTES + 2L * response.getContent().length());
+        if (entry.bytes > maxBytes) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            checkVersion(request.getPromptVersion());
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                currentBytes -= previous.bytes;
+            }
+            currentBytes += entry.bytes;
+
+            // Remove as menos usadas ate caber no limite
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (currentBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Entry> eldest = it.next();
+                it.remove();
+                currentBytes -= eldest.getValue().bytes;
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Numero de entradas no cache.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tamanho estimado do cache em bytes.
+     */
+    public long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * Total de buscas atendidas pelo cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Total de invalidacoes por mudanca de versao do prompt/catalogo.
+     */
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    /**
+     * Chave: hash de versao, prompts, modelo e parametros de geracao.
+     */
+    String key(AIRequest request, double temperature) {
+        String content = String.join("\u0000",
+                String.valueOf(request.getPromptVersion()),
+                String.valueOf(request.getSystemPrompt()),
+                String.valueOf(request.getUserPrompt()),
+                String.valueOf(request.getProvider()),
+                String.valueOf(request.getModel()),
+                Double.toString(temperature),
+                String.valueOf(request.getMaxTokens()));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(content.hashCode()) + content.length();
+        }
+    }
+
+    // Chamado com o lock adquirido
+    private void checkVersion(String version) {
+        if (version == null || version.equals(currentVersion)) {
+            return;
+        }
+        if (currentVersion != null && !entries.isEmpty()) {
+            log.info("Versao do prompt/catalogo mudou ({} -> {}) - descartando {} respostas em cache",
+                    currentVersion, version, entries.size());
+            entries.clear();
+            currentBytes = 0;
+            invalidations.increment();
+        }
+        currentVersion = version;
+    }
+
+    // Chamado com o lock adquirido
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        currentBytes -= entry.bytes;
+        evictions.increment();
+    }
+
+    private record Entry(String content, String model, long createdAt, long bytes) {
+    }
+}
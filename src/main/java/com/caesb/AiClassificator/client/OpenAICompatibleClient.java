@@ -0,0 +1,187 @@
+package com.caesb.AiClassificator.client;
+
+import com.caesb.AiClassificator.config.OpenAICompatibleConfig;
+import com.caesb.AiClassificator.model.AIDeployment;
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cliente para servidores locais compativeis com a API OpenAI (llama.cpp, vLLM, Ollama).
+ * Permite rodar um modelo on-prem de baixa latencia sem consumir a cota do Azure.
+ */
+@Slf4j
+@Component
+public class OpenAICompatibleClient implements AIProviderClient {
+
+    private static final String PROVIDER_NAME = "local";
+
+    private final OpenAICompatibleConfig config;
+    private final ObjectMapper objectMapper;
+    private final RestTemplate restTemplate;
+
+    public OpenAICompatibleClient(OpenAICompatibleConfig config, ObjectMapper objectMapper) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+
+        // Timeouts proprios: servidor local deve responder rapido ou falhar rapido
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(config.getConnectTimeout());
+        factory.setReadTimeout(config.getTimeout());
+        this.restTemplate = new RestTemplate(factory);
+    }
+
+    @Override
+    public AIResponse sendChatCompletion(AIRequest request) {
+        long startTime = System.currentTimeMillis();
+
+        if (!isAvailable()) {
+            return AIResponse.builder()
+                    .success(false)
+                    .errorCode("NOT_CONFIGURED")
+                    .errorMessage("Provider local nao esta habilitado")
+                    .build();
+        }
+
+        String modelId = request.getModel();
+        OpenAICompatibleConfig.ModelConfig model = modelId != null ? config.getModels().get(modelId) : null;
+        if (model == null || !model.isEnabled()) {
+            return AIResponse.builder()
+                    .success(false)
+                    .errorCode("INVALID_MODEL")
+                    .errorMessage("Modelo '" + modelId + "' nao encontrado ou desabilitado")
+                    .build();
+        }
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            if (config.getApiKey() != null && !config.getApiKey().isBlank()) {
+                headers.setBearerAuth(config.getApiKey());
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("model", model.getServedName() != null ? model.getServedName() : modelId);
+            body.put("messages", List.of(
+                    Map.of("role", "system", "content", request.getSystemPrompt()),
+                    Map.of("role", "user", "content", request.getUserPrompt())
+            ));
+            body.put("temperature", request.getTemperature() != null
+                    ? request.getTemperature() : config.getDefaultTemperature());
+            body.put("max_tokens", request.getMaxTokens() != null
+                    ? request.getMaxTokens() : config.getDefaultMaxTokens());
+            if (config.isStructuredOutput() && request.getResponseFormat() != null) {
+                body.put("response_format", request.getResponseFormat());
+            } else if (config.isJsonMode()) {
+                body.put("response_format", Map.of("type", "json_object"));
+            }
+
+            log.debug("Enviando requisicao para provider local - url: {}, model: {}",
+                    config.buildEndpointUrl(), body.get("model"));
+
+            ResponseEntity<String> response = restTemplate.exchange(
+                    config.buildEndpointUrl(),
+                    HttpMethod.POST,
+                    new HttpEntity<>(body, headers),
+                    String.class
+            );
+
+            long latencyMs = System.currentTimeMillis() - startTime;
+
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                AIResponse parsed = ChatCompletionParser.parse(objectMapper, response.getBody(), modelId,
+                        latencyMs, "provider local");
+                parsed.setHttpStatus(response.getStatusCode().value());
+                return parsed;
+            }
+            return AIResponse.builder()
+                    .success(false)
+                    .errorCode("HTTP_" + response.getStatusCode().value())
+                    .errorMessage("Resposta invalida do provider local")
+                    .latencyMs(latencyMs)
+                    .model(modelId)
+                    .httpStatus(response.getStatusCode().value())
+                    .build();
+
+        } catch (HttpStatusCodeException e) {
+            log.error("Erro ao chamar provider local: {}", e.getMessage());
+            return AIResponse.builder()
+                    .success(false)
+                    .errorCode("REST_ERROR")
+                    .errorMessage(e.getMessage())
+                    .latencyMs(System.currentTimeMillis() - startTime)
+                    .model(modelId)
+                    .httpStatus(e.getStatusCode().value())
+                    .build();
+        } catch (RestClientException e) {
+            log.error("Erro ao chamar provider local: {}", e.getMessage());
+            return AIResponse.builder()
+                    .success(false)
+                    .errorCode("REST_ERROR")
+                    .errorMessage(e.getMessage())
+                    .latencyMs(System.currentTimeMillis() - startTime)
+                    .model(modelId)
+                    .build();
+        }
+    }
+
+    @Override
+    public String getProviderName() {
+        return PROVIDER_NAME;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Local (OpenAI compativel)";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return config.isEnabled() && config.getBaseUrl() != null && !config.getBaseUrl().isBlank();
+    }
+
+    @Override
+    public boolean usesSharedQuota() {
+        return false;
+    }
+
+    @Override
+    public List<AIDeployment> getDeployments() {
+        if (!isAvailable()) {
+            return List.of();
+        }
+
+        List<AIDeployment> deployments = new ArrayList<>();
+        config.getModels().forEach((modelId, model) -> {
+            if (model.isEnabled()) {
+                deployments.add(AIDeployment.builder()
+                        .modelId(modelId)
+                        .deploymentName(model.getServedName() != null ? model.getServedName() : modelId)
+                        .displayName(model.getDisplayName() != null ? model.getDisplayName() : modelId)
+                        .description(model.getDescription())
+                        .enabled(true)
+                        .defaultTemperature(config.getDefaultTemperature())
+                        .defaultMaxTokens(config.getDefaultMaxTokens())
+                        .costPerMillionTokens(model.getCostPerMillionTokens())
+                        .build());
+            }
+        });
+        return deployments;
+    }
+}
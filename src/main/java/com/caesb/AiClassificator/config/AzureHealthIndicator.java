@@ -2,15 +2,35 @@ package com.caesb.AiClassificator.config;
 
 import com.caesb.AiClassificator.client.AIProviderFactory;
 import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.client.DeploymentHealthTracker;
+import com.caesb.AiClassificator.client.DeploymentHealthTracker.DeploymentStats;
 import com.caesb.AiClassificator.model.AIResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
- * Health Indicator customizado para verificar conectividade com Azure OpenAI.
+ * Health Indicator customizado para o Azure OpenAI, baseado em saude passiva.
+ * O status e derivado do trafego real (taxa de sucesso e latencia por deployment na janela
+ * do DeploymentHealthTracker) e recalculado em background; health() apenas devolve o ultimo
+ * snapshot, sem bloquear a probe. Sem trafego recente, uma sonda assincrona com orcamento
+ * proprio (ai.health.probe-max-per-hour) testa o modelo default.
  * Exibido no /actuator/health quando autorizado.
  */
 @Slf4j
@@ -18,35 +38,96 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class AzureHealthIndicator implements HealthIndicator {
 
+    private static final String PROVIDER = "azure-openai";
+    private static final long ONE_HOUR_MS = 3_600_000;
+
     private final AzureOpenAIConfig azureConfig;
     private final AIProviderRegistry registry;
     private final AIProviderFactory factory;
+    private final DeploymentHealthTracker tracker;
+
+    @Value("${ai.health.refresh-interval-ms:5000}")
+    private long refreshIntervalMs;
+
+    @Value("${ai.health.min-calls:5}")
+    private int minCalls;
+
+    @Value("${ai.health.min-success-rate:0.5}")
+    private double minSuccessRate;
+
+    @Value("${ai.health.slow-latency-ms:10000}")
+    private long slowLatencyMs;
+
+    @Value("${ai.health.probe-enabled:true}")
+    private boolean probeEnabled;
+
+    @Value("${ai.health.probe-idle-ms:300000}")
+    private long probeIdleMs;
+
+    @Value("${ai.health.probe-max-per-hour:6}")
+    private int probeMaxPerHour;
+
+    private volatile Health snapshot = Health.unknown()
+            .withDetail("status", "Aguardando primeira avaliacao")
+            .build();
 
-    // Cache do ultimo status para evitar chamadas excessivas
-    private volatile Health cachedHealth;
-    private volatile long cacheTimestamp;
-    private static final long CACHE_TTL_MS = 60_000; // 1 minuto
+    private final Deque<Long> probeTimestamps = new ArrayDeque<>();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+    private volatile long lastProbeAt;
+
+    private ScheduledExecutorService refresher;
+    private ExecutorService prober;
+
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newSingleThreadScheduledExecutor(daemon("azure-health"));
+        prober = Executors.newSingleThreadExecutor(daemon("azure-health-probe"));
+        refresher.scheduleWithFixedDelay(this::refreshSafely, 0, refreshIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
 
     @Override
     public Health health() {
-        // Retorna cache se valido
-        if (cachedHealth != null && (System.currentTimeMillis() - cacheTimestamp) < CACHE_TTL_MS) {
-            return cachedHealth;
+        return snapshot;
+    }
+
+    /**
+     * Recalcula o snapshot a partir da janela de chamadas e agenda a sonda se nao houver trafego.
+     * Executado sempre na thread azure-health.
+     */
+    void refresh() {
+        snapshot = computeHealth();
+        long now = System.currentTimeMillis();
+        if (shouldProbe(now)) {
+            probeInFlight.set(true);
+            probeTimestamps.addLast(now);
+            lastProbeAt = now;
+            prober.execute(this::probe);
         }
+    }
 
+    private void refreshSafely() {
         try {
-            cachedHealth = checkAzureHealth();
-            cacheTimestamp = System.currentTimeMillis();
-            return cachedHealth;
+            refresh();
         } catch (Exception e) {
-            log.warn("Erro ao verificar saude do Azure: {}", e.getMessage());
-            return Health.down()
+            log.warn("Erro ao atualizar saude do Azure: {}", e.getMessage());
+            snapshot = Health.down()
                     .withDetail("error", e.getMessage())
                     .build();
         }
     }
 
-    private Health checkAzureHealth() {
+    private Health computeHealth() {
         // Verifica se Azure esta configurado
         if (!azureConfig.isEnabled()) {
             return Health.down()
@@ -63,31 +144,79 @@ public class AzureHealthIndicator implements HealthIndicator {
         }
 
         // Verifica se tem providers registrados
-        if (!registry.isProviderAvailable("azure-openai")) {
+        if (!registry.isProviderAvailable(PROVIDER)) {
             return Health.down()
                     .withDetail("status", "Nenhum modelo Azure disponivel")
                     .build();
         }
 
-        // Tenta conexao com modelo default
         String defaultModel = registry.getDefaultModel();
-        AIResponse testResponse = factory.testConnection("azure-openai", defaultModel);
-
-        if (testResponse.isSuccess()) {
-            return Health.up()
-                    .withDetail("provider", "azure-openai")
-                    .withDetail("resource", azureConfig.getResourceName())
-                    .withDetail("defaultModel", defaultModel)
-                    .withDetail("modelsAvailable", registry.getTotalModelsCount())
-                    .withDetail("latencyMs", testResponse.getLatencyMs())
-                    .build();
+        DeploymentStats stats = tracker.stats(defaultModel);
+
+        Map<String, Object> deployments = new LinkedHashMap<>();
+        tracker.snapshot().forEach((model, s) -> deployments.put(model, Map.of(
+                "calls", s.calls(),
+                "successRate", Math.round(s.successRate() * 1000) / 1000.0,
+                "avgLatencyMs", s.avgLatencyMs(),
+                "p95LatencyMs", s.p95LatencyMs()
+        )));
+
+        Health.Builder builder;
+        if (stats.calls() == 0) {
+            builder = Health.unknown().withDetail("status", "Sem chamadas recentes");
+        } else if (stats.calls() >= minCalls ? stats.successRate() < minSuccessRate : !stats.lastSuccess()) {
+            builder = Health.down().withDetail("status", "Taxa de sucesso abaixo do minimo");
         } else {
-            return Health.down()
-                    .withDetail("provider", "azure-openai")
-                    .withDetail("defaultModel", defaultModel)
-                    .withDetail("errorCode", testResponse.getErrorCode())
-                    .withDetail("errorMessage", testResponse.getErrorMessage())
-                    .build();
+            builder = Health.up().withDetail("degraded", stats.p95LatencyMs() > slowLatencyMs);
+        }
+
+        return builder
+                .withDetail("provider", PROVIDER)
+                .withDetail("resource", azureConfig.getResourceName())
+                .withDetail("defaultModel", defaultModel)
+                .withDetail("modelsAvailable", registry.getTotalModelsCount())
+                .withDetail("deployments", deployments)
+                .withDetail("lastTrafficAt", tracker.getLastTrafficAt())
+                .withDetail("lastProbeAt", lastProbeAt)
+                .build();
+    }
+
+    /**
+     * A sonda roda apenas sem trafego recente, uma por vez e dentro do orcamento por hora.
+     */
+    boolean shouldProbe(long now) {
+        if (!probeEnabled || !azureConfig.isConfigured() || probeInFlight.get()) {
+            return false;
         }
+        if (now - tracker.getLastTrafficAt() < probeIdleMs || now - lastProbeAt < probeIdleMs) {
+            return false;
+        }
+        while (!probeTimestamps.isEmpty() && now - probeTimestamps.peekFirst() >= ONE_HOUR_MS) {
+            probeTimestamps.pollFirst();
+        }
+        return probeTimestamps.size() < probeMaxPerHour;
+    }
+
+    private void probe() {
+        String defaultModel = registry.getDefaultModel();
+        try {
+            AIResponse response = factory.testConnection(PROVIDER, defaultModel);
+            tracker.record(defaultModel, response.isSuccess(), response.getLatencyMs(), true);
+            log.debug("Sonda de health {} - sucesso: {}, latencia: {}ms",
+                    defaultModel, response.isSuccess(), response.getLatencyMs());
+        } catch (Exception e) {
+            log.warn("Erro na sonda de health do Azure: {}", e.getMessage());
+            tracker.record(defaultModel, false, null, true);
+        } finally {
+            probeInFlight.set(false);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
     }
 }
@@ -26,15 +26,27 @@ public class AzureOpenAIConfig {
      */
     private String resourceName;
 
+    /**
+     * URL base alternativa (gateway APIM, private endpoint ou servidor simulado nos testes
+     * de carga); vazio usa https://{resourceName}.openai.azure.com.
+     */
+    private String endpoint;
+
     /**
      * API Key do Azure OpenAI.
      */
     private String apiKey;
 
     /**
-     * Versao da API Azure OpenAI.
+     * Versao da API Azure OpenAI (structured outputs exige 2024-08-01-preview ou superior).
+     */
+    private String apiVersion = "2024-10-21";
+
+    /**
+     * Envia o response_format json_schema estrito da requisicao (structured outputs);
+     * false volta para json_object.
      */
-    private String apiVersion = "2024-02-01";
+    private boolean structuredOutput = true;
 
     /**
      * Timeout em milissegundos.
@@ -51,6 +63,11 @@ public class AzureOpenAIConfig {
      */
     private Integer defaultMaxTokens = 500;
 
+    /**
+     * Buffers de corpo de requisicao mantidos em pool para reutilizacao.
+     */
+    private int requestBufferPoolSize = 64;
+
     /**
      * Deployments configurados (key = modelId, value = config do deployment).
      */
@@ -90,15 +107,23 @@ public class AzureOpenAIConfig {
          * Max tokens especifico deste modelo (opcional).
          */
         private Integer maxTokens;
+
+        /**
+         * Custo de referencia em USD por milhao de tokens de entrada (usado pelo roteamento).
+         */
+        private Double costPerMillionTokens;
     }
 
     /**
      * Constroi a URL do endpoint para um deployment especifico.
      */
     public String buildEndpointUrl(String deploymentName) {
+        String baseUrl = endpoint != null && !endpoint.isBlank()
+                ? endpoint.replaceAll("/+$", "")
+                : "https://" + resourceName + ".openai.azure.com";
         return String.format(
-                "https://%s.openai.azure.com/openai/deployments/%s/chat/completions?api-version=%s",
-                resourceName,
+                "%s/openai/deployments/%s/chat/completions?api-version=%s",
+                baseUrl,
                 deploymentName,
                 apiVersion
         );
@@ -0,0 +1,58 @@
+package com.caesb.AiClassificator.config;
+
+import com.caesb.AiClassificator.service.ClassificationCache;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metricas expostas em /actuator/prometheus alem das registradas diretamente pelos servicos.
+ * Cache e circuit breakers sao lidos dos contadores existentes no momento da coleta.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Acertos, falhas, expiracoes, remocoes, tamanho e bytes do ClassificationCache.
+     */
+    @Bean
+    public MeterBinder classificationCacheMetrics(ClassificationCache cache) {
+        return registry -> {
+            FunctionCounter.builder("ai.cache.requests", cache, ClassificationCache::getHitCount)
+                    .description("Buscas no cache de classificacao")
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("ai.cache.requests", cache, ClassificationCache::getMissCount)
+                    .description("Buscas no cache de classificacao")
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("ai.cache.evictions", cache, ClassificationCache::getExpirationCount)
+                    .description("Entradas removidas do cache de classificacao")
+                    .tag("cause", "expired")
+                    .register(registry);
+            FunctionCounter.builder("ai.cache.evictions", cache, ClassificationCache::getEvictionCount)
+                    .description("Entradas removidas do cache de classificacao")
+                    .tag("cause", "size")
+                    .register(registry);
+            Gauge.builder("ai.cache.size", cache, ClassificationCache::size)
+                    .description("Entradas no cache de classificacao")
+                    .register(registry);
+            Gauge.builder("ai.cache.bytes", cache, ClassificationCache::getUsedBytes)
+                    .description("Bytes ocupados no slab fora do heap do cache de classificacao")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Estado, chamadas e taxa de falha dos circuit breakers (resilience4j.circuitbreaker.*).
+     */
+    @Bean
+    public MeterBinder circuitBreakerMetrics(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry);
+    }
+}
@@ -0,0 +1,108 @@
+package com.caesb.AiClassificator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuracoes do provider local compativel com a API OpenAI
+ * (ex: llama.cpp server ou vLLM no mesmo host).
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "ai.local")
+public class OpenAICompatibleConfig {
+
+    /**
+     * Se o provider local esta habilitado.
+     */
+    private boolean enabled = false;
+
+    /**
+     * URL base da API (ex: http://localhost:8000/v1).
+     */
+    private String baseUrl = "http://localhost:8000/v1";
+
+    /**
+     * API Key opcional (enviada como Bearer token).
+     */
+    private String apiKey;
+
+    /**
+     * Timeout de leitura em milissegundos.
+     */
+    private Integer timeout = 10000;
+
+    /**
+     * Timeout de conexao em milissegundos.
+     */
+    private Integer connectTimeout = 1000;
+
+    /**
+     * Temperatura padrao.
+     */
+    private Double defaultTemperature = 0.3;
+
+    /**
+     * Max tokens padrao.
+     */
+    private Integer defaultMaxTokens = 500;
+
+    /**
+     * Envia response_format json_object (suportado pelo llama.cpp e vLLM).
+     */
+    private boolean jsonMode = true;
+
+    /**
+     * Envia o response_format json_schema da requisicao no lugar de json_object
+     * (vLLM e llama.cpp recentes suportam; desligado por padrao).
+     */
+    private boolean structuredOutput = false;
+
+    /**
+     * Modelos servidos (key = modelId usado nas requisicoes).
+     */
+    private Map<String, ModelConfig> models = new HashMap<>();
+
+    /**
+     * Configuracao de um modelo servido localmente.
+     */
+    @Data
+    public static class ModelConfig {
+        /**
+         * Nome do modelo no servidor (campo "model" da requisicao).
+         */
+        private String servedName;
+
+        /**
+         * Nome de exibicao para UI.
+         */
+        private String displayName;
+
+        /**
+         * Descricao do modelo.
+         */
+        private String description;
+
+        /**
+         * Se o modelo esta habilitado.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Custo de referencia em USD por milhao de tokens de entrada (usado pelo roteamento).
+         */
+        private Double costPerMillionTokens;
+    }
+
+    /**
+     * Constroi a URL do endpoint de chat completions.
+     */
+    public String buildEndpointUrl() {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        return base + "/chat/completions";
+    }
+}
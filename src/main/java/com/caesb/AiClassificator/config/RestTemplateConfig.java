@@ -1,29 +1,46 @@
 package com.caesb.AiClassificator.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
 /**
  * Configuracao do RestTemplate e ObjectMapper.
  */
 @Configuration
+@RequiredArgsConstructor
 public class RestTemplateConfig {
 
+    private final ThreadingConfig threadingConfig;
+
     @Value("${ai.azure-openai.timeout:30000}")
     private int readTimeout;
 
     @Value("${ai.azure-openai.connect-timeout:5000}")
     private int connectTimeout;
 
+    /**
+     * RestTemplate sobre o java.net.http.HttpClient. O HttpURLConnection bloqueia dentro de
+     * blocos synchronized e prende a virtual thread na thread carregadora durante toda a
+     * chamada a IA; o HttpClient espera sem monitor e libera a carregadora.
+     */
     @Bean
     public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(connectTimeout);  // Timeout para estabelecer conexão
-        factory.setReadTimeout(readTimeout);        // Timeout para ler resposta
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeout))  // Timeout para estabelecer conexão
+                .executor(Executors.newCachedThreadPool(threadingConfig.threadFactory("ai-http-")))
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(readTimeout));  // Timeout para ler resposta
         return new RestTemplate(factory);
     }
 
@@ -0,0 +1,59 @@
+package com.caesb.AiClassificator.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modo de execucao das threads da aplicacao.
+ * Com spring.threads.virtual.enabled=true em Java 21+, o Spring Boot atende as requisicoes
+ * HTTP em virtual threads e os executores internos (lote, jobs, empacotamento) tambem passam
+ * a usar virtual threads. Caso contrario, usa threads de plataforma daemon.
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class ThreadingConfig {
+
+    private final Environment environment;
+
+    @PostConstruct
+    public void init() {
+        log.info("Modo de execucao: {} (Java {})",
+                isVirtual() ? "virtual threads" : "threads de plataforma",
+                Runtime.version().feature());
+    }
+
+    /**
+     * Indica se as virtual threads estao ativas (habilitadas e suportadas pela JVM).
+     */
+    public boolean isVirtual() {
+        return Threading.VIRTUAL.isActive(environment);
+    }
+
+    /**
+     * Cria uma fabrica de threads nomeadas com o prefixo informado.
+     *
+     * @param prefix Prefixo do nome das threads (ex: "batch-ai-")
+     * @return Fabrica de virtual threads ou de threads de plataforma daemon
+     */
+    public ThreadFactory threadFactory(String prefix) {
+        if (isVirtual()) {
+            return new VirtualThreadTaskExecutor(prefix).getVirtualThreadFactory();
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -1,7 +1,10 @@
 package com.caesb.AiClassificator.controller;
 
 import com.caesb.AiClassificator.model.*;
-import com.caesb.AiClassificator.service.ClassificationService;
+import com.caesb.AiClassificator.service.BatchClassificationService;
+import com.caesb.AiClassificator.service.ClassificationDebouncer;
+import com.caesb.AiClassificator.service.StageTimings;
+import com.caesb.AiClassificator.service.TrafficRecorder;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,6 +16,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,7 +33,12 @@ import java.util.Map;
 @Tag(name = "Classification", description = "Endpoints para classificacao de tickets com IA")
 public class ClassificationController {
 
-    private final ClassificationService classificationService;
+    private final BatchClassificationService batchClassificationService;
+    private final ClassificationDebouncer classificationDebouncer;
+    private final TrafficRecorder trafficRecorder;
+
+    @Value("${ai.metrics.server-timing:true}")
+    private boolean serverTimingEnabled;
 
     /**
      * Classifica um ticket usando IA.
@@ -48,20 +57,56 @@ public class ClassificationController {
     })
     @PostMapping("/classify")
     public ResponseEntity<ClassificationResponse> classify(
-            @Valid @RequestBody ClassificationRequest request) {
+            @Valid @RequestBody ClassificationRequest request,
+            @Parameter(description = "Inclui o tempo de cada etapa do pipeline no body")
+            @RequestParam(defaultValue = "false") boolean timings) {
 
         log.info("Recebida requisicao de classificacao - ticketId: {}",
                 request.getTicketId() != null ? request.getTicketId() : "N/A");
 
-        ClassificationResponse response = classificationService.classify(request);
+        // Captura anonimizada para replay (ai.traffic-capture)
+        trafficRecorder.record(request);
+
+        StageTimings stageTimings = new StageTimings();
+        // Edicoes seguidas do mesmo ticketId sao agrupadas (ai.debounce)
+        ClassificationResponse response = classificationDebouncer.classify(request, stageTimings);
+
+        if (timings) {
+            // Copia para nao alterar a instancia armazenada no cache
+            response = response.toBuilder().timings(stageTimings.toMillis()).build();
+        }
 
-        if (response.isSuccess()) {
-            return ResponseEntity.ok(response);
-        } else {
-            // Retorna 200 mesmo em caso de erro de classificacao,
-            // pois a requisicao foi processada corretamente
-            return ResponseEntity.ok(response);
+        // Retorna 200 mesmo em caso de erro de classificacao,
+        // pois a requisicao foi processada corretamente
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (serverTimingEnabled) {
+            ok.header("Server-Timing", stageTimings.toServerTiming());
         }
+        return ok.body(response);
+    }
+
+    /**
+     * Classifica um lote de tickets usando IA.
+     */
+    @Operation(
+            summary = "Classificar lote de tickets",
+            description = "Classifica centenas de tickets em uma unica chamada (retriagem/importacao). "
+                    + "Itens repetidos e em cache nao geram chamadas a IA; a ordem dos resultados e preservada",
+            security = @SecurityRequirement(name = "apiKey")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lote processado (status por item no body)",
+                    content = @Content(schema = @Schema(implementation = BatchClassificationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Request invalida (validacao)"),
+            @ApiResponse(responseCode = "401", description = "API Key invalida ou ausente")
+    })
+    @PostMapping("/classify/batch")
+    public ResponseEntity<BatchClassificationResponse> classifyBatch(
+            @Valid @RequestBody BatchClassificationRequest request) {
+
+        log.info("Recebida requisicao de classificacao em lote - itens: {}", request.getRequests().size());
+
+        return ResponseEntity.ok(batchClassificationService.classifyBatch(request));
     }
 
     /**
@@ -3,7 +3,13 @@ package com.caesb.AiClassificator.controller;
 import com.caesb.AiClassificator.client.AIProviderRegistry;
 import com.caesb.AiClassificator.config.AIProviderConfig;
 import com.caesb.AiClassificator.config.AzureOpenAIConfig;
+import com.caesb.AiClassificator.jfr.FlightRecorderService;
+import com.caesb.AiClassificator.model.IncidentStorm;
+import com.caesb.AiClassificator.service.DecisionIndex;
+import com.caesb.AiClassificator.service.DecisionLog;
+import com.caesb.AiClassificator.service.IncidentStormDetector;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -12,11 +18,26 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Controller para operações administrativas.
@@ -32,6 +53,10 @@ public class ConfigController {
     private final AzureOpenAIConfig azureConfig;
     private final AIProviderConfig providerConfig;
     private final AIProviderRegistry registry;
+    private final FlightRecorderService flightRecorder;
+    private final IncidentStormDetector stormDetector;
+    private final DecisionLog decisionLog;
+    private final DecisionIndex decisionIndex;
 
     @Value("${security.admin-key:}")
     private String adminKey;
@@ -179,6 +204,222 @@ public class ConfigController {
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * Exporta a gravacao JFR continua (janela recente) para analise no JDK Mission Control.
+     */
+    @Operation(
+            summary = "Exportar gravacao JFR",
+            description = "Gera um arquivo .jfr com os eventos recentes de classificacao e chamadas a IA"
+    )
+    @SecurityRequirements({
+            @SecurityRequirement(name = "apiKey"),
+            @SecurityRequirement(name = "adminKey")
+    })
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Arquivo .jfr gerado"),
+            @ApiResponse(responseCode = "403", description = "Admin key invalida"),
+            @ApiResponse(responseCode = "503", description = "Gravacao JFR desabilitada")
+    })
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<?> dumpFlightRecording(
+            @RequestHeader(value = "X-Admin-Key", required = false) String requestAdminKey) {
+
+        ResponseEntity<Map<String, Object>> authError = validateAdminKey(requestAdminKey);
+        if (authError != null) return authError;
+
+        if (!flightRecorder.isRecording()) {
+            return ResponseEntity.status(503).body(Map.of(
+                    "success", false,
+                    "errorCode", "JFR_DISABLED",
+                    "message", "Gravacao JFR nao esta ativa"
+            ));
+        }
+
+        Path file = flightRecorder.dump();
+        log.info("Gravacao JFR exportada via endpoint admin: {}", file.getFileName());
+
+        // O arquivo so existe para esta resposta: removido depois de enviado (ou se o envio falhar)
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    /**
+     * Lista os incidentes em massa ativos (tickets quase identicos classificados uma vez).
+     */
+    @Operation(
+            summary = "Listar incidentes em massa",
+            description = "Grupos ativos de tickets quase identicos, com tamanho, ticket representativo "
+                    + "e classificacao reaproveitada"
+    )
+    @SecurityRequirements({
+            @SecurityRequirement(name = "apiKey"),
+            @SecurityRequirement(name = "adminKey")
+    })
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lista retornada"),
+            @ApiResponse(responseCode = "403", description = "Admin key invalida")
+    })
+    @GetMapping("/storms")
+    public ResponseEntity<Map<String, Object>> listStorms(
+            @RequestHeader(value = "X-Admin-Key", required = false) String requestAdminKey) {
+
+        ResponseEntity<Map<String, Object>> authError = validateAdminKey(requestAdminKey);
+        if (authError != null) return authError;
+
+        List<IncidentStorm> storms = stormDetector.listStorms();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("enabled", stormDetector.isEnabled());
+        result.put("count", storms.size());
+        result.put("storms", storms);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Consulta paginada das decisoes de classificacao (log de decisoes indexado).
+     */
+    @Operation(
+            summary = "Consultar decisoes",
+            description = "Decisoes de classificacao filtradas por ticket, servico, status e periodo, "
+                    + "da mais recente para a mais antiga"
+    )
+    @SecurityRequirements({
+            @SecurityRequirement(name = "apiKey"),
+            @SecurityRequirement(name = "adminKey")
+    })
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Pagina retornada"),
+            @ApiResponse(responseCode = "400", description = "Parametro invalido"),
+            @ApiResponse(responseCode = "403", description = "Admin key invalida")
+    })
+    @GetMapping("/decisions")
+    public ResponseEntity<Map<String, Object>> listDecisions(
+            @RequestHeader(value = "X-Admin-Key", required = false) String requestAdminKey,
+            @Parameter(description = "ID do ticket") @RequestParam(required = false) String ticketId,
+            @Parameter(description = "Servico (ex: INC-202)") @RequestParam(required = false) String serviceId,
+            @Parameter(description = "applied, partial, manual ou not_applied") @RequestParam(required = false) String status,
+            @Parameter(description = "Inicio (ISO-8601; data sem hora = inicio do dia)") @RequestParam(required = false) String from,
+            @Parameter(description = "Fim exclusivo (ISO-8601; data sem hora = inicio do dia)") @RequestParam(required = false) String to,
+            @Parameter(description = "Inclui respostas do cache de idempotencia") @RequestParam(defaultValue = "false") boolean includeCached,
+            @Parameter(description = "Pagina (a partir de 0)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Tamanho da pagina (max 500)") @RequestParam(defaultValue = "50") int size) {
+
+        ResponseEntity<Map<String, Object>> authError = validateAdminKey(requestAdminKey);
+        if (authError != null) return authError;
+
+        if (page < 0 || size < 1 || size > 500) {
+            return validationError("Parametros 'page' (>= 0) e 'size' (1 a 500) invalidos");
+        }
+        DecisionIndex.Query query;
+        try {
+            query = new DecisionIndex.Query(ticketId, serviceId, status, parseTime(from), parseTime(to), includeCached);
+        } catch (DateTimeParseException e) {
+            return validationError("Data invalida: " + e.getParsedString());
+        }
+
+        DecisionIndex.Page result = decisionIndex.query(query, page, size);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("enabled", decisionLog.isEnabled());
+        response.put("total", result.total());
+        response.put("page", result.page());
+        response.put("size", result.size());
+        response.put("decisions", result.decisions());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Contagem das decisoes agrupada por servico, status e/ou hora.
+     */
+    @Operation(
+            summary = "Contar decisoes",
+            description = "Contagem das decisoes filtradas, agrupada por service, status e/ou hour "
+                    + "(ex: quantos INC-202 foram para manual ontem)"
+    )
+    @SecurityRequirements({
+            @SecurityRequirement(name = "apiKey"),
+            @SecurityRequirement(name = "adminKey")
+    })
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Contagens retornadas"),
+            @ApiResponse(responseCode = "400", description = "Parametro invalido"),
+            @ApiResponse(responseCode = "403", description = "Admin key invalida")
+    })
+    @GetMapping("/decisions/counts")
+    public ResponseEntity<Map<String, Object>> countDecisions(
+            @RequestHeader(value = "X-Admin-Key", required = false) String requestAdminKey,
+            @Parameter(description = "ID do ticket") @RequestParam(required = false) String ticketId,
+            @Parameter(description = "Servico (ex: INC-202)") @RequestParam(required = false) String serviceId,
+            @Parameter(description = "applied, partial, manual ou not_applied") @RequestParam(required = false) String status,
+            @Parameter(description = "Inicio (ISO-8601; data sem hora = inicio do dia)") @RequestParam(required = false) String from,
+            @Parameter(description = "Fim exclusivo (ISO-8601; data sem hora = inicio do dia)") @RequestParam(required = false) String to,
+            @Parameter(description = "Inclui respostas do cache de idempotencia") @RequestParam(defaultValue = "false") boolean includeCached,
+            @Parameter(description = "Dimensoes separadas por virgula: service, status, hour") @RequestParam(defaultValue = "service,status") String groupBy) {
+
+        ResponseEntity<Map<String, Object>> authError = validateAdminKey(requestAdminKey);
+        if (authError != null) return authError;
+
+        Set<DecisionIndex.GroupBy> dimensions = EnumSet.noneOf(DecisionIndex.GroupBy.class);
+        DecisionIndex.Query query;
+        try {
+            for (String dimension : groupBy.split(",")) {
+                if (!dimension.isBlank()) {
+                    dimensions.add(DecisionIndex.GroupBy.valueOf(dimension.trim().toUpperCase(Locale.ROOT)));
+                }
+            }
+            query = new DecisionIndex.Query(ticketId, serviceId, status, parseTime(from), parseTime(to), includeCached);
+        } catch (IllegalArgumentException e) {
+            return validationError("Parametro 'groupBy' invalido: use service, status e/ou hour");
+        } catch (DateTimeParseException e) {
+            return validationError("Data invalida: " + e.getParsedString());
+        }
+
+        List<DecisionIndex.Count> counts = decisionIndex.count(query, dimensions);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("enabled", decisionLog.isEnabled());
+        response.put("total", counts.stream().mapToLong(DecisionIndex.Count::count).sum());
+        response.put("counts", counts);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Converte um instante ISO-8601; sem offset usa o fuso do servidor e so a data e o inicio do dia.
+     */
+    private static Instant parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant();
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(value).atZone(ZoneId.systemDefault()).toInstant();
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> validationError(String message) {
+        return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "errorCode", "VALIDATION_ERROR",
+                "message", message
+        ));
+    }
+
     /**
      * Valida a admin key e retorna erro se inválida.
      */
@@ -0,0 +1,87 @@
+package com.caesb.AiClassificator.controller;
+
+import com.caesb.AiClassificator.model.ClassificationJob;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.JobStatusResponse;
+import com.caesb.AiClassificator.service.ClassificationJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+
+/**
+ * Controller REST para classificacao assincrona.
+ * Desacopla o event handler do GLPI da latencia do Azure: o job e aceito imediatamente
+ * e o resultado e consultado depois ou entregue via callback.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+@Tag(name = "Jobs", description = "Classificacao assincrona de tickets")
+public class JobController {
+
+    private final ClassificationJobService jobService;
+
+    /**
+     * Enfileira a classificacao de um ticket.
+     */
+    @Operation(
+            summary = "Classificar ticket (assincrono)",
+            description = "Grava o job em fila duravel e retorna o jobId imediatamente. "
+                    + "Se callbackUrl for informado, o resultado e enviado via POST (em lotes, com retry)",
+            security = @SecurityRequirement(name = "apiKey")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Job aceito",
+                    content = @Content(schema = @Schema(implementation = JobStatusResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Request invalida (validacao)"),
+            @ApiResponse(responseCode = "401", description = "API Key invalida ou ausente")
+    })
+    @PostMapping("/classify/async")
+    public ResponseEntity<JobStatusResponse> classifyAsync(
+            @Valid @RequestBody ClassificationRequest request) {
+
+        log.info("Recebida requisicao de classificacao assincrona - ticketId: {}",
+                request.getTicketId() != null ? request.getTicketId() : "N/A");
+
+        ClassificationJob job = jobService.submit(request);
+        JobStatusResponse response = JobStatusResponse.from(job);
+
+        return ResponseEntity.accepted()
+                .location(URI.create(response.getStatusUrl()))
+                .body(response);
+    }
+
+    /**
+     * Consulta o status de um job.
+     */
+    @Operation(
+            summary = "Consultar job",
+            description = "Retorna o status do job e, quando concluido, o resultado da classificacao",
+            security = @SecurityRequirement(name = "apiKey")
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job encontrado",
+                    content = @Content(schema = @Schema(implementation = JobStatusResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Job nao encontrado ou expirado")
+    })
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobStatusResponse> getJob(
+            @Parameter(description = "ID do job") @PathVariable String jobId) {
+        return jobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(JobStatusResponse.from(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -1,5 +1,6 @@
 package com.caesb.AiClassificator.controller;
 
+import com.caesb.AiClassificator.client.AIProviderClient;
 import com.caesb.AiClassificator.client.AIProviderFactory;
 import com.caesb.AiClassificator.client.AIProviderRegistry;
 import com.caesb.AiClassificator.model.*;
@@ -155,9 +156,7 @@ public class ProviderController {
      * Retorna nome de exibicao para um provider.
      */
     private String getProviderDisplayName(String providerId) {
-        return switch (providerId) {
-            case "azure-openai" -> "Azure OpenAI";
-            default -> providerId;
-        };
+        AIProviderClient client = registry.getClient(providerId);
+        return client != null ? client.getDisplayName() : providerId;
     }
 }
@@ -0,0 +1,51 @@
+package com.caesb.AiClassificator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de uma chamada HTTP ao provider de IA.
+ * A duracao do evento e o tempo da chamada (incluindo serializacao e parse).
+ */
+@Name(AICallEvent.NAME)
+@Label("Chamada a IA")
+@Category({"AiClassificator"})
+@Description("Chamada de chat completion a um deployment de IA")
+@StackTrace(false)
+public class AICallEvent extends Event {
+
+    public static final String NAME = "com.caesb.aiclassificator.AICall";
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Deployment")
+    public String deployment;
+
+    @Label("Model")
+    public String model;
+
+    @Label("Success")
+    public boolean success;
+
+    @Label("HTTP Status")
+    @Description("Status HTTP da resposta (0 se nao houve resposta)")
+    public int httpStatus;
+
+    @Label("Error Code")
+    public String errorCode;
+
+    @Label("Prompt Tokens")
+    public int promptTokens;
+
+    @Label("Completion Tokens")
+    public int completionTokens;
+
+    @Label("Retries")
+    @Description("Tentativas anteriores do mesmo ticket (ex: 1 no modelo de fallback)")
+    public int retries;
+}
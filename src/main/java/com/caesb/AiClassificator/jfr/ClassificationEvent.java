@@ -0,0 +1,73 @@
+package com.caesb.AiClassificator.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR de uma classificacao de ticket.
+ * A duracao do evento e o tempo total da requisicao; os campos trazem o tempo de cada etapa.
+ */
+@Name(ClassificationEvent.NAME)
+@Label("Classificacao de Ticket")
+@Category({"AiClassificator"})
+@Description("Classificacao de um ticket com tempos por etapa do pipeline")
+@StackTrace(false)
+public class ClassificationEvent extends Event {
+
+    public static final String NAME = "com.caesb.aiclassificator.Classification";
+
+    @Label("Correlation ID")
+    public String correlationId;
+
+    @Label("Ticket ID")
+    public String ticketId;
+
+    @Label("Cache Hit")
+    public boolean cacheHit;
+
+    @Label("Status")
+    public String status;
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Model")
+    public String model;
+
+    @Label("Cache")
+    @Timespan(Timespan.NANOSECONDS)
+    public long cacheNanos;
+
+    @Label("Sanitize")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sanitizeNanos;
+
+    @Label("Sentiment")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sentimentNanos;
+
+    @Label("Prompt")
+    @Timespan(Timespan.NANOSECONDS)
+    public long promptNanos;
+
+    @Label("AI")
+    @Timespan(Timespan.NANOSECONDS)
+    public long aiNanos;
+
+    @Label("Fallback")
+    @Timespan(Timespan.NANOSECONDS)
+    public long fallbackNanos;
+
+    @Label("Parse")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseNanos;
+
+    @Label("Escalation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long escalationNanos;
+}
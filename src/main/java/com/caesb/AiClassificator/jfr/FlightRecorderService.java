@@ -0,0 +1,142 @@
+package com.caesb.AiClassificator.jfr;
+
+import com.caesb.AiClassificator.exception.ClassificationException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gravacao continua do Java Flight Recorder com os eventos de negocio do AiClassificator.
+ * Usa o perfil "default" do JDK (baixo overhead) mais o perfil jfr/aiclassificator.jfc,
+ * mantendo em disco apenas a janela recente (max-age/max-size). A gravacao pode ser
+ * exportada sob demanda pelo endpoint admin.
+ */
+@Slf4j
+@Component
+public class FlightRecorderService {
+
+    private static final String SETTINGS_PROFILE = "jfr/aiclassificator.jfc";
+    private static final String DUMP_PREFIX = "aiclassificator-";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Value("${ai.jfr.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.jfr.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${ai.jfr.max-size-mb:100}")
+    private long maxSizeMb;
+
+    @Value("${ai.jfr.dump-dir:${java.io.tmpdir}/aiclassificator-jfr}")
+    private String dumpDir;
+
+    private Recording recording;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("Java Flight Recorder indisponivel nesta JVM - eventos de classificacao nao serao gravados");
+            return;
+        }
+        removeStaleDumps();
+
+        try {
+            FlightRecorder.register(ClassificationEvent.class);
+            FlightRecorder.register(AICallEvent.class);
+
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            try (Reader reader = new InputStreamReader(
+                    new ClassPathResource(SETTINGS_PROFILE).getInputStream(), StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+
+            recording = new Recording(settings);
+            recording.setName("aiclassificator");
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+            recording.setMaxSize(maxSizeMb * 1024 * 1024);
+            recording.start();
+
+            log.info("Gravacao JFR continua iniciada - janela: {} min, limite: {} MB", maxAgeMinutes, maxSizeMb);
+        } catch (Exception e) {
+            log.warn("Nao foi possivel iniciar a gravacao JFR: {}", e.getMessage());
+            recording = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * Indica se a gravacao continua esta ativa.
+     */
+    public boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Exporta a janela atual da gravacao para um arquivo .jfr (nome unico por chamada).
+     * O chamador remove o arquivo depois de usa-lo; sobras de uma execucao interrompida
+     * sao apagadas na inicializacao.
+     *
+     * @return Caminho do arquivo gerado
+     */
+    public Path dump() {
+        if (recording == null) {
+            throw new ClassificationException("Gravacao JFR nao esta ativa", "JFR_DISABLED");
+        }
+        try {
+            Path dir = Path.of(dumpDir);
+            Files.createDirectories(dir);
+            String prefix = DUMP_PREFIX + LocalDateTime.now().format(FILE_TIMESTAMP) + "-";
+            Path file = Files.createTempFile(dir, prefix, ".jfr");
+            recording.dump(file);
+            log.info("Gravacao JFR exportada para {} ({} bytes)", file, Files.size(file));
+            return file;
+        } catch (IOException e) {
+            throw new ClassificationException("Erro ao exportar gravacao JFR: " + e.getMessage(), "JFR_DUMP_ERROR", e);
+        }
+    }
+
+    private void removeStaleDumps() {
+        Path dir = Path.of(dumpDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir, DUMP_PREFIX + "*.jfr")) {
+            for (Path file : stale) {
+                Files.deleteIfExists(file);
+                log.debug("Exportacao JFR antiga removida: {}", file);
+            }
+        } catch (IOException e) {
+            log.warn("Nao foi possivel limpar exportacoes JFR antigas em {}: {}", dir, e.getMessage());
+        }
+    }
+}
@@ -49,4 +49,9 @@ public class AIDeployment {
      * Max tokens padrao para este modelo.
      */
     private Integer defaultMaxTokens;
+
+    /**
+     * Custo de referencia em USD por milhao de tokens de entrada (null = desconhecido).
+     */
+    private Double costPerMillionTokens;
 }
@@ -2,6 +2,8 @@ package com.caesb.AiClassificator.model;
 
 import lombok.*;
 
+import java.util.Map;
+
 /**
  * Requisicao para a IA.
  */
@@ -16,4 +18,11 @@ public class AIRequest {
     protected String model;
     protected Double temperature;
     protected Integer maxTokens;
+    protected Integer criticality;
+    // Tentativas anteriores do mesmo ticket (ex: 1 no modelo de fallback)
+    protected int retries;
+    // Versao do prompt/catalogo (parte da chave do cache de respostas da IA)
+    protected String promptVersion;
+    // response_format enviado ao provider (json_schema estrito); null = json_object
+    protected Map<String, Object> responseFormat;
 }
\ No newline at end of file
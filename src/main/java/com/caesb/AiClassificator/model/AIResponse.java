@@ -19,4 +19,7 @@ public class AIResponse {
     protected Long latencyMs;
     protected String errorCode;
     protected String errorMessage;
+    protected Integer httpStatus;
+    // Tempo gasto no modelo de fallback (nanos), quando acionado
+    protected Long fallbackNanos;
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.caesb.AiClassificator.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request model para classificacao de tickets em lote.
+ * Usado na retriagem noturna e na importacao de backlogs do GLPI.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchClassificationRequest {
+
+    /**
+     * Tickets a classificar (obrigatorio). A ordem e preservada na resposta.
+     */
+    @NotEmpty(message = "Lista de tickets e obrigatoria")
+    @Size(max = 500, message = "Lote deve ter no maximo 500 tickets")
+    private List<@Valid ClassificationRequest> requests;
+
+    /**
+     * Provider padrao para itens que nao especificam um. Opcional.
+     */
+    private String provider;
+
+    /**
+     * Modelo padrao para itens que nao especificam um. Opcional.
+     */
+    private String model;
+}
@@ -0,0 +1,117 @@
+package com.caesb.AiClassificator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model para classificacao em lote.
+ * Contem o resultado de cada item (na ordem da requisicao) e tempos agregados.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchClassificationResponse {
+
+    /**
+     * Indica se o lote foi processado.
+     */
+    private boolean success;
+
+    /**
+     * ID do lote para rastreamento.
+     */
+    private String batchId;
+
+    /**
+     * Total de itens recebidos.
+     */
+    private int total;
+
+    /**
+     * Itens classificados pela IA neste lote.
+     */
+    private int classified;
+
+    /**
+     * Itens atendidos pelo cache de idempotencia.
+     */
+    private int cacheHits;
+
+    /**
+     * Itens repetidos dentro do proprio lote.
+     */
+    private int duplicates;
+
+    /**
+     * Itens que falharam.
+     */
+    private int failed;
+
+    /**
+     * Tempo gasto em sanitizacao, sentimento e prompt (ms).
+     */
+    private Long prepareTimeMs;
+
+    /**
+     * Tempo gasto nas chamadas a IA (ms).
+     */
+    private Long aiTimeMs;
+
+    /**
+     * Tempo total de processamento do lote (ms).
+     */
+    private Long processingTimeMs;
+
+    /**
+     * Paralelismo efetivo usado nas chamadas a IA.
+     */
+    private Integer parallelism;
+
+    /**
+     * Resultados por item, na mesma ordem da requisicao.
+     */
+    private List<ItemResult> items;
+
+    /**
+     * Resultado de um item do lote.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ItemResult {
+
+        /**
+         * Posicao do item na requisicao.
+         */
+        private int index;
+
+        /**
+         * ID do ticket no sistema de origem.
+         */
+        private String ticketId;
+
+        /**
+         * Origem do resultado: classified, cached, duplicate, error.
+         */
+        private String outcome;
+
+        /**
+         * Indice do item original quando outcome = duplicate.
+         */
+        private Integer duplicateOf;
+
+        /**
+         * Resultado da classificacao.
+         */
+        private ClassificationResponse response;
+    }
+}
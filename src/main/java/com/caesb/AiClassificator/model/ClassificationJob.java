@@ -0,0 +1,64 @@
+package com.caesb.AiClassificator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Job de classificacao assincrona.
+ * E o registro persistido no journal de jobs; cada transicao grava um novo snapshot.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClassificationJob {
+
+    /**
+     * ID do job.
+     */
+    private String jobId;
+
+    /**
+     * Status do job: queued, running, completed, failed.
+     */
+    private String status;
+
+    /**
+     * Requisicao original (necessaria para retomar o job apos restart).
+     */
+    private ClassificationRequest request;
+
+    /**
+     * URL que recebe o resultado (opcional).
+     */
+    private String callbackUrl;
+
+    /**
+     * Status da entrega do callback: pending, delivered, failed.
+     */
+    private String callbackStatus;
+
+    /**
+     * Tentativas de entrega do callback.
+     */
+    private int callbackAttempts;
+
+    /**
+     * Resultado da classificacao.
+     */
+    private ClassificationResponse result;
+
+    /**
+     * Instante de criacao (epoch millis).
+     */
+    private Long createdAt;
+
+    /**
+     * Instante de conclusao (epoch millis).
+     */
+    private Long completedAt;
+}
@@ -55,4 +55,9 @@ public class ClassificationRequest {
      * ID de correlacao para rastreamento. Se nao fornecido, sera gerado.
      */
     private String correlationId;
+
+    /**
+     * URL para receber o resultado. Usado apenas em /classify/async (opcional).
+     */
+    private String callbackUrl;
 }
@@ -6,12 +6,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 /**
  * Response model para classificacao de tickets com IA.
  * Retorna tipo, servico, fila e score de confianca.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -92,6 +94,12 @@ public class ClassificationResponse {
      */
     private Long processingTimeMs;
 
+    /**
+     * Tempo por etapa do pipeline em milissegundos (sanitize, sentiment, prompt, ai, fallback, parse, total).
+     * Incluido apenas quando solicitado (timings=true).
+     */
+    private Map<String, Double> timings;
+
     /**
      * Mensagem descritiva do resultado.
      */
@@ -107,6 +115,16 @@ public class ClassificationResponse {
      */
     private String errorMessage;
 
+    /**
+     * Se a classificacao foi refeita no modelo de escalonamento (modo cascata).
+     */
+    private Boolean escalated;
+
+    /**
+     * ID do incidente em massa cuja classificacao foi reaproveitada (ticket quase identico).
+     */
+    private String stormId;
+
     /**
      * Provider utilizado (OpenAI, Claude, Mock).
      */
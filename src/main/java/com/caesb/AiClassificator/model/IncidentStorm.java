@@ -0,0 +1,63 @@
+package com.caesb.AiClassificator.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO de um incidente em massa ativo (grupo de tickets quase identicos).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentStorm {
+
+    /**
+     * ID do grupo.
+     */
+    private String stormId;
+
+    /**
+     * Numero de tickets no grupo dentro da janela.
+     */
+    private int size;
+
+    /**
+     * Tickets que reaproveitaram a classificacao (chamadas a IA evitadas).
+     */
+    private long reused;
+
+    /**
+     * Ticket que originou o grupo.
+     */
+    private String representativeTicketId;
+
+    /**
+     * Assunto sanitizado do ticket representativo.
+     */
+    private String representativeSubject;
+
+    /**
+     * Servico classificado para o grupo (null enquanto nao classificado).
+     */
+    private String serviceId;
+
+    /**
+     * Fila de destino do grupo.
+     */
+    private String queue;
+
+    /**
+     * Primeiro ticket do grupo.
+     */
+    private Instant firstSeenAt;
+
+    /**
+     * Ultimo ticket do grupo.
+     */
+    private Instant lastSeenAt;
+}
@@ -0,0 +1,75 @@
+package com.caesb.AiClassificator.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Visao publica de um job de classificacao assincrona.
+ * Nao expoe a requisicao original (subject/body/remetente).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobStatusResponse {
+
+    /**
+     * ID do job.
+     */
+    private String jobId;
+
+    /**
+     * ID do ticket no sistema de origem.
+     */
+    private String ticketId;
+
+    /**
+     * Status do job: queued, running, completed, failed.
+     */
+    private String status;
+
+    /**
+     * URL para consultar o job.
+     */
+    private String statusUrl;
+
+    /**
+     * Status da entrega do callback: pending, delivered, failed.
+     */
+    private String callbackStatus;
+
+    /**
+     * Instante de criacao (epoch millis).
+     */
+    private Long createdAt;
+
+    /**
+     * Instante de conclusao (epoch millis).
+     */
+    private Long completedAt;
+
+    /**
+     * Resultado da classificacao (quando concluido).
+     */
+    private ClassificationResponse result;
+
+    /**
+     * Constroi a visao publica de um job.
+     */
+    public static JobStatusResponse from(ClassificationJob job) {
+        return JobStatusResponse.builder()
+                .jobId(job.getJobId())
+                .ticketId(job.getRequest() != null ? job.getRequest().getTicketId() : null)
+                .status(job.getStatus())
+                .statusUrl("/api/v1/jobs/" + job.getJobId())
+                .callbackStatus(job.getCallbackStatus())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .result(job.getResult())
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.caesb.AiClassificator.model;
+
+import com.caesb.AiClassificator.service.StageTimings;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado das etapas locais do pipeline (sanitizacao, sentimento e prompt).
+ * Permite separar o processamento em CPU da chamada a IA.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PreparedClassification {
+
+    /**
+     * Requisicao original.
+     */
+    private ClassificationRequest request;
+
+    /**
+     * ID de correlacao para rastreamento.
+     */
+    private String correlationId;
+
+    /**
+     * Instante de inicio do processamento (epoch millis).
+     */
+    private long startTime;
+
+    /**
+     * Dados sanitizados do ticket.
+     */
+    private SanitizedData sanitized;
+
+    /**
+     * Resultado da analise de sentimento.
+     */
+    private SentimentResult sentiment;
+
+    /**
+     * Prompts de sistema e usuario.
+     */
+    private PromptResult prompt;
+
+    /**
+     * Provider resolvido.
+     */
+    private String provider;
+
+    /**
+     * Modelo resolvido.
+     */
+    private String model;
+
+    /**
+     * Tempos por etapa da requisicao.
+     */
+    private StageTimings timings;
+}
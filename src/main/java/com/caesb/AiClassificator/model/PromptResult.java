@@ -2,6 +2,8 @@ package com.caesb.AiClassificator.model;
 
 import lombok.*;
 
+import java.util.Map;
+
 /**
  * Resultado da construcao do prompt.
  */
@@ -14,4 +16,8 @@ import lombok.*;
 public class PromptResult {
     private String systemPrompt;
     private String userPrompt;
+    // Versao do template + catalogo usada no system prompt (invalida o cache de respostas da IA)
+    private String promptVersion;
+    // response_format json_schema correspondente ao prompt (enum de servicos do catalogo)
+    private Map<String, Object> responseFormat;
 }
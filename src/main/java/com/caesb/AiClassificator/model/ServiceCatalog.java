@@ -1,8 +1,13 @@
 package com.caesb.AiClassificator.model;
 import lombok.Data;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Catalogo de servicos CAESB para classificacao de tickets.
@@ -172,6 +177,33 @@ public class ServiceCatalog {
         return new HashMap<>(QUEUES);
     }
 
+    /**
+     * Versao do catalogo: hash do conteudo de filas e servicos.
+     * Muda sempre que um servico ou fila e adicionado, removido ou alterado.
+     */
+    public static String getVersion() {
+        return VersionHolder.VERSION;
+    }
+
+    private static final class VersionHolder {
+        private static final String VERSION = computeVersion();
+
+        private static String computeVersion() {
+            StringBuilder content = new StringBuilder();
+            new TreeMap<>(QUEUES).forEach((id, q) ->
+                    content.append(id).append('|').append(q.getName()).append('\n'));
+            new TreeMap<>(SERVICES).forEach((id, s) -> content.append(id).append('|').append(s.getType())
+                    .append('|').append(s.getName()).append('|').append(s.getQueueId()).append('\n'));
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256")
+                        .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(hash, 0, 6);
+            } catch (NoSuchAlgorithmException e) {
+                return Integer.toHexString(content.toString().hashCode());
+            }
+        }
+    }
+
     /**
      * Retorna o nome do dominio/fila para um servico.
      */
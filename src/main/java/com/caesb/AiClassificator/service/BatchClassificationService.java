@@ -0,0 +1,248 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.exception.ClassificationException;
+import com.caesb.AiClassificator.model.BatchClassificationRequest;
+import com.caesb.AiClassificator.model.BatchClassificationResponse;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.model.PreparedClassification;
+import io.github.resilience4j.ratelimiter.RateLimiter;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Servico de classificacao em lote.
+ * Deduplica os itens (no lote e no cache), executa as etapas locais em paralelo
+ * e distribui as chamadas a IA com paralelismo limitado pelo rate limiter.
+ * A cota em si e controlada pelo AICallScheduler a cada chamada.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchClassificationService {
+
+    private static final String RATE_LIMITER_NAME = "azureopenai";
+
+    private final ClassificationService classificationService;
+    private final ClassificationCache cache;
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final ThreadingConfig threadingConfig;
+
+    @Value("${ai.batch.max-items:500}")
+    private int maxItems;
+
+    @Value("${ai.batch.parallelism:8}")
+    private int parallelism;
+
+    private ExecutorService aiExecutor;
+    private int effectiveParallelism;
+
+    @PostConstruct
+    public void init() {
+        // Nao adianta ter mais chamadas simultaneas do que permissoes por periodo
+        RateLimiter rateLimiter = rateLimiterRegistry.rateLimiter(RATE_LIMITER_NAME);
+        int limitForPeriod = rateLimiter.getRateLimiterConfig().getLimitForPeriod();
+        effectiveParallelism = Math.max(1, Math.min(parallelism, limitForPeriod));
+
+        aiExecutor = Executors.newFixedThreadPool(effectiveParallelism, threadingConfig.threadFactory("batch-ai-"));
+
+        log.info("BatchClassificationService inicializado - paralelismo: {} (configurado: {}, rate limit: {}/periodo)",
+                effectiveParallelism, parallelism, limitForPeriod);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        aiExecutor.shutdownNow();
+    }
+
+    /**
+     * Classifica um lote de tickets.
+     *
+     * @param batch Lote de tickets
+     * @return Resultado por item (na ordem da requisicao) e tempos agregados
+     */
+    public BatchClassificationResponse classifyBatch(BatchClassificationRequest batch) {
+        long startTime = System.currentTimeMillis();
+        String batchId = UUID.randomUUID().toString();
+        List<ClassificationRequest> requests = batch.getRequests();
+        int total = requests.size();
+
+        if (total > maxItems) {
+            throw new ClassificationException(
+                    "Lote com " + total + " itens excede o maximo de " + maxItems, "BATCH_TOO_LARGE");
+        }
+
+        log.info("[batch {}] Iniciando classificacao em lote - itens: {}", batchId, total);
+
+        BatchClassificationResponse.ItemResult[] results = new BatchClassificationResponse.ItemResult[total];
+        List<Integer> pending = new ArrayList<>();
+        Map<String, Integer> firstIndexByKey = new HashMap<>();
+
+        // 1. Deduplica no lote e contra o cache
+        for (int i = 0; i < total; i++) {
+            ClassificationRequest request = applyBatchDefaults(requests.get(i), batch);
+            String key = cache.generateKey(request.getTicketId(), request.getSubject(), request.getBody());
+
+            Integer first = firstIndexByKey.putIfAbsent(key, i);
+            if (first != null) {
+                results[i] = BatchClassificationResponse.ItemResult.builder()
+                        .index(i)
+                        .ticketId(request.getTicketId())
+                        .outcome("duplicate")
+                        .duplicateOf(first)
+                        .build();
+                continue;
+            }
+
+            Optional<ClassificationResponse> cached = cache.get(
+                    request.getTicketId(), request.getSubject(), request.getBody());
+            if (cached.isPresent()) {
+                results[i] = BatchClassificationResponse.ItemResult.builder()
+                        .index(i)
+                        .ticketId(request.getTicketId())
+                        .outcome("cached")
+                        .response(cached.get())
+                        .build();
+            } else {
+                pending.add(i);
+            }
+        }
+
+        // 2. Etapas locais (CPU) em paralelo entre os nucleos
+        long prepareStart = System.currentTimeMillis();
+        PreparedClassification[] prepared = new PreparedClassification[total];
+        pending.parallelStream().forEach(i -> {
+            ClassificationRequest request = applyBatchDefaults(requests.get(i), batch);
+            String correlationId = request.getCorrelationId() != null
+                    ? request.getCorrelationId()
+                    : batchId + "-" + i;
+            try {
+                prepared[i] = classificationService.prepare(request, correlationId, startTime);
+            } catch (Exception e) {
+                log.error("[batch {}] Erro ao preparar item {}: {}", batchId, i, e.getMessage());
+                results[i] = errorItem(i, request,
+                        classificationService.buildInternalErrorResponse(correlationId, e, startTime));
+            }
+        });
+        long prepareTimeMs = System.currentTimeMillis() - prepareStart;
+
+        // 3. Chamadas a IA com paralelismo limitado
+        long aiStart = System.currentTimeMillis();
+        List<CompletableFuture<Void>> futures = IntStream.range(0, total)
+                .filter(i -> prepared[i] != null)
+                .mapToObj(i -> CompletableFuture.runAsync(
+                        () -> results[i] = completeItem(i, prepared[i], startTime), aiExecutor))
+                .toList();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        long aiTimeMs = System.currentTimeMillis() - aiStart;
+
+        // 4. Resolve duplicados e agrega contadores
+        int classified = 0;
+        int cacheHits = 0;
+        int duplicates = 0;
+        int failed = 0;
+        for (BatchClassificationResponse.ItemResult item : results) {
+            switch (item.getOutcome()) {
+                case "classified" -> classified++;
+                case "cached" -> cacheHits++;
+                case "duplicate" -> {
+                    duplicates++;
+                    item.setResponse(results[item.getDuplicateOf()].getResponse());
+                }
+                default -> failed++;
+            }
+        }
+
+        long processingTimeMs = System.currentTimeMillis() - startTime;
+        log.info("[batch {}] Lote concluido - total: {}, classificados: {}, cache: {}, duplicados: {}, falhas: {}, tempo: {}ms",
+                batchId, total, classified, cacheHits, duplicates, failed, processingTimeMs);
+
+        return BatchClassificationResponse.builder()
+                .success(true)
+                .batchId(batchId)
+                .total(total)
+                .classified(classified)
+                .cacheHits(cacheHits)
+                .duplicates(duplicates)
+                .failed(failed)
+                .prepareTimeMs(prepareTimeMs)
+                .aiTimeMs(aiTimeMs)
+                .processingTimeMs(processingTimeMs)
+                .parallelism(effectiveParallelism)
+                .items(List.of(results))
+                .build();
+    }
+
+    /**
+     * Envia o item para a IA.
+     */
+    private BatchClassificationResponse.ItemResult completeItem(int index, PreparedClassification prepared,
+                                                               long startTime) {
+        ClassificationRequest request = prepared.getRequest();
+
+        ClassificationResponse response;
+        try {
+            response = classificationService.complete(prepared);
+        } catch (Exception e) {
+            log.error("[{}] Erro ao classificar item {} do lote: {}", prepared.getCorrelationId(), index,
+                    e.getMessage());
+            return errorItem(index, request,
+                    classificationService.buildInternalErrorResponse(prepared.getCorrelationId(), e, startTime));
+        }
+        if (!response.isSuccess()) {
+            return errorItem(index, request, response);
+        }
+        return BatchClassificationResponse.ItemResult.builder()
+                .index(index)
+                .ticketId(request.getTicketId())
+                .outcome("classified")
+                .response(response)
+                .build();
+    }
+
+    private BatchClassificationResponse.ItemResult errorItem(int index, ClassificationRequest request,
+                                                            ClassificationResponse response) {
+        return BatchClassificationResponse.ItemResult.builder()
+                .index(index)
+                .ticketId(request.getTicketId())
+                .outcome("error")
+                .response(response)
+                .build();
+    }
+
+    /**
+     * Aplica provider/model do lote aos itens que nao especificam.
+     */
+    private ClassificationRequest applyBatchDefaults(ClassificationRequest request, BatchClassificationRequest batch) {
+        if ((request.getProvider() != null || batch.getProvider() == null)
+                && (request.getModel() != null || batch.getModel() == null)) {
+            return request;
+        }
+        return ClassificationRequest.builder()
+                .subject(request.getSubject())
+                .body(request.getBody())
+                .senderEmail(request.getSenderEmail())
+                .ticketId(request.getTicketId())
+                .correlationId(request.getCorrelationId())
+                .provider(request.getProvider() != null ? request.getProvider() : batch.getProvider())
+                .model(request.getModel() != null ? request.getModel() : batch.getModel())
+                .build();
+    }
+}
@@ -5,55 +5,98 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Cache em memória para respostas de classificação.
  * Implementa idempotência para evitar reprocessamento de tickets idênticos.
+ * As respostas ficam fora do heap, num slab circular (ByteBuffer direto) no formato do
+ * {@link CompactResponseCodec}; o heap guarda so chave -> offset. Um acerto reconstroi a resposta.
+ * Remocao FIFO pela cabeca do slab: as entradas mais antigas saem primeiro (por TTL, falta de
+ * espaco ou max-size).
  */
 @Slf4j
 @Component
 public class ClassificationCache {
 
-    // Cache: chave = hash(ticketId + subject + body), valor = resposta + timestamp
-    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    // Registro no slab: [int tamanho][long timestamp][byte tamanho da chave][chave ASCII][resposta]
+    private static final int HEADER_BYTES = 13;
+    private static final int ALIGNMENT = 8;
+    // Marca de fim do trecho util: o proximo registro esta no inicio do slab
+    private static final int WRAP = -1;
+    private static final int INITIAL_SLAB_BYTES = 256 * 1024;
+
+    // Cache: chave = hash(ticketId + subject + body), valor = offset do registro no slab
+    private final Map<String, Long> offsets = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final CompactResponseCodec codec = new CompactResponseCodec();
+
+    private ByteBuffer slab;
+    private int head;
+    private int tail;
+    // Registros no slab, incluindo os substituidos por um put posterior da mesma chave
+    private int records;
+    private long usedBytes;
+
+    // Contadores sem lock, expostos no Micrometer (ai.cache.*)
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     @Value("${ai.cache.ttl-minutes:5}")
     private int ttlMinutes;
 
-    @Value("${ai.cache.max-size:1000}")
+    @Value("${ai.cache.max-size:100000}")
     private int maxSize;
 
+    @Value("${ai.cache.slab-bytes:67108864}")
+    private long slabBytes = 64L * 1024 * 1024;
+
     /**
      * Busca resposta em cache para um ticket.
      *
      * @param ticketId ID do ticket (pode ser null)
      * @param subject  Assunto do ticket
      * @param body     Corpo do ticket
-     * @return Resposta em cache se existir e não expirada
+     * @return Resposta em cache se existir e não expirada (nova instancia a cada acerto)
      */
     public Optional<ClassificationResponse> get(String ticketId, String subject, String body) {
         String key = generateKey(ticketId, subject, body);
-        CacheEntry entry = cache.get(key);
-
-        if (entry == null) {
-            return Optional.empty();
-        }
+        ClassificationResponse response;
+        lock.lock();
+        try {
+            Long offset = offsets.get(key);
+            if (offset == null) {
+                misses.increment();
+                return Optional.empty();
+            }
 
-        // Verifica se expirou
-        long ttlMs = ttlMinutes * 60 * 1000L;
-        if (System.currentTimeMillis() - entry.timestamp > ttlMs) {
-            cache.remove(key);
-            log.debug("Cache expirado para key: {}", key.substring(0, 8));
-            return Optional.empty();
+            // Verifica se expirou
+            int position = offset.intValue();
+            if (isExpired(position, System.currentTimeMillis())) {
+                offsets.remove(key);
+                expirations.increment();
+                misses.increment();
+                log.debug("Cache expirado para key: {}", key.substring(0, 8));
+                return Optional.empty();
+            }
+            response = codec.decode(slab, position + HEADER_BYTES + slab.get(position + 12));
+        } finally {
+            lock.unlock();
         }
 
+        hits.increment();
         log.debug("Cache hit para ticket: {}", ticketId != null ? ticketId : "N/A");
-        return Optional.of(entry.response);
+        return Optional.of(response);
     }
 
     /**
@@ -65,13 +108,39 @@ public class ClassificationCache {
      * @param response Resposta a armazenar
      */
     public void put(String ticketId, String subject, String body, ClassificationResponse response) {
-        // Limpa cache se muito grande
-        if (cache.size() >= maxSize) {
-            evictOldEntries();
-        }
-
         String key = generateKey(ticketId, subject, body);
-        cache.put(key, new CacheEntry(response, System.currentTimeMillis()));
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            int payload = codec.encode(response);
+            int length = align(HEADER_BYTES + key.length() + payload);
+            long capacity = Math.max(align((int) Math.min(slabBytes, Integer.MAX_VALUE - ALIGNMENT)), ALIGNMENT);
+            if (length > capacity / 4) {
+                log.debug("Resposta grande demais para o cache ({} bytes), ignorada", length);
+                return;
+            }
+
+            // Remove as expiradas e, se o cache estiver cheio, as mais antigas
+            while (records > 0 && (isExpired(head, now) || offsets.size() >= maxSize && !offsets.containsKey(key))) {
+                evictHead(now);
+            }
+            reserve(length, capacity, now);
+
+            int position = tail;
+            slab.putInt(position, length);
+            slab.putLong(position + 4, now);
+            slab.put(position + 12, (byte) key.length());
+            for (int i = 0; i < key.length(); i++) {
+                slab.put(position + HEADER_BYTES + i, (byte) key.charAt(i));
+            }
+            slab.put(position + HEADER_BYTES + key.length(), codec.buffer(), 0, payload);
+            tail += length;
+            records++;
+            usedBytes += length;
+            offsets.put(key, (long) position);
+        } finally {
+            lock.unlock();
+        }
         log.debug("Cache armazenado para ticket: {}, key: {}",
                 ticketId != null ? ticketId : "N/A", key.substring(0, 8));
     }
@@ -80,7 +149,12 @@ public class ClassificationCache {
      * Retorna o tamanho atual do cache.
      */
     public int size() {
-        return cache.size();
+        lock.lock();
+        try {
+            return offsets.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -88,17 +162,75 @@ public class ClassificationCache {
      */
     public Map<String, Object> getStats() {
         return Map.of(
-                "size", cache.size(),
+                "size", size(),
                 "maxSize", maxSize,
-                "ttlMinutes", ttlMinutes
+                "ttlMinutes", ttlMinutes,
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "expirations", expirations.sum(),
+                "evictions", evictions.sum(),
+                "bytes", getUsedBytes(),
+                "slabBytes", getSlabCapacity()
         );
     }
 
+    /**
+     * Total de buscas atendidas pelo cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Total de buscas sem entrada valida no cache.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Total de entradas removidas por TTL.
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * Total de entradas removidas por falta de espaco.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Bytes ocupados no slab (inclui entradas substituidas ainda nao recicladas).
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Capacidade atual do slab fora do heap (cresce sob demanda ate ai.cache.slab-bytes).
+     */
+    public long getSlabCapacity() {
+        ByteBuffer current = slab;
+        return current != null ? current.capacity() : 0;
+    }
+
     /**
      * Limpa todo o cache.
      */
     public void clear() {
-        cache.clear();
+        lock.lock();
+        try {
+            offsets.clear();
+            head = 0;
+            tail = 0;
+            records = 0;
+            usedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
         log.info("Cache limpo manualmente");
     }
 
@@ -124,34 +256,97 @@ public class ClassificationCache {
     }
 
     /**
-     * Remove entradas expiradas.
+     * Garante espaco contiguo para um registro em {@code tail}: cresce o slab enquanto couber no
+     * limite e, depois disso, remove pela cabeca.
      */
-    private void evictOldEntries() {
-        long now = System.currentTimeMillis();
-        long ttlMs = ttlMinutes * 60 * 1000L;
-
-        int sizeBefore = cache.size();
-        cache.entrySet().removeIf(e -> now - e.getValue().timestamp > ttlMs);
-
-        int removed = sizeBefore - cache.size();
-        if (removed > 0) {
-            log.debug("Removidas {} entradas expiradas do cache", removed);
+    private void reserve(int length, long capacity, long now) {
+        if (slab == null) {
+            slab = ByteBuffer.allocateDirect((int) Math.min(INITIAL_SLAB_BYTES, capacity));
+        }
+        while (usedBytes + length > slab.capacity() && slab.capacity() < capacity) {
+            grow(capacity);
         }
+        while (true) {
+            if (records == 0 || tail > head) {
+                if (length <= slab.capacity() - tail) {
+                    return;
+                }
+                // Sem espaco no fim: marca e continua do inicio
+                if (tail < slab.capacity()) {
+                    slab.putInt(tail, WRAP);
+                }
+                tail = 0;
+            }
+            if (length <= head - tail) {
+                return;
+            }
+            evictHead(now);
+        }
+    }
 
-        // Se ainda muito grande, remove metade das entradas mais antigas
-        if (cache.size() >= maxSize) {
-            log.warn("Cache ainda cheio apos limpeza, removendo entradas extras");
-            int toRemove = cache.size() / 2;
-            cache.keySet().stream()
-                    .limit(toRemove)
-                    .toList()
-                    .forEach(cache::remove);
+    /**
+     * Remove o registro mais antigo do slab (conta expiracao ou remocao por espaco).
+     */
+    private void evictHead(long now) {
+        int length = slab.getInt(head);
+        String key = readKey(head);
+        if (offsets.remove(key, (long) head)) {
+            if (isExpired(head, now)) {
+                expirations.increment();
+            } else {
+                evictions.increment();
+            }
+        }
+        head += length;
+        records--;
+        usedBytes -= length;
+        if (records == 0) {
+            head = 0;
+            tail = 0;
+        } else if (head == slab.capacity() || slab.getInt(head) == WRAP) {
+            head = 0;
         }
     }
 
     /**
-     * Entrada do cache com timestamp.
+     * Copia as entradas vivas para um slab maior, na ordem de insercao.
      */
-    private record CacheEntry(ClassificationResponse response, long timestamp) {
+    private void grow(long capacity) {
+        ByteBuffer larger = ByteBuffer.allocateDirect((int) Math.min((long) slab.capacity() * 2, capacity));
+        int position = 0;
+        int remaining = records;
+        int cursor = head;
+        while (remaining-- > 0) {
+            if (cursor == slab.capacity() || slab.getInt(cursor) == WRAP) {
+                cursor = 0;
+            }
+            int length = slab.getInt(cursor);
+            String key = readKey(cursor);
+            if (offsets.replace(key, (long) cursor, (long) position)) {
+                larger.put(position, slab, cursor, length);
+                position += length;
+            }
+            cursor += length;
+        }
+        log.debug("Slab do cache ampliado de {} para {} bytes", slab.capacity(), larger.capacity());
+        slab = larger;
+        head = 0;
+        tail = position;
+        records = offsets.size();
+        usedBytes = position;
+    }
+
+    private boolean isExpired(int position, long now) {
+        return now - slab.getLong(position + 4) > ttlMinutes * 60 * 1000L;
+    }
+
+    private String readKey(int position) {
+        byte[] key = new byte[slab.get(position + 12)];
+        slab.get(position + HEADER_BYTES, key);
+        return new String(key, StandardCharsets.ISO_8859_1);
+    }
+
+    private static int align(int length) {
+        return (length + ALIGNMENT - 1) & -ALIGNMENT;
     }
 }
@@ -0,0 +1,358 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Debounce de reclassificacao por ticketId.
+ * O GLPI dispara a classificacao na criacao e em cada edicao/acompanhamento inicial; como o
+ * body muda, a chave do ClassificationCache muda e cada edicao viraria uma chamada a IA.
+ * Atualizacoes do mesmo ticket dentro de window-ms sao agrupadas: so o conteudo mais recente
+ * e classificado e todos os chamadores em espera recebem o resultado final.
+ * Se o texto sanitizado e normalizado nao mudou, a decisao anterior e reaproveitada.
+ * Com virtual threads a classificacao roda em uma virtual thread por ticket (a concorrencia
+ * com o Azure fica com o ai.scheduler); com threads de plataforma, num pool limitado
+ * (dispatch-threads/dispatch-queue). A espera de cada chamador e limitada: sem resultado a
+ * tempo, o chamador recebe not_applied.
+ */
+@Slf4j
+@Service
+public class ClassificationDebouncer {
+
+    private final ClassificationService classificationService;
+    private final Sanitizer sanitizer;
+    private final ThreadingConfig threadingConfig;
+
+    private final Counter coalesced;
+    private final Counter reused;
+    private final Counter classified;
+
+    @Value("${ai.debounce.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ai.debounce.window-ms:3000}")
+    private long windowMs;
+
+    @Value("${ai.debounce.max-wait-ms:10000}")
+    private long maxWaitMs;
+
+    @Value("${ai.debounce.decision-ttl-minutes:30}")
+    private long decisionTtlMinutes;
+
+    @Value("${ai.debounce.dispatch-threads:8}")
+    private int dispatchThreads = 8;
+
+    @Value("${ai.debounce.dispatch-queue:500}")
+    private int dispatchQueue = 500;
+
+    @Value("${ai.scheduler.max-wait-ms:45000}")
+    private long schedulerMaxWaitMs = 45000;
+
+    @Value("${ai.azure-openai.timeout:30000}")
+    private long aiTimeoutMs = 30000;
+
+    // Estado por ticketId; acessado somente com o lock
+    private final Map<String, Pending> pending = new HashMap<>();
+    private final Map<String, Decision> decisions = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private ScheduledExecutorService flushScheduler;
+    private ExecutorService dispatchExecutor;
+
+    public ClassificationDebouncer(ClassificationService classificationService, Sanitizer sanitizer,
+                                   ThreadingConfig threadingConfig, MeterRegistry meterRegistry) {
+        this.classificationService = classificationService;
+        this.sanitizer = sanitizer;
+        this.threadingConfig = threadingConfig;
+        this.coalesced = outcomeCounter(meterRegistry, "coalesced");
+        this.reused = outcomeCounter(meterRegistry, "reused");
+        this.classified = outcomeCounter(meterRegistry, "classified");
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ai.debounce.requests")
+                .description("Classificacoes por ticketId que passaram pelo debounce")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(threadingConfig.threadFactory("debounce-flush-"));
+        if (threadingConfig.isVirtual()) {
+            dispatchExecutor = Executors.newCachedThreadPool(threadingConfig.threadFactory("debounce-dispatch-"));
+        } else {
+            int threads = Math.max(1, dispatchThreads);
+            dispatchExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, dispatchQueue)),
+                    threadingConfig.threadFactory("debounce-dispatch-"));
+        }
+        flushScheduler.scheduleAtFixedRate(this::evictExpiredDecisions, 1, 1, TimeUnit.MINUTES);
+
+        log.info("Debounce de reclassificacao habilitado - janela: {}ms, espera maxima: {}ms", windowMs, maxWaitMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+        }
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Indica se o debounce esta ativo.
+     */
+    public boolean isEnabled() {
+        return enabled && windowMs > 0;
+    }
+
+    /**
+     * Classifica o ticket aplicando o debounce por ticketId.
+     * Sem ticketId (ou com debounce desabilitado) a classificacao e imediata.
+     *
+     * @param request Dados do ticket
+     * @param timings Coletor dos tempos por etapa do chamador
+     * @return Resultado da classificacao do conteudo mais recente do ticket
+     */
+    public ClassificationResponse classify(ClassificationRequest request, StageTimings timings) {
+        String ticketId = request.getTicketId();
+        if (!isEnabled() || ticketId == null || ticketId.isBlank()) {
+            return classificationService.classify(request, timings);
+        }
+
+        long startTime = System.currentTimeMillis();
+        String fingerprint = fingerprint(request);
+        Waiter waiter = new Waiter(System.nanoTime(), new CompletableFuture<>());
+        ClassificationResponse reusedResponse = null;
+
+        lock.lock();
+        try {
+            Pending current = pending.get(ticketId);
+
+            // Texto igual ao da ultima decisao e nenhuma edicao pendente: reaproveita
+            Decision decision = decisions.get(ticketId);
+            if (current == null && decision != null && decision.fingerprint.equals(fingerprint)
+                    && !decision.isExpired(decisionTtlMinutes)) {
+                reused.increment();
+                log.debug("Texto do ticket {} nao mudou - reaproveitando decisao anterior", ticketId);
+                reusedResponse = decision.response;
+            } else {
+                enqueue(ticketId, current, request, fingerprint, waiter);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (reusedResponse != null) {
+            classificationService.recordReused(request, timings, reusedResponse);
+            return reusedResponse;
+        }
+
+        ClassificationResponse response = await(request, waiter, startTime);
+        // O dispatch mede em instancia propria e so a entrega apos concluir: depois de um
+        // timeout ele ainda pode estar rodando e o chamador ja le os proprios tempos
+        StageTimings classifiedTimings = waiter.classifiedTimings;
+        if (classifiedTimings != null) {
+            timings.addAll(classifiedTimings);
+        } else {
+            timings.record(StageTimings.DEBOUNCE, waiter.arrivalNanos);
+        }
+        return response;
+    }
+
+    /**
+     * Adiciona a edicao a janela do ticket (abrindo uma nova se nao houver). Chamado com o lock.
+     */
+    private void enqueue(String ticketId, Pending current, ClassificationRequest request, String fingerprint,
+                         Waiter waiter) {
+        if (current == null) {
+            current = new Pending(System.currentTimeMillis());
+            pending.put(ticketId, current);
+        } else {
+            current.timer.cancel(false);
+            coalesced.increment();
+        }
+        current.latest = request;
+        current.latestFingerprint = fingerprint;
+        current.latestWaiter = waiter;
+        current.waiters.add(waiter);
+
+        // Reinicia a janela a cada edicao, sem passar de max-wait-ms desde a primeira
+        long elapsed = System.currentTimeMillis() - current.firstArrival;
+        long delay = Math.max(0, Math.min(windowMs, maxWaitMs - elapsed));
+        Pending scheduled = current;
+        current.timer = flushScheduler.schedule(() -> flush(ticketId, scheduled), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Espera o resultado pelo fim da janela mais a espera por cota e o timeout da IA; depois
+     * disso devolve not_applied (o dispatch ainda completa os demais chamadores).
+     */
+    private ClassificationResponse await(ClassificationRequest request, Waiter waiter, long startTime) {
+        long timeoutMs = maxWaitMs + schedulerMaxWaitMs + aiTimeoutMs;
+        try {
+            return waiter.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Ticket {} sem classificacao apos {}ms de debounce - retornando not_applied",
+                    request.getTicketId(), timeoutMs);
+            return classificationService.buildInternalErrorResponse(request.getCorrelationId(),
+                    new IllegalStateException("Classificacao nao concluida em " + timeoutMs + "ms"), startTime);
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Fim da janela: classifica o conteudo mais recente e entrega o resultado a todos.
+     */
+    private void flush(String ticketId, Pending batch) {
+        lock.lock();
+        try {
+            if (pending.get(ticketId) != batch) {
+                return;
+            }
+            pending.remove(ticketId);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            dispatchExecutor.execute(() -> dispatch(ticketId, batch));
+        } catch (RejectedExecutionException e) {
+            log.warn("Fila de classificacao do debounce cheia - ticket {} nao classificado", ticketId);
+            ClassificationResponse rejected = classificationService.buildInternalErrorResponse(
+                    batch.latest.getCorrelationId(), new IllegalStateException("Fila de classificacao cheia"),
+                    System.currentTimeMillis());
+            batch.waiters.forEach(w -> w.future.complete(rejected));
+        }
+    }
+
+    private void dispatch(String ticketId, Pending batch) {
+        ClassificationResponse response;
+        Waiter latest = batch.latestWaiter;
+        StageTimings timings = new StageTimings();
+        try {
+            classified.increment();
+            timings.record(StageTimings.DEBOUNCE, latest.arrivalNanos);
+            response = classificationService.classify(batch.latest, timings);
+        } catch (RuntimeException e) {
+            log.error("Erro ao classificar ticket {} apos debounce: {}", ticketId, e.getMessage(), e);
+            batch.waiters.forEach(w -> w.future.completeExceptionally(e));
+            return;
+        }
+
+        if (isReusable(response)) {
+            lock.lock();
+            try {
+                decisions.put(ticketId, new Decision(batch.latestFingerprint, response, System.currentTimeMillis()));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        if (batch.waiters.size() > 1) {
+            log.info("Ticket {}: {} atualizacoes agrupadas em uma classificacao", ticketId, batch.waiters.size());
+        }
+        // Publicado antes de completar o future (a conclusao garante a visibilidade ao chamador)
+        latest.classifiedTimings = timings;
+        batch.waiters.forEach(w -> w.future.complete(response));
+    }
+
+    /**
+     * Somente decisoes efetivas da IA sao reaproveitadas (manual/erro devem tentar de novo).
+     */
+    private static boolean isReusable(ClassificationResponse response) {
+        return response.isSuccess()
+                && ("applied".equals(response.getStatus()) || "partial".equals(response.getStatus()));
+    }
+
+    /**
+     * Impressao digital do conteudo relevante: texto sanitizado, sem acentos, caixa,
+     * pontuacao e espacos, mais provider/modelo solicitados.
+     */
+    String fingerprint(ClassificationRequest request) {
+        return Sanitizer.normalizeForComparison(sanitizer.sanitizeSubject(request.getSubject())) + "|"
+                + Sanitizer.normalizeForComparison(sanitizer.sanitizeBody(request.getBody())) + "|"
+                + Objects.toString(request.getProvider(), "") + "|"
+                + Objects.toString(request.getModel(), "");
+    }
+
+    private void evictExpiredDecisions() {
+        lock.lock();
+        try {
+            decisions.values().removeIf(d -> d.isExpired(decisionTtlMinutes));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Edicoes aguardando o fim da janela de um ticket.
+     */
+    private static final class Pending {
+        private final long firstArrival;
+        private final List<Waiter> waiters = new ArrayList<>();
+        private ClassificationRequest latest;
+        private String latestFingerprint;
+        private Waiter latestWaiter;
+        private ScheduledFuture<?> timer;
+
+        private Pending(long firstArrival) {
+            this.firstArrival = firstArrival;
+        }
+    }
+
+    private static final class Waiter {
+        private final long arrivalNanos;
+        private final CompletableFuture<ClassificationResponse> future;
+        // Tempos da classificacao, quando foi este o conteudo classificado
+        private volatile StageTimings classifiedTimings;
+
+        private Waiter(long arrivalNanos, CompletableFuture<ClassificationResponse> future) {
+            this.arrivalNanos = arrivalNanos;
+            this.future = future;
+        }
+    }
+
+    private record Decision(String fingerprint, ClassificationResponse response, long createdAt) {
+        private boolean isExpired(long ttlMinutes) {
+            return System.currentTimeMillis() - createdAt > ttlMinutes * 60_000;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.exception.ClassificationException;
+import com.caesb.AiClassificator.model.ClassificationJob;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servico de classificacao assincrona.
+ * Jobs sao gravados no journal antes de serem aceitos, processados por um pool de workers
+ * e retomados apos restart. Resultados podem ser entregues via callback.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClassificationJobService {
+
+    private final ClassificationService classificationService;
+    private final JobJournal journal;
+    private final JobCallbackDispatcher callbackDispatcher;
+    private final ThreadingConfig threadingConfig;
+
+    @Value("${ai.jobs.workers:4}")
+    private int workers;
+
+    @Value("${ai.jobs.max-queued:10000}")
+    private int maxQueued;
+
+    @Value("${ai.jobs.retention-minutes:60}")
+    private int retentionMinutes;
+
+    @Value("${ai.jobs.compact-threshold-bytes:10485760}")
+    private long compactThresholdBytes;
+
+    private final Map<String, ClassificationJob> jobs = new ConcurrentHashMap<>();
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+
+    private ExecutorService workerPool;
+    private ScheduledExecutorService maintenance;
+
+    @PostConstruct
+    public void init() throws IOException {
+        // Retoma jobs pendentes do journal
+        int resumed = 0;
+        int callbacks = 0;
+        for (ClassificationJob job : journal.replay().values()) {
+            jobs.put(job.getJobId(), job);
+            if ("queued".equals(job.getStatus()) || "running".equals(job.getStatus())) {
+                job.setStatus("queued");
+                queue.add(job.getJobId());
+                resumed++;
+            } else if ("pending".equals(job.getCallbackStatus())) {
+                callbackDispatcher.enqueue(job);
+                callbacks++;
+            }
+        }
+        journal.compact(jobs.values());
+
+        workerPool = Executors.newFixedThreadPool(workers, threadingConfig.threadFactory("job-worker-"));
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::workerLoop);
+        }
+
+        maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        maintenance.scheduleWithFixedDelay(this::purgeExpired, 1, 1, TimeUnit.MINUTES);
+
+        log.info("ClassificationJobService inicializado - workers: {}, jobs retomados: {}, callbacks pendentes: {}",
+                workers, resumed, callbacks);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerPool.shutdownNow();
+        maintenance.shutdownNow();
+    }
+
+    /**
+     * Aceita um job de classificacao. Retorna apos o job estar gravado no journal.
+     *
+     * @param request Dados do ticket (callbackUrl opcional)
+     * @return Job criado com status queued
+     */
+    public ClassificationJob submit(ClassificationRequest request) {
+        if (queue.size() >= maxQueued) {
+            throw new ClassificationException("Fila de jobs cheia (" + maxQueued + ")", "QUEUE_FULL");
+        }
+        if (request.getCallbackUrl() != null) {
+            callbackDispatcher.validateUrl(request.getCallbackUrl());
+        }
+
+        ClassificationJob job = ClassificationJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .status("queued")
+                .request(request)
+                .callbackUrl(request.getCallbackUrl())
+                .callbackStatus(request.getCallbackUrl() != null ? "pending" : null)
+                .createdAt(System.currentTimeMillis())
+                .build();
+
+        journal.put(job);
+        jobs.put(job.getJobId(), job);
+        queue.add(job.getJobId());
+
+        log.info("Job {} enfileirado - ticketId: {}, fila: {}", job.getJobId(),
+                request.getTicketId() != null ? request.getTicketId() : "N/A", queue.size());
+        return job;
+    }
+
+    /**
+     * Busca um job pelo ID.
+     */
+    public Optional<ClassificationJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Quantidade de jobs aguardando processamento.
+     */
+    public int queuedCount() {
+        return queue.size();
+    }
+
+    private void workerLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                String jobId = queue.take();
+                ClassificationJob job = jobs.get(jobId);
+                if (job != null) {
+                    process(job);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void process(ClassificationJob job) {
+        job.setStatus("running");
+
+        try {
+            ClassificationResponse result = classificationService.classify(job.getRequest());
+            job.setResult(result);
+            job.setStatus("completed");
+        } catch (Exception e) {
+            log.error("Job {} falhou: {}", job.getJobId(), e.getMessage(), e);
+            job.setResult(classificationService.buildInternalErrorResponse(
+                    job.getRequest().getCorrelationId(), e, job.getCreatedAt()));
+            job.setStatus("failed");
+        }
+        job.setCompletedAt(System.currentTimeMillis());
+        journal.put(job);
+
+        if (job.getCallbackUrl() != null) {
+            callbackDispatcher.enqueue(job);
+        }
+    }
+
+    /**
+     * Remove jobs concluidos apos o periodo de retencao e compacta o journal se necessario.
+     */
+    private void purgeExpired() {
+        try {
+            long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+            jobs.values().removeIf(job -> {
+                boolean expired = job.getCompletedAt() != null
+                        && job.getCompletedAt() < cutoff
+                        && !"pending".equals(job.getCallbackStatus());
+                if (expired) {
+                    journal.remove(job.getJobId());
+                }
+                return expired;
+            });
+
+            if (journal.size() > compactThresholdBytes) {
+                journal.compact(jobs.values());
+            }
+        } catch (Exception e) {
+            log.warn("Erro na manutencao de jobs: {}", e.getMessage());
+        }
+    }
+}
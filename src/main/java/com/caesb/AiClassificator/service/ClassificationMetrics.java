@@ -0,0 +1,125 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.client.AIProviderRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metricas do pipeline de classificacao publicadas no Micrometer.
+ * Provider e modelo vem da requisicao (texto livre): so viram tag quando registrados no
+ * AIProviderRegistry; qualquer outro valor vira "unknown", para nao multiplicar histogramas.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClassificationMetrics {
+
+    private static final String NONE = "none";
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final AIProviderRegistry providerRegistry;
+
+    /**
+     * Publica o tempo de cada etapa (e o total) como timer com histograma de percentis
+     * e conta a classificacao na distribuicao de status.
+     *
+     * @param timings  Tempos medidos na requisicao
+     * @param provider Provider utilizado (ou null)
+     * @param model    Modelo utilizado (ou null)
+     * @param status   Status final (applied, partial, manual, not_applied, cached)
+     */
+    public void recordStages(StageTimings timings, String provider, String model, String status) {
+        String providerTag = providerTag(provider);
+        String modelTag = modelTag(provider, model);
+        String statusTag = status != null ? status : NONE;
+
+        Counter.builder("ai.classification.requests")
+                .description("Classificacoes por status final")
+                .tag("provider", providerTag)
+                .tag("model", modelTag)
+                .tag("status", statusTag)
+                .register(meterRegistry)
+                .increment();
+
+        timings.stages().forEach((stage, nanos) ->
+                stageTimer(stage, providerTag, modelTag, statusTag).record(nanos, TimeUnit.NANOSECONDS));
+        stageTimer(StageTimings.TOTAL, providerTag, modelTag, statusTag)
+                .record(timings.totalNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registra um escalonamento da cascata: resultado, latencia e tokens da chamada extra.
+     *
+     * @param fromModel     Modelo inicial
+     * @param toModel       Modelo de escalonamento
+     * @param outcome       "resolved" (atingiu o threshold) ou "unresolved"
+     * @param latencyNanos  Tempo da chamada de escalonamento
+     * @param tokens        Tokens consumidos pela chamada de escalonamento (ou null)
+     */
+    public void recordEscalation(String fromModel, String toModel, String outcome, long latencyNanos, Integer tokens) {
+        String fromTag = modelTag(null, fromModel);
+
+        Counter.builder("ai.cascade.escalations")
+                .description("Escalonamentos da cascata para o modelo mais forte")
+                .tag("from", fromTag)
+                .tag("to", toModel)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+
+        Timer.builder("ai.cascade.escalation.latency")
+                .description("Latencia adicionada pelo escalonamento")
+                .tag("from", fromTag)
+                .tag("to", toModel)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+
+        if (tokens != null && tokens > 0) {
+            Counter.builder("ai.cascade.escalation.tokens")
+                    .description("Tokens adicionais consumidos pelo escalonamento")
+                    .baseUnit("tokens")
+                    .tag("from", fromTag)
+                    .tag("to", toModel)
+                    .register(meterRegistry)
+                    .increment(tokens);
+        }
+    }
+
+    private String providerTag(String provider) {
+        if (provider == null) {
+            return NONE;
+        }
+        return providerRegistry.isProviderAvailable(provider) ? provider : UNKNOWN;
+    }
+
+    /**
+     * Modelo registrado no provider informado (ou em qualquer provider, se null).
+     */
+    private String modelTag(String provider, String model) {
+        if (model == null) {
+            return NONE;
+        }
+        if (provider != null) {
+            return providerRegistry.isModelAvailable(provider, model) ? model : UNKNOWN;
+        }
+        return providerRegistry.getAvailableProviders().stream()
+                .anyMatch(registered -> providerRegistry.isModelAvailable(registered, model)) ? model : UNKNOWN;
+    }
+
+    private Timer stageTimer(String stage, String provider, String model, String status) {
+        return Timer.builder("ai.classification.stage")
+                .description("Tempo por etapa do pipeline de classificacao")
+                .tag("stage", stage)
+                .tag("provider", provider)
+                .tag("model", model)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
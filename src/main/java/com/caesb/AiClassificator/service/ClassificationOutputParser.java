@@ -0,0 +1,149 @@
+package com.caesb.AiClassificator.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parser em streaming da saida de classificacao da IA ({"t", "s", "c"} ou {"r": [...]} no lote).
+ * Le os campos direto do JsonParser, sem montar arvore de JsonNode.
+ * Aceita tambem as chaves longas do formato anterior (tipo, servico_id, confidence_score).
+ */
+final class ClassificationOutputParser {
+
+    private ClassificationOutputParser() {
+    }
+
+    /**
+     * Classificacao de um ticket.
+     *
+     * @param index      Indice do ticket no lote (-1 fora do modo lote)
+     * @param type       Tipo (REQ, INC ou OS)
+     * @param serviceId  ID do servico no catalogo
+     * @param confidence Confianca entre 0 e 1
+     */
+    record Output(int index, String type, String serviceId, Double confidence) {
+
+        /**
+         * Item completo: tipo, servico e confianca numerica presentes.
+         */
+        boolean isComplete() {
+            return type != null && serviceId != null && !serviceId.isBlank() && confidence != null;
+        }
+
+        /**
+         * Serializa no formato compacto de um ticket (usado para distribuir os itens do lote).
+         */
+        String toJson(ObjectMapper objectMapper) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("t", type);
+            json.put("s", serviceId);
+            json.put("c", confidence);
+            try {
+                return objectMapper.writeValueAsString(json);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Le a classificacao de um ticket.
+     *
+     * @throws IOException se o conteudo nao for um objeto JSON valido
+     */
+    static Output parse(ObjectMapper objectMapper, String content) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Resposta da IA nao e um objeto JSON");
+            }
+            return readItem(parser);
+        }
+    }
+
+    /**
+     * Le os itens completos de uma resposta de lote, indexados por "i" (a partir de 1).
+     * Aceita o objeto {"r": [...]} ou diretamente o array; itens incompletos sao ignorados.
+     *
+     * @throws IOException se o conteudo nao for JSON valido
+     */
+    static Map<Integer, Output> parsePacked(ObjectMapper objectMapper, String content) throws IOException {
+        Map<Integer, Output> items = new HashMap<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(content)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                readItems(parser, items);
+            } else if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY
+                            && ("r".equals(field) || "resultados".equals(field))) {
+                        readItems(parser, items);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return items;
+    }
+
+    // Posicionado no START_ARRAY; termina no END_ARRAY correspondente
+    private static void readItems(JsonParser parser, Map<Integer, Output> items) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            Output item = readItem(parser);
+            if (item.index() > 0 && item.isComplete()) {
+                items.putIfAbsent(item.index(), item);
+            }
+        }
+    }
+
+    // Posicionado no START_OBJECT; termina no END_OBJECT correspondente
+    private static Output readItem(JsonParser parser) throws IOException {
+        int index = -1;
+        String type = null;
+        String serviceId = null;
+        Double confidence = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "t", "tipo" -> type = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "s", "servico_id" -> serviceId = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "c", "confidence_score" -> confidence = readConfidence(parser, value);
+                case "i", "indice" -> index = value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : -1;
+                default -> {
+                }
+            }
+            // Valores objeto/array (inesperados ou desconhecidos) sao pulados inteiros
+            parser.skipChildren();
+        }
+        return new Output(index, type, serviceId, confidence);
+    }
+
+    private static Double readConfidence(JsonParser parser, JsonToken value) throws IOException {
+        if (value.isNumeric()) {
+            return parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Double.parseDouble(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -2,12 +2,12 @@ package com.caesb.AiClassificator.service;
 
 import com.caesb.AiClassificator.client.AIProviderFactory;
 import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.jfr.ClassificationEvent;
 import com.caesb.AiClassificator.model.AIRequest;
 import com.caesb.AiClassificator.model.AIResponse;
 import com.caesb.AiClassificator.model.ClassificationRequest;
 import com.caesb.AiClassificator.model.ClassificationResponse;
 import com.caesb.AiClassificator.model.ServiceCatalog;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,20 +20,28 @@ import java.util.UUID;
 
 /**
  * Servico principal de classificacao de tickets com IA.
- * Orquestra o pipeline: Cache -> Sanitize -> Sentiment -> Prompt -> AI -> Validate -> Response
+ * Orquestra o pipeline: Cache -> Sanitize -> Sentiment -> Prompt -> Storm -> AI -> Validate -> Response
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ClassificationService {
 
+    // Classificacao e deterministica (saida json_schema estrita): temperatura 0 tambem habilita
+    // o cache de respostas da IA (ai.response-cache.max-temperature)
+    private static final double CLASSIFICATION_TEMPERATURE = 0.0;
+
     private final Sanitizer sanitizer;
     private final SentimentAnalyzer sentimentAnalyzer;
     private final PromptBuilder promptBuilder;
     private final AIProviderFactory aiProviderFactory;
     private final AIProviderRegistry aiProviderRegistry;
     private final ClassificationCache cache;
+    private final PromptPackingService promptPackingService;
+    private final ClassificationMetrics metrics;
     private final ObjectMapper objectMapper;
+    private final IncidentStormDetector stormDetector;
+    private final DecisionLog decisionLog;
 
     @Value("${ai.classification.confidence-threshold:0.75}")
     private double confidenceThreshold;
@@ -41,6 +49,12 @@ public class ClassificationService {
     @Value("${ai.classification.fallback-queue:Service Desk (1º Nivel)}")
     private String fallbackQueue;
 
+    @Value("${ai.cascade.enabled:false}")
+    private boolean cascadeEnabled;
+
+    @Value("${ai.cascade.escalation-model:gpt-4o}")
+    private String escalationModel;
+
     /**
      * Classifica um ticket usando IA.
      *
@@ -48,6 +62,17 @@ public class ClassificationService {
      * @return Resultado da classificacao
      */
     public ClassificationResponse classify(ClassificationRequest request) {
+        return classify(request, new StageTimings());
+    }
+
+    /**
+     * Classifica um ticket usando IA, registrando o tempo de cada etapa.
+     *
+     * @param request Dados do ticket para classificacao
+     * @param timings Coletor dos tempos por etapa (lido pelo chamador, ex: header Server-Timing)
+     * @return Resultado da classificacao
+     */
+    public ClassificationResponse classify(ClassificationRequest request, StageTimings timings) {
         long startTime = System.currentTimeMillis();
         String correlationId = request.getCorrelationId() != null
                 ? request.getCorrelationId()
@@ -58,56 +83,215 @@ public class ClassificationService {
 
         try {
             // 0. Verifica cache (idempotencia)
+            long stageStart = System.nanoTime();
             Optional<ClassificationResponse> cached = cache.get(
                     request.getTicketId(), request.getSubject(), request.getBody());
+            timings.record(StageTimings.CACHE, stageStart);
             if (cached.isPresent()) {
                 log.info("[{}] Retornando resposta do cache - ticketId: {}",
                         correlationId, request.getTicketId());
+                recordClassification(request, correlationId, timings,
+                        cached.get().getProvider(), cached.get().getModel(), cached.get(), true);
                 return cached.get();
             }
 
-            // 1. Sanitiza os dados
-            SanitizedData sanitized = sanitizer.sanitizeAll(
-                    request.getSubject(),
-                    request.getBody(),
-                    request.getSenderEmail()
-            );
+            // 1-3. Sanitiza, analisa sentimento e constroi o prompt
+            PreparedClassification prepared = prepare(request, correlationId, startTime, timings);
 
-            log.debug("[{}] Dados sanitizados - subject length: {}, body length: {}",
-                    correlationId, sanitized.getSubject().length(), sanitized.getBody().length());
+            // 4-6. Envia para a IA, valida e armazena no cache
+            return complete(prepared);
 
-            // 2. Analisa sentimento
-            SentimentResult sentiment = sentimentAnalyzer.analyzeSentiment(
-                    sanitized.getBody()
-            );
+        } catch (Exception e) {
+            log.error("[{}] Erro inesperado na classificacao: {}", correlationId, e.getMessage(), e);
+            ClassificationResponse response = buildInternalErrorResponse(correlationId, e, startTime);
+            recordClassification(request, correlationId, timings,
+                    request.getProvider(), request.getModel(), response, false);
+            return response;
+        }
+    }
 
-            log.debug("[{}] Sentimento: {}, urgencia: {}, criticidade: {}",
-                    correlationId, sentiment.getSentimentLabel(),
-                    sentiment.isUrgencyDetected(), sentiment.getCriticalityScore());
-
-            // 3. Constroi o prompt
-            PromptResult prompt = promptBuilder.buildClassificationPrompt(
-                    sanitized.getSubject(),
-                    sanitized.getBody(),
-                    sentiment.getSentimentLabel(),
-                    sentiment.isUrgencyDetected(),
-                    null  // RAG context - pode ser adicionado futuramente
-            );
+    /**
+     * Executa as etapas locais do pipeline: Sanitize -> Sentiment -> Prompt.
+     * Nao faz chamadas externas, podendo ser executado em paralelo.
+     *
+     * @param request       Dados do ticket
+     * @param correlationId ID de correlacao
+     * @param startTime     Instante de inicio do processamento
+     * @return Dados preparados para envio a IA
+     */
+    public PreparedClassification prepare(ClassificationRequest request, String correlationId, long startTime) {
+        return prepare(request, correlationId, startTime, new StageTimings());
+    }
 
-            // 4. Envia para a IA (via factory que roteia para o provider correto)
-            String provider = request.getProvider() != null ? request.getProvider() : aiProviderRegistry.getDefaultProvider();
-            String model = request.getModel() != null ? request.getModel() : aiProviderRegistry.getDefaultModel();
+    /**
+     * Executa as etapas locais do pipeline registrando o tempo de cada uma.
+     *
+     * @param request       Dados do ticket
+     * @param correlationId ID de correlacao
+     * @param startTime     Instante de inicio do processamento
+     * @param timings       Coletor dos tempos por etapa
+     * @return Dados preparados para envio a IA
+     */
+    public PreparedClassification prepare(ClassificationRequest request, String correlationId, long startTime,
+                                          StageTimings timings) {
+        // 1. Sanitiza os dados
+        long stageStart = System.nanoTime();
+        SanitizedData sanitized = sanitizer.sanitizeAll(
+                request.getSubject(),
+                request.getBody(),
+                request.getSenderEmail()
+        );
+        timings.record(StageTimings.SANITIZE, stageStart);
+
+        log.debug("[{}] Dados sanitizados - subject length: {}, body length: {}",
+                correlationId, sanitized.getSubject().length(), sanitized.getBody().length());
+
+        // 2. Analisa sentimento
+        stageStart = System.nanoTime();
+        SentimentResult sentiment = sentimentAnalyzer.analyzeSentiment(
+                sanitized.getBody()
+        );
+        timings.record(StageTimings.SENTIMENT, stageStart);
+
+        log.debug("[{}] Sentimento: {}, urgencia: {}, criticidade: {}",
+                correlationId, sentiment.getSentimentLabel(),
+                sentiment.isUrgencyDetected(), sentiment.getCriticalityScore());
+
+        // 3. Constroi o prompt
+        stageStart = System.nanoTime();
+        PromptResult prompt = promptBuilder.buildClassificationPrompt(
+                sanitized.getSubject(),
+                sanitized.getBody(),
+                sentiment.getSentimentLabel(),
+                sentiment.isUrgencyDetected(),
+                null  // RAG context - pode ser adicionado futuramente
+        );
+        timings.record(StageTimings.PROMPT, stageStart);
+
+        String provider = request.getProvider() != null ? request.getProvider() : aiProviderRegistry.getDefaultProvider();
+        // Sem modelo fixado, o roteador escolhe o deployment por latencia, custo e saude
+        String model = request.getModel() != null ? request.getModel() : aiProviderFactory.selectModel(provider);
+        if (model == null) {
+            model = aiProviderRegistry.getDefaultModel();
+        }
 
-            com.caesb.AiClassificator.model.AIRequest aiRequest = com.caesb.AiClassificator.model.AIRequest.builder()
-                    .systemPrompt(prompt.getSystemPrompt())
-                    .userPrompt(prompt.getUserPrompt())
+        return PreparedClassification.builder()
+                .request(request)
+                .correlationId(correlationId)
+                .startTime(startTime)
+                .sanitized(sanitized)
+                .sentiment(sentiment)
+                .prompt(prompt)
+                .provider(provider)
+                .model(model)
+                .timings(timings)
+                .build();
+    }
+
+    /**
+     * Executa as etapas remotas do pipeline: AI -> Validate -> Cache.
+     *
+     * @param prepared Dados preparados por {@link #prepare}
+     * @return Resultado da classificacao
+     */
+    public ClassificationResponse complete(PreparedClassification prepared) {
+        if (prepared.getTimings() == null) {
+            prepared.setTimings(new StageTimings());
+        }
+        // Ticket quase identico a um incidente em massa ativo reaproveita a classificacao do grupo
+        ClassificationResponse response = stormDetector.classify(prepared, () -> completeStages(prepared));
+        if (response.getStormId() != null) {
+            ClassificationRequest request = prepared.getRequest();
+            cache.put(request.getTicketId(), request.getSubject(), request.getBody(), response);
+        }
+        recordClassification(prepared.getRequest(), prepared.getCorrelationId(), prepared.getTimings(),
+                prepared.getProvider(),
+                response.getModel() != null ? response.getModel() : prepared.getModel(), response, false);
+        return response;
+    }
+
+    /**
+     * Registra uma resposta reaproveitada fora do pipeline (ex: decisao anterior no debounce)
+     * como cached, igual a um acerto do cache de idempotencia.
+     *
+     * @param request  Dados do ticket
+     * @param timings  Coletor dos tempos por etapa do chamador
+     * @param response Resposta reaproveitada
+     */
+    public void recordReused(ClassificationRequest request, StageTimings timings, ClassificationResponse response) {
+        String correlationId = request.getCorrelationId() != null
+                ? request.getCorrelationId()
+                : UUID.randomUUID().toString();
+        recordClassification(request, correlationId, timings, response.getProvider(), response.getModel(),
+                response, true);
+    }
+
+    /**
+     * Publica as metricas da classificacao, emite o evento JFR e registra a decisao no log estruturado.
+     */
+    private void recordClassification(ClassificationRequest request, String correlationId, StageTimings timings,
+                                      String provider, String model, ClassificationResponse response,
+                                      boolean cached) {
+        String status = cached ? "cached" : response.getStatus();
+        metrics.recordStages(timings, provider, model, status);
+        decisionLog.record(correlationId, request, response, provider, model, timings, cached);
+
+        ClassificationEvent event = timings.event();
+        event.end();
+        if (event.shouldCommit()) {
+            event.correlationId = correlationId;
+            event.ticketId = request.getTicketId();
+            event.cacheHit = "cached".equals(status);
+            event.status = status;
+            event.provider = provider;
+            event.model = model;
+            event.cacheNanos = timings.stageNanos(StageTimings.CACHE);
+            event.sanitizeNanos = timings.stageNanos(StageTimings.SANITIZE);
+            event.sentimentNanos = timings.stageNanos(StageTimings.SENTIMENT);
+            event.promptNanos = timings.stageNanos(StageTimings.PROMPT);
+            event.aiNanos = timings.stageNanos(StageTimings.AI);
+            event.fallbackNanos = timings.stageNanos(StageTimings.FALLBACK);
+            event.parseNanos = timings.stageNanos(StageTimings.PARSE);
+            event.escalationNanos = timings.stageNanos(StageTimings.ESCALATION);
+            event.commit();
+        }
+    }
+
+    private ClassificationResponse completeStages(PreparedClassification prepared) {
+        StageTimings timings = prepared.getTimings();
+        String correlationId = prepared.getCorrelationId();
+        long startTime = prepared.getStartTime();
+        ClassificationRequest request = prepared.getRequest();
+        SanitizedData sanitized = prepared.getSanitized();
+        SentimentResult sentiment = prepared.getSentiment();
+        String provider = prepared.getProvider();
+        String model = prepared.getModel();
+
+        try {
+            // 4. Envia para a IA (via factory que roteia para o provider correto)
+            AIRequest aiRequest = AIRequest.builder()
+                    .systemPrompt(prepared.getPrompt().getSystemPrompt())
+                    .userPrompt(prepared.getPrompt().getUserPrompt())
                     .provider(provider)
                     .model(model)
+                    .temperature(CLASSIFICATION_TEMPERATURE)
+                    .criticality(sentiment.getCriticalityScore())
+                    .promptVersion(prepared.getPrompt().getPromptVersion())
+                    .responseFormat(prepared.getPrompt().getResponseFormat())
                     .build();
 
             log.debug("[{}] Usando provider: {}, model: {}", correlationId, provider, model);
 
-            com.caesb.AiClassificator.model.AIResponse aiResponse = aiProviderFactory.sendRequest(aiRequest);
+            // Com empacotamento ativo, o ticket e agrupado com outros do mesmo modelo
+            long aiStart = System.nanoTime();
+            AIResponse aiResponse = promptPackingService.isEnabled()
+                    ? promptPackingService.send(prepared, aiRequest)
+                    : aiProviderFactory.sendRequest(aiRequest);
+            long fallbackNanos = aiResponse.getFallbackNanos() != null ? aiResponse.getFallbackNanos() : 0L;
+            timings.add(StageTimings.AI, System.nanoTime() - aiStart - fallbackNanos);
+            if (fallbackNanos > 0) {
+                timings.add(StageTimings.FALLBACK, fallbackNanos);
+            }
 
             if (!aiResponse.isSuccess()) {
                 log.error("[{}] Erro na classificacao IA: {} - {}",
@@ -142,9 +326,16 @@ public class ClassificationService {
             }
 
             // 5. Parse e valida a resposta
+            long parseStart = System.nanoTime();
             ClassificationResponse response = parseAndValidateResponse(
                     correlationId, aiResponse, sanitized, sentiment, startTime, provider
             );
+            timings.record(StageTimings.PARSE, parseStart);
+
+            // 5.1 Cascata: resposta incerta do modelo barato e refeita no modelo mais forte
+            if (shouldEscalate(request, model, response)) {
+                response = escalate(prepared, aiRequest, response);
+            }
 
             log.info("[{}] Classificacao concluida - tipo: {}, servico: {}, confianca: {}, status: {}",
                     correlationId, response.getType(), response.getServiceId(),
@@ -159,15 +350,98 @@ public class ClassificationService {
 
         } catch (Exception e) {
             log.error("[{}] Erro inesperado na classificacao: {}", correlationId, e.getMessage(), e);
-            return ClassificationResponse.builder()
-                    .success(false)
-                    .status("not_applied")
-                    .correlationId(correlationId)
-                    .errorCode("INTERNAL_ERROR")
-                    .errorMessage(e.getMessage())
-                    .processingTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
+            return buildInternalErrorResponse(correlationId, e, startTime);
+        }
+    }
+
+    /**
+     * A cascata so vale para requisicoes sem modelo fixado, quando o primeiro modelo nao e o de
+     * escalonamento e o resultado ficou abaixo do threshold, com servico invalido ou sem parse.
+     */
+    private boolean shouldEscalate(ClassificationRequest request, String model, ClassificationResponse response) {
+        if (!cascadeEnabled || request.getModel() != null || escalationModel.equals(model)) {
+            return false;
         }
+        return response.isSuccess() ? !response.isThresholdMet() : "PARSE_ERROR".equals(response.getErrorCode());
+    }
+
+    /**
+     * Refaz a classificacao no modelo de escalonamento e combina com o resultado inicial.
+     */
+    private ClassificationResponse escalate(PreparedClassification prepared, AIRequest firstRequest,
+                                            ClassificationResponse first) {
+        String correlationId = prepared.getCorrelationId();
+        log.info("[{}] Confianca {} abaixo do threshold com {} - escalonando para {}",
+                correlationId, first.getConfidenceScore(), first.getModel(), escalationModel);
+
+        AIRequest escalationRequest = AIRequest.builder()
+                .systemPrompt(firstRequest.getSystemPrompt())
+                .userPrompt(firstRequest.getUserPrompt())
+                .provider(firstRequest.getProvider())
+                .model(escalationModel)
+                .temperature(firstRequest.getTemperature())
+                .criticality(firstRequest.getCriticality())
+                .promptVersion(firstRequest.getPromptVersion())
+                .responseFormat(firstRequest.getResponseFormat())
+                .build();
+
+        long escalationStart = System.nanoTime();
+        AIResponse escalationResponse = aiProviderFactory.sendRequest(escalationRequest);
+        prepared.getTimings().record(StageTimings.ESCALATION, escalationStart);
+
+        ClassificationResponse merged = first;
+        if (escalationResponse.isSuccess()) {
+            ClassificationResponse second = parseAndValidateResponse(correlationId, escalationResponse,
+                    prepared.getSanitized(), prepared.getSentiment(), prepared.getStartTime(), prepared.getProvider());
+            merged = mergeCascade(first, second);
+        } else {
+            log.warn("[{}] Escalonamento para {} falhou: {} - mantendo resultado inicial",
+                    correlationId, escalationModel, escalationResponse.getErrorCode());
+        }
+
+        merged.setEscalated(true);
+        metrics.recordEscalation(first.getModel(), escalationModel,
+                merged.isThresholdMet() ? "resolved" : "unresolved",
+                System.nanoTime() - escalationStart, escalationResponse.getTotalTokens());
+        return merged;
+    }
+
+    /**
+     * Combina os resultados da cascata: prevalece o que atinge o threshold; senao, o de maior
+     * confianca com servico valido (em empate, o do modelo mais forte).
+     */
+    private ClassificationResponse mergeCascade(ClassificationResponse first, ClassificationResponse second) {
+        if (!second.isSuccess()) {
+            return first;
+        }
+        if (second.isThresholdMet() || !first.isSuccess()) {
+            return second;
+        }
+
+        boolean firstValid = !"manual".equals(first.getStatus());
+        boolean secondValid = !"manual".equals(second.getStatus());
+        if (secondValid && (!firstValid || confidence(second) >= confidence(first))) {
+            return second;
+        }
+        return firstValid ? first : second;
+    }
+
+    private static double confidence(ClassificationResponse response) {
+        return response.getConfidenceScore() != null ? response.getConfidenceScore() : 0.0;
+    }
+
+    /**
+     * Constroi resposta para erro inesperado no pipeline.
+     */
+    public ClassificationResponse buildInternalErrorResponse(String correlationId, Exception e, long startTime) {
+        return ClassificationResponse.builder()
+                .success(false)
+                .status("not_applied")
+                .correlationId(correlationId)
+                .errorCode("INTERNAL_ERROR")
+                .errorMessage(e.getMessage())
+                .processingTimeMs(System.currentTimeMillis() - startTime)
+                .build();
     }
 
     /**
@@ -182,23 +456,20 @@ public class ClassificationService {
             String provider) {
 
         try {
-            JsonNode jsonResponse = objectMapper.readTree(aiResponse.getContent());
+            ClassificationOutputParser.Output output =
+                    ClassificationOutputParser.parse(objectMapper, aiResponse.getContent());
 
-            String tipo = jsonResponse.path("tipo").asText("");
-            String servicoId = jsonResponse.path("servico_id").asText("");
-            String servicoNome = jsonResponse.path("servico_nome").asText("");
-            double confidenceScore = jsonResponse.path("confidence_score").asDouble(0.0);
+            String tipo = output.type() != null ? output.type() : "";
+            String servicoId = output.serviceId() != null ? output.serviceId() : "";
+            double confidenceScore = output.confidence() != null ? output.confidence() : 0.0;
 
-            // Valida o servico
+            // Valida o servico (com json_schema estrito o ID ja vem restrito ao catalogo)
             boolean validService = promptBuilder.isValidServiceId(servicoId);
             String queue = validService
                     ? promptBuilder.getQueueForService(servicoId)
                     : fallbackQueue;
-
-            // Se servico invalido, busca pelo nome no catalogo
-            if (!validService && servicoNome != null && !servicoNome.isBlank()) {
-                log.warn("[{}] Servico ID '{}' invalido, tentando buscar pelo nome", correlationId, servicoId);
-                // Poderia implementar busca por nome aqui
+            if (!validService) {
+                log.warn("[{}] Servico ID '{}' invalido", correlationId, servicoId);
             }
 
             // Determina status baseado no threshold
@@ -213,11 +484,9 @@ public class ClassificationService {
                 queue = fallbackQueue;
             }
 
-            // Busca informacoes do servico no catalogo
-            com.caesb.AiClassificator.model.Service service =  ServiceCatalog.getService(servicoId);
-            if (service != null) {
-                servicoNome = service.getName();
-            }
+            // Nome do servico vem do catalogo (a IA nao retorna mais o nome)
+            com.caesb.AiClassificator.model.Service service = ServiceCatalog.getService(servicoId);
+            String servicoNome = service != null ? service.getName() : null;
 
             return ClassificationResponse.builder()
                     .success(true)
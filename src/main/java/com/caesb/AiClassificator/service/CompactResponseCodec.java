@@ -0,0 +1,323 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.model.Queue;
+import com.caesb.AiClassificator.model.Service;
+import com.caesb.AiClassificator.model.ServiceCatalog;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Formato binario compacto de ClassificationResponse para o slab do ClassificationCache.
+ * Strings de baixa cardinalidade (status, tipo, sentimento, servico, nome e fila do catalogo,
+ * mensagens, provider, modelo, etapas) viram ids de 2 bytes de um dicionario pre-carregado com o
+ * catalogo e completado sob demanda; o restante (correlationId, textos sanitizados, erros) vai
+ * inline em UTF-8, e os numeros sem boxing, com bits de presenca.
+ * Sem sincronizacao propria: o chamador serializa o acesso (lock do cache).
+ */
+final class CompactResponseCodec {
+
+    // Dicionario limitado: strings de alta cardinalidade que caiam em campos "constantes" vao inline
+    private static final int MAX_DICTIONARY = 4096;
+    private static final int NULL_REF = 0;
+    private static final int INLINE_REF = 0xFFFF;
+
+    private static final int SUCCESS = 1;
+    private static final int THRESHOLD_MET = 1 << 1;
+    private static final int URGENCY = 1 << 2;
+    private static final int INCREASE_SEVERITY = 1 << 3;
+    private static final int HAS_ESCALATED = 1 << 4;
+    private static final int ESCALATED = 1 << 5;
+    private static final int HAS_CONFIDENCE = 1 << 6;
+    private static final int HAS_SENTIMENT_SCORE = 1 << 7;
+    private static final int HAS_CRITICALITY = 1 << 8;
+    private static final int HAS_PROCESSING_TIME = 1 << 9;
+    private static final int HAS_TIMINGS = 1 << 10;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    private byte[] scratch = new byte[1024];
+    private int length;
+
+    CompactResponseCodec() {
+        values.add(null);
+        for (String constant : List.of("applied", "partial", "manual", "not_applied", "REQ", "INC", "OS", "",
+                "positive", "neutral", "negative")) {
+            id(constant);
+        }
+        for (Service service : ServiceCatalog.getAllServices().values()) {
+            id(service.getId());
+            id(service.getName());
+            id(service.getDomain());
+        }
+        for (Queue queue : ServiceCatalog.getAllQueues().values()) {
+            id(queue.getId());
+            id(queue.getName());
+        }
+    }
+
+    /**
+     * Codifica a resposta no buffer interno.
+     *
+     * @return Tamanho em bytes (conteudo em {@link #buffer()})
+     */
+    int encode(ClassificationResponse response) {
+        length = 0;
+        int flags = (response.isSuccess() ? SUCCESS : 0)
+                | (response.isThresholdMet() ? THRESHOLD_MET : 0)
+                | (response.isUrgencyDetected() ? URGENCY : 0)
+                | (response.isShouldIncreaseSeverity() ? INCREASE_SEVERITY : 0)
+                | (response.getEscalated() != null ? HAS_ESCALATED : 0)
+                | (Boolean.TRUE.equals(response.getEscalated()) ? ESCALATED : 0)
+                | (response.getConfidenceScore() != null ? HAS_CONFIDENCE : 0)
+                | (response.getSentimentScore() != null ? HAS_SENTIMENT_SCORE : 0)
+                | (response.getCriticalityScore() != null ? HAS_CRITICALITY : 0)
+                | (response.getProcessingTimeMs() != null ? HAS_PROCESSING_TIME : 0)
+                | (response.getTimings() != null ? HAS_TIMINGS : 0);
+        writeShort(flags);
+
+        writeRef(response.getStatus());
+        writeRef(response.getType());
+        writeRef(response.getServiceId());
+        writeRef(response.getServiceName());
+        writeRef(response.getQueue());
+        writeRef(response.getSentimentLabel());
+        writeRef(response.getMessage());
+        writeRef(response.getErrorCode());
+        writeRef(response.getProvider());
+        writeRef(response.getModel());
+
+        if (response.getConfidenceScore() != null) {
+            writeLong(Double.doubleToRawLongBits(response.getConfidenceScore()));
+        }
+        if (response.getSentimentScore() != null) {
+            writeLong(Double.doubleToRawLongBits(response.getSentimentScore()));
+        }
+        if (response.getCriticalityScore() != null) {
+            writeVarint(response.getCriticalityScore());
+        }
+        if (response.getProcessingTimeMs() != null) {
+            writeLong(response.getProcessingTimeMs());
+        }
+
+        writeString(response.getCorrelationId());
+        writeString(response.getErrorMessage());
+        writeString(response.getStormId());
+        writeString(response.getSanitizedSubject());
+        writeString(response.getSanitizedBodySummary());
+        writeString(response.getMaskedSender());
+
+        if (response.getTimings() != null) {
+            writeVarint(response.getTimings().size());
+            for (Map.Entry<String, Double> timing : response.getTimings().entrySet()) {
+                writeRef(timing.getKey());
+                writeLong(Double.doubleToRawLongBits(timing.getValue() != null ? timing.getValue() : 0.0));
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Buffer com o resultado do ultimo {@link #encode}.
+     */
+    byte[] buffer() {
+        return scratch;
+    }
+
+    /**
+     * Reconstroi a resposta a partir da posicao informada (leitura absoluta, sem mover o buffer).
+     */
+    ClassificationResponse decode(ByteBuffer source, int position) {
+        Reader in = new Reader(source, position);
+        int flags = in.readShort();
+        ClassificationResponse.ClassificationResponseBuilder builder = ClassificationResponse.builder()
+                .success((flags & SUCCESS) != 0)
+                .thresholdMet((flags & THRESHOLD_MET) != 0)
+                .urgencyDetected((flags & URGENCY) != 0)
+                .shouldIncreaseSeverity((flags & INCREASE_SEVERITY) != 0)
+                .escalated((flags & HAS_ESCALATED) != 0 ? (flags & ESCALATED) != 0 : null)
+                .status(readRef(in))
+                .type(readRef(in))
+                .serviceId(readRef(in))
+                .serviceName(readRef(in))
+                .queue(readRef(in))
+                .sentimentLabel(readRef(in))
+                .message(readRef(in))
+                .errorCode(readRef(in))
+                .provider(readRef(in))
+                .model(readRef(in));
+
+        if ((flags & HAS_CONFIDENCE) != 0) {
+            builder.confidenceScore(Double.longBitsToDouble(in.readLong()));
+        }
+        if ((flags & HAS_SENTIMENT_SCORE) != 0) {
+            builder.sentimentScore(Double.longBitsToDouble(in.readLong()));
+        }
+        if ((flags & HAS_CRITICALITY) != 0) {
+            builder.criticalityScore(in.readVarint());
+        }
+        if ((flags & HAS_PROCESSING_TIME) != 0) {
+            builder.processingTimeMs(in.readLong());
+        }
+
+        builder.correlationId(in.readString())
+                .errorMessage(in.readString())
+                .stormId(in.readString())
+                .sanitizedSubject(in.readString())
+                .sanitizedBodySummary(in.readString())
+                .maskedSender(in.readString());
+
+        if ((flags & HAS_TIMINGS) != 0) {
+            int count = in.readVarint();
+            Map<String, Double> timings = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String stage = readRef(in);
+                timings.put(stage, Double.longBitsToDouble(in.readLong()));
+            }
+            builder.timings(timings);
+        }
+        return builder.build();
+    }
+
+    private int id(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            if (values.size() >= MAX_DICTIONARY) {
+                return INLINE_REF;
+            }
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    private void writeRef(String value) {
+        int id = value == null ? NULL_REF : id(value);
+        writeShort(id);
+        if (id == INLINE_REF) {
+            writeString(value);
+        }
+    }
+
+    private String readRef(Reader in) {
+        int id = in.readShort();
+        return id == INLINE_REF ? in.readString() : values.get(id);
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > scratch.length) {
+            scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, length + extra));
+        }
+    }
+
+    private void writeShort(int value) {
+        ensure(2);
+        scratch[length++] = (byte) (value >>> 8);
+        scratch[length++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        ensure(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            scratch[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeVarint(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            scratch[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        scratch[length++] = (byte) value;
+    }
+
+    // Tamanho em chars + 1 (0 = null) e os chars em UTF-8 (surrogates codificados um a um, como no DataOutput)
+    private void writeString(String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        int chars = value.length();
+        writeVarint(chars + 1);
+        ensure(chars * 3);
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                scratch[length++] = (byte) c;
+            } else if (c < 0x800) {
+                scratch[length++] = (byte) (0xC0 | (c >> 6));
+                scratch[length++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                scratch[length++] = (byte) (0xE0 | (c >> 12));
+                scratch[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                scratch[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Leitura sequencial com posicoes absolutas sobre o slab.
+     */
+    private static final class Reader {
+        private final ByteBuffer source;
+        private int position;
+
+        private Reader(ByteBuffer source, int position) {
+            this.source = source;
+            this.position = position;
+        }
+
+        private int readShort() {
+            int value = source.getShort(position) & 0xFFFF;
+            position += 2;
+            return value;
+        }
+
+        private long readLong() {
+            long value = source.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = source.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private String readString() {
+            int chars = readVarint() - 1;
+            if (chars < 0) {
+                return null;
+            }
+            char[] value = new char[chars];
+            for (int i = 0; i < chars; i++) {
+                int b = source.get(position++) & 0xFF;
+                if (b < 0x80) {
+                    value[i] = (char) b;
+                } else if (b < 0xE0) {
+                    value[i] = (char) (((b & 0x1F) << 6) | (source.get(position++) & 0x3F));
+                } else {
+                    int b2 = source.get(position++) & 0x3F;
+                    value[i] = (char) (((b & 0x0F) << 12) | (b2 << 6) | (source.get(position++) & 0x3F));
+                }
+            }
+            return new String(value);
+        }
+    }
+}
@@ -0,0 +1,600 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.service.DecisionLog.DecisionRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice em memoria das decisoes gravadas pelo DecisionLog, para consultas administrativas
+ * ("como o ticket 12345 foi classificado?", "quantos INC-202 foram para manual ontem?").
+ * Cada segmento do log tem colunas compactas por decisao (instante, posicao da linha no arquivo,
+ * hash de 64 bits do ticketId, codigos de servico e status), listas de linhas por servico e,
+ * depois de fechado, as linhas ordenadas pelo hash do ticket (busca binaria). O intervalo de
+ * tempo descarta segmentos inteiros pelo menor/maior instante. As decisoes completas sao lidas
+ * do disco apenas para a pagina retornada. Custo em heap: ~34 bytes por decisao, limitado por
+ * max-rows e retention-days: os segmentos fechados mais antigos saem do indice (o arquivo fica
+ * no disco ate a rotacao do DecisionLog, mas deixa de ser consultado).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DecisionIndex {
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${ai.decision-log.index.max-rows:1000000}")
+    private long maxRows = 1_000_000;
+
+    @Value("${ai.decision-log.index.retention-days:30}")
+    private int retentionDays = 30;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Dictionary services = new Dictionary();
+    private final Dictionary statuses = new Dictionary();
+    // Decisoes indexadas em todos os segmentos; acessado somente com o lock de escrita/leitura
+    private long rows;
+
+    /**
+     * Filtro de consulta; campos null nao filtram.
+     *
+     * @param ticketId      ID do ticket
+     * @param serviceId     Servico classificado
+     * @param status        applied, partial, manual ou not_applied
+     * @param from          Inicio do intervalo (inclusivo)
+     * @param to            Fim do intervalo (exclusivo)
+     * @param includeCached Se inclui respostas do cache de idempotencia (repeticoes da mesma decisao)
+     */
+    public record Query(String ticketId, String serviceId, String status, Instant from, Instant to,
+                        boolean includeCached) {
+    }
+
+    /**
+     * Pagina de decisoes, da mais recente para a mais antiga.
+     */
+    public record Page(long total, int page, int size, List<DecisionRecord> decisions) {
+    }
+
+    /**
+     * Dimensoes de agregacao das contagens.
+     */
+    public enum GroupBy {
+        SERVICE, STATUS, HOUR
+    }
+
+    /**
+     * Contagem de decisoes de um grupo (dimensoes nao agrupadas ficam null).
+     */
+    public record Count(String serviceId, String status, Instant hour, long count) {
+    }
+
+    /**
+     * Indexa um segmento existente (leitura sequencial do arquivo) e o fecha.
+     * Linhas invalidas (ex.: ultima linha incompleta apos uma queda) sao ignoradas.
+     */
+    public void load(long segmentId, Path file) throws IOException {
+        int rows = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            LineReader reader = new LineReader(in);
+            byte[] line;
+            while ((line = reader.next()) != null) {
+                try {
+                    append(segmentId, file, reader.lineStart(), objectMapper.readValue(line, DecisionRecord.class));
+                    rows++;
+                } catch (IOException e) {
+                    log.debug("Linha invalida em {} na posicao {}", file.getFileName(), reader.lineStart());
+                }
+            }
+        }
+        seal(segmentId);
+        log.info("Segmento de decisoes {} indexado ({} decisoes)", file.getFileName(), rows);
+    }
+
+    /**
+     * Indexa uma decisao ja gravada no segmento.
+     *
+     * @param position Posicao (em bytes) do inicio da linha no arquivo
+     */
+    public void append(long segmentId, Path file, int position, DecisionRecord record) {
+        lock.writeLock().lock();
+        try {
+            Segment segment = segments.computeIfAbsent(segmentId, id -> new Segment(file));
+            segment.add(record.at(), position, ticketHash(record.ticketId()), services.code(record.serviceId()),
+                    statuses.code(record.status()), Boolean.TRUE.equals(record.cached()));
+            rows++;
+            if (rows > maxRows) {
+                trim();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Fecha o segmento (nao recebe mais decisoes) e monta o indice por ticket.
+     */
+    public void seal(long segmentId) {
+        lock.writeLock().lock();
+        try {
+            Segment segment = segments.get(segmentId);
+            if (segment != null) {
+                segment.seal();
+            }
+            trim();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove o segmento do indice (antes do arquivo ser apagado).
+     */
+    public void drop(long segmentId) {
+        lock.writeLock().lock();
+        try {
+            Segment removed = segments.remove(segmentId);
+            if (removed != null) {
+                rows -= removed.size;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Numero de decisoes indexadas.
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lista as decisoes que atendem ao filtro, da mais recente para a mais antiga.
+     *
+     * @param page Pagina (a partir de 0)
+     * @param size Tamanho da pagina
+     */
+    public Page query(Query query, int page, int size) {
+        long first = (long) page * size;
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            List<DecisionRecord> decisions = new ArrayList<>(size);
+            Matcher matcher = new Matcher(query);
+            for (Segment segment : segments.descendingMap().values()) {
+                if (!matcher.overlaps(segment)) {
+                    continue;
+                }
+                int[] candidates = matcher.candidates(segment);
+                int count = candidates != null ? candidates.length : segment.size;
+                FileChannel channel = null;
+                try {
+                    for (int i = count - 1; i >= 0; i--) {
+                        int row = candidates != null ? candidates[i] : i;
+                        if (!matcher.matches(segment, row)) {
+                            continue;
+                        }
+                        if (total >= first && decisions.size() < size) {
+                            if (channel == null) {
+                                channel = FileChannel.open(segment.file, StandardOpenOption.READ);
+                            }
+                            DecisionRecord record = read(channel, segment, row);
+                            // Colisao de hash do ticket (improvavel com 64 bits): descarta
+                            if (query.ticketId() != null && !query.ticketId().equals(record.ticketId())) {
+                                continue;
+                            }
+                            decisions.add(record);
+                        }
+                        total++;
+                    }
+                } finally {
+                    if (channel != null) {
+                        channel.close();
+                    }
+                }
+            }
+            return new Page(total, page, size, decisions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler log de decisoes", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Conta as decisoes que atendem ao filtro, agrupadas pelas dimensoes informadas.
+     * Resultado ordenado por hora e, dentro da hora, pela contagem (maior primeiro).
+     */
+    public List<Count> count(Query query, Set<GroupBy> groupBy) {
+        boolean byService = groupBy.contains(GroupBy.SERVICE);
+        boolean byStatus = groupBy.contains(GroupBy.STATUS);
+        boolean byHour = groupBy.contains(GroupBy.HOUR);
+
+        lock.readLock().lock();
+        try {
+            // Contadores densos servico x status por hora (uma unica "hora" se nao agrupar por hora)
+            int serviceSlots = byService ? services.size() : 1;
+            int statusSlots = byStatus ? statuses.size() : 1;
+            Map<Long, long[]> buckets = new HashMap<>();
+            long currentHour = Long.MIN_VALUE;
+            long[] current = null;
+
+            Matcher matcher = new Matcher(query);
+            for (Segment segment : segments.values()) {
+                if (!matcher.overlaps(segment)) {
+                    continue;
+                }
+                int[] candidates = matcher.candidates(segment);
+                int count = candidates != null ? candidates.length : segment.size;
+                for (int i = 0; i < count; i++) {
+                    int row = candidates != null ? candidates[i] : i;
+                    if (!matcher.matches(segment, row)) {
+                        continue;
+                    }
+                    long hour = byHour ? Math.floorDiv(segment.at[row], HOUR_MILLIS) : 0;
+                    if (current == null || hour != currentHour) {
+                        current = buckets.computeIfAbsent(hour, key -> new long[serviceSlots * statusSlots]);
+                        currentHour = hour;
+                    }
+                    int service = byService ? segment.service[row] : 0;
+                    int status = byStatus ? segment.status[row] : 0;
+                    current[service * statusSlots + status]++;
+                }
+            }
+
+            List<Count> counts = new ArrayList<>();
+            buckets.forEach((hour, counters) -> {
+                for (int slot = 0; slot < counters.length; slot++) {
+                    if (counters[slot] > 0) {
+                        counts.add(new Count(
+                                byService ? services.value(slot / statusSlots) : null,
+                                byStatus ? statuses.value(slot % statusSlots) : null,
+                                byHour ? Instant.ofEpochMilli(hour * HOUR_MILLIS) : null,
+                                counters[slot]));
+                    }
+                }
+            });
+            counts.sort(Comparator.comparing(Count::hour, Comparator.nullsFirst(Comparator.<Instant>naturalOrder()))
+                    .thenComparing(Comparator.comparingLong(Count::count).reversed()));
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Tira do indice os segmentos fechados mais antigos enquanto o total passar de max-rows ou o
+     * segmento for mais velho que retention-days. O segmento ativo nunca sai. Chamado com o lock
+     * de escrita.
+     */
+    private void trim() {
+        long cutoff = retentionDays > 0 ? System.currentTimeMillis() - retentionDays * DAY_MILLIS : Long.MIN_VALUE;
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest.byTicket == null || (rows <= maxRows && oldest.maxAt >= cutoff)) {
+                return;
+            }
+            segments.pollFirstEntry();
+            rows -= oldest.size;
+            log.info("Segmento de decisoes {} retirado do indice ({} decisoes)",
+                    oldest.file.getFileName(), oldest.size);
+        }
+    }
+
+    private DecisionRecord read(FileChannel channel, Segment segment, int row) throws IOException {
+        int start = segment.position[row];
+        int end = row + 1 < segment.size ? segment.position[row + 1] : (int) channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(end - start);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                break;
+            }
+        }
+        byte[] bytes = buffer.array();
+        int length = 0;
+        while (length < buffer.position() && bytes[length] != '\n') {
+            length++;
+        }
+        return objectMapper.readValue(bytes, 0, length, DecisionRecord.class);
+    }
+
+    // FNV-1a de 64 bits: colisoes desprezaveis para milhoes de tickets
+    static long ticketHash(String ticketId) {
+        if (ticketId == null) {
+            return 0;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < ticketId.length(); i++) {
+            hash ^= ticketId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Avalia o filtro sobre as colunas de um segmento (codigos resolvidos uma vez por consulta).
+     */
+    private final class Matcher {
+        private final Query query;
+        private final long from;
+        private final long to;
+        private final long ticketHash;
+        private final int serviceCode;
+        private final int statusCode;
+        private final boolean empty;
+
+        private Matcher(Query query) {
+            this.query = query;
+            this.from = query.from() != null ? query.from().toEpochMilli() : Long.MIN_VALUE;
+            this.to = query.to() != null ? query.to().toEpochMilli() : Long.MAX_VALUE;
+            this.ticketHash = ticketHash(query.ticketId());
+            this.serviceCode = query.serviceId() != null ? services.find(query.serviceId()) : -1;
+            this.statusCode = query.status() != null ? statuses.find(query.status()) : -1;
+            // Servico ou status nunca vistos: nenhuma decisao pode atender
+            this.empty = (query.serviceId() != null && serviceCode < 0) || (query.status() != null && statusCode < 0);
+        }
+
+        private boolean overlaps(Segment segment) {
+            return !empty && segment.size > 0 && segment.maxAt >= from && segment.minAt < to;
+        }
+
+        /**
+         * Linhas candidatas em ordem crescente, pelo indice mais seletivo; null = todas.
+         */
+        private int[] candidates(Segment segment) {
+            if (query.ticketId() != null) {
+                return segment.rowsForTicket(ticketHash);
+            }
+            if (serviceCode >= 0) {
+                return segment.rowsForService(serviceCode);
+            }
+            return null;
+        }
+
+        private boolean matches(Segment segment, int row) {
+            long at = segment.at[row];
+            return at >= from && at < to
+                    && (query.ticketId() == null || segment.ticketHash[row] == ticketHash)
+                    && (serviceCode < 0 || segment.service[row] == serviceCode)
+                    && (statusCode < 0 || segment.status[row] == statusCode)
+                    && (query.includeCached() || !segment.cached[row]);
+        }
+    }
+
+    /**
+     * Colunas de um segmento do log, na ordem de gravacao.
+     */
+    private static final class Segment {
+        private final Path file;
+        private int size;
+        private long[] at = new long[256];
+        private int[] position = new int[256];
+        private long[] ticketHash = new long[256];
+        private int[] service = new int[256];
+        private byte[] status = new byte[256];
+        private boolean[] cached = new boolean[256];
+        private long minAt = Long.MAX_VALUE;
+        private long maxAt = Long.MIN_VALUE;
+        private final List<IntList> byService = new ArrayList<>();
+        // Linhas ordenadas pelo hash do ticket; montado ao fechar o segmento
+        private int[] byTicket;
+
+        private Segment(Path file) {
+            this.file = file;
+        }
+
+        private void add(long rowAt, int rowPosition, long rowTicketHash, int rowService, int rowStatus,
+                         boolean rowCached) {
+            if (size == at.length) {
+                int capacity = size * 2;
+                at = Arrays.copyOf(at, capacity);
+                position = Arrays.copyOf(position, capacity);
+                ticketHash = Arrays.copyOf(ticketHash, capacity);
+                service = Arrays.copyOf(service, capacity);
+                status = Arrays.copyOf(status, capacity);
+                cached = Arrays.copyOf(cached, capacity);
+            }
+            at[size] = rowAt;
+            position[size] = rowPosition;
+            ticketHash[size] = rowTicketHash;
+            service[size] = rowService;
+            status[size] = (byte) rowStatus;
+            cached[size] = rowCached;
+            minAt = Math.min(minAt, rowAt);
+            maxAt = Math.max(maxAt, rowAt);
+
+            while (byService.size() <= rowService) {
+                byService.add(null);
+            }
+            IntList rows = byService.get(rowService);
+            if (rows == null) {
+                rows = new IntList();
+                byService.set(rowService, rows);
+            }
+            rows.add(size);
+            size++;
+        }
+
+        private void seal() {
+            at = Arrays.copyOf(at, size);
+            position = Arrays.copyOf(position, size);
+            ticketHash = Arrays.copyOf(ticketHash, size);
+            service = Arrays.copyOf(service, size);
+            status = Arrays.copyOf(status, size);
+            cached = Arrays.copyOf(cached, size);
+            byService.forEach(rows -> {
+                if (rows != null) {
+                    rows.trim();
+                }
+            });
+
+            // Linhas ordenadas por (hash do ticket, linha): uma ordenacao por segmento, ao fechar
+            Integer[] rows = new Integer[size];
+            for (int row = 0; row < size; row++) {
+                rows[row] = row;
+            }
+            long[] hashes = ticketHash;
+            Arrays.sort(rows, (a, b) -> {
+                int compare = Long.compare(hashes[a], hashes[b]);
+                return compare != 0 ? compare : Integer.compare(a, b);
+            });
+            byTicket = new int[size];
+            for (int i = 0; i < size; i++) {
+                byTicket[i] = rows[i];
+            }
+        }
+
+        private int[] rowsForTicket(long hash) {
+            if (byTicket == null) {
+                // Segmento ativo: varredura da coluna de hashes
+                IntList rows = new IntList();
+                for (int row = 0; row < size; row++) {
+                    if (ticketHash[row] == hash) {
+                        rows.add(row);
+                    }
+                }
+                return rows.toArray();
+            }
+            int low = 0;
+            int high = byTicket.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ticketHash[byTicket[mid]] < hash) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            int end = low;
+            while (end < byTicket.length && ticketHash[byTicket[end]] == hash) {
+                end++;
+            }
+            return Arrays.copyOfRange(byTicket, low, end);
+        }
+
+        private int[] rowsForService(int code) {
+            IntList rows = code < byService.size() ? byService.get(code) : null;
+            return rows != null ? rows.toArray() : new int[0];
+        }
+    }
+
+    /**
+     * Lista crescente de ints sem boxing.
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void trim() {
+            values = Arrays.copyOf(values, size);
+        }
+
+        private int[] toArray() {
+            return values.length == size ? values : Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Dicionario de strings (servicos, status) para codigos pequenos; null tem codigo proprio.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        private int find(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        private String value(int code) {
+            return values.get(code);
+        }
+
+        private int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * Leitor de linhas que acompanha a posicao em bytes de cada linha.
+     */
+    private static final class LineReader {
+        private final InputStream in;
+        private long offset;
+        private long lineStart;
+        private byte[] buffer = new byte[1024];
+
+        private LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        private byte[] next() throws IOException {
+            lineStart = offset;
+            int length = 0;
+            int b;
+            while ((b = in.read()) >= 0) {
+                offset++;
+                if (b == '\n') {
+                    return Arrays.copyOf(buffer, length);
+                }
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, length * 2);
+                }
+                buffer[length++] = (byte) b;
+            }
+            // Ultima linha sem '\n': escrita interrompida, ignorada
+            return null;
+        }
+
+        private int lineStart() {
+            return (int) lineStart;
+        }
+    }
+}
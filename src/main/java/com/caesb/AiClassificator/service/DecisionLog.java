@@ -0,0 +1,418 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Log estruturado das decisoes de classificacao (applied | partial | manual | not_applied),
+ * com correlationId, resultado e tempos por etapa.
+ * Na thread da requisicao o custo e fixo e sem alocacao: o registro e copiado para um slot
+ * pre-alocado de um ring buffer sem lock (reserva por CAS). Uma unica thread de fundo drena o
+ * ring e grava uma linha JSON por decisao em segmentos rotativos de tamanho limitado
+ * (decisions-&lt;epochMillis&gt;.ndjson); os segmentos mais antigos alem do limite sao apagados.
+ * Com o ring cheio, a decisao e descartada e contada em ai.decision.log.records{result=dropped}.
+ * As decisoes gravadas sao indexadas no DecisionIndex (consultas administrativas); os segmentos
+ * ja existentes sao indexados na thread de gravacao ao iniciar.
+ */
+@Slf4j
+@Component
+public class DecisionLog {
+
+    static final String SEGMENT_PREFIX = "decisions-";
+    static final String SEGMENT_SUFFIX = ".ndjson";
+
+    // Etapas gravadas, na ordem do pipeline; o total vai na ultima posicao
+    private static final String[] STAGES = {
+            StageTimings.DEBOUNCE, StageTimings.CACHE, StageTimings.SANITIZE, StageTimings.SENTIMENT,
+            StageTimings.PROMPT, StageTimings.STORM, StageTimings.AI, StageTimings.FALLBACK,
+            StageTimings.PARSE, StageTimings.ESCALATION
+    };
+
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final ThreadingConfig threadingConfig;
+    private final DecisionIndex index;
+    private final Counter written;
+    private final Counter dropped;
+
+    @Value("${ai.decision-log.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ai.decision-log.directory:data/decisions}")
+    private String directoryPath;
+
+    @Value("${ai.decision-log.ring-size:16384}")
+    private int ringSize;
+
+    @Value("${ai.decision-log.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    @Value("${ai.decision-log.max-segments:16}")
+    private int maxSegments;
+
+    @Value("${ai.decision-log.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Ring: tail = proxima sequencia a reservar (produtores), head = proxima a ler (so o writer avanca)
+    private Slot[] slots;
+    private int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private ScheduledExecutorService writer;
+    private Path directory;
+    private Path segmentFile;
+    private FileChannel segment;
+    private long segmentSize;
+    private long lastSegmentId;
+
+    public DecisionLog(ObjectMapper objectMapper, ThreadingConfig threadingConfig, DecisionIndex index,
+                       MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.threadingConfig = threadingConfig;
+        this.index = index;
+        this.written = Counter.builder("ai.decision.log.records")
+                .description("Decisoes de classificacao gravadas no log estruturado")
+                .tag("result", "written")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("ai.decision.log.records")
+                .description("Decisoes de classificacao gravadas no log estruturado")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(2, ringSize) * 2 - 1);
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i - capacity);
+        }
+        mask = capacity - 1;
+
+        // Posicoes no indice sao int: segmento limitado a 1 GB
+        segmentBytes = Math.min(segmentBytes, 1L << 30);
+
+        directory = Path.of(directoryPath).toAbsolutePath();
+        Files.createDirectories(directory);
+        List<Path> existing = segments();
+        for (Path file : existing) {
+            lastSegmentId = Math.max(lastSegmentId, segmentId(file));
+        }
+        openSegment();
+        writer = Executors.newSingleThreadScheduledExecutor(threadingConfig.threadFactory("decision-log-"));
+        writer.execute(() -> loadSegments(existing));
+        writer.scheduleWithFixedDelay(this::drain, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Log de decisoes em {} (ring de {} registros, segmentos de {} bytes)",
+                directory, capacity, segmentBytes);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        drain();
+        lock.lock();
+        try {
+            if (segment.isOpen()) {
+                segment.force(false);
+                segment.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registra a decisao de uma classificacao (nao bloqueia nem aloca).
+     *
+     * @param correlationId ID de correlacao
+     * @param request       Requisicao original
+     * @param response      Resposta devolvida ao chamador
+     * @param provider      Provider utilizado (ou null)
+     * @param model         Modelo utilizado (ou null)
+     * @param timings       Tempos por etapa da requisicao
+     * @param cached        Se a resposta veio do cache de idempotencia
+     * @return false se o registro foi descartado (ring cheio ou log desligado)
+     */
+    public boolean record(String correlationId, ClassificationRequest request, ClassificationResponse response,
+                          String provider, String model, StageTimings timings, boolean cached) {
+        if (!enabled) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.at = System.currentTimeMillis();
+        slot.correlationId = correlationId;
+        slot.ticketId = request.getTicketId();
+        slot.status = response.getStatus();
+        slot.type = response.getType();
+        slot.serviceId = response.getServiceId();
+        slot.queue = response.getQueue();
+        slot.confidence = response.getConfidenceScore() != null ? response.getConfidenceScore() : Double.NaN;
+        slot.provider = provider;
+        slot.model = model;
+        slot.errorCode = response.getErrorCode();
+        slot.stormId = response.getStormId();
+        slot.escalated = Boolean.TRUE.equals(response.getEscalated());
+        slot.cached = cached;
+        for (int i = 0; i < STAGES.length; i++) {
+            slot.stageNanos[i] = timings.stageNanos(STAGES[i]);
+        }
+        slot.stageNanos[STAGES.length] = timings.totalNanos();
+        // Publica o slot: o writer so le depois de ver a sequencia
+        slot.sequence = sequence;
+        return true;
+    }
+
+    /**
+     * Grava no segmento atual as decisoes publicadas no ring.
+     */
+    void drain() {
+        lock.lock();
+        try {
+            if (!segment.isOpen()) {
+                return;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            List<Pending> pending = new ArrayList<>();
+            long next = head;
+            Slot slot;
+            while ((slot = slots[(int) (next & mask)]).sequence == next) {
+                DecisionRecord record = slot.toRecord();
+                slot.clear();
+                // Libera o slot para os produtores so depois de copiado
+                head = ++next;
+
+                pending.add(new Pending(buffer.size(), record));
+                buffer.write(objectMapper.writeValueAsBytes(record));
+                buffer.write(NEWLINE);
+                if (segmentSize + buffer.size() >= segmentBytes) {
+                    write(buffer, pending);
+                    rotate();
+                }
+            }
+            write(buffer, pending);
+        } catch (IOException e) {
+            log.error("Erro ao gravar log de decisoes: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Segmentos existentes, do mais antigo ao mais recente.
+     */
+    public List<Path> segments() throws IOException {
+        if (directory == null) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(DecisionLog::isSegment).sorted().toList();
+        }
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)
+                && name.length() > SEGMENT_PREFIX.length() + SEGMENT_SUFFIX.length()
+                && name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())
+                .chars().allMatch(Character::isDigit);
+    }
+
+    // Grava as linhas pendentes e so depois as indexa: consultas nunca apontam para bytes nao gravados
+    private void write(ByteArrayOutputStream buffer, List<Pending> pending) throws IOException {
+        if (buffer.size() == 0) {
+            return;
+        }
+        long start = segmentSize;
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            segmentSize += segment.write(bytes);
+        }
+
+        for (Pending line : pending) {
+            index.append(lastSegmentId, segmentFile, (int) (start + line.offset()), line.record());
+        }
+        written.increment(pending.size());
+        buffer.reset();
+        pending.clear();
+    }
+
+    private void rotate() throws IOException {
+        segment.force(false);
+        segment.close();
+        index.seal(lastSegmentId);
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        // Nome ordenavel pelo instante de abertura; unico mesmo com rotacoes no mesmo milissegundo
+        lastSegmentId = Math.max(System.currentTimeMillis(), lastSegmentId + 1);
+        segmentFile = directory.resolve(String.format("%s%013d%s", SEGMENT_PREFIX, lastSegmentId, SEGMENT_SUFFIX));
+        segment = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        segmentSize = segment.size();
+
+        List<Path> existing = segments();
+        for (int i = 0; i < existing.size() - maxSegments; i++) {
+            index.drop(segmentId(existing.get(i)));
+            Files.deleteIfExists(existing.get(i));
+            log.debug("Segmento de decisoes removido: {}", existing.get(i).getFileName());
+        }
+    }
+
+    private void loadSegments(List<Path> files) {
+        for (Path file : files) {
+            try {
+                if (Files.exists(file)) {
+                    index.load(segmentId(file), file);
+                }
+            } catch (IOException e) {
+                log.error("Erro ao indexar segmento de decisoes {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // Linha serializada aguardando gravacao: posicao no buffer e decisao
+    private record Pending(int offset, DecisionRecord record) {
+    }
+
+    /**
+     * Slot pre-alocado do ring; preenchido por um produtor e lido pelo writer.
+     */
+    private static final class Slot {
+        private volatile long sequence;
+        private long at;
+        private String correlationId;
+        private String ticketId;
+        private String status;
+        private String type;
+        private String serviceId;
+        private String queue;
+        private double confidence;
+        private String provider;
+        private String model;
+        private String errorCode;
+        private String stormId;
+        private boolean escalated;
+        private boolean cached;
+        private final long[] stageNanos = new long[STAGES.length + 1];
+
+        private Slot(long initialSequence) {
+            this.sequence = initialSequence;
+        }
+
+        private DecisionRecord toRecord() {
+            Map<String, Double> ms = new LinkedHashMap<>();
+            for (int i = 0; i < STAGES.length; i++) {
+                if (stageNanos[i] > 0) {
+                    ms.put(STAGES[i], toMillis(stageNanos[i]));
+                }
+            }
+            ms.put(StageTimings.TOTAL, toMillis(stageNanos[STAGES.length]));
+            return new DecisionRecord(at, correlationId, ticketId, status, type, serviceId, queue,
+                    Double.isNaN(confidence) ? null : confidence, provider, model, errorCode, stormId,
+                    escalated ? Boolean.TRUE : null, cached ? Boolean.TRUE : null, ms);
+        }
+
+        // Solta as referencias para nao segurar strings da requisicao ate a proxima volta do ring
+        private void clear() {
+            correlationId = null;
+            ticketId = null;
+            status = null;
+            type = null;
+            serviceId = null;
+            queue = null;
+            provider = null;
+            model = null;
+            errorCode = null;
+            stormId = null;
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+
+    /**
+     * Decisao gravada (uma linha JSON por registro).
+     *
+     * @param at            Instante da decisao (epoch millis)
+     * @param correlationId ID de correlacao
+     * @param ticketId      ID do ticket (se informado)
+     * @param status        applied, partial, manual ou not_applied
+     * @param type          Tipo classificado (REQ, INC, OS)
+     * @param serviceId     Servico classificado
+     * @param queue         Fila de destino
+     * @param confidence    Confianca retornada pela IA
+     * @param provider      Provider utilizado
+     * @param model         Modelo utilizado
+     * @param errorCode     Codigo de erro (not_applied)
+     * @param stormId       Incidente em massa cuja classificacao foi reaproveitada
+     * @param escalated     Se passou pela cascata
+     * @param cached        Se veio do cache de idempotencia
+     * @param ms            Tempo por etapa e total, em milissegundos
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record DecisionRecord(long at, String correlationId, String ticketId, String status, String type,
+                                 String serviceId, String queue, Double confidence, String provider, String model,
+                                 String errorCode, String stormId, Boolean escalated, Boolean cached,
+                                 Map<String, Double> ms) {
+    }
+}
@@ -0,0 +1,369 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.model.IncidentStorm;
+import com.caesb.AiClassificator.model.PreparedClassification;
+import com.caesb.AiClassificator.model.SanitizedData;
+import com.caesb.AiClassificator.model.SentimentResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Deteccao de incidentes em massa ("internet caiu", "sistema X fora do ar").
+ * Cada ticket recebe um SimHash de 64 bits do texto sanitizado (palavras e bigramas);
+ * tickets a poucos bits de distancia de um grupo ativo (janela deslizante de window-minutes)
+ * entram no grupo e reaproveitam a classificacao feita para o primeiro ticket,
+ * evitando uma chamada a IA por ticket durante a queda.
+ */
+@Slf4j
+@Service
+public class IncidentStormDetector {
+
+    private final Counter joined;
+    private final Counter reusedCounter;
+    private final AtomicLong ids = new AtomicLong();
+
+    @Value("${ai.storm.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ai.storm.window-minutes:15}")
+    private long windowMinutes;
+
+    @Value("${ai.storm.max-distance:3}")
+    private int maxDistance;
+
+    @Value("${ai.storm.min-tokens:4}")
+    private int minTokens;
+
+    @Value("${ai.storm.min-size:3}")
+    private int minSize;
+
+    @Value("${ai.storm.max-clusters:500}")
+    private int maxClusters;
+
+    @Value("${ai.storm.max-wait-ms:10000}")
+    private long maxWaitMs;
+
+    // Grupos ativos; acessados somente com o lock
+    private final List<Cluster> clusters = new ArrayList<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public IncidentStormDetector(MeterRegistry meterRegistry) {
+        this.joined = Counter.builder("ai.storm.tickets")
+                .description("Tickets que entraram em um grupo de incidente em massa existente")
+                .register(meterRegistry);
+        this.reusedCounter = Counter.builder("ai.storm.reused")
+                .description("Classificacoes reaproveitadas de um incidente em massa (chamadas a IA evitadas)")
+                .register(meterRegistry);
+        Gauge.builder("ai.storm.active", this, d -> d.listStorms().size())
+                .description("Incidentes em massa ativos (grupos com pelo menos min-size tickets)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indica se a deteccao esta ativa.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Classifica o ticket preparado, reaproveitando a classificacao do grupo quando ele
+     * e quase identico a tickets recentes.
+     * O primeiro ticket de um grupo (lider) executa {@code classifier}; os seguintes aguardam
+     * ate max-wait-ms pelo resultado do lider e, se ele nao for reaproveitavel, classificam sozinhos.
+     *
+     * @param prepared   Ticket preparado (texto sanitizado)
+     * @param classifier Classificacao normal pela IA
+     * @return Resultado proprio ou copia do resultado do grupo (com stormId preenchido)
+     */
+    public ClassificationResponse classify(PreparedClassification prepared,
+                                           Supplier<ClassificationResponse> classifier) {
+        if (!enabled) {
+            return classifier.get();
+        }
+
+        SanitizedData sanitized = prepared.getSanitized();
+        ClassificationRequest request = prepared.getRequest();
+        long hash = simHash(sanitized.getSubject() + " " + sanitized.getBody());
+        if (hash == 0L) {
+            // Texto curto demais para diferenciar incidentes
+            return classifier.get();
+        }
+
+        String routeKey = Objects.toString(request.getProvider(), "") + "|" + Objects.toString(request.getModel(), "");
+        long waitStart = System.nanoTime();
+        Cluster cluster;
+        CompletableFuture<ClassificationResponse> decision;
+        boolean leader;
+
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            cluster = findCluster(hash, routeKey, now);
+            if (cluster == null) {
+                cluster = new Cluster("storm-" + ids.incrementAndGet(), hash, routeKey,
+                        request.getTicketId(), sanitized.getSubject(), now);
+                addCluster(cluster);
+            } else {
+                cluster.size++;
+                cluster.lastSeen = now;
+                joined.increment();
+            }
+            leader = cluster.decision == null;
+            if (leader) {
+                cluster.decision = new CompletableFuture<>();
+            }
+            decision = cluster.decision;
+        } finally {
+            lock.unlock();
+        }
+
+        if (leader) {
+            ClassificationResponse response = null;
+            try {
+                response = classifier.get();
+                return response;
+            } finally {
+                publish(cluster, decision, response);
+            }
+        }
+
+        ClassificationResponse shared = await(decision);
+        if (shared == null) {
+            return classifier.get();
+        }
+
+        prepared.getTimings().record(StageTimings.STORM, waitStart);
+        cluster.reused.incrementAndGet();
+        reusedCounter.increment();
+        log.info("[{}] Ticket {} reaproveitou a classificacao do incidente em massa {} ({})",
+                prepared.getCorrelationId(), request.getTicketId(), cluster.id, shared.getServiceId());
+        return adapt(shared, prepared, cluster.id);
+    }
+
+    /**
+     * Lista os incidentes em massa ativos (grupos com pelo menos min-size tickets), maiores primeiro.
+     */
+    public List<IncidentStorm> listStorms() {
+        lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            return clusters.stream()
+                    .filter(c -> !c.isExpired(now, windowMinutes) && c.size >= minSize)
+                    .sorted(Comparator.comparingInt((Cluster c) -> c.size).reversed())
+                    .map(Cluster::toStorm)
+                    .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Entrega o resultado do lider aos demais tickets do grupo.
+     * Resultados nao reaproveitaveis (manual/erro) liberam o proximo ticket para ser o lider.
+     */
+    private void publish(Cluster cluster, CompletableFuture<ClassificationResponse> decision,
+                         ClassificationResponse response) {
+        boolean reusable = response != null && response.isSuccess()
+                && ("applied".equals(response.getStatus()) || "partial".equals(response.getStatus()));
+        lock.lock();
+        try {
+            if (reusable) {
+                cluster.response = response;
+            } else if (cluster.decision == decision) {
+                cluster.decision = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        decision.complete(reusable ? response : null);
+    }
+
+    private ClassificationResponse await(CompletableFuture<ClassificationResponse> decision) {
+        try {
+            return decision.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Classificacao do incidente em massa nao ficou pronta em {}ms", maxWaitMs);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copia a classificacao do grupo com os dados proprios deste ticket.
+     */
+    private static ClassificationResponse adapt(ClassificationResponse shared, PreparedClassification prepared,
+                                                String stormId) {
+        SanitizedData sanitized = prepared.getSanitized();
+        SentimentResult sentiment = prepared.getSentiment();
+        return shared.toBuilder()
+                .correlationId(prepared.getCorrelationId())
+                .stormId(stormId)
+                .timings(null)
+                .processingTimeMs(System.currentTimeMillis() - prepared.getStartTime())
+                .sentimentScore(sentiment.getSentimentScore())
+                .sentimentLabel(sentiment.getSentimentLabel())
+                .urgencyDetected(sentiment.isUrgencyDetected())
+                .criticalityScore(sentiment.getCriticalityScore())
+                .shouldIncreaseSeverity(sentiment.isShouldIncreaseSeverity())
+                .sanitizedSubject(sanitized.getSubject())
+                .sanitizedBodySummary(sanitized.getBody())
+                .maskedSender(sanitized.getMaskedSender())
+                .build();
+    }
+
+    // Chamado com o lock adquirido; remove grupos fora da janela durante a busca
+    private Cluster findCluster(long hash, String routeKey, long now) {
+        Cluster best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        Iterator<Cluster> it = clusters.iterator();
+        while (it.hasNext()) {
+            Cluster cluster = it.next();
+            if (cluster.isExpired(now, windowMinutes)) {
+                it.remove();
+                continue;
+            }
+            int distance = Long.bitCount(cluster.hash ^ hash);
+            if (distance <= maxDistance && distance < bestDistance && cluster.routeKey.equals(routeKey)) {
+                best = cluster;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // Chamado com o lock adquirido
+    private void addCluster(Cluster cluster) {
+        if (clusters.size() >= maxClusters) {
+            clusters.stream()
+                    .min(Comparator.comparingLong((Cluster c) -> c.lastSeen))
+                    .ifPresent(clusters::remove);
+        }
+        clusters.add(cluster);
+    }
+
+    /**
+     * SimHash de 64 bits sobre palavras normalizadas e bigramas.
+     * Retorna 0 quando o texto tem menos de min-tokens palavras.
+     */
+    long simHash(String text) {
+        String normalized = Sanitizer.normalizeForComparison(text);
+        if (normalized.isEmpty()) {
+            return 0L;
+        }
+        String[] tokens = normalized.split(" ");
+        if (tokens.length < minTokens) {
+            return 0L;
+        }
+
+        int[] weights = new int[64];
+        for (int i = 0; i < tokens.length; i++) {
+            addFeature(weights, hash64(tokens[i]));
+            if (i > 0) {
+                addFeature(weights, hash64(tokens[i - 1] + " " + tokens[i]));
+            }
+        }
+
+        long hash = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                hash |= 1L << bit;
+            }
+        }
+        return hash == 0L ? 1L : hash;
+    }
+
+    private static void addFeature(int[] weights, long featureHash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((featureHash >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    /**
+     * FNV-1a de 64 bits seguido do finalizador do MurmurHash3 (espalha melhor os bits).
+     */
+    private static long hash64(String feature) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < feature.length(); i++) {
+            hash ^= feature.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Grupo de tickets quase identicos.
+     */
+    private static final class Cluster {
+        private final String id;
+        private final long hash;
+        private final String routeKey;
+        private final String representativeTicketId;
+        private final String representativeSubject;
+        private final long firstSeen;
+        private final AtomicLong reused = new AtomicLong();
+        private long lastSeen;
+        private int size = 1;
+        // Classificacao em andamento ou concluida do lider; null = proximo ticket vira lider
+        private CompletableFuture<ClassificationResponse> decision;
+        private ClassificationResponse response;
+
+        private Cluster(String id, long hash, String routeKey, String representativeTicketId,
+                        String representativeSubject, long now) {
+            this.id = id;
+            this.hash = hash;
+            this.routeKey = routeKey;
+            this.representativeTicketId = representativeTicketId;
+            this.representativeSubject = representativeSubject;
+            this.firstSeen = now;
+            this.lastSeen = now;
+        }
+
+        private boolean isExpired(long now, long windowMinutes) {
+            return now - lastSeen > windowMinutes * 60_000;
+        }
+
+        private IncidentStorm toStorm() {
+            return IncidentStorm.builder()
+                    .stormId(id)
+                    .size(size)
+                    .reused(reused.get())
+                    .representativeTicketId(representativeTicketId)
+                    .representativeSubject(representativeSubject)
+                    .serviceId(response != null ? response.getServiceId() : null)
+                    .queue(response != null ? response.getQueue() : null)
+                    .firstSeenAt(Instant.ofEpochMilli(firstSeen))
+                    .lastSeenAt(Instant.ofEpochMilli(lastSeen))
+                    .build();
+        }
+    }
+}
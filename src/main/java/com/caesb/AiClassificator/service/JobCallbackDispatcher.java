@@ -0,0 +1,223 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.exception.ClassificationException;
+import com.caesb.AiClassificator.model.ClassificationJob;
+import com.caesb.AiClassificator.model.JobStatusResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrega de resultados de jobs assincronos via callback HTTP.
+ * Agrupa resultados por URL (POST com lista de jobs) e reenvia com backoff exponencial.
+ * So entrega para hosts de ai.jobs.callback.allowed-hosts (lista vazia = callbacks desabilitados)
+ * cujos enderecos resolvidos nao sejam loopback, link-local (metadados de nuvem) ou rede privada.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobCallbackDispatcher {
+
+    private final RestTemplate restTemplate;
+    private final JobJournal journal;
+
+    @Value("${ai.jobs.callback.allowed-hosts:}")
+    private List<String> allowedHosts = List.of();
+
+    // Redes privadas (10/8, 172.16/12, 192.168/16, fc00::/7) so com opt-in explicito
+    @Value("${ai.jobs.callback.allow-private-networks:false}")
+    private boolean allowPrivateNetworks;
+
+    @Value("${ai.jobs.callback.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${ai.jobs.callback.batch-size:50}")
+    private int batchSize;
+
+    @Value("${ai.jobs.callback.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${ai.jobs.callback.initial-backoff-ms:2000}")
+    private long initialBackoffMs;
+
+    private final ConcurrentLinkedQueue<PendingCallback> pending = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-callback");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (allowedHosts().isEmpty()) {
+            log.info("Callbacks de jobs desabilitados - ai.jobs.callback.allowed-hosts vazio");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Agenda a entrega do resultado de um job.
+     */
+    public void enqueue(ClassificationJob job) {
+        pending.add(new PendingCallback(job, 0L));
+    }
+
+    /**
+     * Valida a URL de callback: http(s), host na lista permitida e todos os enderecos resolvidos
+     * fora de loopback, link-local e (sem allow-private-networks) redes privadas.
+     *
+     * @throws ClassificationException INVALID_CALLBACK_URL se a URL nao for permitida
+     */
+    public void validateUrl(String callbackUrl) {
+        List<String> hosts = allowedHosts();
+        if (hosts.isEmpty()) {
+            throw new ClassificationException("Callbacks desabilitados (ai.jobs.callback.allowed-hosts vazio)",
+                    "INVALID_CALLBACK_URL");
+        }
+        try {
+            URI uri = URI.create(callbackUrl);
+            String host = uri.getHost();
+            boolean httpScheme = "http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme());
+            if (httpScheme && host != null && hosts.stream().anyMatch(h -> h.equalsIgnoreCase(host))) {
+                for (InetAddress address : InetAddress.getAllByName(host)) {
+                    if (isInternal(address)) {
+                        throw new ClassificationException("callbackUrl aponta para endereco interno: " + callbackUrl,
+                                "INVALID_CALLBACK_URL");
+                    }
+                }
+                return;
+            }
+        } catch (IllegalArgumentException | UnknownHostException e) {
+            // URL malformada ou host sem DNS, cai no erro abaixo
+        }
+        throw new ClassificationException("callbackUrl invalida ou host nao permitido: " + callbackUrl,
+                "INVALID_CALLBACK_URL");
+    }
+
+    private boolean isInternal(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isLinkLocalAddress() || address.isAnyLocalAddress()
+                || address.isMulticastAddress()) {
+            return true;
+        }
+        // fc00::/7 (unique local) nao e coberto por isSiteLocalAddress
+        boolean uniqueLocal = address instanceof Inet6Address && (address.getAddress()[0] & 0xFE) == 0xFC;
+        return !allowPrivateNetworks && (address.isSiteLocalAddress() || uniqueLocal);
+    }
+
+    private List<String> allowedHosts() {
+        return allowedHosts == null ? List.of() : allowedHosts.stream().filter(h -> !h.isBlank()).toList();
+    }
+
+    /**
+     * Quantidade de callbacks aguardando entrega.
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Envia os callbacks prontos, agrupados por URL.
+     */
+    void flush() {
+        long now = System.currentTimeMillis();
+        Map<String, List<PendingCallback>> byUrl = new LinkedHashMap<>();
+        List<PendingCallback> notReady = new ArrayList<>();
+
+        PendingCallback callback;
+        while ((callback = pending.poll()) != null) {
+            if (callback.notBefore() > now) {
+                notReady.add(callback);
+            } else {
+                byUrl.computeIfAbsent(callback.job().getCallbackUrl(), k -> new ArrayList<>()).add(callback);
+            }
+        }
+        pending.addAll(notReady);
+
+        byUrl.forEach((url, callbacks) -> {
+            for (int i = 0; i < callbacks.size(); i += batchSize) {
+                deliver(url, callbacks.subList(i, Math.min(i + batchSize, callbacks.size())));
+            }
+        });
+    }
+
+    private void deliver(String url, List<PendingCallback> callbacks) {
+        // Revalida na entrega: o DNS pode ter mudado e jobs retomados do journal nao passaram pelo submit
+        try {
+            validateUrl(url);
+        } catch (ClassificationException e) {
+            log.warn("Callback para {} recusado ({} jobs): {}", url, callbacks.size(), e.getMessage());
+            for (PendingCallback c : callbacks) {
+                c.job().setCallbackStatus("failed");
+                journal.put(c.job());
+            }
+            return;
+        }
+
+        List<JobStatusResponse> payload = callbacks.stream()
+                .map(c -> JobStatusResponse.from(c.job()))
+                .toList();
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            restTemplate.postForEntity(url, new HttpEntity<>(payload, headers), Void.class);
+
+            for (PendingCallback c : callbacks) {
+                c.job().setCallbackStatus("delivered");
+                c.job().setCallbackAttempts(c.job().getCallbackAttempts() + 1);
+                journal.put(c.job());
+            }
+            log.debug("Callback entregue para {} - {} jobs", url, callbacks.size());
+
+        } catch (Exception e) {
+            log.warn("Falha ao entregar callback para {} ({} jobs): {}", url, callbacks.size(), e.getMessage());
+
+            for (PendingCallback c : callbacks) {
+                ClassificationJob job = c.job();
+                int attempts = job.getCallbackAttempts() + 1;
+                job.setCallbackAttempts(attempts);
+
+                if (attempts >= maxAttempts) {
+                    job.setCallbackStatus("failed");
+                    journal.put(job);
+                    log.error("Callback do job {} descartado apos {} tentativas", job.getJobId(), attempts);
+                } else {
+                    long backoff = initialBackoffMs * (1L << (attempts - 1));
+                    pending.add(new PendingCallback(job, System.currentTimeMillis() + backoff));
+                }
+            }
+        }
+    }
+
+    /**
+     * Callback aguardando entrega (notBefore = proxima tentativa, epoch millis).
+     */
+    private record PendingCallback(ClassificationJob job, long notBefore) {
+    }
+}
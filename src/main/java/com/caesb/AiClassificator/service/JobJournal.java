@@ -0,0 +1,222 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.model.ClassificationJob;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal append-only em disco para jobs de classificacao assincrona.
+ * Cada linha e um registro JSON com o snapshot do job (ou sua remocao);
+ * na leitura, o ultimo snapshot de cada job prevalece.
+ * Da requisicao so vai para o disco o necessario para retomar o job, com PII mascarada pelo
+ * Sanitizer (assunto/corpo sem emails, telefones, CPF etc., remetente mascarado).
+ * Usa ReentrantLock (e nao synchronized) para nao fixar virtual threads durante o fsync.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobJournal {
+
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final Sanitizer sanitizer;
+
+    @Value("${ai.jobs.journal-path:data/jobs.journal}")
+    private String journalPath;
+
+    @Value("${ai.jobs.fsync:true}")
+    private boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Path path;
+    private FileChannel channel;
+
+    @PostConstruct
+    public void init() throws IOException {
+        path = Path.of(journalPath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        channel = open(path);
+        log.info("Journal de jobs em {} ({} bytes)", path, channel.size());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grava o snapshot atual de um job.
+     */
+    public void put(ClassificationJob job) {
+        append(new JournalRecord("put", job.getJobId(), masked(job)));
+    }
+
+    /**
+     * Registra a remocao de um job (expirado).
+     */
+    public void remove(String jobId) {
+        append(new JournalRecord("remove", jobId, null));
+    }
+
+    /**
+     * Le o journal e retorna o ultimo snapshot de cada job nao removido.
+     * Uma linha final incompleta (queda durante a escrita) e ignorada.
+     */
+    public Map<String, ClassificationJob> replay() throws IOException {
+        lock.lock();
+        try {
+            Map<String, ClassificationJob> jobs = new LinkedHashMap<>();
+            int corrupted = 0;
+
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        JournalRecord record = objectMapper.readValue(line, JournalRecord.class);
+                        if ("remove".equals(record.op())) {
+                            jobs.remove(record.jobId());
+                        } else if (record.job() != null) {
+                            jobs.put(record.jobId(), record.job());
+                        }
+                    } catch (IOException e) {
+                        corrupted++;
+                    }
+                }
+            }
+
+            if (corrupted > 0) {
+                log.warn("Journal de jobs com {} registros invalidos ignorados", corrupted);
+            }
+            return jobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reescreve o journal apenas com os jobs ainda vivos.
+     * Escreve em arquivo temporario e substitui atomicamente.
+     */
+    public void compact(Collection<ClassificationJob> liveJobs) throws IOException {
+        lock.lock();
+        try {
+            Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (ClassificationJob job : liveJobs) {
+                    write(out, new JournalRecord("put", job.getJobId(), masked(job)));
+                }
+                out.force(true);
+            }
+
+            channel.close();
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = open(path);
+            log.info("Journal de jobs compactado - {} jobs, {} bytes", liveJobs.size(), channel.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tamanho atual do journal em bytes.
+     */
+    public long size() throws IOException {
+        lock.lock();
+        try {
+            return channel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copia do job com a requisicao mascarada; o job em memoria continua com o texto original.
+     */
+    private ClassificationJob masked(ClassificationJob job) {
+        ClassificationRequest request = job.getRequest();
+        if (request == null) {
+            return job;
+        }
+        return job.toBuilder()
+                .request(ClassificationRequest.builder()
+                        .subject(request.getSubject() != null ? sanitizer.removePii(request.getSubject()) : null)
+                        .body(request.getBody() != null ? sanitizer.removePii(request.getBody()) : null)
+                        .senderEmail(request.getSenderEmail() != null
+                                ? sanitizer.maskEmail(request.getSenderEmail()) : null)
+                        .ticketId(request.getTicketId())
+                        .provider(request.getProvider())
+                        .model(request.getModel())
+                        .correlationId(request.getCorrelationId())
+                        .callbackUrl(request.getCallbackUrl())
+                        .build())
+                .build();
+    }
+
+    private void append(JournalRecord record) {
+        lock.lock();
+        try {
+            write(channel, record);
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao gravar journal de jobs", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(FileChannel target, JournalRecord record) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + NEWLINE.length);
+        buffer.put(json).put(NEWLINE).flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Registro do journal.
+     */
+    public record JournalRecord(String op, String jobId, ClassificationJob job) {
+    }
+}
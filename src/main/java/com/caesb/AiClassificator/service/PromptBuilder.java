@@ -1,5 +1,6 @@
 package com.caesb.AiClassificator.service;
 
+import com.caesb.AiClassificator.model.PreparedClassification;
 import com.caesb.AiClassificator.model.PromptResult;
 import com.caesb.AiClassificator.model.ServiceCatalog;
 import lombok.AllArgsConstructor;
@@ -9,6 +10,15 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
 /**
  * Construtor de prompts para classificacao de tickets com IA.
  * Inclui o catalogo de servicos CAESB embutido no prompt do sistema.
@@ -17,15 +27,20 @@ import org.springframework.stereotype.Service;
 @Service
 public class PromptBuilder {
 
+    /**
+     * Versao manual do template; incrementar em mudancas de regra que nao alteram o texto.
+     */
+    private static final String TEMPLATE_VERSION = "2";
+
     private static final String SYSTEM_PROMPT = """
             Voce e um classificador de tickets corporativos para o sistema de Service Desk da CAESB.
 
             Sua tarefa e:
             1. Classificar o ticket em: Tipo (REQ, INC ou OS).
             2. Selecionar o servico final mais adequado dentre a lista fornecida.
-            3. Calcular um "confidence_score" entre 0 e 1.
+            3. Calcular a confianca "c" entre 0 e 1.
             4. Retornar APENAS no formato JSON.
-            5. Se nao houver correspondencia clara, retornar confidence_score < 0.75.
+            5. Se nao houver correspondencia clara, retornar c < 0.75.
 
             ================================================================
             CATALOGO DE SERVICOS
@@ -122,12 +137,8 @@ public class PromptBuilder {
             ================================================================
 
             ### Formato de resposta obrigatorio:
-            {
-              "tipo": "REQ|INC|OS",
-              "servico_id": "XXX-NNN",
-              "servico_nome": "Nome do Servico",
-              "confidence_score": 0.00
-            }
+            {"t": "REQ|INC|OS", "s": "XXX-NNN", "c": 0.00}
+            (t = tipo, s = ID do servico no catalogo, c = confianca)
 
             ### Regras de classificacao:
             - REQ (Requisicao): Solicitacoes planejadas como reset de senha, criacao de usuario, instalacao de software
@@ -135,9 +146,41 @@ public class PromptBuilder {
             - OS (Ordem de Servico): Atividades programadas como manutencoes, projetos, mudancas
             - Analise palavras-chave no assunto e resumo para identificar o tipo e servico
             - Se o texto indicar urgencia ou sentimento negativo, considere INC se houver problema reportado
-            - Retorne confidence_score >= 0.75 apenas se houver correspondencia clara com um servico
+            - Retorne c >= 0.75 apenas se houver correspondencia clara com um servico
             """;
 
+    /**
+     * Instrucoes adicionais para o modo de empacotamento (varios tickets por chamada).
+     */
+    private static final String PACKED_INSTRUCTIONS = """
+
+            ### Modo lote
+            Voce recebera varios tickets numerados. Classifique cada ticket de forma independente,
+            sem misturar informacoes entre eles. Neste modo, ignore o formato individual acima e
+            retorne um objeto JSON com a chave "r", contendo exatamente um item por ticket
+            (i = numero do ticket):
+            {"r": [{"i": 1, "t": "REQ|INC|OS", "s": "XXX-NNN", "c": 0.00}]}
+            """;
+
+    private static final String PACKED_SYSTEM_PROMPT = SYSTEM_PROMPT + PACKED_INSTRUCTIONS;
+
+    private static final List<String> TICKET_TYPES = List.of("REQ", "INC", "OS");
+
+    /**
+     * response_format json_schema estrito: chaves curtas, sem nome do servico (o catalogo ja tem)
+     * e servico restrito ao enum de IDs validos do catalogo.
+     */
+    private static final Map<String, Object> RESPONSE_FORMAT = jsonSchema("classificacao", itemSchema(false));
+
+    private static final Map<String, Object> PACKED_RESPONSE_FORMAT = jsonSchema("classificacao_lote", Map.of(
+            "type", "object",
+            "properties", Map.of("r", Map.of("type", "array", "items", itemSchema(true))),
+            "required", List.of("r"),
+            "additionalProperties", false));
+
+    private static final String PROMPT_VERSION = TEMPLATE_VERSION + "-" + sha256Prefix(PACKED_SYSTEM_PROMPT)
+            + "-" + ServiceCatalog.getVersion();
+
     /**
      * Constroi o prompt completo para classificacao.
      *
@@ -153,6 +196,56 @@ public class PromptBuilder {
                                                    String ragContext) {
         StringBuilder userPrompt = new StringBuilder();
         userPrompt.append("### Ticket a Classificar\n");
+        appendTicket(userPrompt, subject, body, sentimentLabel, urgencyDetected);
+
+        // Adiciona contexto RAG se fornecido
+        if (ragContext != null && !ragContext.isBlank()) {
+            userPrompt.append("\n### Contexto de tickets similares:\n").append(ragContext).append("\n");
+        }
+
+        return PromptResult.builder()
+                .systemPrompt(SYSTEM_PROMPT)
+                .userPrompt(userPrompt.toString())
+                .promptVersion(PROMPT_VERSION)
+                .responseFormat(RESPONSE_FORMAT)
+                .build();
+    }
+
+    /**
+     * Constroi um prompt unico para classificar varios tickets em uma so chamada.
+     * O catalogo no prompt de sistema e enviado uma unica vez para todos os tickets.
+     * A resposta esperada e {"r": [{"i": N, ...}]}, com indices a partir de 1.
+     *
+     * @param tickets Tickets ja sanitizados e com sentimento analisado
+     * @return PromptResult com system e user prompts do lote
+     */
+    public PromptResult buildPackedClassificationPrompt(List<PreparedClassification> tickets) {
+        StringBuilder userPrompt = new StringBuilder();
+        userPrompt.append("### Tickets a Classificar (").append(tickets.size()).append(")\n");
+
+        for (int i = 0; i < tickets.size(); i++) {
+            PreparedClassification ticket = tickets.get(i);
+            userPrompt.append("\n### Ticket ").append(i + 1).append("\n");
+            appendTicket(userPrompt,
+                    ticket.getSanitized().getSubject(),
+                    ticket.getSanitized().getBody(),
+                    ticket.getSentiment().getSentimentLabel(),
+                    ticket.getSentiment().isUrgencyDetected());
+        }
+
+        return PromptResult.builder()
+                .systemPrompt(PACKED_SYSTEM_PROMPT)
+                .userPrompt(userPrompt.toString())
+                .promptVersion(PROMPT_VERSION)
+                .responseFormat(PACKED_RESPONSE_FORMAT)
+                .build();
+    }
+
+    /**
+     * Adiciona assunto e resumo (com marcadores de sentimento) de um ticket ao prompt.
+     */
+    private void appendTicket(StringBuilder userPrompt, String subject, String body,
+                              String sentimentLabel, Boolean urgencyDetected) {
         userPrompt.append("Assunto: \"").append(subject != null ? subject : "").append("\"\n");
 
         // Adiciona corpo com informacoes de sentimento
@@ -164,16 +257,6 @@ public class PromptBuilder {
             bodyWithSentiment += " [Urgencia detectada]";
         }
         userPrompt.append("Resumo: \"").append(bodyWithSentiment).append("\"\n");
-
-        // Adiciona contexto RAG se fornecido
-        if (ragContext != null && !ragContext.isBlank()) {
-            userPrompt.append("\n### Contexto de tickets similares:\n").append(ragContext).append("\n");
-        }
-
-        return PromptResult.builder()
-                .systemPrompt(SYSTEM_PROMPT)
-                .userPrompt(userPrompt.toString())
-                .build();
     }
 
     /**
@@ -190,6 +273,47 @@ public class PromptBuilder {
         return ServiceCatalog.getDomainForService(serviceId);
     }
 
+    /**
+     * Versao do prompt: template + hash do texto + versao do catalogo de servicos.
+     */
+    public String getPromptVersion() {
+        return PROMPT_VERSION;
+    }
+
+    /**
+     * Schema de um ticket classificado; no lote inclui o indice "i".
+     */
+    private static Map<String, Object> itemSchema(boolean packed) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        if (packed) {
+            properties.put("i", Map.of("type", "integer"));
+        }
+        properties.put("t", Map.of("type", "string", "enum", TICKET_TYPES));
+        properties.put("s", Map.of("type", "string", "enum", new TreeSet<>(ServiceCatalog.getAllServices().keySet())));
+        properties.put("c", Map.of("type", "number"));
+
+        return Map.of(
+                "type", "object",
+                "properties", properties,
+                "required", List.copyOf(properties.keySet()),
+                "additionalProperties", false);
+    }
+
+    private static Map<String, Object> jsonSchema(String name, Map<String, Object> schema) {
+        return Map.of(
+                "type", "json_schema",
+                "json_schema", Map.of("name", name, "strict", true, "schema", schema));
+    }
+
+    private static String sha256Prefix(String text) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(text.hashCode());
+        }
+    }
+
     /**
      * Valida se um ID de servico existe no catalogo.
      */
@@ -0,0 +1,296 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.client.AIProviderFactory;
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import com.caesb.AiClassificator.model.PreparedClassification;
+import com.caesb.AiClassificator.model.PromptResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Empacotamento de varios tickets em uma unica chamada a IA.
+ * Agrupa tickets do mesmo provider/modelo ate max-tickets ou max-wait-ms,
+ * enviando o catalogo (prompt de sistema) uma so vez por grupo.
+ * Itens ausentes ou malformados na resposta sao reenviados individualmente.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PromptPackingService {
+
+    private final PromptBuilder promptBuilder;
+    private final AIProviderFactory aiProviderFactory;
+    private final ObjectMapper objectMapper;
+    private final ThreadingConfig threadingConfig;
+
+    @Value("${ai.packing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ai.packing.max-tickets:8}")
+    private int maxTickets;
+
+    @Value("${ai.packing.max-wait-ms:200}")
+    private long maxWaitMs;
+
+    @Value("${ai.packing.max-tokens-per-ticket:120}")
+    private int maxTokensPerTicket;
+
+    // Limite da espera pelo grupo: max-wait-ms + espera por cota + timeout da chamada a IA
+    @Value("${ai.scheduler.max-wait-ms:45000}")
+    private long schedulerMaxWaitMs;
+
+    @Value("${ai.azure-openai.timeout:30000}")
+    private long aiTimeoutMs;
+
+    // Grupos abertos por provider|model
+    private final Map<String, PendingPack> pendingPacks = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private ScheduledExecutorService flushScheduler;
+    private ExecutorService dispatchExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(threadingConfig.threadFactory("packing-flush-"));
+        dispatchExecutor = Executors.newCachedThreadPool(threadingConfig.threadFactory("packing-dispatch-"));
+
+        log.info("Empacotamento de prompts habilitado - max tickets: {}, max wait: {}ms", maxTickets, maxWaitMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+        }
+        if (dispatchExecutor != null) {
+            dispatchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Indica se o modo de empacotamento esta ativo.
+     */
+    public boolean isEnabled() {
+        return enabled && maxTickets > 1;
+    }
+
+    /**
+     * Enfileira o ticket no grupo do seu modelo e aguarda a resposta individual.
+     *
+     * @param prepared      Ticket preparado (sanitizado, com sentimento)
+     * @param singleRequest Requisicao individual, usada para fallback e como modelo do grupo
+     * @return Resposta da IA para este ticket, no mesmo formato da chamada individual
+     */
+    public AIResponse send(PreparedClassification prepared, AIRequest singleRequest) {
+        PackEntry entry = new PackEntry(prepared, singleRequest, new CompletableFuture<>());
+        String key = singleRequest.getProvider() + "|" + singleRequest.getModel();
+        List<PackEntry> full = null;
+
+        lock.lock();
+        try {
+            PendingPack pack = pendingPacks.get(key);
+            if (pack == null) {
+                pack = new PendingPack(new ArrayList<>());
+                PendingPack scheduled = pack;
+                pack.timer = flushScheduler.schedule(() -> flushExpired(key, scheduled), maxWaitMs, TimeUnit.MILLISECONDS);
+                pendingPacks.put(key, pack);
+            }
+            pack.entries.add(entry);
+
+            if (pack.entries.size() >= maxTickets) {
+                pendingPacks.remove(key);
+                pack.timer.cancel(false);
+                full = pack.entries;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Quem completa o grupo faz a chamada na propria thread
+        if (full != null) {
+            dispatch(full);
+        }
+
+        return await(entry);
+    }
+
+    /**
+     * Aguarda a resposta do grupo; se o flush ou a chamada do grupo travar, o ticket e enviado
+     * sozinho na thread do chamador (uma resposta tardia do grupo e descartada).
+     */
+    private AIResponse await(PackEntry entry) {
+        long timeoutMs = maxWaitMs + schedulerMaxWaitMs + aiTimeoutMs;
+        try {
+            return entry.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Grupo sem resposta apos {}ms, enviando o ticket individualmente", timeoutMs);
+            sendSingle(entry);
+            return entry.future.join();
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Envia o grupo que atingiu max-wait-ms sem completar.
+     */
+    private void flushExpired(String key, PendingPack pack) {
+        lock.lock();
+        try {
+            if (pendingPacks.get(key) != pack) {
+                return;
+            }
+            pendingPacks.remove(key);
+        } finally {
+            lock.unlock();
+        }
+        dispatchExecutor.execute(() -> dispatch(pack.entries));
+    }
+
+    /**
+     * Envia um grupo para a IA e distribui as respostas individuais.
+     */
+    private void dispatch(List<PackEntry> entries) {
+        if (entries.size() == 1) {
+            sendSingle(entries.get(0));
+            return;
+        }
+
+        try {
+            AIRequest first = entries.get(0).request;
+            PromptResult prompt = promptBuilder.buildPackedClassificationPrompt(
+                    entries.stream().map(PackEntry::prepared).toList());
+
+            AIRequest packedRequest = AIRequest.builder()
+                    .systemPrompt(prompt.getSystemPrompt())
+                    .userPrompt(prompt.getUserPrompt())
+                    .provider(first.getProvider())
+                    .model(first.getModel())
+                    .temperature(first.getTemperature())
+                    .maxTokens(maxTokensPerTicket * entries.size())
+                    .promptVersion(prompt.getPromptVersion())
+                    .responseFormat(prompt.getResponseFormat())
+                    .criticality(entries.stream()
+                            .map(e -> e.request.getCriticality())
+                            .filter(c -> c != null)
+                            .max(Integer::compare)
+                            .orElse(null))
+                    .build();
+
+            log.debug("Enviando grupo de {} tickets para {}/{}", entries.size(), first.getProvider(), first.getModel());
+
+            AIResponse packedResponse = aiProviderFactory.sendRequest(packedRequest);
+
+            // Falha da IA vale para todo o grupo (reenviar individualmente so multiplicaria a falha)
+            if (!packedResponse.isSuccess()) {
+                entries.forEach(e -> e.future.complete(packedResponse));
+                return;
+            }
+
+            Map<Integer, ClassificationOutputParser.Output> items = parsePackedItems(packedResponse.getContent());
+            List<PackEntry> fallback = new ArrayList<>();
+
+            for (int i = 0; i < entries.size(); i++) {
+                ClassificationOutputParser.Output item = items.get(i + 1);
+                if (item == null) {
+                    fallback.add(entries.get(i));
+                    continue;
+                }
+                entries.get(i).future.complete(AIResponse.builder()
+                        .success(true)
+                        .content(item.toJson(objectMapper))
+                        .model(packedResponse.getModel())
+                        .promptTokens(share(packedResponse.getPromptTokens(), entries.size()))
+                        .completionTokens(share(packedResponse.getCompletionTokens(), entries.size()))
+                        .totalTokens(share(packedResponse.getTotalTokens(), entries.size()))
+                        .latencyMs(packedResponse.getLatencyMs())
+                        .build());
+            }
+
+            if (!fallback.isEmpty()) {
+                log.warn("Resposta do grupo sem {} de {} itens validos, reenviando individualmente",
+                        fallback.size(), entries.size());
+                fallback.forEach(e -> dispatchExecutor.execute(() -> sendSingle(e)));
+            }
+
+        } catch (Exception e) {
+            log.error("Erro ao processar grupo de {} tickets, reenviando individualmente: {}",
+                    entries.size(), e.getMessage());
+            entries.stream()
+                    .filter(entry -> !entry.future.isDone())
+                    .forEach(entry -> dispatchExecutor.execute(() -> sendSingle(entry)));
+        }
+    }
+
+    private void sendSingle(PackEntry entry) {
+        try {
+            entry.future.complete(aiProviderFactory.sendRequest(entry.request));
+        } catch (Exception e) {
+            entry.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Extrai os itens validos da resposta do grupo, indexados por "i".
+     * Itens sem tipo, servico ou confianca numerica sao descartados.
+     */
+    private Map<Integer, ClassificationOutputParser.Output> parsePackedItems(String content) {
+        try {
+            return ClassificationOutputParser.parsePacked(objectMapper, content);
+        } catch (Exception e) {
+            log.warn("Resposta do grupo nao e um JSON valido: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private Integer share(Integer tokens, int parts) {
+        return tokens != null ? tokens / parts : null;
+    }
+
+    /**
+     * Ticket aguardando no grupo.
+     */
+    private record PackEntry(PreparedClassification prepared, AIRequest request, CompletableFuture<AIResponse> future) {
+    }
+
+    /**
+     * Grupo aberto com seu timer de flush.
+     */
+    private static class PendingPack {
+        private final List<PackEntry> entries;
+        private ScheduledFuture<?> timer;
+
+        private PendingPack(List<PackEntry> entries) {
+            this.entries = entries;
+        }
+    }
+}
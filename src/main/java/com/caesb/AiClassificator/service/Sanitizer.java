@@ -5,8 +5,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.text.Normalizer;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 /**
@@ -58,6 +60,8 @@ public class Sanitizer {
 
     private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>]+>");
     private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+    private static final Pattern NON_WORD_PATTERN = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS_PATTERN = Pattern.compile("\\p{M}+");
 
     // Patterns para remover assinaturas de email
     private static final List<Pattern> SIGNATURE_PATTERNS = Arrays.asList(
@@ -223,6 +227,21 @@ public class Sanitizer {
         return sanitized;
     }
 
+    /**
+     * Normaliza texto para comparacao: remove acentos, caixa, pontuacao e espacos extras.
+     *
+     * @param text Texto (normalmente ja sanitizado)
+     * @return Palavras em minusculas separadas por um espaco
+     */
+    public static String normalizeForComparison(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String plain = DIACRITICS_PATTERN.matcher(decomposed).replaceAll("");
+        return NON_WORD_PATTERN.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
     /**
      * Sanitiza todos os dados do ticket em uma unica chamada.
      *
@@ -0,0 +1,153 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.jfr.ClassificationEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tempos por etapa do pipeline de classificacao, medidos com System.nanoTime().
+ * Uma instancia por requisicao; as etapas sao executadas em sequencia, sem compartilhamento entre threads.
+ * Tambem inicia o evento JFR da classificacao, que cobre o mesmo intervalo.
+ * Opcionalmente mede os bytes alocados pela thread em cada etapa (testes de orcamento de alocacao).
+ */
+public class StageTimings {
+
+    public static final String DEBOUNCE = "debounce";
+    public static final String CACHE = "cache";
+    public static final String SANITIZE = "sanitize";
+    public static final String SENTIMENT = "sentiment";
+    public static final String PROMPT = "prompt";
+    public static final String STORM = "storm";
+    public static final String AI = "ai";
+    public static final String FALLBACK = "fallback";
+    public static final String PARSE = "parse";
+    public static final String ESCALATION = "escalation";
+    public static final String TOTAL = "total";
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> nanos = new LinkedHashMap<>();
+    private final ClassificationEvent event = new ClassificationEvent();
+
+    // Medicao de alocacao: null quando desligada
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private final Map<String, Long> allocatedBytes;
+    private long allocationCheckpoint;
+
+    public StageTimings() {
+        this(false);
+    }
+
+    /**
+     * @param trackAllocation Se mede tambem os bytes alocados pela thread atual por etapa: cada etapa
+     *                        registrada recebe o que foi alocado desde a etapa anterior (ou a criacao)
+     */
+    public StageTimings(boolean trackAllocation) {
+        if (trackAllocation && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            allocationBean = bean;
+            allocatedBytes = new LinkedHashMap<>();
+            allocationCheckpoint = bean.getCurrentThreadAllocatedBytes();
+        } else {
+            allocationBean = null;
+            allocatedBytes = null;
+        }
+        event.begin();
+    }
+
+    /**
+     * Registra o tempo decorrido desde {@code stageStartNanos} na etapa informada.
+     *
+     * @param stage           Nome da etapa
+     * @param stageStartNanos Valor de System.nanoTime() no inicio da etapa
+     */
+    public void record(String stage, long stageStartNanos) {
+        add(stage, System.nanoTime() - stageStartNanos);
+    }
+
+    /**
+     * Soma uma duracao ja medida (em nanos) na etapa informada.
+     */
+    public void add(String stage, long durationNanos) {
+        nanos.merge(stage, Math.max(0, durationNanos), Long::sum);
+        if (allocationBean != null) {
+            long allocated = allocationBean.getCurrentThreadAllocatedBytes();
+            allocatedBytes.merge(stage, allocated - allocationCheckpoint, Long::sum);
+            allocationCheckpoint = allocated;
+        }
+    }
+
+    /**
+     * Soma as etapas medidas em outra instancia (ex: classificacao executada em outra thread),
+     * depois que ela terminou.
+     */
+    public void addAll(StageTimings other) {
+        other.nanos.forEach((stage, duration) -> nanos.merge(stage, duration, Long::sum));
+    }
+
+    /**
+     * Duracao de cada etapa em nanos, na ordem de execucao.
+     */
+    public Map<String, Long> stages() {
+        return Collections.unmodifiableMap(nanos);
+    }
+
+    /**
+     * Duracao de uma etapa em nanos (0 se nao executada).
+     */
+    public long stageNanos(String stage) {
+        return nanos.getOrDefault(stage, 0L);
+    }
+
+    /**
+     * Bytes alocados por etapa, na ordem de execucao (vazio se a medicao estiver desligada).
+     */
+    public Map<String, Long> allocatedBytes() {
+        return allocatedBytes != null ? Collections.unmodifiableMap(allocatedBytes) : Map.of();
+    }
+
+    /**
+     * Evento JFR iniciado junto com a medicao.
+     */
+    public ClassificationEvent event() {
+        return event;
+    }
+
+    /**
+     * Tempo total desde a criacao, em nanos.
+     */
+    public long totalNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Etapas e total em milissegundos (duas casas decimais).
+     */
+    public Map<String, Double> toMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        nanos.forEach((stage, duration) -> millis.put(stage, toMillis(duration)));
+        millis.put(TOTAL, toMillis(totalNanos()));
+        return millis;
+    }
+
+    /**
+     * Valor do header Server-Timing (ex: "sanitize;dur=0.12, ai;dur=812.40, total;dur=813.10").
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        toMillis().forEach((stage, duration) -> {
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            header.append(stage).append(";dur=").append(String.format(Locale.ROOT, "%.2f", duration));
+        });
+        return header.toString();
+    }
+
+    private static double toMillis(long durationNanos) {
+        return Math.round(durationNanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,254 @@
+package com.caesb.AiClassificator.service;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gravador opcional do trafego de POST /classify para replay (benchmarks com o formato real de
+ * producao: duplicatas, rajadas e tamanho dos corpos).
+ * Cada requisicao vira uma linha JSON compacta no arquivo append-only, com o instante de chegada,
+ * o ticketId anonimizado (hash com sal, preserva repeticoes e edicoes do mesmo ticket) e
+ * assunto/corpo com PII mascarada. Remetente e callback nao sao gravados.
+ * O sal fica num arquivo .salt ao lado da captura: depois de um restart o mesmo ticket
+ * continua com o mesmo ID anonimizado no arquivo append-only.
+ * A thread da requisicao so enfileira; anonimizacao, mascaramento de PII e gravacao rodam na
+ * thread de fundo que drena a fila limitada. Com a fila cheia ou o arquivo no limite, o registro
+ * e descartado.
+ */
+@Slf4j
+@Component
+public class TrafficRecorder {
+
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final int SALT_BYTES = 16;
+
+    private final Sanitizer sanitizer;
+    private final ObjectMapper objectMapper;
+    private final ThreadingConfig threadingConfig;
+    private final Counter written;
+    private final Counter dropped;
+
+    @Value("${ai.traffic-capture.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ai.traffic-capture.path:data/traffic.capture}")
+    private String capturePath;
+
+    @Value("${ai.traffic-capture.max-bytes:268435456}")
+    private long maxBytes;
+
+    @Value("${ai.traffic-capture.queue-size:10000}")
+    private int queueSize;
+
+    @Value("${ai.traffic-capture.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private byte[] salt;
+    private BlockingQueue<Arrival> queue;
+    private ScheduledExecutorService writer;
+    private FileChannel channel;
+    private boolean full;
+
+    public TrafficRecorder(Sanitizer sanitizer, ObjectMapper objectMapper, ThreadingConfig threadingConfig,
+                           MeterRegistry meterRegistry) {
+        this.sanitizer = sanitizer;
+        this.objectMapper = objectMapper;
+        this.threadingConfig = threadingConfig;
+        this.written = Counter.builder("ai.traffic.capture.records")
+                .description("Requisicoes gravadas para replay")
+                .tag("result", "written")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("ai.traffic.capture.records")
+                .description("Requisicoes gravadas para replay")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Path.of(capturePath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        salt = loadOrCreateSalt(path.resolveSibling(path.getFileName() + ".salt"));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        queue = new ArrayBlockingQueue<>(queueSize);
+        writer = Executors.newSingleThreadScheduledExecutor(threadingConfig.threadFactory("traffic-capture-"));
+        writer.scheduleWithFixedDelay(this::drain, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Gravacao de trafego habilitada em {} ({} bytes)", path, channel.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        drain();
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enfileira a requisicao para gravacao (nao bloqueia; a PII e mascarada na thread de fundo).
+     */
+    public void record(ClassificationRequest request) {
+        if (!enabled) {
+            return;
+        }
+        Arrival arrival = new Arrival(System.currentTimeMillis(), request.getTicketId(), request.getSubject(),
+                request.getBody(), request.getProvider(), request.getModel());
+        if (!queue.offer(arrival)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Grava os registros pendentes no arquivo.
+     */
+    void drain() {
+        lock.lock();
+        try {
+            List<Arrival> batch = new ArrayList<>();
+            queue.drainTo(batch);
+            if (batch.isEmpty() || !channel.isOpen()) {
+                return;
+            }
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int count = 0;
+            for (Arrival arrival : batch) {
+                byte[] json = objectMapper.writeValueAsBytes(toRecord(arrival));
+                if (channel.size() + buffer.size() + json.length + NEWLINE.length > maxBytes) {
+                    if (!full) {
+                        full = true;
+                        log.warn("Arquivo de trafego atingiu o limite de {} bytes; novas requisicoes descartadas",
+                                maxBytes);
+                    }
+                    break;
+                }
+                buffer.write(json);
+                buffer.write(NEWLINE);
+                count++;
+            }
+
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            written.increment(count);
+            dropped.increment(batch.size() - count);
+        } catch (IOException e) {
+            log.error("Erro ao gravar trafego: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private TrafficRecord toRecord(Arrival arrival) {
+        return new TrafficRecord(
+                arrival.at(),
+                anonymize(arrival.ticketId()),
+                sanitizer.removePii(arrival.subject()),
+                sanitizer.removePii(arrival.body()),
+                arrival.provider(),
+                arrival.model());
+    }
+
+    /**
+     * Le o sal da captura ou gera um novo na primeira gravacao.
+     */
+    private static byte[] loadOrCreateSalt(Path saltPath) throws IOException {
+        if (Files.exists(saltPath)) {
+            byte[] existing = Files.readAllBytes(saltPath);
+            if (existing.length == SALT_BYTES) {
+                return existing;
+            }
+            log.warn("Sal da captura de trafego invalido em {} - gerando outro", saltPath);
+        }
+        byte[] created = new byte[SALT_BYTES];
+        new SecureRandom().nextBytes(created);
+        Files.write(saltPath, created);
+        return created;
+    }
+
+    // Hash com sal da captura: mesmo ticket, mesma chave; sem como voltar ao ID original
+    private String anonymize(String ticketId) {
+        if (ticketId == null || ticketId.isBlank()) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            byte[] hash = digest.digest(ticketId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Requisicao gravada (chaves curtas para manter o arquivo compacto).
+     *
+     * @param at       Instante de chegada (epoch millis)
+     * @param ticket   ticketId anonimizado (null se ausente)
+     * @param subject  Assunto com PII mascarada
+     * @param body     Corpo com PII mascarada (tamanho e formato originais)
+     * @param provider Provider fixado pelo chamador
+     * @param model    Modelo fixado pelo chamador
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record TrafficRecord(long at, String ticket, String subject, String body, String provider,
+                                String model) {
+    }
+
+    /**
+     * Requisicao como chegou, aguardando anonimizacao e gravacao na thread de fundo.
+     */
+    private record Arrival(long at, String ticketId, String subject, String body, String provider,
+                           String model) {
+    }
+}
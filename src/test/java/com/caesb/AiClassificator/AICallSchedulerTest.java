@@ -0,0 +1,122 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AICallScheduler;
+import io.github.resilience4j.ratelimiter.RateLimiterConfig;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes unitários para o AICallScheduler.
+ */
+class AICallSchedulerTest {
+
+    private AICallScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private void createScheduler(int limitForPeriod, long refreshMs, long maxWaitMs) {
+        RateLimiterRegistry registry = RateLimiterRegistry.of(RateLimiterConfig.custom()
+                .limitForPeriod(limitForPeriod)
+                .limitRefreshPeriod(Duration.ofMillis(refreshMs))
+                .timeoutDuration(Duration.ZERO)
+                .build());
+        scheduler = new AICallScheduler(registry, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "maxWaitMs", maxWaitMs);
+        // Prazos proporcionais a espera maxima (o maior precisa ser menor que max-wait-ms)
+        ReflectionTestUtils.setField(scheduler, "lowDeadlineMs", maxWaitMs / 2);
+        ReflectionTestUtils.setField(scheduler, "normalDeadlineMs", maxWaitMs / 4);
+        ReflectionTestUtils.setField(scheduler, "highDeadlineMs", maxWaitMs / 10);
+        ReflectionTestUtils.setField(scheduler, "criticalDeadlineMs", maxWaitMs / 50);
+        scheduler.init();
+    }
+
+    @Test
+    @DisplayName("Deve liberar imediatamente quando ha cota")
+    void shouldAcquireImmediatelyWithQuota() {
+        createScheduler(10, 60_000, 1_000);
+
+        assertTrue(scheduler.acquire(0));
+        assertTrue(scheduler.acquire(3));
+    }
+
+    @Test
+    @DisplayName("Deve recusar apos max-wait-ms sem cota")
+    void shouldTimeoutWithoutQuota() {
+        createScheduler(1, 60_000, 100);
+
+        assertTrue(scheduler.acquire(1));
+        assertFalse(scheduler.acquire(1));
+        assertEquals(0, scheduler.queued("normal"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar configuracao com max-wait-ms menor ou igual ao maior prazo")
+    void shouldRejectMaxWaitNotAboveDeadlines() {
+        scheduler = new AICallScheduler(RateLimiterRegistry.ofDefaults(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "maxWaitMs", 30_000L);
+        ReflectionTestUtils.setField(scheduler, "lowDeadlineMs", 30_000L);
+
+        assertThrows(IllegalStateException.class, scheduler::init);
+    }
+
+    @Test
+    @DisplayName("Deve entregar a permissao ao proximo da fila quando quem esperava desistiu")
+    void shouldNotLosePermitToAbandonedWaiter() throws Exception {
+        createScheduler(1, 600, 1_000);
+        assertTrue(scheduler.acquire(0));
+
+        Thread abandoned = new Thread(() -> scheduler.acquire(0));
+        abandoned.start();
+        while (scheduler.queued("low") == 0) {
+            Thread.onSpinWait();
+        }
+        abandoned.interrupt();
+        abandoned.join();
+        assertEquals(0, scheduler.queued("low"));
+
+        // A permissao da proxima janela (~600ms) vai para este pedido, dentro do max-wait de 1s
+        assertTrue(scheduler.acquire(0));
+    }
+
+    @Test
+    @DisplayName("Deve liberar ticket critico antes de ticket rotineiro que chegou antes")
+    void shouldPrioritizeCriticalCalls() throws Exception {
+        createScheduler(1, 300, 5_000);
+        assertTrue(scheduler.acquire(1));
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> low = CompletableFuture.runAsync(() -> {
+            if (scheduler.acquire(0)) {
+                order.add("low");
+            }
+        });
+        while (scheduler.queued("low") == 0) {
+            Thread.onSpinWait();
+        }
+        CompletableFuture<Void> critical = CompletableFuture.runAsync(() -> {
+            if (scheduler.acquire(3)) {
+                order.add("critical");
+            }
+        });
+
+        CompletableFuture.allOf(low, critical).get();
+
+        assertEquals(List.of("critical", "low"), order);
+    }
+}
@@ -0,0 +1,132 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AICallMetrics;
+import com.caesb.AiClassificator.client.AICallScheduler;
+import com.caesb.AiClassificator.client.AIProviderClient;
+import com.caesb.AiClassificator.client.AIProviderFactory;
+import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.client.DeploymentHealthTracker;
+import com.caesb.AiClassificator.client.DeploymentRouter;
+import com.caesb.AiClassificator.client.LLMResponseCache;
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes do AIProviderFactory: ordem entre circuit breaker e cota, e quais erros contam como falha.
+ */
+class AIProviderFactoryTest {
+
+    private AICallScheduler scheduler;
+    private AIProviderClient client;
+    private CircuitBreaker circuitBreaker;
+    private SimpleMeterRegistry meterRegistry;
+    private AIProviderFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        AIProviderRegistry registry = mock(AIProviderRegistry.class);
+        client = mock(AIProviderClient.class);
+        when(client.usesSharedQuota()).thenReturn(true);
+        when(registry.getClient("azure-openai")).thenReturn(client);
+        when(registry.isProviderAvailable("azure-openai")).thenReturn(true);
+        when(registry.isModelAvailable("azure-openai", "gpt-4o-mini")).thenReturn(true);
+
+        scheduler = mock(AICallScheduler.class);
+        when(scheduler.acquire(any())).thenReturn(true);
+
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("azureopenai");
+        meterRegistry = new SimpleMeterRegistry();
+
+        factory = new AIProviderFactory(registry, scheduler, circuitBreakerRegistry,
+                new AICallMetrics(meterRegistry, registry), mock(DeploymentHealthTracker.class),
+                mock(DeploymentRouter.class), mock(LLMResponseCache.class));
+    }
+
+    @Test
+    @DisplayName("Nao deve consumir cota do agendador com o circuito aberto")
+    void shouldNotAcquireQuotaWhenCircuitOpen() {
+        circuitBreaker.transitionToOpenState();
+
+        AIResponse response = factory.sendRequest(request("gpt-4o-mini"));
+
+        assertFalse(response.isSuccess());
+        assertEquals("AI_UNAVAILABLE", response.getErrorCode());
+        verify(scheduler, never()).acquire(any());
+        verify(client, never()).sendChatCompletion(any());
+    }
+
+    @Test
+    @DisplayName("Deve devolver a permissao do circuit breaker quando a cota e negada")
+    void shouldReleasePermissionWhenQuotaRefused() {
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+        int permitted = circuitBreaker.getCircuitBreakerConfig().getPermittedNumberOfCallsInHalfOpenState();
+        when(scheduler.acquire(any())).thenReturn(false);
+
+        for (int i = 0; i < permitted + 1; i++) {
+            assertEquals("AI_UNAVAILABLE", factory.sendRequest(request("gpt-4o-mini")).getErrorCode());
+        }
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission(), "Permissoes do half-open consumidas sem chamada");
+    }
+
+    @Test
+    @DisplayName("Nao deve contar HTTP 4xx como falha do provider, mas deve contar 429 e 5xx")
+    void shouldCountOnlyProviderErrorsAsFailures() {
+        when(client.sendChatCompletion(any())).thenReturn(
+                restError(400), restError(401), restError(429), restError(500));
+
+        for (int i = 0; i < 4; i++) {
+            factory.sendRequest(request("gpt-4o-mini"));
+        }
+
+        assertEquals(2, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    @DisplayName("Deve publicar modelo nao registrado como unknown nas metricas de chamada")
+    void shouldTagUnregisteredModelAsUnknown() {
+        when(client.sendChatCompletion(any())).thenReturn(AIResponse.builder()
+                .success(true)
+                .model("modelo-livre-123")
+                .latencyMs(10L)
+                .build());
+
+        factory.sendRequest(request("gpt-4o-mini"));
+
+        assertEquals(1.0, meterRegistry.get("ai.calls")
+                .tags("provider", "azure-openai", "model", "unknown").counter().count());
+        assertNull(meterRegistry.find("ai.call.latency").tag("model", "modelo-livre-123").timer());
+    }
+
+    private static AIRequest request(String model) {
+        return AIRequest.builder()
+                .systemPrompt("system")
+                .userPrompt("user")
+                .provider("azure-openai")
+                .model(model)
+                .build();
+    }
+
+    private static AIResponse restError(int status) {
+        return AIResponse.builder()
+                .success(false)
+                .errorCode("REST_ERROR")
+                .errorMessage("HTTP " + status)
+                .httpStatus(status)
+                .model("gpt-4o-mini")
+                .build();
+    }
+}
@@ -0,0 +1,209 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AIProviderFactory;
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.model.AIResponse;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.service.ClassificationCache;
+import com.caesb.AiClassificator.service.ClassificationMetrics;
+import com.caesb.AiClassificator.service.ClassificationService;
+import com.caesb.AiClassificator.service.DecisionIndex;
+import com.caesb.AiClassificator.service.DecisionLog;
+import com.caesb.AiClassificator.service.IncidentStormDetector;
+import com.caesb.AiClassificator.service.PromptBuilder;
+import com.caesb.AiClassificator.service.PromptPackingService;
+import com.caesb.AiClassificator.service.Sanitizer;
+import com.caesb.AiClassificator.service.SentimentAnalyzer;
+import com.caesb.AiClassificator.service.StageTimings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Orcamento de alocacao por chamada de ClassificationService.classify (o container roda com
+ * -Xmx512m e o GC aparece no p99). Mede os bytes alocados pela thread (ThreadMXBean) por etapa,
+ * com um provider stub, e falha quando a media de alguma etapa passa do orcamento em
+ * allocation-budget.properties (sobrescrevivel com -Dallocation.budget.&lt;etapa&gt;=bytes).
+ */
+@Slf4j
+class AllocationBudgetTest {
+
+    private static final int WARMUP_CALLS = 3000;
+    private static final int MEASURED_CALLS = 1000;
+
+    // Resto da chamada fora das etapas medidas (montagem da resposta, metricas, cache)
+    private static final String OTHER = "other";
+
+    private static final String[][] TICKETS = {
+            {"RE: Acesso a VPN nao funciona",
+                    "<html><body><p>Bom dia,</p><p>Desde ontem nao consigo conectar na VPN corporativa, erro "
+                            + "<b>809</b>. Meu CPF e 123.456.789-09.</p><p>Att,<br>Joao da Silva<br>Tel: (61) "
+                            + "3213-7777<br>joao.silva@caesb.df.gov.br</p></body></html>"},
+            {"URGENTE - sistema comercial fora do ar",
+                    "O sistema comercial esta fora do ar para todos os atendentes da agencia Taguatinga. "
+                            + "Fila com mais de 40 pessoas, preciso de solucao imediata!\n--\nMaria Oliveira\n"
+                            + "(61) 3213-7001\nEnviado do meu iPhone"},
+            {"Senha do SEI bloqueada",
+                    "Esqueci minha senha do SEI e depois de tres tentativas a conta foi bloqueada. Preciso "
+                            + "assinar um oficio ainda hoje, por favor."},
+            {"Impressora do 3 andar sem toner",
+                    "<div>A impressora HP da sala 305 esta sem toner e imprimindo tudo apagado.</div><div>Grata"
+                            + "</div><div style=\"color:#888\">Este e-mail e confidencial e destinado exclusivamente"
+                            + " ao destinatario.</div>"}
+    };
+
+    @TempDir
+    Path tempDir;
+
+    private ClassificationService service;
+    private DecisionLog decisionLog;
+    private com.sun.management.ThreadMXBean threadBean;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled(),
+                "JVM sem medicao de alocacao por thread");
+        threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        Sanitizer sanitizer = new Sanitizer();
+        ReflectionTestUtils.setField(sanitizer, "bodyMaxLength", 300);
+        ReflectionTestUtils.setField(sanitizer, "bodyMinLength", 200);
+        ReflectionTestUtils.setField(sanitizer, "sanitizePii", true);
+
+        ClassificationCache cache = new ClassificationCache();
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 5);
+        ReflectionTestUtils.setField(cache, "maxSize", 1000);
+
+        AIProviderRegistry registry = mock(AIProviderRegistry.class, withSettings().stubOnly());
+        when(registry.getDefaultProvider()).thenReturn("azure-openai");
+        when(registry.getDefaultModel()).thenReturn("gpt-4o-mini");
+
+        // Stub sem registro de invocacoes, para o Mockito pesar o minimo na etapa "ai"
+        AIProviderFactory factory = mock(AIProviderFactory.class, withSettings().stubOnly());
+        when(factory.selectModel(anyString())).thenReturn("gpt-4o-mini");
+        when(factory.sendRequest(any())).thenReturn(AIResponse.builder()
+                .success(true)
+                .model("gpt-4o-mini")
+                .promptTokens(1800)
+                .completionTokens(18)
+                .totalTokens(1818)
+                .latencyMs(0L)
+                .content("{\"t\":\"REQ\",\"s\":\"REQ-101\",\"c\":0.92}")
+                .build());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Log de decisoes ligado: o custo na thread da requisicao entra no orcamento
+        decisionLog = new DecisionLog(new ObjectMapper(), new ThreadingConfig(new StandardEnvironment()),
+                new DecisionIndex(new ObjectMapper()), meterRegistry);
+        ReflectionTestUtils.setField(decisionLog, "enabled", true);
+        ReflectionTestUtils.setField(decisionLog, "directoryPath", tempDir.toString());
+        ReflectionTestUtils.setField(decisionLog, "ringSize", 16384);
+        ReflectionTestUtils.setField(decisionLog, "segmentBytes", 64L * 1024 * 1024);
+        ReflectionTestUtils.setField(decisionLog, "maxSegments", 4);
+        ReflectionTestUtils.setField(decisionLog, "flushIntervalMs", 200L);
+        decisionLog.init();
+
+        service = new ClassificationService(sanitizer, new SentimentAnalyzer(), new PromptBuilder(), factory,
+                registry, cache, mock(PromptPackingService.class), new ClassificationMetrics(meterRegistry, registry),
+                new ObjectMapper(), new IncidentStormDetector(meterRegistry), decisionLog);
+        ReflectionTestUtils.setField(service, "confidenceThreshold", 0.75);
+        ReflectionTestUtils.setField(service, "fallbackQueue", "Service Desk (1º Nivel)");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (decisionLog != null) {
+            decisionLog.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve manter a alocacao por chamada de classify dentro do orcamento por etapa")
+    void shouldStayWithinAllocationBudget() throws IOException {
+        // Aquecimento: JIT (escape analysis) e caches estaticos antes de medir
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            classify(i, new StageTimings());
+        }
+
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (int i = 0; i < MEASURED_CALLS; i++) {
+            StageTimings timings = new StageTimings(true);
+            long before = threadBean.getCurrentThreadAllocatedBytes();
+            ClassificationResponse response = classify(WARMUP_CALLS + i, timings);
+            long total = threadBean.getCurrentThreadAllocatedBytes() - before;
+
+            assertEquals("applied", response.getStatus());
+            long staged = 0;
+            for (Map.Entry<String, Long> stage : timings.allocatedBytes().entrySet()) {
+                totals.merge(stage.getKey(), stage.getValue(), Long::sum);
+                staged += stage.getValue();
+            }
+            totals.merge(OTHER, Math.max(0, total - staged), Long::sum);
+            totals.merge(StageTimings.TOTAL, total, Long::sum);
+        }
+
+        Properties budgets = loadBudgets();
+        List<String> exceeded = new ArrayList<>();
+        StringBuilder table = new StringBuilder(String.format("%-12s %12s %12s", "etapa", "bytes", "orcamento"));
+        for (Map.Entry<String, Long> stage : totals.entrySet()) {
+            long average = stage.getValue() / MEASURED_CALLS;
+            String budgetValue = System.getProperty("allocation.budget." + stage.getKey(),
+                    budgets.getProperty(stage.getKey()));
+            table.append(String.format("%n%-12s %12d %12s", stage.getKey(), average,
+                    budgetValue != null ? budgetValue : "-"));
+            if (budgetValue != null && average > Long.parseLong(budgetValue.trim())) {
+                exceeded.add(stage.getKey() + " = " + average + " bytes (orcamento " + budgetValue.trim() + ")");
+            }
+        }
+        log.info("Alocacao por classify (media de {} chamadas){}{}", MEASURED_CALLS, System.lineSeparator(), table);
+
+        assertTrue(exceeded.isEmpty(), "Orcamento de alocacao excedido: " + exceeded);
+    }
+
+    private ClassificationResponse classify(int n, StageTimings timings) {
+        String[] ticket = TICKETS[n % TICKETS.length];
+        // ticketId unico: sem acerto no cache de idempotencia, o pipeline completo roda em toda chamada
+        ClassificationRequest request = ClassificationRequest.builder()
+                .ticketId("ALLOC-" + n)
+                .subject(ticket[0])
+                .body(ticket[1])
+                .senderEmail("usuario@caesb.df.gov.br")
+                .build();
+        return service.classify(request, timings);
+    }
+
+    private static Properties loadBudgets() throws IOException {
+        Properties budgets = new Properties();
+        try (InputStream in = AllocationBudgetTest.class.getResourceAsStream("/allocation-budget.properties")) {
+            assertNotNull(in, "allocation-budget.properties nao encontrado");
+            budgets.load(in);
+        }
+        return budgets;
+    }
+}
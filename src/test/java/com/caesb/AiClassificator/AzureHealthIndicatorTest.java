@@ -0,0 +1,85 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AIProviderFactory;
+import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.client.DeploymentHealthTracker;
+import com.caesb.AiClassificator.config.AzureHealthIndicator;
+import com.caesb.AiClassificator.config.AzureOpenAIConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AzureHealthIndicatorTest {
+
+    private AIProviderFactory factory;
+    private DeploymentHealthTracker tracker;
+    private AzureHealthIndicator indicator;
+
+    @BeforeEach
+    void setUp() {
+        AzureOpenAIConfig config = mock(AzureOpenAIConfig.class);
+        when(config.isEnabled()).thenReturn(true);
+        when(config.isConfigured()).thenReturn(true);
+        when(config.getResourceName()).thenReturn("caesb-openai");
+
+        AIProviderRegistry registry = mock(AIProviderRegistry.class);
+        when(registry.isProviderAvailable("azure-openai")).thenReturn(true);
+        when(registry.getDefaultModel()).thenReturn("gpt-4o-mini");
+
+        factory = mock(AIProviderFactory.class);
+        tracker = new DeploymentHealthTracker();
+        indicator = new AzureHealthIndicator(config, registry, factory, tracker);
+        ReflectionTestUtils.setField(indicator, "minCalls", 5);
+        ReflectionTestUtils.setField(indicator, "minSuccessRate", 0.5);
+        ReflectionTestUtils.setField(indicator, "slowLatencyMs", 1000L);
+        ReflectionTestUtils.setField(indicator, "probeEnabled", true);
+        ReflectionTestUtils.setField(indicator, "probeIdleMs", 60_000L);
+        ReflectionTestUtils.setField(indicator, "probeMaxPerHour", 2);
+    }
+
+    @Test
+    @DisplayName("Deve derivar status do trafego real sem chamar a IA")
+    void shouldDeriveHealthFromTraffic() {
+        for (int i = 0; i < 10; i++) {
+            tracker.record("gpt-4o-mini", true, 200L, false);
+        }
+        ReflectionTestUtils.invokeMethod(indicator, "refresh");
+
+        assertEquals(Status.UP, indicator.health().getStatus());
+        assertEquals(false, indicator.health().getDetails().get("degraded"));
+        verify(factory, never()).testConnection(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Deve ficar DOWN quando a taxa de sucesso cai abaixo do minimo")
+    void shouldGoDownOnLowSuccessRate() {
+        for (int i = 0; i < 10; i++) {
+            tracker.record("gpt-4o-mini", i < 3, 5000L, false);
+        }
+        ReflectionTestUtils.invokeMethod(indicator, "refresh");
+
+        assertEquals(Status.DOWN, indicator.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("Deve sondar apenas sem trafego recente")
+    void shouldProbeOnlyWhenIdle() {
+        assertEquals(true, ReflectionTestUtils.invokeMethod(indicator, "shouldProbe", System.currentTimeMillis()));
+
+        tracker.record("gpt-4o-mini", true, 200L, false);
+        assertEquals(false, ReflectionTestUtils.invokeMethod(indicator, "shouldProbe", System.currentTimeMillis()));
+
+        // Chamadas de sonda nao contam como trafego
+        DeploymentHealthTracker idleTracker = new DeploymentHealthTracker();
+        idleTracker.record("gpt-4o-mini", true, 200L, true);
+        assertEquals(0L, idleTracker.getLastTrafficAt());
+        assertEquals(1, idleTracker.stats("gpt-4o-mini").calls());
+    }
+}
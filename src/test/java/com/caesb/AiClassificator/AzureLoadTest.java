@@ -0,0 +1,275 @@
+package com.caesb.AiClassificator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Teste de carga ponta a ponta de POST /api/v1/classify contra o Azure OpenAI simulado
+ * ({@link MockAzureOpenAIServer}), sem consumir cota.
+ * Sobe a aplicacao completa e, para cada nivel de concorrencia, mede throughput, p50/p99/p999,
+ * status das classificacoes, acertos dos caches e fallbacks.
+ * Sem parametros roda um smoke curto; a carga completa e configurada por system properties:
+ * <pre>
+ * ./mvnw test -Dtest=AzureLoadTest -Dload.concurrency=1,8,32,128 -Dload.seconds=30 \
+ *     -Dload.latency-median-ms=300 -Dload.latency-p99-ms=1500 -Dload.throttle-rate=0.02 -Dload.error-rate=0.05
+ * </pre>
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ai.azure-openai.api-key=load-test-key",
+        "ai.health.probe-enabled=false",
+        "resilience4j.ratelimiter.instances.azureopenai.limitForPeriod=1000000",
+        "resilience4j.ratelimiter.instances.azureopenai.limitRefreshPeriod=1s",
+        "ai.jobs.journal-path=${java.io.tmpdir}/ai-classificator-load-test/jobs.journal",
+        "logging.level.com.caesb.AiClassificator=WARN",
+        "logging.level.com.caesb.AiClassificator.AzureLoadTest=INFO"
+})
+class AzureLoadTest {
+
+    private static final int[] CONCURRENCY = Arrays.stream(System.getProperty("load.concurrency", "4").split(","))
+            .mapToInt(level -> Integer.parseInt(level.trim()))
+            .toArray();
+    private static final long SECONDS_PER_LEVEL = Long.getLong("load.seconds", 3);
+    // Aquecimento (JIT, pools de conexao) antes do primeiro nivel, fora das medicoes
+    private static final long WARMUP_SECONDS = Long.getLong("load.warmup-seconds", 2);
+    // Reenvio do mesmo ticket (cache de idempotencia) e mesmo texto com outro ticketId (cache de respostas)
+    private static final double DUPLICATE_RATIO = Double.parseDouble(System.getProperty("load.duplicate-ratio", "0.2"));
+    private static final double SAME_TEXT_RATIO = Double.parseDouble(System.getProperty("load.same-text-ratio", "0.1"));
+
+    private static final String[] SUBJECTS = {
+            "Sem acesso a VPN", "Senha do SEI bloqueada", "Impressora sem toner", "Sistema comercial fora do ar",
+            "Instalacao do Power BI", "Internet lenta no bloco B", "Monitor piscando", "Criacao de conta de rede"
+    };
+    private static final String[] BODIES = {
+            "Desde ontem nao consigo conectar na VPN de casa, erro 809 na autenticacao.",
+            "Esqueci a senha do SEI e a conta foi bloqueada apos tres tentativas.",
+            "A impressora da sala 305 esta sem toner e imprimindo tudo apagado.",
+            "O sistema comercial esta fora do ar para todos os atendentes da agencia.",
+            "Solicito a instalacao do Power BI Desktop na minha estacao de trabalho.",
+            "A internet esta muito lenta e o Teams cai durante as reunioes.",
+            "Meu monitor fica piscando e apaga sozinho, ja troquei o cabo.",
+            "Novo colaborador inicia segunda, preciso de conta de rede e email."
+    };
+
+    private static final MockAzureOpenAIServer AZURE = MockAzureOpenAIServer.start()
+            .latency(Long.getLong("load.latency-median-ms", 50), Long.getLong("load.latency-p99-ms", 250))
+            .throttleRate(Double.parseDouble(System.getProperty("load.throttle-rate", "0.0")))
+            .errorRate("gpt-4o-mini-deploy", Double.parseDouble(System.getProperty("load.error-rate", "0.02")));
+
+    @DynamicPropertySource
+    static void azureEndpoint(DynamicPropertyRegistry registry) {
+        registry.add("ai.azure-openai.endpoint", AZURE::baseUrl);
+    }
+
+    @AfterAll
+    static void stopAzure() {
+        AZURE.close();
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final AtomicLong ticketSequence = new AtomicLong();
+    // Tickets recentes, de onde saem os reenvios
+    private final AtomicReferenceArray<Ticket> recent = new AtomicReferenceArray<>(256);
+
+    private record Ticket(String ticketId, String subject, String body) {
+    }
+
+    private record LevelResult(int concurrency, long requests, double throughput, double p50Ms, double p99Ms,
+                               double p999Ms, long transportErrors, Map<String, Long> statuses,
+                               double cacheHitRatio, double responseCacheHitRatio, long fallbacks,
+                               long azureCalls, long azureThrottled, long azureFailed) {
+    }
+
+    @Test
+    @DisplayName("Deve medir throughput e latencia ponta a ponta com o Azure simulado")
+    void shouldMeasureEndToEndLatencyUnderIncreasingConcurrency() throws Exception {
+        runLevel(CONCURRENCY[0], WARMUP_SECONDS);
+
+        List<LevelResult> results = new ArrayList<>();
+        for (int concurrency : CONCURRENCY) {
+            results.add(runLevel(concurrency, SECONDS_PER_LEVEL));
+        }
+
+        StringBuilder table = new StringBuilder(String.format("%6s %8s %9s %9s %9s %9s %7s %7s %9s %7s %7s %6s  %s",
+                "conc", "reqs", "req/s", "p50 ms", "p99 ms", "p999 ms", "cache", "rcache", "fallback", "azure",
+                "429", "5xx", "status"));
+        for (LevelResult r : results) {
+            table.append(String.format("%n%6d %8d %9.1f %9.1f %9.1f %9.1f %6.1f%% %6.1f%% %9d %7d %7d %6d  %s",
+                    r.concurrency(), r.requests(), r.throughput(), r.p50Ms(), r.p99Ms(), r.p999Ms(),
+                    r.cacheHitRatio() * 100, r.responseCacheHitRatio() * 100, r.fallbacks(),
+                    r.azureCalls(), r.azureThrottled(), r.azureFailed(), r.statuses()));
+        }
+        log.info("Carga /api/v1/classify - Azure simulado: mediana {} ms, p99 {} ms, 429 {}, 5xx {}{}{}",
+                System.getProperty("load.latency-median-ms", "50"), System.getProperty("load.latency-p99-ms", "250"),
+                System.getProperty("load.throttle-rate", "0.0"), System.getProperty("load.error-rate", "0.02"),
+                System.lineSeparator(), table);
+
+        for (LevelResult r : results) {
+            assertEquals(0, r.transportErrors(), "Falhas de transporte com concorrencia " + r.concurrency());
+            assertTrue(r.requests() > 0);
+        }
+        assertTrue(AZURE.getRequests() > 0, "Nenhuma chamada chegou ao Azure simulado");
+    }
+
+    private LevelResult runLevel(int concurrency, long seconds) throws Exception {
+        double cacheHits = counter("ai.cache.requests", "hit");
+        double cacheMisses = counter("ai.cache.requests", "miss");
+        double responseHits = counter("ai.response.cache.requests", "hit");
+        double responseMisses = counter("ai.response.cache.requests", "miss");
+        double fallbacks = meterRegistry.find("ai.fallback").counters().stream().mapToDouble(c -> c.count()).sum();
+        long azureCalls = AZURE.getRequests();
+        long azureThrottled = AZURE.getThrottled();
+        long azureFailed = AZURE.getFailed();
+
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder transportErrors = new LongAdder();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> drive(deadline, statuses, transportErrors)));
+        }
+        List<long[]> perWorker = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            perWorker.add(future.get());
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        workers.shutdown();
+
+        long[] latencies = perWorker.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+
+        Map<String, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+
+        return new LevelResult(concurrency, latencies.length, latencies.length / elapsedSeconds,
+                percentileMs(latencies, 0.50), percentileMs(latencies, 0.99), percentileMs(latencies, 0.999),
+                transportErrors.sum(), statusCounts,
+                ratio(counter("ai.cache.requests", "hit") - cacheHits,
+                        counter("ai.cache.requests", "miss") - cacheMisses),
+                ratio(counter("ai.response.cache.requests", "hit") - responseHits,
+                        counter("ai.response.cache.requests", "miss") - responseMisses),
+                Math.round(meterRegistry.find("ai.fallback").counters().stream()
+                        .mapToDouble(c -> c.count()).sum() - fallbacks),
+                AZURE.getRequests() - azureCalls, AZURE.getThrottled() - azureThrottled,
+                AZURE.getFailed() - azureFailed);
+    }
+
+    /**
+     * Laco fechado de um usuario: envia, espera a resposta e envia o proximo ate o prazo.
+     * Retorna as latencias (nanos) das requisicoes concluidas.
+     */
+    private long[] drive(long deadline, Map<String, LongAdder> statuses, LongAdder transportErrors) {
+        long[] latencies = new long[1024];
+        int count = 0;
+        while (System.nanoTime() < deadline) {
+            Ticket ticket = nextTicket();
+            long begin = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request(ticket), HttpResponse.BodyHandlers.ofByteArray());
+                long latency = System.nanoTime() - begin;
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latency;
+
+                String status = response.statusCode() == 200
+                        ? objectMapper.readTree(response.body()).path("status").asText("unknown")
+                        : "http_" + response.statusCode();
+                statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+            } catch (Exception e) {
+                transportErrors.increment();
+            }
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private Ticket nextTicket() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        long last = ticketSequence.get();
+        Ticket previous = last > 0
+                ? recent.get((int) ((last - random.nextInt((int) Math.min(last, recent.length()))) % recent.length()))
+                : null;
+        if (previous != null && roll < DUPLICATE_RATIO) {
+            return previous;
+        }
+        long sequence = ticketSequence.incrementAndGet();
+        Ticket ticket;
+        if (previous != null && roll < DUPLICATE_RATIO + SAME_TEXT_RATIO) {
+            ticket = new Ticket("LOAD-" + sequence, previous.subject(), previous.body());
+        } else {
+            int template = random.nextInt(SUBJECTS.length);
+            ticket = new Ticket("LOAD-" + sequence, SUBJECTS[template],
+                    BODIES[template] + " Chamado de carga numero " + sequence + ".");
+        }
+        recent.set((int) (sequence % recent.length()), ticket);
+        return ticket;
+    }
+
+    private HttpRequest request(Ticket ticket) throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(Map.of(
+                "ticketId", ticket.ticketId(), "subject", ticket.subject(), "body", ticket.body()));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/classify"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                .build();
+    }
+
+    private double counter(String name, String result) {
+        FunctionCounter counter = meterRegistry.find(name).tag("result", result).functionCounter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static double ratio(double hits, double misses) {
+        return hits + misses > 0 ? hits / (hits + misses) : 0;
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,153 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AzureOpenAIClient;
+import com.caesb.AiClassificator.config.AzureOpenAIConfig;
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import com.caesb.AiClassificator.model.PromptResult;
+import com.caesb.AiClassificator.service.PromptBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Testes do corpo e dos headers enviados ao Azure OpenAI.
+ */
+class AzureOpenAIClientTest {
+
+    private static final String ENDPOINT =
+            "https://caesb-ai.openai.azure.com/openai/deployments/gpt4o-mini-prod/chat/completions?api-version=2024-10-21";
+
+    private static final String COMPLETION = """
+            {"choices": [{"message": {"role": "assistant",
+              "content": "{\\"t\\": \\"REQ\\", \\"s\\": \\"REQ-101\\", \\"c\\": 0.9}"}}],
+             "usage": {"prompt_tokens": 120, "completion_tokens": 30, "total_tokens": 150}}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PromptBuilder promptBuilder = new PromptBuilder();
+    private AzureOpenAIConfig config;
+    private MockRestServiceServer server;
+    private AzureOpenAIClient client;
+
+    @BeforeEach
+    void setUp() {
+        AzureOpenAIConfig.DeploymentConfig deployment = new AzureOpenAIConfig.DeploymentConfig();
+        deployment.setDeploymentName("gpt4o-mini-prod");
+        deployment.setEnabled(true);
+
+        config = new AzureOpenAIConfig();
+        config.setEnabled(true);
+        config.setResourceName("caesb-ai");
+        config.setApiKey("key-1");
+        config.setDeployments(Map.of("gpt-4o-mini", deployment));
+
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        client = new AzureOpenAIClient(config, restTemplate, objectMapper);
+    }
+
+    private AIRequest request(String userPrompt) {
+        PromptResult prompt = promptBuilder.buildClassificationPrompt("Acesso remoto", userPrompt);
+        return AIRequest.builder()
+                .model("gpt-4o-mini")
+                .systemPrompt(prompt.getSystemPrompt())
+                .userPrompt(prompt.getUserPrompt())
+                .promptVersion(prompt.getPromptVersion())
+                .responseFormat(prompt.getResponseFormat())
+                .build();
+    }
+
+    private JsonNode body(ClientHttpRequest request) throws IOException {
+        return objectMapper.readTree(((MockClientHttpRequest) request).getBodyAsBytes());
+    }
+
+    @Test
+    @DisplayName("Deve enviar corpo JSON valido com json_schema e reutilizar o system prompt escapado")
+    void shouldStreamRequestBody() {
+        server.expect(requestTo(ENDPOINT))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("api-key", "key-1"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(request -> {
+                    JsonNode body = body(request);
+                    assertFalse(body.has("model"));
+                    assertEquals("system", body.at("/messages/0/role").asText());
+                    assertTrue(body.at("/messages/1/content").asText().contains("VPN \"corporativa\""));
+                    assertEquals("json_schema", body.at("/response_format/type").asText());
+                    assertTrue(body.at("/response_format/json_schema/strict").asBoolean());
+                    assertEquals(0.3, body.get("temperature").asDouble());
+                    assertEquals(500, body.get("max_tokens").asInt());
+                })
+                .andRespond(withSuccess(COMPLETION, MediaType.APPLICATION_JSON));
+        server.expect(requestTo(ENDPOINT))
+                .andExpect(request -> assertTrue(body(request).at("/messages/1/content").asText().contains("impressora")))
+                .andRespond(withSuccess(COMPLETION, MediaType.APPLICATION_JSON));
+
+        AIResponse first = client.sendChatCompletion(request("Sem acesso a VPN \"corporativa\"\nde casa"));
+        AIResponse second = client.sendChatCompletion(request("A impressora nao imprime"));
+
+        server.verify();
+        assertTrue(first.isSuccess());
+        assertTrue(second.isSuccess());
+        assertEquals(150, first.getTotalTokens());
+    }
+
+    @Test
+    @DisplayName("Deve usar a nova API key apos rotacao")
+    void shouldRebuildHeadersAfterKeyRotation() {
+        server.expect(header("api-key", "key-1")).andRespond(withSuccess(COMPLETION, MediaType.APPLICATION_JSON));
+        server.expect(header("api-key", "key-2")).andRespond(withSuccess(COMPLETION, MediaType.APPLICATION_JSON));
+
+        client.sendChatCompletion(request("Sem acesso a VPN"));
+        config.setApiKey("key-2");
+        client.sendChatCompletion(request("Sem acesso a VPN"));
+
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("Deve ler content e usage em streaming ignorando campos extras do Azure")
+    void shouldParseResponseSkippingUnknownFields() {
+        String completion = """
+                {"id": "chatcmpl-1", "prompt_filter_results": [{"prompt_index": 0,
+                  "content_filter_results": {"hate": {"filtered": false, "severity": "safe"}}}],
+                 "choices": [{"index": 0, "logprobs": null, "finish_reason": "stop",
+                   "content_filter_results": {"violence": {"filtered": false}},
+                   "message": {"role": "assistant", "refusal": null, "content": "{\\"t\\": \\"INC\\"}"}},
+                  {"index": 1, "message": {"role": "assistant", "content": "ignorado"}}],
+                 "usage": {"prompt_tokens": 80, "completion_tokens_details": {"reasoning_tokens": 0},
+                   "completion_tokens": 7, "total_tokens": 87}}
+                """;
+        server.expect(requestTo(ENDPOINT)).andRespond(withSuccess(completion, MediaType.APPLICATION_JSON));
+        server.expect(requestTo(ENDPOINT)).andRespond(withSuccess("{\"choices\": []}", MediaType.APPLICATION_JSON));
+
+        AIResponse parsed = client.sendChatCompletion(request("Sem acesso a VPN"));
+        AIResponse empty = client.sendChatCompletion(request("Sem acesso a VPN"));
+
+        assertTrue(parsed.isSuccess());
+        assertEquals("{\"t\": \"INC\"}", parsed.getContent());
+        assertEquals(80, parsed.getPromptTokens());
+        assertEquals(7, parsed.getCompletionTokens());
+        assertEquals(87, parsed.getTotalTokens());
+        assertEquals(200, parsed.getHttpStatus());
+        assertNotNull(parsed.getLatencyMs());
+        assertFalse(empty.isSuccess());
+        assertEquals("PARSE_ERROR", empty.getErrorCode());
+    }
+}
@@ -0,0 +1,136 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.BatchClassificationRequest;
+import com.caesb.AiClassificator.model.BatchClassificationResponse;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.model.PreparedClassification;
+import com.caesb.AiClassificator.service.BatchClassificationService;
+import com.caesb.AiClassificator.service.ClassificationCache;
+import com.caesb.AiClassificator.service.ClassificationService;
+import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes unitários para o BatchClassificationService.
+ */
+class BatchClassificationServiceTest {
+
+    private ClassificationService classificationService;
+    private ClassificationCache cache;
+    private BatchClassificationService batchService;
+
+    @BeforeEach
+    void setUp() {
+        classificationService = mock(ClassificationService.class);
+        cache = new ClassificationCache();
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 5);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+
+        batchService = new BatchClassificationService(classificationService, cache, RateLimiterRegistry.ofDefaults(),
+                new ThreadingConfig(new StandardEnvironment()));
+        ReflectionTestUtils.setField(batchService, "maxItems", 10);
+        ReflectionTestUtils.setField(batchService, "parallelism", 4);
+        batchService.init();
+
+        when(classificationService.prepare(any(), anyString(), anyLong())).thenAnswer(inv ->
+                PreparedClassification.builder()
+                        .request(inv.getArgument(0))
+                        .correlationId(inv.getArgument(1))
+                        .build());
+        when(classificationService.complete(any())).thenAnswer(inv -> {
+            PreparedClassification prepared = inv.getArgument(0);
+            return ClassificationResponse.builder()
+                    .success(true)
+                    .status("applied")
+                    .serviceId("SVC-" + prepared.getRequest().getTicketId())
+                    .build();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve preservar a ordem e deduplicar itens repetidos no lote")
+    void shouldPreserveOrderAndDeduplicate() {
+        BatchClassificationResponse response = batchService.classifyBatch(batch(
+                ticket("1", "Impressora sem toner"),
+                ticket("2", "Sistema fora do ar"),
+                ticket("1", "Impressora sem toner"),
+                ticket("3", "Resetar senha de rede")));
+
+        assertEquals(4, response.getTotal());
+        assertEquals(3, response.getClassified());
+        assertEquals(1, response.getDuplicates());
+        verify(classificationService, times(3)).complete(any());
+
+        List<BatchClassificationResponse.ItemResult> items = response.getItems();
+        assertEquals(List.of("SVC-1", "SVC-2", "SVC-1", "SVC-3"),
+                items.stream().map(i -> i.getResponse().getServiceId()).toList());
+        assertEquals("duplicate", items.get(2).getOutcome());
+        assertEquals(0, items.get(2).getDuplicateOf());
+    }
+
+    @Test
+    @DisplayName("Deve atender itens do cache sem chamar a IA")
+    void shouldServeCachedItems() {
+        cache.put("9", "Ticket em cache", null, ClassificationResponse.builder()
+                .success(true)
+                .serviceId("REQ-101")
+                .build());
+
+        BatchClassificationResponse response = batchService.classifyBatch(batch(
+                ticket("9", "Ticket em cache"),
+                ticket("10", "Ticket novo")));
+
+        assertEquals(1, response.getCacheHits());
+        assertEquals("cached", response.getItems().get(0).getOutcome());
+        assertEquals("REQ-101", response.getItems().get(0).getResponse().getServiceId());
+        verify(classificationService, times(1)).complete(any());
+    }
+
+    @Test
+    @DisplayName("Deve registrar como erro o item cuja classificacao lanca excecao")
+    void shouldReportFailedItemAsError() {
+        doThrow(new IllegalStateException("falha no registro")).when(classificationService)
+                .complete(argThat(prepared -> "2".equals(prepared.getRequest().getTicketId())));
+        when(classificationService.buildInternalErrorResponse(anyString(), any(), anyLong()))
+                .thenReturn(ClassificationResponse.builder().success(false).errorCode("INTERNAL_ERROR").build());
+
+        BatchClassificationResponse response = batchService.classifyBatch(batch(
+                ticket("1", "Impressora sem toner"),
+                ticket("2", "Sistema fora do ar"),
+                ticket("2", "Sistema fora do ar")));
+
+        assertEquals(1, response.getClassified());
+        assertEquals(1, response.getFailed());
+        assertEquals(1, response.getDuplicates());
+        assertEquals("error", response.getItems().get(1).getOutcome());
+        assertEquals("INTERNAL_ERROR", response.getItems().get(2).getResponse().getErrorCode());
+    }
+
+    private BatchClassificationRequest batch(ClassificationRequest... requests) {
+        return BatchClassificationRequest.builder().requests(List.of(requests)).build();
+    }
+
+    private ClassificationRequest ticket(String ticketId, String subject) {
+        return ClassificationRequest.builder().ticketId(ticketId).subject(subject).build();
+    }
+}
@@ -9,6 +9,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -160,5 +162,145 @@ class ClassificationCacheTest {
             cache.clear();
             assertEquals(0, cache.size());
         }
+
+        @Test
+        @DisplayName("Deve contar acertos, falhas e remocoes por falta de espaco")
+        void shouldCountHitsMissesAndEvictions() {
+            ReflectionTestUtils.setField(cache, "maxSize", 2);
+            ClassificationResponse response = ClassificationResponse.builder()
+                    .success(true)
+                    .build();
+
+            cache.get("ticket1", "subject1", "body1");
+            cache.put("ticket1", "subject1", "body1", response);
+            cache.get("ticket1", "subject1", "body1");
+            cache.put("ticket2", "subject2", "body2", response);
+            cache.put("ticket3", "subject3", "body3", response);
+
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, cache.getEvictionCount());
+            assertEquals(0, cache.getExpirationCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Testes do armazenamento compacto fora do heap")
+    class CompactStorageTests {
+
+        private ClassificationResponse fullResponse(String correlationId) {
+            Map<String, Double> timings = new LinkedHashMap<>();
+            timings.put("sanitize", 0.12);
+            timings.put("ai", 812.4);
+            timings.put("etapa-nova", 1.5);
+            return ClassificationResponse.builder()
+                    .success(true)
+                    .status("applied")
+                    .correlationId(correlationId)
+                    .type("INC")
+                    .serviceId("INC-202")
+                    .serviceName("Falha de VPN")
+                    .queue("Infraestrutura")
+                    .confidenceScore(0.91)
+                    .thresholdMet(true)
+                    .sentimentScore(-0.4)
+                    .sentimentLabel("negative")
+                    .urgencyDetected(true)
+                    .criticalityScore(2)
+                    .shouldIncreaseSeverity(true)
+                    .processingTimeMs(845L)
+                    .timings(timings)
+                    .message("Classificacao aplicada")
+                    .escalated(false)
+                    .stormId("storm-7")
+                    .provider("azure-openai")
+                    .model("gpt-4o-mini")
+                    .sanitizedSubject("Sem acesso à VPN — urgente")
+                    .sanitizedBodySummary("Erro 809 ao conectar, usuario [EMAIL] 😀")
+                    .maskedSender("j***@caesb.df.gov.br")
+                    .build();
+        }
+
+        @Test
+        @DisplayName("Deve reconstruir todos os campos da resposta no acerto")
+        void shouldRehydrateAllFields() {
+            ClassificationResponse response = fullResponse("corr-1");
+            ClassificationResponse error = ClassificationResponse.builder()
+                    .success(false)
+                    .status("manual")
+                    .errorCode("AI_TIMEOUT")
+                    .errorMessage("Timeout apos 30s")
+                    .build();
+
+            cache.put("ticket1", "subject", "body", response);
+            cache.put("ticket2", "subject", "body", error);
+
+            ClassificationResponse cached = cache.get("ticket1", "subject", "body").orElseThrow();
+            assertEquals(response, cached);
+            assertNotSame(response, cached);
+            assertEquals(error, cache.get("ticket2", "subject", "body").orElseThrow());
+            assertNull(cache.get("ticket2", "subject", "body").orElseThrow().getEscalated());
+        }
+
+        @Test
+        @DisplayName("Deve reciclar o slab circular removendo as entradas mais antigas")
+        void shouldRecycleSlabOldestFirst() {
+            ReflectionTestUtils.setField(cache, "slabBytes", 4096L);
+            for (int i = 0; i < 100; i++) {
+                cache.put("ticket" + i, "subject", "body", fullResponse("corr-" + i));
+            }
+
+            assertEquals(4096, cache.getSlabCapacity());
+            assertTrue(cache.getUsedBytes() <= 4096);
+            assertTrue(cache.size() > 1 && cache.size() < 100, "Tamanho inesperado: " + cache.size());
+            assertEquals(100 - cache.size(), cache.getEvictionCount());
+            for (int i = 0; i < 100; i++) {
+                Optional<ClassificationResponse> cached = cache.get("ticket" + i, "subject", "body");
+                // So as mais recentes continuam no cache, intactas
+                assertEquals(i >= 100 - cache.size(), cached.isPresent(), "ticket" + i);
+                cached.ifPresent(value -> assertEquals(fullResponse(value.getCorrelationId()), value));
+            }
+        }
+
+        @Test
+        @DisplayName("Deve substituir a entrada de uma chave repetida")
+        void shouldReplaceRepeatedKey() {
+            ReflectionTestUtils.setField(cache, "slabBytes", 4096L);
+            for (int i = 0; i < 50; i++) {
+                cache.put("ticket1", "subject", "body", fullResponse("corr-" + i));
+            }
+
+            assertEquals(1, cache.size());
+            assertEquals("corr-49", cache.get("ticket1", "subject", "body").orElseThrow().getCorrelationId());
+            assertEquals(0, cache.getEvictionCount());
+        }
+
+        @Test
+        @DisplayName("Deve expirar entradas pelo TTL")
+        void shouldExpireByTtl() {
+            cache.put("ticket1", "subject", "body", fullResponse("corr-1"));
+            ReflectionTestUtils.setField(cache, "ttlMinutes", -1);
+
+            assertTrue(cache.get("ticket1", "subject", "body").isEmpty());
+            assertEquals(1, cache.getExpirationCount());
+            assertEquals(0, cache.size());
+        }
+
+        @Test
+        @DisplayName("Deve manter 100 mil entradas em um slab de 64MB")
+        void shouldHoldHundredThousandEntries() {
+            ReflectionTestUtils.setField(cache, "maxSize", 100_000);
+            for (int i = 0; i < 100_000; i++) {
+                cache.put("GLPI-" + i, "Sem acesso a VPN", "Erro 809 " + i, fullResponse("corr-" + i));
+            }
+
+            assertEquals(100_000, cache.size());
+            assertEquals(0, cache.getEvictionCount());
+            assertTrue(cache.getSlabCapacity() <= 64L * 1024 * 1024);
+            assertEquals("corr-0", cache.get("GLPI-0", "Sem acesso a VPN", "Erro 809 0").orElseThrow()
+                    .getCorrelationId());
+            assertEquals(fullResponse("corr-99999"),
+                    cache.get("GLPI-99999", "Sem acesso a VPN", "Erro 809 99999").orElseThrow());
+        }
     }
 }
@@ -0,0 +1,123 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AIProviderFactory;
+import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.service.ClassificationCache;
+import com.caesb.AiClassificator.service.ClassificationMetrics;
+import com.caesb.AiClassificator.service.ClassificationService;
+import com.caesb.AiClassificator.service.DecisionLog;
+import com.caesb.AiClassificator.service.IncidentStormDetector;
+import com.caesb.AiClassificator.service.PromptBuilder;
+import com.caesb.AiClassificator.service.PromptPackingService;
+import com.caesb.AiClassificator.service.Sanitizer;
+import com.caesb.AiClassificator.service.SentimentAnalyzer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ClassificationCascadeTest {
+
+    private AIProviderFactory factory;
+    private SimpleMeterRegistry meterRegistry;
+    private ClassificationService service;
+
+    @BeforeEach
+    void setUp() {
+        Sanitizer sanitizer = new Sanitizer();
+        ReflectionTestUtils.setField(sanitizer, "bodyMaxLength", 300);
+        ReflectionTestUtils.setField(sanitizer, "bodyMinLength", 200);
+        ReflectionTestUtils.setField(sanitizer, "sanitizePii", true);
+
+        ClassificationCache cache = new ClassificationCache();
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 5);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+
+        AIProviderRegistry registry = mock(AIProviderRegistry.class);
+        when(registry.getDefaultProvider()).thenReturn("azure-openai");
+        when(registry.getDefaultModel()).thenReturn("gpt-4o-mini");
+
+        factory = mock(AIProviderFactory.class);
+        when(factory.selectModel(anyString())).thenReturn("gpt-4o-mini");
+
+        meterRegistry = new SimpleMeterRegistry();
+        service = new ClassificationService(sanitizer, new SentimentAnalyzer(), new PromptBuilder(), factory,
+                registry, cache, mock(PromptPackingService.class), new ClassificationMetrics(meterRegistry, registry),
+                new ObjectMapper(), new IncidentStormDetector(meterRegistry), mock(DecisionLog.class));
+        ReflectionTestUtils.setField(service, "confidenceThreshold", 0.75);
+        ReflectionTestUtils.setField(service, "fallbackQueue", "Service Desk (1º Nivel)");
+        ReflectionTestUtils.setField(service, "cascadeEnabled", true);
+        ReflectionTestUtils.setField(service, "escalationModel", "gpt-4o");
+    }
+
+    private void answer(String model, String serviceId, double confidence) {
+        when(factory.sendRequest(argThat((AIRequest r) -> r != null && model.equals(r.getModel()))))
+                .thenReturn(AIResponse.builder()
+                        .success(true)
+                        .model(model)
+                        .totalTokens(300)
+                        .content("{\"tipo\": \"REQ\", \"servico_id\": \"" + serviceId
+                                + "\", \"confidence_score\": " + confidence + "}")
+                        .build());
+    }
+
+    private static ClassificationRequest ticket(String model) {
+        return ClassificationRequest.builder()
+                .ticketId("T-" + System.nanoTime())
+                .subject("Esqueci minha senha")
+                .body("Preciso resetar a senha da rede")
+                .model(model)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Nao deve escalonar quando o modelo barato atinge o threshold")
+    void shouldNotEscalateWhenConfident() {
+        answer("gpt-4o-mini", "REQ-101", 0.92);
+
+        ClassificationResponse response = service.classify(ticket(null));
+
+        assertEquals("applied", response.getStatus());
+        assertNull(response.getEscalated());
+        verify(factory, times(1)).sendRequest(any());
+    }
+
+    @Test
+    @DisplayName("Deve escalonar confianca baixa para o modelo forte e usar o resultado confiante")
+    void shouldEscalateLowConfidence() {
+        answer("gpt-4o-mini", "REQ-100", 0.40);
+        answer("gpt-4o", "REQ-101", 0.95);
+
+        ClassificationResponse response = service.classify(ticket(null));
+
+        assertEquals("applied", response.getStatus());
+        assertEquals("REQ-101", response.getServiceId());
+        assertEquals("gpt-4o", response.getModel());
+        assertTrue(response.getEscalated());
+        assertEquals(1.0, meterRegistry.get("ai.cascade.escalations").tag("outcome", "resolved").counter().count());
+        assertEquals(300.0, meterRegistry.get("ai.cascade.escalation.tokens").counter().count());
+    }
+
+    @Test
+    @DisplayName("Nao deve escalonar requisicao com modelo fixado")
+    void shouldNotEscalatePinnedModel() {
+        answer("gpt-4o-mini", "REQ-100", 0.40);
+
+        ClassificationResponse response = service.classify(ticket("gpt-4o-mini"));
+
+        assertEquals("partial", response.getStatus());
+        verify(factory, times(1)).sendRequest(any());
+    }
+}
@@ -0,0 +1,154 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.service.ClassificationDebouncer;
+import com.caesb.AiClassificator.service.ClassificationService;
+import com.caesb.AiClassificator.service.Sanitizer;
+import com.caesb.AiClassificator.service.StageTimings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class ClassificationDebouncerTest {
+
+    private ClassificationService classificationService;
+    private ClassificationDebouncer debouncer;
+
+    @BeforeEach
+    void setUp() {
+        Sanitizer sanitizer = new Sanitizer();
+        ReflectionTestUtils.setField(sanitizer, "bodyMaxLength", 300);
+        ReflectionTestUtils.setField(sanitizer, "bodyMinLength", 200);
+        ReflectionTestUtils.setField(sanitizer, "sanitizePii", true);
+
+        classificationService = mock(ClassificationService.class);
+        when(classificationService.classify(any(), any())).thenAnswer(invocation -> {
+            ClassificationRequest request = invocation.getArgument(0);
+            return ClassificationResponse.builder()
+                    .success(true)
+                    .status("applied")
+                    .serviceId(request.getBody().contains("VPN") ? "REQ-120" : "REQ-101")
+                    .build();
+        });
+
+        debouncer = new ClassificationDebouncer(classificationService, sanitizer,
+                new ThreadingConfig(new StandardEnvironment()), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(debouncer, "enabled", true);
+        ReflectionTestUtils.setField(debouncer, "windowMs", 300L);
+        ReflectionTestUtils.setField(debouncer, "maxWaitMs", 2000L);
+        ReflectionTestUtils.setField(debouncer, "decisionTtlMinutes", 30L);
+        debouncer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        debouncer.shutdown();
+    }
+
+    private static ClassificationRequest ticket(String body) {
+        return ClassificationRequest.builder()
+                .ticketId("GLPI-42")
+                .subject("Acesso remoto")
+                .body(body)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Deve classificar apenas o conteudo mais recente e entregar o resultado a todos")
+    void shouldCoalesceRapidUpdates() throws Exception {
+        CompletableFuture<ClassificationResponse> first = CompletableFuture.supplyAsync(
+                () -> debouncer.classify(ticket("Nao consigo acessar o sistema"), new StageTimings()));
+        Thread.sleep(100);
+        ClassificationResponse second = debouncer.classify(
+                ticket("Nao consigo acessar o sistema pela VPN de casa"), new StageTimings());
+
+        assertEquals("REQ-120", second.getServiceId());
+        assertSame(second, first.get());
+        verify(classificationService, times(1)).classify(
+                argThat(r -> r.getBody().contains("VPN")), any());
+        verifyNoMoreInteractions(classificationService);
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a decisao quando o texto normalizado nao mudou")
+    void shouldReuseDecisionForSameNormalizedText() {
+        ClassificationResponse first = debouncer.classify(ticket("Nao consigo acessar a VPN."), new StageTimings());
+        ClassificationResponse second = debouncer.classify(ticket("  não consigo ACESSAR a vpn "), new StageTimings());
+
+        assertSame(first, second);
+        verify(classificationService, times(1)).classify(any(), any());
+        verify(classificationService).recordReused(any(), any(), same(first));
+    }
+
+    @Test
+    @DisplayName("Deve medir a classificacao em tempos proprios e copiar ao chamador ao concluir")
+    void shouldMergeDispatchTimingsOnCompletion() {
+        StageTimings callerTimings = new StageTimings();
+        doAnswer(invocation -> {
+            StageTimings dispatchTimings = invocation.getArgument(1);
+            assertNotSame(callerTimings, dispatchTimings);
+            dispatchTimings.add(StageTimings.AI, 5_000_000);
+            return ClassificationResponse.builder().success(true).status("applied").build();
+        }).when(classificationService).classify(any(), any());
+
+        debouncer.classify(ticket("Nao consigo acessar a VPN"), callerTimings);
+
+        assertEquals(5_000_000, callerTimings.stageNanos(StageTimings.AI));
+        assertTrue(callerTimings.stageNanos(StageTimings.DEBOUNCE) > 0);
+    }
+
+    @Test
+    @DisplayName("Deve classificar imediatamente requisicoes sem ticketId")
+    void shouldBypassWithoutTicketId() {
+        ClassificationRequest request = ClassificationRequest.builder()
+                .subject("Acesso remoto")
+                .body("Nao consigo acessar a VPN")
+                .build();
+
+        debouncer.classify(request, new StageTimings());
+        debouncer.classify(request, new StageTimings());
+
+        verify(classificationService, times(2)).classify(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve limitar a espera e retornar not_applied quando a classificacao trava")
+    void shouldStopWaitingWhenClassificationStalls() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return ClassificationResponse.builder().success(true).status("applied").build();
+        }).when(classificationService).classify(any(), any());
+        doCallRealMethod().when(classificationService).buildInternalErrorResponse(any(), any(), anyLong());
+        ReflectionTestUtils.setField(debouncer, "maxWaitMs", 300L);
+        ReflectionTestUtils.setField(debouncer, "schedulerMaxWaitMs", 0L);
+        ReflectionTestUtils.setField(debouncer, "aiTimeoutMs", 200L);
+
+        try {
+            long start = System.nanoTime();
+            ClassificationResponse response = debouncer.classify(ticket("Nao consigo acessar a VPN"), new StageTimings());
+
+            assertEquals("not_applied", response.getStatus());
+            assertEquals("INTERNAL_ERROR", response.getErrorCode());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        } finally {
+            release.countDown();
+        }
+    }
+}
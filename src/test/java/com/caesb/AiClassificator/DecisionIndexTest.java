@@ -0,0 +1,218 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.service.DecisionIndex;
+import com.caesb.AiClassificator.service.DecisionIndex.Count;
+import com.caesb.AiClassificator.service.DecisionIndex.GroupBy;
+import com.caesb.AiClassificator.service.DecisionIndex.Page;
+import com.caesb.AiClassificator.service.DecisionIndex.Query;
+import com.caesb.AiClassificator.service.DecisionLog;
+import com.caesb.AiClassificator.service.DecisionLog.DecisionRecord;
+import com.caesb.AiClassificator.service.StageTimings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes das consultas indexadas sobre o log de decisoes.
+ */
+class DecisionIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private DecisionIndex index;
+    private DecisionLog decisionLog;
+
+    private void start(long segmentBytes, int maxSegments) throws Exception {
+        index = new DecisionIndex(objectMapper);
+        decisionLog = new DecisionLog(objectMapper, new ThreadingConfig(new StandardEnvironment()), index,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(decisionLog, "enabled", true);
+        ReflectionTestUtils.setField(decisionLog, "directoryPath", tempDir.toString());
+        ReflectionTestUtils.setField(decisionLog, "ringSize", 1024);
+        ReflectionTestUtils.setField(decisionLog, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(decisionLog, "maxSegments", maxSegments);
+        ReflectionTestUtils.setField(decisionLog, "flushIntervalMs", 60_000L);
+        decisionLog.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (decisionLog != null) {
+            decisionLog.shutdown();
+        }
+    }
+
+    private void record(String correlationId, String ticketId, String serviceId, String status, boolean cached) {
+        ClassificationRequest request = ClassificationRequest.builder().ticketId(ticketId).build();
+        ClassificationResponse response = ClassificationResponse.builder()
+                .status(status)
+                .serviceId(serviceId)
+                .build();
+        assertTrue(decisionLog.record(correlationId, request, response, "azure-openai", "gpt-4o-mini",
+                new StageTimings(), cached));
+    }
+
+    /**
+     * Grava as decisoes pendentes no ring (o writer de fundo fica parado nos testes).
+     */
+    private void flush() {
+        ReflectionTestUtils.invokeMethod(decisionLog, "drain");
+    }
+
+    private static Query all() {
+        return new Query(null, null, null, null, null, false);
+    }
+
+    @Test
+    @DisplayName("Deve encontrar as decisoes de um ticket em segmentos fechados e no ativo")
+    void shouldFindTicketAcrossSegments() throws Exception {
+        start(700, 10);
+        for (int i = 0; i < 30; i++) {
+            record("c-" + i, "T-" + (i % 5), "INC-202", "applied", false);
+            flush();
+        }
+        assertTrue(decisionLog.segments().size() > 2, "Esperava rotacao de segmentos");
+
+        Page page = index.query(new Query("T-3", null, null, null, null, false), 0, 50);
+        assertEquals(6, page.total());
+        assertEquals(List.of("c-28", "c-23", "c-18", "c-13", "c-8", "c-3"),
+                page.decisions().stream().map(DecisionRecord::correlationId).toList());
+        assertEquals(0, index.query(new Query("T-99", null, null, null, null, false), 0, 50).total());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por servico, status e cache com paginacao da mais recente para a mais antiga")
+    void shouldFilterAndPaginate() throws Exception {
+        start(1_000_000, 10);
+        for (int i = 0; i < 25; i++) {
+            record("c-" + i, "T-" + i, i % 2 == 0 ? "INC-202" : "REQ-101", i % 3 == 0 ? "manual" : "applied", false);
+        }
+        record("c-cached", "T-0", "INC-202", "manual", true);
+        flush();
+
+        Query manualInc = new Query(null, "INC-202", "manual", null, null, false);
+        Page first = index.query(manualInc, 0, 2);
+        Page second = index.query(manualInc, 1, 2);
+        Page third = index.query(manualInc, 2, 2);
+        // i par e multiplo de 3: 0, 6, 12, 18, 24
+        assertEquals(5, first.total());
+        assertEquals(List.of("c-24", "c-18"), first.decisions().stream().map(DecisionRecord::correlationId).toList());
+        assertEquals(List.of("c-12", "c-6"), second.decisions().stream().map(DecisionRecord::correlationId).toList());
+        assertEquals(List.of("c-0"), third.decisions().stream().map(DecisionRecord::correlationId).toList());
+
+        assertEquals(6, index.query(new Query(null, "INC-202", "manual", null, null, true), 0, 10).total());
+        assertEquals(0, index.query(new Query(null, "OS-999", null, null, null, false), 0, 10).total());
+        assertEquals(0, index.query(new Query(null, null, null, Instant.now().plusSeconds(60), null, false), 0, 10)
+                .total());
+        assertEquals(25, index.query(all(), 0, 10).total());
+    }
+
+    @Test
+    @DisplayName("Deve contar decisoes por servico, status e hora")
+    void shouldCountByServiceStatusAndHour() {
+        index = new DecisionIndex(objectMapper);
+        Path file = tempDir.resolve("decisions-0000000000001.ndjson");
+        long hour = Instant.parse("2026-10-17T13:00:00Z").toEpochMilli();
+        String[][] decisions = {
+                {"INC-202", "manual", "0"}, {"INC-202", "manual", "10"}, {"INC-202", "applied", "20"},
+                {"REQ-101", "applied", "30"}, {"INC-202", "manual", "70"}, {"REQ-101", "applied", "80"}
+        };
+        int position = 0;
+        for (String[] decision : decisions) {
+            long at = hour + Long.parseLong(decision[2]) * 60_000L;
+            index.append(1, file, position, new DecisionRecord(at, "c", "T", decision[1], "INC", decision[0],
+                    null, null, null, null, null, null, null, null, null));
+            position += 100;
+        }
+
+        List<Count> byServiceStatus = index.count(all(), EnumSet.of(GroupBy.SERVICE, GroupBy.STATUS));
+        assertEquals(List.of(new Count("INC-202", "manual", null, 3), new Count("REQ-101", "applied", null, 2),
+                new Count("INC-202", "applied", null, 1)), byServiceStatus);
+
+        Query manualInc = new Query(null, "INC-202", "manual", null, null, false);
+        List<Count> byHour = index.count(manualInc, EnumSet.of(GroupBy.HOUR));
+        assertEquals(List.of(new Count(null, null, Instant.parse("2026-10-17T13:00:00Z"), 2),
+                new Count(null, null, Instant.parse("2026-10-17T14:00:00Z"), 1)), byHour);
+
+        Query afternoon = new Query(null, null, null, Instant.parse("2026-10-17T14:00:00Z"), null, false);
+        assertEquals(List.of(new Count(null, null, null, 2)), index.count(afternoon, EnumSet.noneOf(GroupBy.class)));
+    }
+
+    @Test
+    @DisplayName("Deve reindexar os segmentos existentes ao reiniciar e esquecer os apagados")
+    void shouldReloadExistingSegments() throws Exception {
+        start(700, 3);
+        for (int i = 0; i < 30; i++) {
+            record("c-" + i, "T-" + i, "INC-202", "applied", false);
+            flush();
+        }
+        long indexed = index.size();
+        assertTrue(indexed < 30, "Segmentos apagados continuam no indice");
+        decisionLog.shutdown();
+
+        start(700, 10);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (index.size() < indexed && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(indexed, index.size());
+        Page latest = index.query(new Query("T-29", null, null, null, null, false), 0, 10);
+        assertEquals(1, latest.total());
+        assertEquals("c-29", latest.decisions().get(0).correlationId());
+    }
+
+    @Test
+    @DisplayName("Deve tirar do indice os segmentos fechados mais antigos acima de max-rows ou da retencao")
+    void shouldCapIndexedRows() {
+        index = new DecisionIndex(objectMapper);
+        ReflectionTestUtils.setField(index, "maxRows", 10L);
+        ReflectionTestUtils.setField(index, "retentionDays", 30);
+        long now = System.currentTimeMillis();
+
+        appendSegment(1, now - 40L * 24 * 3_600_000L, 2, "T-old");
+        index.seal(1);
+        appendSegment(2, now, 4, "T-2");
+        index.seal(2);
+        assertEquals(4, index.size(), "Segmento fora da retencao continua no indice");
+        assertEquals(0, countFor("T-old"));
+
+        appendSegment(3, now, 4, "T-3");
+        index.seal(3);
+        appendSegment(4, now, 4, "T-4");
+
+        assertEquals(8, index.size());
+        assertEquals(0, countFor("T-2"));
+        assertEquals(4, countFor("T-3"));
+        assertEquals(4, countFor("T-4"));
+    }
+
+    private long countFor(String ticketId) {
+        return index.count(new Query(ticketId, null, null, null, null, false), EnumSet.noneOf(GroupBy.class))
+                .stream().mapToLong(Count::count).sum();
+    }
+
+    private void appendSegment(long segmentId, long at, int decisions, String ticketId) {
+        Path file = tempDir.resolve(String.format("decisions-%013d.ndjson", segmentId));
+        for (int i = 0; i < decisions; i++) {
+            index.append(segmentId, file, i * 100, new DecisionRecord(at, "c", ticketId, "applied", "INC",
+                    "INC-202", null, null, null, null, null, null, null, null, null));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.service.DecisionIndex;
+import com.caesb.AiClassificator.service.DecisionLog;
+import com.caesb.AiClassificator.service.StageTimings;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do log estruturado de decisoes (ring buffer + segmentos rotativos).
+ */
+class DecisionLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DecisionLog decisionLog;
+
+    private DecisionLog start(int ringSize, long segmentBytes, int maxSegments, long flushIntervalMs) throws Exception {
+        decisionLog = new DecisionLog(objectMapper, new ThreadingConfig(new StandardEnvironment()),
+                new DecisionIndex(objectMapper), meterRegistry);
+        ReflectionTestUtils.setField(decisionLog, "enabled", true);
+        ReflectionTestUtils.setField(decisionLog, "directoryPath", tempDir.toString());
+        ReflectionTestUtils.setField(decisionLog, "ringSize", ringSize);
+        ReflectionTestUtils.setField(decisionLog, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(decisionLog, "maxSegments", maxSegments);
+        ReflectionTestUtils.setField(decisionLog, "flushIntervalMs", flushIntervalMs);
+        decisionLog.init();
+        return decisionLog;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (decisionLog != null) {
+            decisionLog.shutdown();
+        }
+    }
+
+    private static ClassificationRequest request(String ticketId) {
+        return ClassificationRequest.builder().ticketId(ticketId).subject("Sem VPN").body("Erro 809").build();
+    }
+
+    private static ClassificationResponse applied() {
+        return ClassificationResponse.builder()
+                .success(true)
+                .status("applied")
+                .type("INC")
+                .serviceId("INC-202")
+                .queue("Infraestrutura")
+                .confidenceScore(0.91)
+                .build();
+    }
+
+    private List<JsonNode> readAll() throws Exception {
+        List<JsonNode> records = new ArrayList<>();
+        for (Path segment : decisionLog.segments()) {
+            for (String line : Files.readAllLines(segment)) {
+                records.add(objectMapper.readTree(line));
+            }
+        }
+        return records;
+    }
+
+    private double counter(String result) {
+        return meterRegistry.get("ai.decision.log.records").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Deve gravar a decisao com correlationId, resultado e tempos por etapa")
+    void shouldWriteDecisionRecord() throws Exception {
+        start(64, 1_000_000, 4, 60_000);
+        StageTimings timings = new StageTimings();
+        timings.add(StageTimings.SANITIZE, 120_000);
+        timings.add(StageTimings.AI, 812_400_000);
+
+        assertTrue(decisionLog.record("corr-1", request("GLPI-42"), applied(), "azure-openai", "gpt-4o-mini",
+                timings, false));
+        decisionLog.shutdown();
+
+        List<JsonNode> records = readAll();
+        assertEquals(1, records.size());
+        JsonNode record = records.get(0);
+        assertEquals("corr-1", record.get("correlationId").asText());
+        assertEquals("GLPI-42", record.get("ticketId").asText());
+        assertEquals("applied", record.get("status").asText());
+        assertEquals("INC-202", record.get("serviceId").asText());
+        assertEquals(0.91, record.get("confidence").asDouble());
+        assertEquals("gpt-4o-mini", record.get("model").asText());
+        assertEquals(0.12, record.get("ms").get("sanitize").asDouble());
+        assertEquals(812.4, record.get("ms").get("ai").asDouble());
+        assertTrue(record.get("ms").has("total"));
+        assertFalse(record.get("ms").has("cache"));
+        assertFalse(record.has("cached"));
+        assertFalse(record.has("errorCode"));
+        assertEquals(1.0, counter("written"));
+    }
+
+    @Test
+    @DisplayName("Deve descartar e contar registros quando o ring esta cheio")
+    void shouldDropWhenRingIsFull() throws Exception {
+        // Writer praticamente parado: so o drain do shutdown esvazia o ring
+        start(4, 1_000_000, 4, 60_000);
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (decisionLog.record("corr-" + i, request("T-" + i), applied(), null, null, new StageTimings(), false)) {
+                accepted++;
+            }
+        }
+        decisionLog.shutdown();
+
+        assertEquals(4, accepted);
+        assertEquals(6.0, counter("dropped"));
+        assertEquals(4, readAll().size());
+    }
+
+    @Test
+    @DisplayName("Deve rotacionar segmentos pelo tamanho e apagar os mais antigos")
+    void shouldRotateAndPruneSegments() throws Exception {
+        start(1024, 600, 3, 60_000);
+        for (int i = 0; i < 40; i++) {
+            decisionLog.record("corr-" + i, request("T-" + i), applied(), "azure-openai", "gpt-4o-mini",
+                    new StageTimings(), false);
+        }
+        decisionLog.shutdown();
+
+        List<Path> segments = decisionLog.segments();
+        assertEquals(3, segments.size());
+        List<JsonNode> records = readAll();
+        assertTrue(records.size() < 40);
+        // Os registros mais recentes sobrevivem, em ordem
+        assertEquals("corr-39", records.get(records.size() - 1).get("correlationId").asText());
+        for (Path segment : segments.subList(0, segments.size() - 1)) {
+            assertTrue(Files.size(segment) < 600 + 400, "Segmento grande demais: " + Files.size(segment));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar todas as decisoes de produtores concorrentes")
+    void shouldAcceptConcurrentProducers() throws Exception {
+        start(8192, 1_000_000, 4, 5);
+        int threads = 8;
+        int perThread = 500;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    decisionLog.record(thread + "-" + i, request("T"), applied(), null, null, new StageTimings(), false);
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        decisionLog.shutdown();
+
+        List<JsonNode> records = readAll();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        records.forEach(record -> ids.add(record.get("correlationId").asText()));
+        assertEquals(threads * perThread, records.size() + (long) counter("dropped"));
+        assertEquals(records.size(), ids.size());
+    }
+}
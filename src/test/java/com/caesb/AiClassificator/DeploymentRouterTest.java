@@ -0,0 +1,81 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.client.DeploymentRouter;
+import com.caesb.AiClassificator.model.AIDeployment;
+import com.caesb.AiClassificator.model.AIResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeploymentRouterTest {
+
+    private DeploymentRouter router;
+
+    @BeforeEach
+    void setUp() {
+        AIProviderRegistry registry = mock(AIProviderRegistry.class);
+        when(registry.getModelsForProvider("azure-openai")).thenReturn(List.of(
+                deployment("gpt-4o", 2.50),
+                deployment("gpt-4o-mini", 0.15)
+        ));
+
+        router = new DeploymentRouter(registry, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(router, "enabled", true);
+        ReflectionTestUtils.setField(router, "latencySloMs", 3000L);
+        ReflectionTestUtils.setField(router, "alpha", 0.5);
+        ReflectionTestUtils.setField(router, "minSamples", 3);
+        ReflectionTestUtils.setField(router, "drainErrorRate", 0.25);
+        ReflectionTestUtils.setField(router, "drainThrottleRate", 0.10);
+        ReflectionTestUtils.setField(router, "recoveryFraction", 0.0);
+    }
+
+    private static AIDeployment deployment(String modelId, double cost) {
+        return AIDeployment.builder().modelId(modelId).enabled(true).costPerMillionTokens(cost).build();
+    }
+
+    private static AIResponse success(long latencyMs) {
+        return AIResponse.builder().success(true).latencyMs(latencyMs).httpStatus(200).build();
+    }
+
+    @Test
+    @DisplayName("Deve escolher o deployment mais barato dentro do SLO")
+    void shouldPickCheapestWithinSlo() {
+        assertEquals("gpt-4o-mini", router.select("azure-openai").orElseThrow());
+
+        // Modelo barato fora do SLO: vai para o que atende
+        for (int i = 0; i < 5; i++) {
+            router.record("gpt-4o-mini", success(8000), false);
+            router.record("gpt-4o", success(900), false);
+        }
+        assertEquals("gpt-4o", router.select("azure-openai").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Deve drenar deployment com 429 antes do circuit breaker abrir")
+    void shouldDrainThrottledDeployment() {
+        for (int i = 0; i < 3; i++) {
+            router.record("gpt-4o-mini", AIResponse.builder()
+                    .success(false).errorCode("REST_ERROR").httpStatus(429).build(), true);
+        }
+
+        assertTrue(router.isDraining("gpt-4o-mini"));
+        assertEquals("gpt-4o", router.select("azure-openai").orElseThrow());
+        assertEquals("gpt-4o", router.selectFallback("azure-openai", "gpt-4o-mini").orElseThrow());
+
+        // Recupera com respostas bem sucedidas
+        for (int i = 0; i < 10; i++) {
+            router.record("gpt-4o-mini", success(500), false);
+        }
+        assertFalse(router.isDraining("gpt-4o-mini"));
+        assertEquals("gpt-4o-mini", router.select("azure-openai").orElseThrow());
+    }
+}
@@ -0,0 +1,95 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.exception.ClassificationException;
+import com.caesb.AiClassificator.jfr.ClassificationEvent;
+import com.caesb.AiClassificator.jfr.FlightRecorderService;
+import com.caesb.AiClassificator.service.StageTimings;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FlightRecorderService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    private FlightRecorderService createService(boolean enabled) {
+        service = new FlightRecorderService();
+        ReflectionTestUtils.setField(service, "enabled", enabled);
+        ReflectionTestUtils.setField(service, "maxAgeMinutes", 5L);
+        ReflectionTestUtils.setField(service, "maxSizeMb", 10L);
+        ReflectionTestUtils.setField(service, "dumpDir", tempDir.toString());
+        service.init();
+        return service;
+    }
+
+    @Test
+    @DisplayName("Deve exportar gravacao contendo o evento de classificacao")
+    void shouldDumpClassificationEvent() throws Exception {
+        createService(true);
+        assertTrue(service.isRecording());
+
+        StageTimings timings = new StageTimings();
+        timings.add(StageTimings.AI, 5_000_000);
+        ClassificationEvent event = timings.event();
+        event.end();
+        event.ticketId = "JFR-1";
+        event.status = "applied";
+        event.aiNanos = timings.stageNanos(StageTimings.AI);
+        event.commit();
+
+        Path file = service.dump();
+        assertTrue(Files.size(file) > 0);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals(ClassificationEvent.NAME))
+                .toList();
+        assertTrue(events.stream().anyMatch(e -> "JFR-1".equals(e.getString("ticketId"))
+                && e.getLong("aiNanos") == 5_000_000));
+    }
+
+    @Test
+    @DisplayName("Deve gerar um arquivo por exportacao e remover sobras ao iniciar")
+    void shouldUseUniqueDumpFilesAndRemoveStaleOnes() throws Exception {
+        Path stale = Files.createFile(tempDir.resolve("aiclassificator-20260101-000000-1.jfr"));
+        Path other = Files.createFile(tempDir.resolve("outro.jfr"));
+
+        createService(true);
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(other));
+        Path first = service.dump();
+        Path second = service.dump();
+        assertNotEquals(first, second);
+        assertTrue(Files.size(first) > 0 && Files.size(second) > 0);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar dump quando JFR esta desabilitado")
+    void shouldRejectDumpWhenDisabled() {
+        createService(false);
+
+        assertFalse(service.isRecording());
+        ClassificationException ex = assertThrows(ClassificationException.class, service::dump);
+        assertEquals("JFR_DISABLED", ex.getErrorCode());
+    }
+}
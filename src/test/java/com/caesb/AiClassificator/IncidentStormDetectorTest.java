@@ -0,0 +1,110 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.model.ClassificationResponse;
+import com.caesb.AiClassificator.model.IncidentStorm;
+import com.caesb.AiClassificator.model.PreparedClassification;
+import com.caesb.AiClassificator.model.SanitizedData;
+import com.caesb.AiClassificator.model.SentimentResult;
+import com.caesb.AiClassificator.service.IncidentStormDetector;
+import com.caesb.AiClassificator.service.StageTimings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncidentStormDetectorTest {
+
+    private IncidentStormDetector detector;
+    private final AtomicInteger aiCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        detector = new IncidentStormDetector(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(detector, "enabled", true);
+        ReflectionTestUtils.setField(detector, "windowMinutes", 15L);
+        ReflectionTestUtils.setField(detector, "maxDistance", 3);
+        ReflectionTestUtils.setField(detector, "minTokens", 4);
+        ReflectionTestUtils.setField(detector, "minSize", 3);
+        ReflectionTestUtils.setField(detector, "maxClusters", 500);
+        ReflectionTestUtils.setField(detector, "maxWaitMs", 1000L);
+    }
+
+    private static PreparedClassification ticket(String ticketId, String subject, String body) {
+        return PreparedClassification.builder()
+                .request(ClassificationRequest.builder().ticketId(ticketId).subject(subject).body(body).build())
+                .correlationId("corr-" + ticketId)
+                .startTime(System.currentTimeMillis())
+                .sanitized(SanitizedData.builder().subject(subject).body(body).build())
+                .sentiment(SentimentResult.builder().sentimentLabel("negativo").build())
+                .timings(new StageTimings())
+                .build();
+    }
+
+    private ClassificationResponse classify(PreparedClassification prepared, String serviceId) {
+        return detector.classify(prepared, () -> {
+            aiCalls.incrementAndGet();
+            return ClassificationResponse.builder()
+                    .success(true)
+                    .status("applied")
+                    .correlationId(prepared.getCorrelationId())
+                    .serviceId(serviceId)
+                    .queue("Infraestrutura")
+                    .build();
+        });
+    }
+
+    @Test
+    @DisplayName("Deve classificar uma vez tickets quase identicos e listar o incidente")
+    void shouldReuseClassificationForNearIdenticalTickets() {
+        ClassificationResponse first = classify(ticket("1", "Internet caiu",
+                "A internet caiu no predio sede desde as 9h, ninguem consegue acessar"), "INC-200");
+        ClassificationResponse second = classify(ticket("2", "internet caiu!",
+                "A internet caiu no predio sede desde as 9h ninguem consegue acessar"), "INC-999");
+        ClassificationResponse third = classify(ticket("3", "Internet caiu",
+                "A internet caiu no predio sede desde as 9h, ninguem consegue acessar."), "INC-999");
+
+        assertEquals(1, aiCalls.get());
+        assertNull(first.getStormId());
+        assertEquals("INC-200", second.getServiceId());
+        assertEquals("INC-200", third.getServiceId());
+        assertEquals("corr-3", third.getCorrelationId());
+        assertNotNull(third.getStormId());
+
+        List<IncidentStorm> storms = detector.listStorms();
+        assertEquals(1, storms.size());
+        assertEquals(3, storms.get(0).getSize());
+        assertEquals(2, storms.get(0).getReused());
+        assertEquals("1", storms.get(0).getRepresentativeTicketId());
+    }
+
+    @Test
+    @DisplayName("Deve classificar separadamente tickets com texto diferente")
+    void shouldNotClusterDifferentTickets() {
+        classify(ticket("1", "Internet caiu", "A internet caiu no predio sede desde as 9h"), "INC-200");
+        classify(ticket("2", "Impressora sem toner", "A impressora do terceiro andar esta sem toner"), "REQ-300");
+
+        assertEquals(2, aiCalls.get());
+        assertTrue(detector.listStorms().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Nao deve reaproveitar resultado manual do primeiro ticket")
+    void shouldRetryWhenLeaderResultIsNotReusable() {
+        String body = "O sistema comercial esta fora do ar para todos os usuarios";
+        detector.classify(ticket("1", "Sistema fora do ar", body), () -> {
+            aiCalls.incrementAndGet();
+            return ClassificationResponse.builder().success(true).status("manual").build();
+        });
+        ClassificationResponse second = classify(ticket("2", "Sistema fora do ar", body), "INC-210");
+
+        assertEquals(2, aiCalls.get());
+        assertNull(second.getStormId());
+    }
+}
@@ -0,0 +1,75 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.exception.ClassificationException;
+import com.caesb.AiClassificator.service.JobCallbackDispatcher;
+import com.caesb.AiClassificator.service.JobJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Testes da validacao de URLs de callback do JobCallbackDispatcher.
+ */
+class JobCallbackDispatcherTest {
+
+    private JobCallbackDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new JobCallbackDispatcher(mock(RestTemplate.class), mock(JobJournal.class));
+        ReflectionTestUtils.setField(dispatcher, "allowedHosts",
+                List.of("203.0.113.10", "127.0.0.1", "169.254.169.254", "10.0.0.5", "[fd00::1]"));
+    }
+
+    private String rejected(String url) {
+        return assertThrows(ClassificationException.class, () -> dispatcher.validateUrl(url)).getErrorCode();
+    }
+
+    @Test
+    @DisplayName("Deve aceitar host permitido com endereco publico")
+    void shouldAcceptAllowedPublicHost() {
+        assertDoesNotThrow(() -> dispatcher.validateUrl("https://203.0.113.10/glpi/callback"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar todos os callbacks com a lista de hosts vazia")
+    void shouldRejectEverythingWithoutAllowList() {
+        ReflectionTestUtils.setField(dispatcher, "allowedHosts", List.of());
+
+        assertEquals("INVALID_CALLBACK_URL", rejected("https://203.0.113.10/glpi/callback"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar host fora da lista e esquema nao http")
+    void shouldRejectUnlistedHostAndScheme() {
+        assertEquals("INVALID_CALLBACK_URL", rejected("https://198.51.100.7/callback"));
+        assertEquals("INVALID_CALLBACK_URL", rejected("file://203.0.113.10/etc/passwd"));
+        assertEquals("INVALID_CALLBACK_URL", rejected("nao e url"));
+    }
+
+    @Test
+    @DisplayName("Deve recusar loopback, link-local e redes privadas mesmo se listados")
+    void shouldRejectInternalAddresses() {
+        assertEquals("INVALID_CALLBACK_URL", rejected("http://127.0.0.1:8080/actuator"));
+        assertEquals("INVALID_CALLBACK_URL", rejected("http://169.254.169.254/latest/meta-data"));
+        assertEquals("INVALID_CALLBACK_URL", rejected("http://10.0.0.5/callback"));
+        assertEquals("INVALID_CALLBACK_URL", rejected("http://[fd00::1]/callback"));
+    }
+
+    @Test
+    @DisplayName("Deve aceitar rede privada apenas com opt-in, nunca loopback ou link-local")
+    void shouldAllowPrivateNetworksOnlyWithOptIn() {
+        ReflectionTestUtils.setField(dispatcher, "allowPrivateNetworks", true);
+
+        assertDoesNotThrow(() -> dispatcher.validateUrl("http://10.0.0.5/callback"));
+        assertEquals("INVALID_CALLBACK_URL", rejected("http://127.0.0.1:8080/actuator"));
+        assertEquals("INVALID_CALLBACK_URL", rejected("http://169.254.169.254/latest/meta-data"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.model.ClassificationJob;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.service.JobJournal;
+import com.caesb.AiClassificator.service.Sanitizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes unitários para o JobJournal.
+ */
+class JobJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path journalFile;
+    private JobJournal journal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journalFile = tempDir.resolve("jobs.journal");
+        journal = newJournal();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Deve manter o ultimo snapshot de cada job")
+    void shouldKeepLatestSnapshot() throws Exception {
+        journal.put(job("a", "queued"));
+        journal.put(job("b", "queued"));
+        journal.put(job("a", "completed"));
+
+        Map<String, ClassificationJob> jobs = reopen().replay();
+
+        assertEquals(2, jobs.size());
+        assertEquals("completed", jobs.get("a").getStatus());
+        assertEquals("queued", jobs.get("b").getStatus());
+    }
+
+    @Test
+    @DisplayName("Deve descartar jobs removidos")
+    void shouldDropRemovedJobs() throws Exception {
+        journal.put(job("a", "completed"));
+        journal.remove("a");
+
+        assertTrue(reopen().replay().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve ignorar linha final incompleta")
+    void shouldIgnoreTruncatedTail() throws Exception {
+        journal.put(job("a", "queued"));
+        journal.close();
+        Files.writeString(journalFile, "{\"op\":\"put\",\"jobId\":\"b\",\"job\":{\"jobI",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        Map<String, ClassificationJob> jobs = newJournal().replay();
+
+        assertEquals(1, jobs.size());
+        assertTrue(jobs.containsKey("a"));
+    }
+
+    @Test
+    @DisplayName("Deve compactar mantendo apenas jobs vivos")
+    void shouldCompact() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            journal.put(job("a", "queued"));
+        }
+        long before = journal.size();
+
+        journal.compact(List.of(job("a", "completed")));
+
+        assertTrue(journal.size() < before);
+        assertEquals("completed", journal.replay().get("a").getStatus());
+    }
+
+    @Test
+    @DisplayName("Deve gravar a requisicao com PII mascarada")
+    void shouldMaskPiiOnDisk() throws Exception {
+        ClassificationRequest request = ClassificationRequest.builder()
+                .ticketId("GLPI-42")
+                .subject("VPN caiu - falar com joao.silva@caesb.df.gov.br")
+                .body("Meu CPF 123.456.789-09, telefone (61) 99999-8888")
+                .senderEmail("joao.silva@caesb.df.gov.br")
+                .build();
+        ClassificationJob job = job("a", "queued");
+        job.setRequest(request);
+
+        journal.put(job);
+        journal.close();
+
+        String content = Files.readString(journalFile);
+        assertFalse(content.contains("joao.silva"), content);
+        assertFalse(content.contains("123.456.789-09"), content);
+        assertFalse(content.contains("99999-8888"), content);
+        // O job em memoria mantem o texto original para a classificacao
+        assertEquals("joao.silva@caesb.df.gov.br", job.getRequest().getSenderEmail());
+
+        journal = newJournal();
+        ClassificationRequest replayed = journal.replay().get("a").getRequest();
+        assertEquals("GLPI-42", replayed.getTicketId());
+        assertEquals("VPN caiu - falar com [EMAIL]", replayed.getSubject());
+        assertEquals("j****@caesb.df.gov.br", replayed.getSenderEmail());
+    }
+
+    private JobJournal reopen() throws Exception {
+        journal.close();
+        journal = newJournal();
+        return journal;
+    }
+
+    private JobJournal newJournal() throws Exception {
+        JobJournal j = new JobJournal(new ObjectMapper(), new Sanitizer());
+        ReflectionTestUtils.setField(j, "journalPath", journalFile.toString());
+        ReflectionTestUtils.setField(j, "fsync", false);
+        j.init();
+        return j;
+    }
+
+    private ClassificationJob job(String id, String status) {
+        return ClassificationJob.builder().jobId(id).status(status).createdAt(1L).build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.LLMResponseCache;
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LLMResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LLMResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new LLMResponseCache(meterRegistry);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxBytes", 16_384L);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(cache, "maxTemperature", 0.0);
+    }
+
+    private static AIRequest request(String userPrompt, String version) {
+        return AIRequest.builder()
+                .systemPrompt("Classifique o ticket")
+                .userPrompt(userPrompt)
+                .provider("azure-openai")
+                .model("gpt-4o-mini")
+                .maxTokens(500)
+                .promptVersion(version)
+                .build();
+    }
+
+    private static AIResponse success(String content) {
+        return AIResponse.builder()
+                .success(true)
+                .content(content)
+                .model("gpt-4o-mini")
+                .totalTokens(300)
+                .latencyMs(800L)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Deve devolver a resposta em cache para a mesma entrada deterministica")
+    void shouldHitForSameInput() {
+        AIRequest request = request("Esqueci minha senha", "1-abc");
+        cache.put(request, 0.0, success("{\"servico_id\": \"REQ-101\"}"));
+
+        Optional<AIResponse> cached = cache.get(request("Esqueci minha senha", "1-abc"), 0.0);
+
+        assertTrue(cached.isPresent());
+        assertEquals("{\"servico_id\": \"REQ-101\"}", cached.get().getContent());
+        assertEquals(0, cached.get().getTotalTokens());
+        assertTrue(cache.get(request("Outro texto", "1-abc"), 0.0).isEmpty());
+        assertEquals(1.0, meterRegistry.get("ai.response.cache.requests").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Nao deve usar cache com temperatura nao deterministica")
+    void shouldBypassNonDeterministicTemperature() {
+        AIRequest request = request("Esqueci minha senha", "1-abc");
+
+        assertTrue(cache.isCacheable(request, 0.0));
+        assertFalse(cache.isCacheable(request, 0.3));
+        assertFalse(cache.isCacheable(request, null));
+        request.setTemperature(0.7);
+        assertFalse(cache.isCacheable(request, 0.0));
+    }
+
+    @Test
+    @DisplayName("Deve remover as entradas menos usadas ao exceder o limite de bytes")
+    void shouldEvictByBytes() {
+        String content = "x".repeat(2_000);
+        for (int i = 0; i < 10; i++) {
+            cache.put(request("ticket " + i, "1-abc"), 0.0, success(content));
+        }
+
+        assertTrue(cache.getCurrentBytes() <= 16_384L);
+        assertTrue(cache.size() < 10);
+        assertTrue(cache.get(request("ticket 0", "1-abc"), 0.0).isEmpty());
+        assertTrue(cache.get(request("ticket 9", "1-abc"), 0.0).isPresent());
+    }
+
+    @Test
+    @DisplayName("Deve descartar entradas quando a versao do prompt/catalogo muda")
+    void shouldInvalidateOnVersionChange() {
+        cache.put(request("Esqueci minha senha", "1-abc"), 0.0, success("{}"));
+        cache.put(request("Sem internet", "1-abc"), 0.0, success("{}"));
+
+        assertTrue(cache.get(request("Esqueci minha senha", "2-def"), 0.0).isEmpty());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getCurrentBytes());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+}
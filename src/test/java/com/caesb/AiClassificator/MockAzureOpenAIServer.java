@@ -0,0 +1,275 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.model.ServiceCatalog;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Servidor local que simula o chat completions do Azure OpenAI, para testes de carga sem
+ * consumir cota: latencia log-normal (mediana e p99), 429 e 5xx injetados por taxa
+ * (5xx por deployment, para exercitar o fallback), usage no corpo e headers de cota
+ * (x-ratelimit-remaining-requests/tokens) como o Azure envia.
+ * Responde no formato compacto {"t","s","c"} com um servico do catalogo escolhido pelo
+ * hash do prompt do usuario (mesmo texto, mesma classificacao). Nao atende o modo lote
+ * (ai.packing).
+ */
+class MockAzureOpenAIServer implements AutoCloseable {
+
+    private static final Pattern PATH = Pattern.compile("/openai/deployments/([^/]+)/chat/completions");
+
+    // z da normal padrao no percentil 99
+    private static final double Z_P99 = 2.3263;
+
+    private static final List<String> SERVICE_IDS = List.copyOf(new TreeSet<>(ServiceCatalog.getAllServices().keySet()));
+
+    private final HttpServer server;
+    // Pool proprio (encerrado no close) quando o chamador nao informa um executor
+    private final ExecutorService ownExecutor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile long medianLatencyMs = 300;
+    private volatile long p99LatencyMs = 1200;
+    private volatile double throttleRate;
+    private final Map<String, Double> errorRates = new ConcurrentHashMap<>();
+    private volatile long requestsPerMinute = 10_000;
+    private volatile long tokensPerMinute = 2_000_000;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    // Janela de um minuto para os headers de cota restante
+    private final AtomicLong windowMinute = new AtomicLong();
+    private final AtomicLong windowRequests = new AtomicLong();
+    private final AtomicLong windowTokens = new AtomicLong();
+
+    private MockAzureOpenAIServer(Executor executor) throws IOException {
+        ownExecutor = executor == null ? Executors.newCachedThreadPool() : null;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 2048);
+        server.setExecutor(executor != null ? executor : ownExecutor);
+        server.createContext("/openai/deployments/", this::handle);
+        server.start();
+    }
+
+    static MockAzureOpenAIServer start() {
+        return start(null);
+    }
+
+    /**
+     * Inicia atendendo as chamadas no executor informado (ex.: virtual threads, para nao
+     * contar threads de plataforma do simulador junto com as da aplicacao).
+     */
+    static MockAzureOpenAIServer start(Executor executor) {
+        try {
+            return new MockAzureOpenAIServer(executor);
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao iniciar o Azure OpenAI simulado", e);
+        }
+    }
+
+    /**
+     * URL base para ai.azure-openai.endpoint.
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Latencia log-normal; p99 igual a mediana da latencia fixa.
+     */
+    MockAzureOpenAIServer latency(long medianMs, long p99Ms) {
+        this.medianLatencyMs = medianMs;
+        this.p99LatencyMs = Math.max(medianMs, p99Ms);
+        return this;
+    }
+
+    /**
+     * Fracao das chamadas respondidas com 429 (cota excedida).
+     */
+    MockAzureOpenAIServer throttleRate(double rate) {
+        this.throttleRate = rate;
+        return this;
+    }
+
+    /**
+     * Fracao das chamadas ao deployment respondidas com 500.
+     */
+    MockAzureOpenAIServer errorRate(String deploymentName, double rate) {
+        errorRates.put(deploymentName, rate);
+        return this;
+    }
+
+    /**
+     * Cotas usadas nos headers x-ratelimit-remaining-*.
+     */
+    MockAzureOpenAIServer quota(long requestsPerMinute, long tokensPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+        this.tokensPerMinute = tokensPerMinute;
+        return this;
+    }
+
+    long getRequests() {
+        return requests.sum();
+    }
+
+    long getThrottled() {
+        return throttled.sum();
+    }
+
+    long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Chamadas sendo atendidas neste momento (dentro da latencia simulada).
+     */
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Maior numero de chamadas atendidas ao mesmo tempo (durante a latencia simulada).
+     */
+    int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Matcher matcher = PATH.matcher(exchange.getRequestURI().getPath());
+            if (!matcher.matches() || !"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 404, error("404", "Resource not found"));
+                return;
+            }
+            String deployment = matcher.group(1);
+            JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+            requests.increment();
+
+            peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                sleep(sampleLatencyMs());
+            } finally {
+                inFlight.decrementAndGet();
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < throttleRate) {
+                throttled.increment();
+                exchange.getResponseHeaders().add("retry-after", "1");
+                exchange.getResponseHeaders().add("retry-after-ms", "1000");
+                send(exchange, 429, error("429", "Requests to the ChatCompletions_Create Operation under "
+                        + "Azure OpenAI API have exceeded token rate limit of your current pricing tier."));
+                return;
+            }
+            if (random.nextDouble() < errorRates.getOrDefault(deployment, 0.0)) {
+                failed.increment();
+                send(exchange, 500, error("InternalServerError",
+                        "The server had an error while processing your request. Sorry about that!"));
+                return;
+            }
+
+            String systemPrompt = body.at("/messages/0/content").asText("");
+            String userPrompt = body.at("/messages/1/content").asText("");
+            int promptTokens = (systemPrompt.length() + userPrompt.length()) / 4;
+            int completionTokens = 18;
+
+            String serviceId = SERVICE_IDS.get(Math.floorMod(userPrompt.hashCode(), SERVICE_IDS.size()));
+            String content = objectMapper.writeValueAsString(Map.of(
+                    "t", ServiceCatalog.getService(serviceId).getType(),
+                    "s", serviceId,
+                    "c", 0.9));
+
+            addQuotaHeaders(exchange, promptTokens + completionTokens);
+            send(exchange, 200, objectMapper.writeValueAsBytes(Map.of(
+                    "id", "chatcmpl-" + UUID.randomUUID(),
+                    "object", "chat.completion",
+                    "model", deployment,
+                    "choices", List.of(Map.of(
+                            "index", 0,
+                            "finish_reason", "stop",
+                            "message", Map.of("role", "assistant", "content", content))),
+                    "usage", Map.of(
+                            "prompt_tokens", promptTokens,
+                            "completion_tokens", completionTokens,
+                            "total_tokens", promptTokens + completionTokens))));
+        } catch (RuntimeException e) {
+            send(exchange, 400, error("400", e.getMessage()));
+        }
+    }
+
+    private long sampleLatencyMs() {
+        if (p99LatencyMs <= medianLatencyMs) {
+            return medianLatencyMs;
+        }
+        double sigma = Math.log((double) p99LatencyMs / medianLatencyMs) / Z_P99;
+        return Math.round(medianLatencyMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    private void addQuotaHeaders(HttpExchange exchange, int tokens) {
+        long minute = System.currentTimeMillis() / 60_000;
+        long current = windowMinute.get();
+        if (current != minute && windowMinute.compareAndSet(current, minute)) {
+            windowRequests.set(0);
+            windowTokens.set(0);
+        }
+        long usedRequests = windowRequests.incrementAndGet();
+        long usedTokens = windowTokens.addAndGet(tokens);
+        exchange.getResponseHeaders().add("x-ratelimit-remaining-requests",
+                Long.toString(Math.max(0, requestsPerMinute - usedRequests)));
+        exchange.getResponseHeaders().add("x-ratelimit-remaining-tokens",
+                Long.toString(Math.max(0, tokensPerMinute - usedTokens)));
+        exchange.getResponseHeaders().add("apim-request-id", UUID.randomUUID().toString());
+    }
+
+    private byte[] error(String code, String message) {
+        try {
+            return objectMapper.writeValueAsBytes(Map.of("error", Map.of("code", code, "message", message)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
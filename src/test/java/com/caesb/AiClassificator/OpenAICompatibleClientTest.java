@@ -0,0 +1,140 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AIProviderClient;
+import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.client.OpenAICompatibleClient;
+import com.caesb.AiClassificator.config.AIProviderConfig;
+import com.caesb.AiClassificator.config.OpenAICompatibleConfig;
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import com.caesb.AiClassificator.model.PromptResult;
+import com.caesb.AiClassificator.service.PromptBuilder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do provider local compativel com OpenAI contra um servidor stub.
+ */
+class OpenAICompatibleClientTest {
+
+    private static final String COMPLETION = """
+            {"choices": [{"message": {"role": "assistant",
+              "content": "{\\"tipo\\": \\"REQ\\", \\"servico_id\\": \\"REQ-101\\", \\"confidence_score\\": 0.9}"}}],
+             "usage": {"prompt_tokens": 120, "completion_tokens": 30, "total_tokens": 150}}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReference<JsonNode> lastBody = new AtomicReference<>();
+    private final AtomicReference<String> lastAuth = new AtomicReference<>();
+    private HttpServer server;
+    private OpenAICompatibleConfig config;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            lastBody.set(objectMapper.readTree(exchange.getRequestBody()));
+            lastAuth.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] response = COMPLETION.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+
+        OpenAICompatibleConfig.ModelConfig model = new OpenAICompatibleConfig.ModelConfig();
+        model.setServedName("llama-3.1-8b-instruct-q4");
+        model.setCostPerMillionTokens(0.0);
+
+        config = new OpenAICompatibleConfig();
+        config.setEnabled(true);
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/");
+        config.setApiKey("local-key");
+        config.getModels().put("llama-3.1-8b", model);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Deve enviar chat completion no formato OpenAI e fazer parse da resposta")
+    void shouldSendAndParseChatCompletion() {
+        OpenAICompatibleClient client = new OpenAICompatibleClient(config, objectMapper);
+
+        AIResponse response = client.sendChatCompletion(AIRequest.builder()
+                .systemPrompt("Classifique o ticket")
+                .userPrompt("Esqueci minha senha")
+                .model("llama-3.1-8b")
+                .build());
+
+        assertTrue(response.isSuccess());
+        assertTrue(response.getContent().contains("REQ-101"));
+        assertEquals(150, response.getTotalTokens());
+        assertEquals(200, response.getHttpStatus());
+        assertEquals("llama-3.1-8b-instruct-q4", lastBody.get().path("model").asText());
+        assertEquals("json_object", lastBody.get().path("response_format").path("type").asText());
+        assertEquals("Bearer local-key", lastAuth.get());
+    }
+
+    @Test
+    @DisplayName("Deve enviar json_schema estrito com enum de servicos quando structured-output esta ativo")
+    void shouldSendStrictJsonSchema() {
+        config.setStructuredOutput(true);
+        OpenAICompatibleClient client = new OpenAICompatibleClient(config, objectMapper);
+        PromptResult prompt = new PromptBuilder().buildClassificationPrompt("Esqueci minha senha", "Resetar senha");
+
+        client.sendChatCompletion(AIRequest.builder()
+                .systemPrompt(prompt.getSystemPrompt())
+                .userPrompt(prompt.getUserPrompt())
+                .responseFormat(prompt.getResponseFormat())
+                .model("llama-3.1-8b")
+                .build());
+
+        JsonNode format = lastBody.get().path("response_format");
+        assertEquals("json_schema", format.path("type").asText());
+        assertTrue(format.path("json_schema").path("strict").asBoolean());
+        JsonNode schema = format.path("json_schema").path("schema");
+        assertFalse(schema.path("additionalProperties").asBoolean(true));
+        assertTrue(schema.path("properties").path("s").path("enum").toString().contains("REQ-101"));
+        assertTrue(schema.path("properties").path("servico_nome").isMissingNode());
+    }
+
+    @Test
+    @DisplayName("Deve registrar o provider local no registry com seus deployments")
+    void shouldSelfRegisterInRegistry() {
+        OpenAICompatibleClient client = new OpenAICompatibleClient(config, objectMapper);
+        OpenAICompatibleConfig disabledConfig = new OpenAICompatibleConfig();
+        AIProviderClient disabled = new OpenAICompatibleClient(disabledConfig, objectMapper) {
+            @Override
+            public String getProviderName() {
+                return "disabled";
+            }
+        };
+
+        AIProviderConfig providerConfig = new AIProviderConfig();
+        providerConfig.setDefaultProvider("local");
+        providerConfig.setDefaultModel("llama-3.1-8b");
+        AIProviderRegistry registry = new AIProviderRegistry(List.of(client, disabled), providerConfig);
+        registry.init();
+
+        assertSame(client, registry.getClient("local"));
+        assertNull(registry.getClient("disabled"));
+        assertTrue(registry.isModelAvailable("local", "llama-3.1-8b"));
+        assertFalse(client.usesSharedQuota());
+    }
+}
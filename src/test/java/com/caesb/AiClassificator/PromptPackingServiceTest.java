@@ -0,0 +1,175 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AIProviderFactory;
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.AIRequest;
+import com.caesb.AiClassificator.model.AIResponse;
+import com.caesb.AiClassificator.model.PreparedClassification;
+import com.caesb.AiClassificator.model.SanitizedData;
+import com.caesb.AiClassificator.model.SentimentResult;
+import com.caesb.AiClassificator.service.PromptBuilder;
+import com.caesb.AiClassificator.service.PromptPackingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Testes unitários para o PromptPackingService.
+ */
+class PromptPackingServiceTest {
+
+    private AIProviderFactory factory;
+    private PromptPackingService packingService;
+
+    @BeforeEach
+    void setUp() {
+        factory = mock(AIProviderFactory.class);
+        packingService = new PromptPackingService(new PromptBuilder(), factory, new ObjectMapper(),
+                new ThreadingConfig(new StandardEnvironment()));
+        ReflectionTestUtils.setField(packingService, "enabled", true);
+        ReflectionTestUtils.setField(packingService, "maxTickets", 2);
+        ReflectionTestUtils.setField(packingService, "maxWaitMs", 5_000L);
+        ReflectionTestUtils.setField(packingService, "maxTokensPerTicket", 100);
+        packingService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        packingService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve classificar dois tickets em uma unica chamada")
+    void shouldPackTicketsIntoSingleCall() {
+        when(factory.sendRequest(any())).thenReturn(AIResponse.builder()
+                .success(true)
+                .model("gpt-4o-mini")
+                .totalTokens(1000)
+                .content("""
+                        {"resultados": [
+                          {"indice": 2, "tipo": "INC", "servico_id": "INC-202", "confidence_score": 0.9},
+                          {"indice": 1, "tipo": "REQ", "servico_id": "REQ-101", "confidence_score": 0.8}
+                        ]}""")
+                .build());
+
+        List<AIResponse> responses = sendConcurrently("Resetar senha", "Internet caiu");
+
+        verify(factory, times(1)).sendRequest(any());
+        assertTrue(responses.get(0).getContent().contains("REQ-101"));
+        assertTrue(responses.get(1).getContent().contains("INC-202"));
+        assertEquals(500, responses.get(0).getTotalTokens());
+    }
+
+    @Test
+    @DisplayName("Deve reenviar individualmente itens malformados")
+    void shouldFallbackForMalformedItems() {
+        when(factory.sendRequest(argThat(r -> r != null && r.getUserPrompt().contains("Tickets a Classificar"))))
+                .thenReturn(AIResponse.builder()
+                        .success(true)
+                        .content("{\"resultados\": [{\"indice\": 1, \"tipo\": \"REQ\", \"servico_id\": \"REQ-101\", \"confidence_score\": 0.8}]}")
+                        .build());
+        when(factory.sendRequest(argThat(r -> r != null && r.getUserPrompt().startsWith("single"))))
+                .thenReturn(AIResponse.builder()
+                        .success(true)
+                        .content("{\"tipo\": \"INC\", \"servico_id\": \"INC-202\", \"confidence_score\": 0.9}")
+                        .build());
+
+        List<AIResponse> responses = sendConcurrently("Resetar senha", "Internet caiu");
+
+        verify(factory, times(2)).sendRequest(any());
+        assertTrue(responses.get(0).getContent().contains("REQ-101"));
+        assertTrue(responses.get(1).getContent().contains("INC-202"));
+    }
+
+    @Test
+    @DisplayName("Deve enviar json_schema do lote e ler a resposta com chaves curtas")
+    void shouldUseCompactSchemaForPackedCall() {
+        when(factory.sendRequest(any())).thenReturn(AIResponse.builder()
+                .success(true)
+                .content("{\"r\": [{\"i\": 1, \"t\": \"REQ\", \"s\": \"REQ-101\", \"c\": 0.8},"
+                        + " {\"i\": 2, \"t\": \"INC\", \"s\": \"INC-202\", \"c\": 0.9}]}")
+                .build());
+
+        List<AIResponse> responses = sendConcurrently("Resetar senha", "Internet caiu");
+
+        verify(factory).sendRequest(argThat(r -> r.getResponseFormat() != null
+                && "json_schema".equals(r.getResponseFormat().get("type"))));
+        assertEquals("{\"t\":\"REQ\",\"s\":\"REQ-101\",\"c\":0.8}".length(),
+                responses.get(0).getContent().length());
+        assertTrue(responses.get(1).getContent().contains("\"s\":\"INC-202\""));
+    }
+
+    @Test
+    @DisplayName("Deve enviar o ticket individualmente quando o grupo nao responde a tempo")
+    void shouldSendSingleWhenPackStalls() throws Exception {
+        ReflectionTestUtils.setField(packingService, "maxWaitMs", 100L);
+        CountDownLatch release = new CountDownLatch(1);
+        when(factory.sendRequest(argThat(r -> r != null && r.getUserPrompt().contains("Tickets a Classificar"))))
+                .thenAnswer(inv -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return AIResponse.builder()
+                            .success(true)
+                            .content("{\"r\": [{\"i\": 1, \"t\": \"REQ\", \"s\": \"REQ-101\", \"c\": 0.8},"
+                                    + " {\"i\": 2, \"t\": \"INC\", \"s\": \"INC-202\", \"c\": 0.9}]}")
+                            .build();
+                });
+        when(factory.sendRequest(argThat(r -> r != null && r.getUserPrompt().startsWith("single"))))
+                .thenReturn(AIResponse.builder()
+                        .success(true)
+                        .content("{\"t\": \"REQ\", \"s\": \"REQ-999\", \"c\": 0.7}")
+                        .build());
+
+        CompletableFuture<AIResponse> first = CompletableFuture.supplyAsync(() -> send("Resetar senha"));
+        while (!hasPendingPack()) {
+            Thread.onSpinWait();
+        }
+        // Quem completa o grupo fica preso na chamada do grupo
+        CompletableFuture<AIResponse> second = CompletableFuture.supplyAsync(() -> send("Internet caiu"));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS).getContent().contains("REQ-999"));
+        release.countDown();
+        assertTrue(second.get(5, TimeUnit.SECONDS).getContent().contains("INC-202"));
+    }
+
+    private List<AIResponse> sendConcurrently(String subject1, String subject2) {
+        CompletableFuture<AIResponse> first = CompletableFuture.supplyAsync(() -> send(subject1));
+        // Garante a ordem de chegada no grupo
+        while (!hasPendingPack()) {
+            Thread.onSpinWait();
+        }
+        AIResponse second = send(subject2);
+        return List.of(first.join(), second);
+    }
+
+    private boolean hasPendingPack() {
+        return !((java.util.Map<?, ?>) ReflectionTestUtils.getField(packingService, "pendingPacks")).isEmpty();
+    }
+
+    private AIResponse send(String subject) {
+        PreparedClassification prepared = PreparedClassification.builder()
+                .sanitized(SanitizedData.builder().subject(subject).body("").build())
+                .sentiment(SentimentResult.builder().sentimentLabel("neutral").build())
+                .build();
+        AIRequest request = AIRequest.builder()
+                .systemPrompt("system")
+                .userPrompt("single " + subject)
+                .provider("azure-openai")
+                .model("gpt-4o-mini")
+                .build();
+        return packingService.send(prepared, request);
+    }
+}
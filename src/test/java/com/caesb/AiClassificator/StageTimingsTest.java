@@ -0,0 +1,81 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.client.AIProviderRegistry;
+import com.caesb.AiClassificator.service.ClassificationMetrics;
+import com.caesb.AiClassificator.service.StageTimings;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Testes unitários para StageTimings e ClassificationMetrics.
+ */
+class StageTimingsTest {
+
+    @Test
+    @DisplayName("Deve gerar header Server-Timing na ordem das etapas com total")
+    void shouldFormatServerTiming() {
+        StageTimings timings = new StageTimings();
+        timings.add(StageTimings.SANITIZE, TimeUnit.MICROSECONDS.toNanos(120));
+        timings.add(StageTimings.AI, TimeUnit.MILLISECONDS.toNanos(800));
+        timings.add(StageTimings.AI, TimeUnit.MILLISECONDS.toNanos(12));
+
+        String header = timings.toServerTiming();
+
+        assertTrue(header.startsWith("sanitize;dur=0.12, ai;dur=812.00, total;dur="), header);
+        assertEquals(List.of("sanitize", "ai", "total"), List.copyOf(timings.toMillis().keySet()));
+    }
+
+    @Test
+    @DisplayName("Deve publicar um timer por etapa com tags de provider, modelo e status")
+    void shouldRecordStageTimers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ClassificationMetrics metrics = new ClassificationMetrics(registry, providerRegistry());
+        StageTimings timings = new StageTimings();
+        timings.add(StageTimings.PROMPT, 1_000);
+        timings.add(StageTimings.AI, 5_000_000);
+
+        metrics.recordStages(timings, "azure-openai", "gpt-4o-mini", "applied");
+
+        Timer ai = registry.find("ai.classification.stage")
+                .tags("stage", "ai", "provider", "azure-openai", "model", "gpt-4o-mini", "status", "applied")
+                .timer();
+        assertNotNull(ai);
+        assertEquals(5.0, ai.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertNotNull(registry.find("ai.classification.stage").tag("stage", "total").timer());
+    }
+
+    @Test
+    @DisplayName("Deve publicar provider e modelo nao registrados como unknown")
+    void shouldTagUnregisteredProviderAndModelAsUnknown() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ClassificationMetrics metrics = new ClassificationMetrics(registry, providerRegistry());
+        StageTimings timings = new StageTimings();
+        timings.add(StageTimings.AI, 1_000);
+
+        metrics.recordStages(timings, "azure-openai", "modelo-livre-123", "manual");
+        metrics.recordStages(timings, "provider-livre", "gpt-4o-mini", "manual");
+
+        assertEquals(1.0, registry.get("ai.classification.requests")
+                .tags("provider", "azure-openai", "model", "unknown").counter().count());
+        assertEquals(1.0, registry.get("ai.classification.requests")
+                .tags("provider", "unknown", "model", "unknown").counter().count());
+        assertNull(registry.find("ai.classification.stage").tag("model", "modelo-livre-123").timer());
+        assertNull(registry.find("ai.classification.stage").tag("provider", "provider-livre").timer());
+    }
+
+    private static AIProviderRegistry providerRegistry() {
+        AIProviderRegistry providerRegistry = mock(AIProviderRegistry.class);
+        when(providerRegistry.isProviderAvailable("azure-openai")).thenReturn(true);
+        when(providerRegistry.isModelAvailable("azure-openai", "gpt-4o-mini")).thenReturn(true);
+        return providerRegistry;
+    }
+}
@@ -0,0 +1,145 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import com.caesb.AiClassificator.model.ClassificationRequest;
+import com.caesb.AiClassificator.service.Sanitizer;
+import com.caesb.AiClassificator.service.TrafficRecorder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes da captura de trafego e do replay contra um servidor stub.
+ */
+class TrafficRecorderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TrafficRecorder recorder;
+    private Path capture;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Sanitizer sanitizer = new Sanitizer();
+        ReflectionTestUtils.setField(sanitizer, "sanitizePii", true);
+
+        capture = tempDir.resolve("traffic.capture");
+        recorder = new TrafficRecorder(sanitizer, objectMapper, new ThreadingConfig(new StandardEnvironment()),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(recorder, "enabled", true);
+        ReflectionTestUtils.setField(recorder, "capturePath", capture.toString());
+        ReflectionTestUtils.setField(recorder, "maxBytes", 1_000_000L);
+        ReflectionTestUtils.setField(recorder, "queueSize", 100);
+        ReflectionTestUtils.setField(recorder, "flushIntervalMs", 60_000L);
+        recorder.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        recorder.shutdown();
+    }
+
+    private static ClassificationRequest ticket(String ticketId, String body) {
+        return ClassificationRequest.builder()
+                .ticketId(ticketId)
+                .subject("Acesso remoto")
+                .body(body)
+                .senderEmail("joao.silva@caesb.df.gov.br")
+                .build();
+    }
+
+    @Test
+    @DisplayName("Deve gravar requisicoes anonimizadas mantendo repeticoes do mesmo ticket")
+    void shouldRecordAnonymizedRequests() throws Exception {
+        recorder.record(ticket("GLPI-42", "Sem VPN, meu email e joao.silva@caesb.df.gov.br"));
+        recorder.record(ticket("GLPI-42", "Sem VPN desde ontem"));
+        recorder.record(ticket("GLPI-43", "Impressora sem toner"));
+        recorder.shutdown();
+
+        List<String> lines = Files.readAllLines(capture);
+        assertEquals(3, lines.size());
+
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        JsonNode second = objectMapper.readTree(lines.get(1));
+        JsonNode third = objectMapper.readTree(lines.get(2));
+        assertTrue(first.get("body").asText().contains("[EMAIL]"));
+        assertFalse(lines.get(0).contains("GLPI-42"));
+        assertFalse(lines.get(0).contains("joao.silva"));
+        assertEquals(first.get("ticket").asText(), second.get("ticket").asText());
+        assertNotEquals(first.get("ticket").asText(), third.get("ticket").asText());
+        assertTrue(first.get("at").asLong() > 0);
+    }
+
+    @Test
+    @DisplayName("Deve manter o ticket anonimizado igual depois de reiniciar o gravador")
+    void shouldKeepAnonymizedTicketAcrossRestarts() throws Exception {
+        recorder.record(ticket("GLPI-42", "Sem VPN"));
+        recorder.shutdown();
+
+        recorder.init();
+        recorder.record(ticket("GLPI-42", "Sem VPN desde ontem"));
+        recorder.shutdown();
+
+        List<String> lines = Files.readAllLines(capture);
+        assertEquals(2, lines.size());
+        assertEquals(objectMapper.readTree(lines.get(0)).get("ticket").asText(),
+                objectMapper.readTree(lines.get(1)).get("ticket").asText());
+        assertTrue(Files.exists(tempDir.resolve("traffic.capture.salt")));
+    }
+
+    @Test
+    @DisplayName("Deve reenviar a captura na ordem e na velocidade pedidas")
+    void shouldReplayCapture() throws Exception {
+        String lines = """
+                {"at":1000,"ticket":"a1","subject":"Sem VPN","body":"Sem VPN desde ontem"}
+                {"at":1100,"ticket":"a1","subject":"Sem VPN","body":"Sem VPN desde ontem, erro 809"}
+                {"at":1400,"subject":"Impressora","body":"Impressora sem toner"}
+                {"at":1500,"subject":"trunc
+                """;
+        Files.writeString(capture, lines);
+
+        List<String> received = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/classify", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            byte[] response = "{\"success\":true,\"status\":\"applied\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        try {
+            TrafficReplay.Summary summary = new TrafficReplay(
+                    "http://127.0.0.1:" + server.getAddress().getPort(), 2.0, null).replay(capture);
+
+            assertEquals(3, summary.sent());
+            assertEquals(0, summary.failed());
+            assertEquals(3L, summary.statuses().get("applied"));
+            // 400 ms de captura a 2x: pelo menos 200 ms de replay
+            assertTrue(summary.seconds() >= 0.2, "Replay rapido demais: " + summary.seconds());
+            assertEquals(2, received.stream().filter(body -> body.contains("\"ticketId\":\"a1\"")).count());
+            assertEquals(1, received.stream().filter(body -> !body.contains("ticketId")).count());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
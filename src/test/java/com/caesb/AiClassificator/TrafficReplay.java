@@ -0,0 +1,191 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.service.TrafficRecorder.TrafficRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replay de uma captura do TrafficRecorder contra uma instancia em execucao, mantendo os
+ * intervalos de chegada originais (1x) ou acelerados (Nx). O envio e em malha aberta: a
+ * requisicao sai no horario previsto mesmo que as anteriores nao tenham respondido, como no
+ * pico real; o atraso do envio em relacao ao horario previsto tambem e reportado.
+ * Para comparar versoes, rodar a mesma captura contra cada uma e comparar os resumos
+ * (latencia, status e, no /actuator/prometheus, caches, debounce e rate limiter).
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.caesb.AiClassificator.TrafficReplay \
+ *     -Dexec.args="data/traffic.capture http://localhost:8080 10 minha-api-key"
+ * </pre>
+ */
+class TrafficReplay {
+
+    private static final int MAX_IN_FLIGHT = 2048;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI target;
+    private final double speed;
+    private final String apiKey;
+
+    /**
+     * Resumo de um replay.
+     */
+    record Summary(long sent, long failed, double seconds, double throughput, double p50Ms, double p99Ms,
+                   double p999Ms, double maxLagMs, Map<String, Long> statuses) {
+
+        @Override
+        public String toString() {
+            return String.format("requisicoes: %d, falhas de transporte: %d, duracao: %.1f s, %.1f req/s, "
+                            + "p50: %.1f ms, p99: %.1f ms, p999: %.1f ms, atraso maximo de envio: %.1f ms, status: %s",
+                    sent, failed, seconds, throughput, p50Ms, p99Ms, p999Ms, maxLagMs, statuses);
+        }
+    }
+
+    /**
+     * @param baseUrl URL da instancia (ex.: http://localhost:8080)
+     * @param speed   Fator de aceleracao (1 = tempo real)
+     * @param apiKey  X-API-Key (null se a instancia nao exige)
+     */
+    TrafficReplay(String baseUrl, double speed, String apiKey) {
+        this.target = URI.create(baseUrl.replaceAll("/+$", "") + "/api/v1/classify");
+        this.speed = speed;
+        this.apiKey = apiKey;
+    }
+
+    /**
+     * Reenvia a captura (lida em streaming) e espera todas as respostas.
+     */
+    Summary replay(Path capture) throws IOException, InterruptedException {
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder failed = new LongAdder();
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+
+        long startNanos = System.nanoTime();
+        long firstAt = -1;
+        long maxLagNanos = 0;
+        long sent = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(capture, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                TrafficRecord record;
+                try {
+                    record = objectMapper.readValue(line, TrafficRecord.class);
+                } catch (IOException e) {
+                    // Linha final incompleta (captura interrompida)
+                    continue;
+                }
+                if (firstAt < 0) {
+                    firstAt = record.at();
+                }
+
+                long dueNanos = startNanos + (long) ((record.at() - firstAt) * 1_000_000L / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+                inFlight.acquire();
+                long sentNanos = System.nanoTime();
+                maxLagNanos = Math.max(maxLagNanos, sentNanos - dueNanos);
+                sent++;
+
+                calls.add(client.sendAsync(request(record), HttpResponse.BodyHandlers.ofByteArray())
+                        .handle((response, error) -> {
+                            inFlight.release();
+                            if (error != null) {
+                                failed.increment();
+                                return null;
+                            }
+                            latencies.add(System.nanoTime() - sentNanos);
+                            statuses.computeIfAbsent(status(response), key -> new LongAdder()).increment();
+                            return null;
+                        }));
+            }
+        }
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        return new Summary(sent, failed.sum(), seconds, sent / seconds,
+                percentileMs(sorted, 0.50), percentileMs(sorted, 0.99), percentileMs(sorted, 0.999),
+                maxLagNanos / 1e6, statusCounts);
+    }
+
+    private HttpRequest request(TrafficRecord record) throws IOException {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("ticketId", record.ticket());
+        body.put("subject", record.subject());
+        body.put("body", record.body());
+        body.put("provider", record.provider());
+        body.put("model", record.model());
+        body.values().removeIf(value -> value == null);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (apiKey != null && !apiKey.isBlank()) {
+            builder.header("X-API-Key", apiKey);
+        }
+        return builder.build();
+    }
+
+    private String status(HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            return "http_" + response.statusCode();
+        }
+        try {
+            return objectMapper.readTree(response.body()).path("status").asText("unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Uso: TrafficReplay <captura> <url-base> [velocidade=1] [api-key]");
+            System.exit(2);
+        }
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+        String apiKey = args.length > 3 ? args[3] : null;
+
+        Summary summary = new TrafficReplay(args[1], speed, apiKey).replay(Path.of(args[0]));
+        System.out.println("Replay " + args[0] + " a " + speed + "x - " + summary);
+    }
+}
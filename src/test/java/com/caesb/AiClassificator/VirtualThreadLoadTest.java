@@ -0,0 +1,235 @@
+package com.caesb.AiClassificator;
+
+import com.caesb.AiClassificator.config.ThreadingConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Teste de carga do modo virtual threads.
+ * Sobe a aplicacao completa (AIProviderFactory, agendador e RestTemplate reais) contra o Azure
+ * OpenAI simulado com latencia fixa e dispara mais requisicoes simultaneas do que o pool de
+ * threads de plataforma do Tomcat (200) conseguiria atender. Verifica as chamadas simultaneas
+ * que chegam ao simulador, as threads de plataforma, o heap vivo no pico da carga e a ausencia
+ * de pinning (evento JFR jdk.VirtualThreadPinned) causado pela aplicacao ou na chamada a IA.
+ */
+@Slf4j
+@EnabledForJreRange(min = JRE.JAVA_21)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "ai.azure-openai.api-key=load-test-key",
+        "ai.health.probe-enabled=false",
+        "resilience4j.ratelimiter.instances.azureopenai.limitForPeriod=1000000",
+        "resilience4j.ratelimiter.instances.azureopenai.limitRefreshPeriod=1s",
+        "ai.jobs.journal-path=${java.io.tmpdir}/ai-classificator-load-test/jobs.journal",
+        "logging.level.com.caesb.AiClassificator=WARN",
+        "logging.level.com.caesb.AiClassificator.VirtualThreadLoadTest=INFO"
+})
+class VirtualThreadLoadTest {
+
+    private static final int REQUESTS = 1200;
+    private static final long AI_LATENCY_MS = 1000;
+    private static final int MIN_IN_FLIGHT = 1000;
+    // Tamanho padrao do pool de threads de plataforma do Tomcat
+    private static final int TOMCAT_MAX_THREADS = 200;
+    // Metade do heap do container em producao (-Xmx512m): o restante fica para alocacao entre GCs
+    private static final long HEAP_BUDGET_BYTES = 256L * 1024 * 1024;
+    // Pinning mais curto que isso nao aparece no evento (limiar padrao do JFR)
+    private static final Duration PINNED_THRESHOLD = Duration.ofMillis(20);
+    // Chamada ao provider de IA (RestTemplate e cliente HTTP abaixo dele)
+    private static final String AI_CALL_PACKAGE = "com.caesb.AiClassificator.client.";
+    private static final List<String> JDK_PACKAGES = List.of("java.", "jdk.", "sun.", "com.sun.");
+
+    private static final VirtualThreadTaskExecutor AZURE_EXECUTOR = new VirtualThreadTaskExecutor("mock-azure-");
+    private static final MockAzureOpenAIServer AZURE = MockAzureOpenAIServer.start(AZURE_EXECUTOR)
+            .latency(AI_LATENCY_MS, AI_LATENCY_MS);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ThreadingConfig threadingConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void azureEndpoint(DynamicPropertyRegistry registry) {
+        registry.add("ai.azure-openai.endpoint", AZURE::baseUrl);
+    }
+
+    @AfterAll
+    static void stopAzure() {
+        AZURE.close();
+    }
+
+    @Test
+    @DisplayName("Deve manter mais de 1000 chamadas a IA em andamento com poucas threads de plataforma")
+    void shouldSustainThousandInFlightRequests() throws Exception {
+        assertTrue(threadingConfig.isVirtual());
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        AtomicLong liveHeapAtPeak = new AtomicLong(-1);
+        AtomicInteger maxPlatformThreads = new AtomicInteger();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            maxPlatformThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+            // Heap usado sem GC inclui lixo e so diz quando o coletor rodou; mede o heap vivo
+            // uma vez, com as chamadas ao Azure no pico
+            if (liveHeapAtPeak.get() < 0 && AZURE.getInFlight() >= MIN_IN_FLIGHT) {
+                System.gc();
+                liveHeapAtPeak.set(memory.getHeapMemoryUsage().getUsed());
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        VirtualThreadTaskExecutor clientExecutor = new VirtualThreadTaskExecutor("load-client-");
+        HttpClient client = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        long ok;
+        long elapsedMs;
+        List<RecordedEvent> pinnedEvents;
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(PINNED_THRESHOLD).withStackTrace();
+            recording.start();
+
+            long start = System.nanoTime();
+            List<CompletableFuture<Integer>> calls = new ArrayList<>();
+            for (int i = 0; i < REQUESTS; i++) {
+                int n = i;
+                calls.add(CompletableFuture.supplyAsync(() -> post(client, n), clientExecutor));
+            }
+            ok = calls.stream().map(CompletableFuture::join).filter(status -> status == 200).count();
+            elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            recording.stop();
+            pinnedEvents = pinnedEvents(recording);
+        } finally {
+            sampler.shutdownNow();
+        }
+
+        List<RecordedEvent> pinned = pinnedEvents.stream()
+                .filter(VirtualThreadLoadTest::isPinnedByApplication)
+                .toList();
+        pinnedEvents.stream()
+                .collect(Collectors.groupingBy(VirtualThreadLoadTest::blockingFrame, Collectors.counting()))
+                .forEach((frame, count) -> log.info("Pinning em {}: {} eventos", frame, count));
+
+        long scheduled = meterRegistry.find("ai.scheduler.wait").timers().stream().mapToLong(Timer::count).sum();
+
+        log.info("Carga virtual threads - requisicoes: {}, ok: {}, chamadas ao Azure: {}, pico no Azure: {}, "
+                        + "pico de threads de plataforma: {}, heap vivo no pico: {} MB, pinning: {} ({} da aplicacao), "
+                        + "tempo total: {} ms",
+                REQUESTS, ok, AZURE.getRequests(), AZURE.getPeakInFlight(), maxPlatformThreads.get(),
+                liveHeapAtPeak.get() / (1024 * 1024), pinnedEvents.size(), pinned.size(), elapsedMs);
+
+        assertEquals(REQUESTS, ok);
+        assertTrue(scheduled >= REQUESTS, "Chamadas que passaram pelo agendador abaixo do esperado: " + scheduled);
+        assertTrue(AZURE.getPeakInFlight() >= MIN_IN_FLIGHT,
+                "Pico de chamadas simultaneas ao Azure abaixo do esperado: " + AZURE.getPeakInFlight());
+        assertTrue(maxPlatformThreads.get() < TOMCAT_MAX_THREADS,
+                "Threads de plataforma acima do pool do Tomcat: " + maxPlatformThreads.get());
+        assertTrue(liveHeapAtPeak.get() >= 0, "Heap vivo nao medido durante o pico");
+        assertTrue(liveHeapAtPeak.get() < HEAP_BUDGET_BYTES,
+                "Heap vivo no pico acima do orcamento: " + liveHeapAtPeak.get() / (1024 * 1024) + " MB");
+        assertTrue(pinned.isEmpty(), "Virtual threads presas pela aplicacao ou na chamada a IA: " + pinned);
+    }
+
+    private static List<RecordedEvent> pinnedEvents(Recording recording) throws Exception {
+        Path dump = Files.createTempFile("virtual-thread-load-", ".jfr");
+        try {
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump).stream()
+                    .filter(event -> event.getStackTrace() != null)
+                    .toList();
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    /**
+     * Pinning que a aplicacao consegue corrigir: o bloqueio parte de codigo da aplicacao, ou
+     * acontece durante a chamada ao provider de IA (cliente HTTP escolhido pela aplicacao).
+     * Fica de fora o pinning interno de bibliotecas fora da chamada a IA, como a leitura e
+     * escrita bloqueante do socket no NioEndpoint do Tomcat, e o do proprio simulador.
+     */
+    private static boolean isPinnedByApplication(RecordedEvent event) {
+        return isApplicationCode(blockingFrame(event)) || event.getStackTrace().getFrames().stream()
+                .anyMatch(frame -> typeName(frame).startsWith(AI_CALL_PACKAGE));
+    }
+
+    /**
+     * Primeiro frame fora do JDK a partir do topo da pilha: o codigo que fez a chamada bloqueante.
+     */
+    private static String blockingFrame(RecordedEvent event) {
+        return event.getStackTrace().getFrames().stream()
+                .filter(frame -> JDK_PACKAGES.stream().noneMatch(typeName(frame)::startsWith))
+                .findFirst()
+                .map(frame -> typeName(frame) + "." + frame.getMethod().getName())
+                .orElse("jdk");
+    }
+
+    private static boolean isApplicationCode(String frame) {
+        return frame.startsWith("com.caesb.")
+                && !frame.startsWith(MockAzureOpenAIServer.class.getName())
+                && !frame.startsWith(VirtualThreadLoadTest.class.getName());
+    }
+
+    private static String typeName(RecordedFrame frame) {
+        return frame.getMethod().getType().getName();
+    }
+
+    private int post(HttpClient client, int n) {
+        String json = "{\"subject\": \"Sistema fora do ar " + n + "\", \"body\": \"Chamado de carga " + n + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/classify"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}